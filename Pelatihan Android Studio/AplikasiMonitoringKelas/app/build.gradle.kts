@@ -1,6 +1,8 @@
 plugins {
     alias(libs.plugins.android.application)
     alias(libs.plugins.kotlin.android)
+    id("com.google.devtools.ksp")
+    alias(libs.plugins.baselineprofile)
 }
 
 android {
@@ -33,6 +35,11 @@ android {
                 "proguard-rules.pro"
             )
         }
+        // benchmarkRelease & nonMinifiedRelease dibuat plugin baselineprofile dari release;
+        // pakai kunci debug supaya bisa di-install ke device uji tanpa keystore rilis
+        matching { it.name == "benchmarkRelease" || it.name == "nonMinifiedRelease" }.configureEach {
+            signingConfig = signingConfigs.getByName("debug")
+        }
     }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_1_8
@@ -41,6 +48,15 @@ android {
     kotlinOptions {
         jvmTarget = "1.8"
     }
+    testOptions {
+        // android.util.Log dan stub Android lain mengembalikan nilai default di unit test JVM
+        unitTests.isReturnDefaultValues = true
+    }
+}
+
+baselineProfile {
+    // Dibuat manual lewat :app:generateBaselineProfile (butuh device + server API yang berisi data)
+    automaticGenerationDuringBuild = false
 }
 
 dependencies {
@@ -73,9 +89,13 @@ dependencies {
     implementation(libs.kotlinx.coroutines.android)
     implementation(libs.kotlinx.coroutines.core)
 
+    // Koleksi immutable: dianggap stabil oleh compiler Compose
+    implementation(libs.kotlinx.collections.immutable)
+
     // HTTP Client untuk API calls
     implementation("com.squareup.okhttp3:okhttp:4.12.0")
     implementation("com.squareup.okhttp3:logging-interceptor:4.12.0")
+    implementation("com.squareup.okhttp3:okhttp-sse:4.12.0") // push perubahan jadwal (LiveUpdatesClient)
 
     // JSON parsing
     implementation("com.google.code.gson:gson:2.10.1")
@@ -88,13 +108,37 @@ dependencies {
     implementation("androidx.lifecycle:lifecycle-viewmodel-ktx:2.7.0")
     implementation("androidx.lifecycle:lifecycle-livedata-ktx:2.7.0")
 
+    // Room - outbox kehadiran offline
+    implementation(libs.androidx.room.runtime)
+    implementation(libs.androidx.room.ktx)
+    ksp(libs.androidx.room.compiler)
+    implementation(libs.androidx.room.paging)
+
+    // Paging 3 - riwayat kehadiran (Room sebagai cache halaman)
+    implementation(libs.androidx.paging.runtime)
+    implementation(libs.androidx.paging.compose)
+
+    // WorkManager - sinkronisasi kehadiran di background
+    implementation(libs.androidx.work.runtime)
+
     // Security - Encrypted SharedPreferences
     implementation("androidx.security:security-crypto:1.1.0-alpha06")
 
+    // App Startup - initializer ditunda/di-background, lihat package startup
+    implementation(libs.androidx.startup.runtime)
+
+    // Baseline Profile - jalur panas layar Kurikulum dikompilasi AOT saat install
+    implementation(libs.androidx.profileinstaller)
+    baselineProfile(project(":macrobenchmark"))
+
+    // JankStats - durasi frame per layar di build debug (lihat perf/PerfInstrumentation)
+    implementation(libs.androidx.metrics.performance)
+
     // Debug dependencies
     debugImplementation(libs.androidx.compose.ui.tooling)
 
     testImplementation(libs.junit)
+    testImplementation("com.squareup.okhttp3:mockwebserver:4.12.0")
     androidTestImplementation(libs.androidx.junit)
     androidTestImplementation(libs.androidx.espresso.core)
 }
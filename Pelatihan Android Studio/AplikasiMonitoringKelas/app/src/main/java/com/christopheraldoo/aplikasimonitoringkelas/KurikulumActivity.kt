@@ -10,9 +10,12 @@ import androidx.compose.material.icons.Icons
 import androidx.compose.material.icons.filled.*
 import androidx.compose.material3.*
 import androidx.compose.runtime.*
+import androidx.compose.ui.ExperimentalComposeUiApi
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.graphics.vector.ImageVector
 import androidx.compose.ui.platform.LocalContext
+import androidx.compose.ui.semantics.semantics
+import androidx.compose.ui.semantics.testTagsAsResourceId
 import androidx.compose.ui.unit.dp
 import androidx.navigation.NavDestination.Companion.hierarchy
 import androidx.navigation.NavGraph.Companion.findStartDestination
@@ -65,7 +68,7 @@ sealed class KurikulumNavItem(
     object History : KurikulumNavItem("history", "Riwayat", Icons.Default.History)
 }
 
-@OptIn(ExperimentalMaterial3Api::class)
+@OptIn(ExperimentalMaterial3Api::class, ExperimentalComposeUiApi::class)
 @Composable
 fun KurikulumMainApp(
     isDarkMode: Boolean,
@@ -90,6 +93,8 @@ fun KurikulumMainApp(
     )
     
     Scaffold(
+        // testTag terbaca sebagai resource id oleh UiAutomator (modul macrobenchmark)
+        modifier = Modifier.semantics { testTagsAsResourceId = true },
         topBar = {
             TopAppBar(
                 title = { 
@@ -110,7 +115,7 @@ fun KurikulumMainApp(
                             KurikulumNavItem.Dashboard.route -> viewModel.loadDashboard()
                             KurikulumNavItem.ClassManagement.route -> viewModel.loadClassManagement()
                             KurikulumNavItem.Pending.route -> viewModel.loadPendingAttendances()
-                            KurikulumNavItem.History.route -> viewModel.loadHistory(refresh = true)
+                            KurikulumNavItem.History.route -> viewModel.refreshHistory()
                         }
                     }) {
                         Icon(Icons.Default.Refresh, "Refresh")
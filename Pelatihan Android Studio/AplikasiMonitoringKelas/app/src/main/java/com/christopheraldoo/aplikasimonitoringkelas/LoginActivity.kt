@@ -5,6 +5,7 @@ import android.content.Intent
 import android.os.Bundle
 import android.widget.Toast
 import androidx.activity.ComponentActivity
+import androidx.activity.compose.ReportDrawnAfter
 import androidx.activity.compose.setContent
 import androidx.compose.foundation.Image
 import androidx.compose.foundation.layout.*
@@ -20,9 +21,13 @@ import androidx.compose.material3.*
 import androidx.compose.material3.ExperimentalMaterial3Api
 import androidx.compose.runtime.*
 import androidx.compose.ui.Alignment
+import androidx.compose.ui.ExperimentalComposeUiApi
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.graphics.Color
 import androidx.compose.ui.platform.LocalContext
+import androidx.compose.ui.platform.testTag
+import androidx.compose.ui.semantics.semantics
+import androidx.compose.ui.semantics.testTagsAsResourceId
 import androidx.compose.ui.res.painterResource
 import androidx.compose.ui.text.input.KeyboardType
 import androidx.compose.ui.text.input.PasswordVisualTransformation
@@ -32,8 +37,10 @@ import androidx.compose.ui.unit.sp
 import com.christopheraldoo.aplikasimonitoringkelas.network.NetworkUtils
 import com.christopheraldoo.aplikasimonitoringkelas.data.LoginRequest
 import com.christopheraldoo.aplikasimonitoringkelas.network.RetrofitClient
+import com.christopheraldoo.aplikasimonitoringkelas.repository.DataRepository
 import com.christopheraldoo.aplikasimonitoringkelas.util.SessionManager
 import com.christopheraldoo.aplikasimonitoringkelas.network.NetworkConfig
+import com.christopheraldoo.aplikasimonitoringkelas.startup.StartupWarmup
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
@@ -48,6 +55,8 @@ class LoginActivity : ComponentActivity() {
             MaterialTheme {
                 LoginScreen()
             }
+            // timeToFullDisplay: form tampil dan token + HTTP client sudah siap dipakai login
+            ReportDrawnAfter { StartupWarmup.await() }
         }
     }
     
@@ -80,7 +89,7 @@ private fun normalizeRole(raw: String?): String {
     }
 }
 
-@OptIn(ExperimentalMaterial3Api::class)
+@OptIn(ExperimentalMaterial3Api::class, ExperimentalComposeUiApi::class)
 @Composable
 fun LoginScreen() {
     val context = LocalContext.current
@@ -99,6 +108,7 @@ fun LoginScreen() {
     Column(
         modifier = Modifier
             .fillMaxSize()
+            .semantics { testTagsAsResourceId = true } // dipakai modul macrobenchmark untuk login
             .padding(24.dp)
             .verticalScroll(scrollState),
         horizontalAlignment = Alignment.CenterHorizontally,
@@ -204,6 +214,7 @@ fun LoginScreen() {
             modifier = Modifier
                 .fillMaxWidth()
                 .padding(bottom = 16.dp)
+                .testTag("login_email")
         )
 
         // Password TextField
@@ -234,6 +245,7 @@ fun LoginScreen() {
             modifier = Modifier
                 .fillMaxWidth()
                 .padding(bottom = 24.dp)
+                .testTag("login_password")
         )
 
         // Login Button
@@ -303,9 +315,16 @@ fun LoginScreen() {
                                             email = user.email,
                                             role = roleFromServer, // keep original
                                             token = token,
-                                            classId = user.classId
+                                            classId = user.classId,
+                                            expiresInSeconds = responseBody?.data?.expiresIn
                                         )
 
+                                        // Isi cache data master role ini lewat satu request bundle selagi layar berikutnya dibuka
+                                        val appContext = context.applicationContext
+                                        CoroutineScope(Dispatchers.IO).launch {
+                                            DataRepository(appContext).preloadStartupData()
+                                        }
+
                                         Toast.makeText(context, "Login berhasil sebagai $roleFromServer", Toast.LENGTH_SHORT).show()
 
                                         when (normalizedRole) {
@@ -372,7 +391,8 @@ fun LoginScreen() {
             },
             modifier = Modifier
                 .fillMaxWidth()
-                .height(56.dp),
+                .height(56.dp)
+                .testTag("login_submit"),
             enabled = !isLoading,
             colors = ButtonDefaults.buttonColors(
                 containerColor = MaterialTheme.colorScheme.primary,
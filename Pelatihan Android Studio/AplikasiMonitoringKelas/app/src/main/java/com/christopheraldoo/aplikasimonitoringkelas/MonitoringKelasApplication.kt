@@ -1,16 +1,22 @@
 package com.christopheraldoo.aplikasimonitoringkelas
 
 import android.app.Application
+import android.util.Log
+import androidx.work.Configuration
 
 /**
  * Application class for Monitoring Kelas
  * Configured to use MySQL database through Laravel API
+ *
+ * Inisialisasi tidak lagi di onCreate: lihat package startup (App Startup) untuk
+ * instrumentasi performa, warmup sesi/HTTP client, dan penjadwalan sinkronisasi kehadiran.
  */
-class MonitoringKelasApplication : Application() {
-    
-    override fun onCreate() {
-        super.onCreate()
-        // Initialize any application-wide components here
-        // No local database needed - everything goes through MySQL via API
-    }
+class MonitoringKelasApplication : Application(), Configuration.Provider {
+
+    // WorkManager on-demand: initializer bawaannya dimatikan di manifest supaya tidak
+    // membuka database WorkManager di main thread sebelum frame pertama
+    override val workManagerConfiguration: Configuration
+        get() = Configuration.Builder()
+            .setMinimumLoggingLevel(Log.INFO)
+            .build()
 }
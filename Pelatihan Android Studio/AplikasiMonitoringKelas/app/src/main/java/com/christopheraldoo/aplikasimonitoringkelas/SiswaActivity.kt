@@ -13,6 +13,7 @@ import androidx.compose.material.icons.filled.Logout
 import androidx.compose.material3.*
 import androidx.compose.runtime.Composable
 import androidx.compose.runtime.getValue
+import androidx.compose.runtime.remember
 import androidx.compose.runtime.rememberCoroutineScope
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.graphics.vector.ImageVector
@@ -51,8 +52,9 @@ class SiswaActivity : ComponentActivity() {
 fun SiswaApp() {
     val context = LocalContext.current
     val sessionManager = SessionManager(context)
-    val repository = NetworkRepository(context)
-    val viewModel = SiswaViewModel(repository)
+    // remember: ViewModel memegang collector outbox, jangan dibuat ulang setiap recomposition
+    val repository = remember { NetworkRepository(context) }
+    val viewModel = remember { SiswaViewModel(repository) }
     val navController = rememberNavController()
     val scope = rememberCoroutineScope()    // Get user data
     val userName = sessionManager.getUserName() ?: "Siswa"
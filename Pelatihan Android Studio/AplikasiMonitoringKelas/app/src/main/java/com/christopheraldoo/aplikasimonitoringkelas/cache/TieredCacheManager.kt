@@ -0,0 +1,396 @@
+package com.christopheraldoo.aplikasimonitoringkelas.cache
+
+import android.content.Context
+import android.util.Log
+import androidx.annotation.VisibleForTesting
+import androidx.annotation.WorkerThread
+import com.google.gson.Gson
+import com.google.gson.reflect.TypeToken
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.IOException
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * Cache dua tingkat untuk payload API:
+ * 1. Memory LRU berisi object yang sudah di-decode (dibatasi berdasarkan ukuran byte JSON)
+ * 2. Disk store satu file per key, sehingga menulis satu entry tidak menulis ulang seluruh cache
+ *
+ * API sama dengan CacheManager lama (saveData/getData/isCacheValid) yang menyimpan semua data
+ * di satu file SharedPreferences. Validitas tetap ditentukan oleh ttlMs yang dikirim saat membaca.
+ */
+class TieredCacheManager @VisibleForTesting internal constructor(
+    private val cacheDir: File,
+    private val maxMemoryBytes: Long = DEFAULT_MAX_MEMORY_BYTES,
+    private val maxDiskBytes: Long = DEFAULT_MAX_DISK_BYTES,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+    private val gson = Gson()
+
+    private class MemoryEntry(
+        val value: Any?,
+        val savedAt: Long,
+        val ttlMs: Long,
+        val sizeBytes: Int
+    )
+
+    // accessOrder = true -> urutan iterasi dari yang paling lama tidak diakses (LRU)
+    private val memory = LinkedHashMap<String, MemoryEntry>(32, 0.75f, true)
+    private var memoryBytes = 0L
+    private val diskLock = Any()
+    private var diskBytes = -1L // -1 = belum dihitung, dihitung saat akses disk pertama
+
+    private var memoryHits = 0L
+    private var diskHits = 0L
+    private var misses = 0L
+    private var expired = 0L
+    private var memoryEvictions = 0L
+    private var diskEvictions = 0L
+
+    companion object {
+        private const val TAG = "TieredCacheManager"
+
+        // TTL: 5 menit untuk data yang sering berubah (schedules)
+        const val TTL_SHORT = 5 * 60 * 1000L
+
+        // TTL: 30 menit untuk data master (users, teachers, subjects, classrooms)
+        const val TTL_LONG = 30 * 60 * 1000L
+
+        const val DEFAULT_MAX_MEMORY_BYTES = 4L * 1024 * 1024   // 4MB JSON ter-decode di memory
+        const val DEFAULT_MAX_DISK_BYTES = 20L * 1024 * 1024    // 20MB di disk
+
+        private const val DIR_NAME = "monitoring_cache"
+        private const val FILE_SUFFIX = ".cache"
+        private const val FILE_MAGIC = 0x4D4B4331 // "MKC1"
+        private const val LEGACY_PREFS_NAME = "MonitoringKelasCache"
+
+        @Volatile
+        private var instance: TieredCacheManager? = null
+
+        private val legacyPrefsRemoved = AtomicBoolean(false)
+
+        /**
+         * Satu instance per proses supaya memory LRU dipakai bersama semua repository.
+         * Tidak menyentuh disk: aman dipanggil dari main thread (activity, SessionManager).
+         */
+        fun getInstance(context: Context): TieredCacheManager {
+            instance?.let { return it }
+            return synchronized(this) {
+                instance ?: run {
+                    val appContext = context.applicationContext ?: context
+                    TieredCacheManager(File(appContext.cacheDir, DIR_NAME)).also { instance = it }
+                }
+            }
+        }
+
+        /**
+         * Hapus cache SharedPreferences lama (bisa berukuran megabytes). Disk I/O: dipanggil dari
+         * StartupWarmup di Dispatchers.IO, dan hanya sekali per proses.
+         */
+        @WorkerThread
+        fun removeLegacyPrefs(context: Context) {
+            if (!legacyPrefsRemoved.compareAndSet(false, true)) return
+            val appContext = context.applicationContext ?: context
+            try {
+                appContext.deleteSharedPreferences(LEGACY_PREFS_NAME)
+            } catch (e: Exception) {
+                Log.w(TAG, "Gagal menghapus cache lama: ${e.message}")
+            }
+        }
+    }
+
+    /**
+     * Statistik cache untuk debugging dan monitoring
+     */
+    data class CacheStats(
+        val memoryEntries: Int,
+        val memoryBytes: Long,
+        val diskBytes: Long,
+        val memoryHits: Long,
+        val diskHits: Long,
+        val misses: Long,
+        val expired: Long,
+        val memoryEvictions: Long,
+        val diskEvictions: Long
+    )
+
+    /**
+     * Save data dengan automatic TTL
+     */
+    fun <T> saveData(key: String, data: T, ttlMs: Long = TTL_LONG) {
+        try {
+            val bytes = gson.toJson(data).toByteArray(Charsets.UTF_8)
+            val now = clock()
+            putInMemory(key, MemoryEntry(data, now, ttlMs, bytes.size))
+            writeToDisk(key, now, ttlMs, bytes)
+        } catch (e: Exception) {
+            Log.e(TAG, "Failed to save cache for $key", e)
+        }
+    }
+
+    /**
+     * Simpan beberapa entry sekaligus dengan waktu simpan yang sama.
+     * Semua entry di-serialize dulu; kalau satu gagal tidak ada yang ditulis. Pembaca memory
+     * tidak pernah melihat sebagian entry baru dan sebagian entry lama.
+     */
+    fun saveAll(entries: Map<String, Any?>, ttlMs: Long = TTL_LONG): Boolean {
+        val encoded = try {
+            entries.mapValues { (_, data) -> gson.toJson(data).toByteArray(Charsets.UTF_8) }
+        } catch (e: Exception) {
+            Log.e(TAG, "Failed to encode cache entries ${entries.keys}", e)
+            return false
+        }
+
+        val now = clock()
+        synchronized(memory) {
+            encoded.forEach { (key, bytes) -> putInMemory(key, MemoryEntry(entries[key], now, ttlMs, bytes.size)) }
+        }
+        return try {
+            encoded.forEach { (key, bytes) -> writeToDisk(key, now, ttlMs, bytes) }
+            true
+        } catch (e: Exception) {
+            // Memory tier sudah konsisten; disk cukup dibaca ulang dari server nanti
+            Log.e(TAG, "Failed to persist cache entries ${entries.keys}", e)
+            false
+        }
+    }
+
+    /**
+     * Get data dengan automatic TTL validation
+     */
+    fun <T> getData(key: String, type: TypeToken<T>, ttlMs: Long = TTL_LONG): T? {
+        return try {
+            val now = clock()
+
+            synchronized(memory) {
+                memory[key]?.let { entry ->
+                    if (now - entry.savedAt > ttlMs) {
+                        expired++
+                        removeFromMemory(key)
+                    } else {
+                        memoryHits++
+                        @Suppress("UNCHECKED_CAST")
+                        return entry.value as T
+                    }
+                }
+            }
+
+            val stored = readFromDisk(key)
+            if (stored == null) {
+                synchronized(memory) { misses++ }
+                return null
+            }
+            if (now - stored.savedAt > ttlMs) {
+                synchronized(memory) { expired++ }
+                clearData(key)
+                return null
+            }
+
+            val value: T = gson.fromJson(String(stored.payload, Charsets.UTF_8), type.type)
+            synchronized(memory) { diskHits++ }
+            putInMemory(key, MemoryEntry(value, stored.savedAt, stored.ttlMs, stored.payload.size))
+            value
+        } catch (e: Exception) {
+            Log.e(TAG, "Failed to read cache for $key", e)
+            null
+        }
+    }
+
+    /**
+     * Check apakah cache masih valid
+     */
+    fun isCacheValid(key: String, ttlMs: Long = TTL_LONG): Boolean {
+        val savedAt = getSavedTime(key) ?: return false
+        return clock() - savedAt <= ttlMs
+    }
+
+    /**
+     * Clear cache untuk key tertentu
+     */
+    fun clearData(key: String) {
+        synchronized(memory) { removeFromMemory(key) }
+        synchronized(diskLock) {
+            val file = fileFor(key)
+            if (file.exists()) {
+                val length = file.length()
+                if (file.delete() && diskBytes >= 0) diskBytes -= length
+            }
+        }
+    }
+
+    /**
+     * Clear semua cache
+     */
+    fun clearAllCache() {
+        synchronized(memory) {
+            memory.clear()
+            memoryBytes = 0
+        }
+        synchronized(diskLock) {
+            cacheDir.listFiles()?.forEach { it.delete() }
+            diskBytes = 0
+        }
+    }
+
+    /**
+     * Get remaining TTL dalam milliseconds
+     */
+    fun getRemainingTTL(key: String, ttlMs: Long = TTL_LONG): Long {
+        val savedAt = getSavedTime(key) ?: return 0
+        return maxOf(0, ttlMs - (clock() - savedAt))
+    }
+
+    fun getStats(): CacheStats {
+        val disk = synchronized(diskLock) { ensureDiskBytes() }
+        return synchronized(memory) {
+            CacheStats(
+                memoryEntries = memory.size,
+                memoryBytes = memoryBytes,
+                diskBytes = disk,
+                memoryHits = memoryHits,
+                diskHits = diskHits,
+                misses = misses,
+                expired = expired,
+                memoryEvictions = memoryEvictions,
+                diskEvictions = diskEvictions
+            )
+        }
+    }
+
+    // ========== MEMORY TIER ==========
+
+    private fun putInMemory(key: String, entry: MemoryEntry) {
+        synchronized(memory) {
+            removeFromMemory(key)
+            // Entry yang lebih besar dari seluruh budget memory hanya disimpan di disk
+            if (entry.sizeBytes > maxMemoryBytes) return
+
+            memory[key] = entry
+            memoryBytes += entry.sizeBytes
+
+            val iterator = memory.entries.iterator()
+            while (memoryBytes > maxMemoryBytes && iterator.hasNext()) {
+                val eldest = iterator.next()
+                iterator.remove()
+                memoryBytes -= eldest.value.sizeBytes
+                memoryEvictions++
+            }
+        }
+    }
+
+    // Harus dipanggil di dalam synchronized(memory)
+    private fun removeFromMemory(key: String) {
+        memory.remove(key)?.let { memoryBytes -= it.sizeBytes }
+    }
+
+    private fun getSavedTime(key: String): Long? {
+        synchronized(memory) {
+            memory[key]?.let { return it.savedAt }
+        }
+        return readHeader(key)?.first
+    }
+
+    // ========== DISK TIER ==========
+
+    private class StoredEntry(val savedAt: Long, val ttlMs: Long, val payload: ByteArray)
+
+    private fun fileFor(key: String): File {
+        val safeName = key.replace(Regex("[^A-Za-z0-9._-]"), "_").take(64)
+        return File(cacheDir, "${safeName}_${Integer.toHexString(key.hashCode())}$FILE_SUFFIX")
+    }
+
+    private fun writeToDisk(key: String, savedAt: Long, ttlMs: Long, payload: ByteArray) {
+        synchronized(diskLock) {
+            ensureDiskBytes()
+            val target = fileFor(key)
+            val previousLength = if (target.exists()) target.length() else 0L
+            val temp = File(cacheDir, target.name + ".tmp")
+
+            DataOutputStream(FileOutputStream(temp).buffered()).use { out ->
+                out.writeInt(FILE_MAGIC)
+                out.writeLong(savedAt)
+                out.writeLong(ttlMs)
+                out.writeUTF(key)
+                out.write(payload)
+            }
+            // Rename atomik: pembaca tidak pernah melihat file yang setengah ditulis
+            if (!temp.renameTo(target)) {
+                temp.delete()
+                throw IOException("Failed to commit cache file for $key")
+            }
+
+            diskBytes += target.length() - previousLength
+            trimDisk()
+        }
+    }
+
+    private fun readFromDisk(key: String): StoredEntry? {
+        synchronized(diskLock) {
+            val file = fileFor(key)
+            if (!file.exists()) return null
+            return try {
+                DataInputStream(FileInputStream(file).buffered()).use { input ->
+                    if (input.readInt() != FILE_MAGIC) return null
+                    val savedAt = input.readLong()
+                    val ttlMs = input.readLong()
+                    if (input.readUTF() != key) return null // hash collision
+                    StoredEntry(savedAt, ttlMs, input.readBytes())
+                }
+            } catch (e: IOException) {
+                Log.w(TAG, "Corrupt cache file for $key, deleting", e)
+                file.delete()
+                null
+            }
+        }
+    }
+
+    private fun readHeader(key: String): Pair<Long, Long>? {
+        synchronized(diskLock) {
+            val file = fileFor(key)
+            if (!file.exists()) return null
+            return try {
+                DataInputStream(FileInputStream(file).buffered()).use { input ->
+                    if (input.readInt() != FILE_MAGIC) return null
+                    val savedAt = input.readLong()
+                    val ttlMs = input.readLong()
+                    if (input.readUTF() != key) return null
+                    Pair(savedAt, ttlMs)
+                }
+            } catch (e: IOException) {
+                null
+            }
+        }
+    }
+
+    // Harus dipanggil di dalam synchronized(diskLock)
+    private fun ensureDiskBytes(): Long {
+        if (diskBytes < 0) {
+            if (!cacheDir.exists()) cacheDir.mkdirs()
+            diskBytes = cacheDir.listFiles()
+                ?.filter { it.name.endsWith(FILE_SUFFIX) }
+                ?.sumOf { it.length() } ?: 0L
+        }
+        return diskBytes
+    }
+
+    // Harus dipanggil di dalam synchronized(diskLock)
+    private fun trimDisk() {
+        if (diskBytes <= maxDiskBytes) return
+
+        val files = cacheDir.listFiles()
+            ?.filter { it.name.endsWith(FILE_SUFFIX) }
+            ?.sortedBy { it.lastModified() } ?: return
+
+        for (file in files) {
+            if (diskBytes <= maxDiskBytes) break
+            val length = file.length()
+            if (file.delete()) {
+                diskBytes -= length
+                synchronized(memory) { diskEvictions++ }
+            }
+        }
+    }
+}
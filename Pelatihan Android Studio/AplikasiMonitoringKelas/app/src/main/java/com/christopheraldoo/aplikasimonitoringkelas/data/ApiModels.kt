@@ -11,7 +11,14 @@ data class LoginRequest(
 data class LoginData(
     @SerializedName("user") val user: User,
     @SerializedName("token") val token: String,
-    @SerializedName("token_type") val tokenType: String
+    @SerializedName("token_type") val tokenType: String,
+    @SerializedName("expires_in") val expiresIn: Long? = null // detik; null = token tidak kedaluwarsa
+)
+
+data class RefreshTokenData(
+    @SerializedName("token") val token: String,
+    @SerializedName("token_type") val tokenType: String,
+    @SerializedName("expires_in") val expiresIn: Long? = null
 )
 
 data class LoginResponse(
@@ -196,6 +203,16 @@ data class StudentWeeklyScheduleResponse(
     @SerializedName("message") val message: String? = null
 )
 
+// Response delta sync schedules-mobile?since=<cursor>
+data class ScheduleDeltaResponse(
+    @SerializedName("success") val success: Boolean,
+    @SerializedName("message") val message: String? = null,
+    @SerializedName("full") val full: Boolean = false, // true = snapshot penuh, ganti seluruh data lokal
+    @SerializedName("cursor") val cursor: String? = null,
+    @SerializedName("data") val data: List<ScheduleApi> = emptyList(),
+    @SerializedName("deleted") val deleted: List<Int> = emptyList()
+)
+
 // === TEACHER MANAGEMENT ===
 data class TeacherApi(
     @SerializedName("id") val id: Int,
@@ -325,3 +342,21 @@ data class ApiResponse<T>(
     @SerializedName("message") val message: String,
     @SerializedName("data") val data: T? = null
 )
+
+// === LIVE UPDATES (SSE live/schedule-events) ===
+// Satu event = satu field jadwal yang berubah pada tanggal tertentu
+data class ScheduleChangeEvent(
+    @SerializedName("id") val id: Long,
+    @SerializedName("schedule_id") val scheduleId: Int,
+    @SerializedName("date") val date: String,
+    @SerializedName("kelas") val kelas: String? = null,
+    @SerializedName("field") val field: String, // status, substitute_teacher, teacher_on_leave, leave_reason
+    @SerializedName("value") val value: String? = null
+) {
+    companion object {
+        const val FIELD_STATUS = "status"
+        const val FIELD_SUBSTITUTE_TEACHER = "substitute_teacher"
+        const val FIELD_TEACHER_ON_LEAVE = "teacher_on_leave"
+        const val FIELD_LEAVE_REASON = "leave_reason"
+    }
+}
@@ -453,6 +453,20 @@ data class BulkConfirmResponse(
 
 data class BulkConfirmResult(
     @SerializedName("confirmed_count") val confirmedCount: Int,
+    @SerializedName("created_count") val createdCount: Int = 0,
     @SerializedName("skipped_count") val skippedCount: Int,
-    @SerializedName("results") val results: List<ConfirmAttendanceResult>
+    @SerializedName("failed_count") val failedCount: Int = 0,
+    @SerializedName("results") val results: List<BulkConfirmItemResult> = emptyList()
+)
+
+// Hasil per item: attendance_id untuk item pending, schedule_id + date untuk item belum_lapor
+data class BulkConfirmItemResult(
+    @SerializedName("attendance_id") val attendanceId: Int? = null,
+    @SerializedName("schedule_id") val scheduleId: Int? = null,
+    @SerializedName("date") val date: String? = null,
+    @SerializedName("id") val id: Int? = null,
+    @SerializedName("status") val status: String? = null,
+    @SerializedName("teacher_name") val teacherName: String? = null,
+    @SerializedName("action") val action: String, // "confirmed", "created", "skipped", "failed"
+    @SerializedName("reason") val reason: String? = null
 )
@@ -0,0 +1,108 @@
+package com.christopheraldoo.aplikasimonitoringkelas.data.local
+
+import android.content.Context
+import androidx.room.Database
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
+
+/**
+ * Database lokal aplikasi. Server (MySQL via Laravel API) tetap sumber kebenaran;
+ * tabel di sini hanya menyimpan data yang harus bertahan saat offline.
+ */
+@Database(
+    entities = [
+        PendingKehadiran::class,
+        ScheduleEntity::class,
+        SyncCursor::class,
+        RiwayatEntity::class,
+        KurikulumHistoryEntity::class,
+        RemoteKey::class
+    ],
+    version = 4,
+    exportSchema = false
+)
+abstract class AppDatabase : RoomDatabase() {
+
+    abstract fun pendingKehadiranDao(): PendingKehadiranDao
+
+    abstract fun scheduleDao(): ScheduleDao
+
+    abstract fun riwayatDao(): RiwayatDao
+
+    abstract fun kurikulumHistoryDao(): KurikulumHistoryDao
+
+    abstract fun remoteKeyDao(): RemoteKeyDao
+
+    companion object {
+        private const val DATABASE_NAME = "monitoring_kelas.db"
+
+        // v2: salinan jadwal lokal + cursor delta sync. Outbox kehadiran di v1 tidak boleh hilang.
+        val MIGRATION_1_2 = object : Migration(1, 2) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `schedules` (`id` INTEGER NOT NULL, `class_id` INTEGER NOT NULL, " +
+                        "`subject_id` INTEGER NOT NULL, `teacher_id` INTEGER NOT NULL, `day_of_week` TEXT NOT NULL, " +
+                        "`period` INTEGER NOT NULL, `start_time` TEXT NOT NULL, `end_time` TEXT NOT NULL, " +
+                        "`status` TEXT NOT NULL, `class_name` TEXT, `subject_name` TEXT, `teacher_name` TEXT, " +
+                        "PRIMARY KEY(`id`))"
+                )
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `sync_cursors` (`resource` TEXT NOT NULL, `cursor` TEXT NOT NULL, " +
+                        "`updated_at` INTEGER NOT NULL, PRIMARY KEY(`resource`))"
+                )
+            }
+        }
+
+        // v3: cache halaman riwayat untuk Paging + remote key per daftar
+        val MIGRATION_2_3 = object : Migration(2, 3) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `riwayat_kehadiran` (`id` INTEGER NOT NULL, `position` INTEGER NOT NULL, " +
+                        "`tanggal` TEXT, `status` TEXT, `catatan` TEXT, `day` TEXT, `period` INTEGER NOT NULL, " +
+                        "`time` TEXT, `jam_masuk` TEXT, `subject` TEXT, `teacher` TEXT, PRIMARY KEY(`id`))"
+                )
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_riwayat_kehadiran_position` ON `riwayat_kehadiran` (`position`)")
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `kurikulum_history` (`query_key` TEXT NOT NULL, `id` INTEGER NOT NULL, " +
+                        "`position` INTEGER NOT NULL, `date` TEXT, `day` TEXT, `period` INTEGER, `time` TEXT, " +
+                        "`class_name` TEXT, `class_level` INTEGER, `subject_name` TEXT, `original_teacher_id` INTEGER, " +
+                        "`original_teacher_name` TEXT, `teacher_id` INTEGER NOT NULL, `teacher_name` TEXT, `status` TEXT, " +
+                        "`arrival_time` TEXT, `keterangan` TEXT, `is_substituted` INTEGER NOT NULL, `created_at` TEXT, " +
+                        "PRIMARY KEY(`query_key`, `id`))"
+                )
+                db.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_kurikulum_history_query_key_position` " +
+                        "ON `kurikulum_history` (`query_key`, `position`)"
+                )
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `remote_keys` (`label` TEXT NOT NULL, `next_page` INTEGER, " +
+                        "`total` INTEGER NOT NULL, `updated_at` INTEGER NOT NULL, PRIMARY KEY(`label`))"
+                )
+            }
+        }
+
+        // v4: pemilik baris outbox. Baris lama (user_id = 0) tidak diketahui pemiliknya dan dibuang saat drain.
+        val MIGRATION_3_4 = object : Migration(3, 4) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("ALTER TABLE `pending_kehadiran` ADD COLUMN `user_id` INTEGER NOT NULL DEFAULT 0")
+            }
+        }
+
+        @Volatile
+        private var instance: AppDatabase? = null
+
+        fun getInstance(context: Context): AppDatabase {
+            instance?.let { return it }
+            return synchronized(this) {
+                instance ?: Room.databaseBuilder(
+                    context.applicationContext ?: context,
+                    AppDatabase::class.java,
+                    DATABASE_NAME
+                ).addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4)
+                    .build().also { instance = it }
+            }
+        }
+    }
+}
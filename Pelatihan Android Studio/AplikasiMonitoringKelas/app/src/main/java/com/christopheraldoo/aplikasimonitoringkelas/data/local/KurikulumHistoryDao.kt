@@ -0,0 +1,29 @@
+package com.christopheraldoo.aplikasimonitoringkelas.data.local
+
+import androidx.paging.PagingSource
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+
+@Dao
+interface KurikulumHistoryDao {
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertAll(items: List<KurikulumHistoryEntity>)
+
+    @Query("DELETE FROM kurikulum_history WHERE query_key = :queryKey")
+    suspend fun clearQuery(queryKey: String)
+
+    /**
+     * Hanya cache filter yang sedang dipakai yang disimpan, supaya tabel tidak tumbuh terus
+     */
+    @Query("DELETE FROM kurikulum_history WHERE query_key != :keep")
+    suspend fun deleteOtherQueries(keep: String)
+
+    @Query("DELETE FROM kurikulum_history")
+    suspend fun clear()
+
+    @Query("SELECT * FROM kurikulum_history WHERE query_key = :queryKey ORDER BY position ASC")
+    fun pagingSource(queryKey: String): PagingSource<Int, KurikulumHistoryEntity>
+}
@@ -0,0 +1,82 @@
+package com.christopheraldoo.aplikasimonitoringkelas.data.local
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.Index
+import com.christopheraldoo.aplikasimonitoringkelas.data.KurikulumAttendanceHistoryItem
+
+/**
+ * Cache halaman kurikulum/history untuk Paging. Satu set filter (tanggal, guru, kelas, status)
+ * punya query_key sendiri, jadi hasil filter berbeda tidak saling menimpa.
+ */
+@Entity(
+    tableName = "kurikulum_history",
+    primaryKeys = ["query_key", "id"],
+    indices = [Index(value = ["query_key", "position"])]
+)
+data class KurikulumHistoryEntity(
+    @ColumnInfo(name = "query_key") val queryKey: String,
+    @ColumnInfo(name = "id") val id: Int,
+    @ColumnInfo(name = "position") val position: Int,
+    @ColumnInfo(name = "date") val date: String?,
+    @ColumnInfo(name = "day") val day: String?,
+    @ColumnInfo(name = "period") val period: Int?,
+    @ColumnInfo(name = "time") val time: String?,
+    @ColumnInfo(name = "class_name") val className: String?,
+    @ColumnInfo(name = "class_level") val classLevel: Int?,
+    @ColumnInfo(name = "subject_name") val subjectName: String?,
+    @ColumnInfo(name = "original_teacher_id") val originalTeacherId: Int?,
+    @ColumnInfo(name = "original_teacher_name") val originalTeacherName: String?,
+    @ColumnInfo(name = "teacher_id") val teacherId: Int,
+    @ColumnInfo(name = "teacher_name") val teacherName: String?,
+    @ColumnInfo(name = "status") val status: String?,
+    @ColumnInfo(name = "arrival_time") val arrivalTime: String?,
+    @ColumnInfo(name = "keterangan") val keterangan: String?,
+    @ColumnInfo(name = "is_substituted") val isSubstituted: Boolean,
+    @ColumnInfo(name = "created_at") val createdAt: String?
+) {
+    fun toApi() = KurikulumAttendanceHistoryItem(
+        id = id,
+        date = date.orEmpty(),
+        day = day,
+        period = period,
+        time = time,
+        className = className.orEmpty(),
+        classLevel = classLevel,
+        subjectName = subjectName.orEmpty(),
+        originalTeacherId = originalTeacherId,
+        originalTeacherName = originalTeacherName,
+        teacherId = teacherId,
+        teacherName = teacherName.orEmpty(),
+        status = status.orEmpty(),
+        arrivalTime = arrivalTime,
+        keterangan = keterangan,
+        isSubstituted = isSubstituted,
+        createdAt = createdAt.orEmpty()
+    )
+
+    companion object {
+        // Field non-null di model API bisa tetap null kalau server tidak mengirimnya (Gson)
+        fun fromApi(item: KurikulumAttendanceHistoryItem, queryKey: String, position: Int) = KurikulumHistoryEntity(
+            queryKey = queryKey,
+            id = item.id,
+            position = position,
+            date = item.date,
+            day = item.day,
+            period = item.period,
+            time = item.time,
+            className = item.className,
+            classLevel = item.classLevel,
+            subjectName = item.subjectName,
+            originalTeacherId = item.originalTeacherId,
+            originalTeacherName = item.originalTeacherName,
+            teacherId = item.teacherId,
+            teacherName = item.teacherName,
+            status = item.status,
+            arrivalTime = item.arrivalTime,
+            keterangan = item.keterangan,
+            isSubstituted = item.isSubstituted,
+            createdAt = item.createdAt
+        )
+    }
+}
@@ -0,0 +1,44 @@
+package com.christopheraldoo.aplikasimonitoringkelas.data.local
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+
+/**
+ * Kehadiran yang sudah diisi siswa tapi belum diterima server (outbox).
+ *
+ * Primary key (schedule_id, tanggal) sama dengan unique key di tabel teacher_attendances,
+ * jadi submit ulang untuk jadwal yang sama menimpa baris lama, bukan menambah duplikat.
+ * Field subject/teacher/period/time hanya untuk ditampilkan selagi menunggu sinkronisasi.
+ * [userId] = siswa yang mengisi; baris milik akun lain tidak pernah dikirim dengan token sesi sekarang.
+ */
+@Entity(
+    tableName = "pending_kehadiran",
+    primaryKeys = ["schedule_id", "tanggal"]
+)
+data class PendingKehadiran(
+    @ColumnInfo(name = "schedule_id") val scheduleId: Int,
+    @ColumnInfo(name = "tanggal") val tanggal: String,
+    @ColumnInfo(name = "user_id", defaultValue = "0") val userId: Long,
+    @ColumnInfo(name = "status") val status: String,
+    @ColumnInfo(name = "catatan") val catatan: String = "",
+    @ColumnInfo(name = "subject") val subject: String? = null,
+    @ColumnInfo(name = "teacher") val teacher: String? = null,
+    @ColumnInfo(name = "period") val period: Int = 0,
+    @ColumnInfo(name = "time") val time: String? = null,
+    @ColumnInfo(name = "sync_state") val syncState: String = STATE_PENDING,
+    @ColumnInfo(name = "attempts") val attempts: Int = 0,
+    @ColumnInfo(name = "last_error") val lastError: String? = null,
+    @ColumnInfo(name = "created_at") val createdAt: Long,
+    @ColumnInfo(name = "updated_at") val updatedAt: Long
+) {
+    val isPending: Boolean get() = syncState == STATE_PENDING
+    val isRejected: Boolean get() = syncState == STATE_REJECTED
+
+    companion object {
+        // Menunggu dikirim (atau dikirim ulang) oleh worker
+        const val STATE_PENDING = "pending"
+
+        // Ditolak server (misal sudah dikonfirmasi Kurikulum), tidak dikirim ulang
+        const val STATE_REJECTED = "rejected"
+    }
+}
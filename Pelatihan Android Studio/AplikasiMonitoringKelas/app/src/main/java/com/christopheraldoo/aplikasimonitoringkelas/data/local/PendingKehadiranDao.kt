@@ -0,0 +1,60 @@
+package com.christopheraldoo.aplikasimonitoringkelas.data.local
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import kotlinx.coroutines.flow.Flow
+
+@Dao
+interface PendingKehadiranDao {
+
+    /**
+     * Insert atau timpa baris dengan (schedule_id, tanggal) yang sama
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun upsert(item: PendingKehadiran)
+
+    @Query("SELECT * FROM pending_kehadiran WHERE schedule_id = :scheduleId AND tanggal = :tanggal LIMIT 1")
+    suspend fun get(scheduleId: Int, tanggal: String): PendingKehadiran?
+
+    /**
+     * Batch berikutnya untuk dikirim, yang paling lama diubah lebih dulu
+     */
+    @Query("SELECT * FROM pending_kehadiran WHERE sync_state = 'pending' ORDER BY updated_at ASC LIMIT :limit")
+    suspend fun getPendingBatch(limit: Int): List<PendingKehadiran>
+
+    @Query("SELECT COUNT(*) FROM pending_kehadiran WHERE sync_state = 'pending'")
+    suspend fun countPending(): Int
+
+    @Query("SELECT * FROM pending_kehadiran WHERE user_id = :userId ORDER BY tanggal DESC, period ASC")
+    fun observeForUser(userId: Long): Flow<List<PendingKehadiran>>
+
+    /**
+     * Hapus setelah terkirim. Guard updated_at mencegah menghapus isian baru
+     * yang ditulis siswa selagi versi lama sedang dikirim.
+     */
+    @Query("DELETE FROM pending_kehadiran WHERE schedule_id = :scheduleId AND tanggal = :tanggal AND updated_at = :updatedAt")
+    suspend fun deleteIfUnchanged(scheduleId: Int, tanggal: String, updatedAt: Long): Int
+
+    @Query("UPDATE pending_kehadiran SET sync_state = 'rejected', last_error = :error WHERE schedule_id = :scheduleId AND tanggal = :tanggal AND updated_at = :updatedAt")
+    suspend fun markRejected(scheduleId: Int, tanggal: String, updatedAt: Long, error: String?): Int
+
+    @Query("UPDATE pending_kehadiran SET attempts = attempts + 1, last_error = :error WHERE schedule_id = :scheduleId AND tanggal = :tanggal")
+    suspend fun markAttemptFailed(scheduleId: Int, tanggal: String, error: String?)
+
+    @Query("DELETE FROM pending_kehadiran WHERE schedule_id = :scheduleId AND tanggal = :tanggal")
+    suspend fun delete(scheduleId: Int, tanggal: String)
+
+    /**
+     * Buang baris milik akun lain (atau baris lama tanpa pemilik) sebelum mengirim dengan token sesi sekarang
+     */
+    @Query("DELETE FROM pending_kehadiran WHERE user_id != :userId")
+    suspend fun deleteNotOwnedBy(userId: Long): Int
+
+    /**
+     * Dipanggil saat logout; baris tanpa pemilik ikut dibuang
+     */
+    @Query("DELETE FROM pending_kehadiran WHERE user_id = :userId OR user_id = 0")
+    suspend fun deleteForUser(userId: Long)
+}
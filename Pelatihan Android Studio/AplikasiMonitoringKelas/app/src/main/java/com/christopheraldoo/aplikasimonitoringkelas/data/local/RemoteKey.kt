@@ -0,0 +1,18 @@
+package com.christopheraldoo.aplikasimonitoringkelas.data.local
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+
+/**
+ * Posisi paging server untuk satu daftar yang di-cache (misal "riwayat" atau
+ * "kurikulum_history:<filter>"). next_page null berarti halaman terakhir sudah dimuat.
+ */
+@Entity(tableName = "remote_keys")
+data class RemoteKey(
+    @PrimaryKey @ColumnInfo(name = "label") val label: String,
+    @ColumnInfo(name = "next_page") val nextPage: Int?,
+    // Total record menurut server, untuk ringkasan di layar
+    @ColumnInfo(name = "total") val total: Int,
+    @ColumnInfo(name = "updated_at") val updatedAt: Long
+)
@@ -0,0 +1,32 @@
+package com.christopheraldoo.aplikasimonitoringkelas.data.local
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import kotlinx.coroutines.flow.Flow
+
+@Dao
+interface RemoteKeyDao {
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun upsert(key: RemoteKey)
+
+    @Query("SELECT * FROM remote_keys WHERE label = :label LIMIT 1")
+    suspend fun get(label: String): RemoteKey?
+
+    @Query("SELECT * FROM remote_keys WHERE label = :label LIMIT 1")
+    fun observe(label: String): Flow<RemoteKey?>
+
+    /**
+     * Tandai cache kadaluarsa supaya Pager berikutnya langsung refresh dari server
+     */
+    @Query("UPDATE remote_keys SET updated_at = 0 WHERE label = :label")
+    suspend fun expire(label: String)
+
+    @Query("DELETE FROM remote_keys WHERE label LIKE :prefix || '%' AND label != :keep")
+    suspend fun deleteOthers(prefix: String, keep: String)
+
+    @Query("DELETE FROM remote_keys")
+    suspend fun clear()
+}
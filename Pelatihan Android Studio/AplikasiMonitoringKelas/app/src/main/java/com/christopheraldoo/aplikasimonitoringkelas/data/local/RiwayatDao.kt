@@ -0,0 +1,36 @@
+package com.christopheraldoo.aplikasimonitoringkelas.data.local
+
+import androidx.paging.PagingSource
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import kotlinx.coroutines.flow.Flow
+
+@Dao
+interface RiwayatDao {
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertAll(items: List<RiwayatEntity>)
+
+    @Query("DELETE FROM riwayat_kehadiran")
+    suspend fun clear()
+
+    @Query("SELECT * FROM riwayat_kehadiran ORDER BY position ASC")
+    fun pagingSource(): PagingSource<Int, RiwayatEntity>
+
+    @Query("SELECT * FROM riwayat_kehadiran WHERE status IN (:statuses) ORDER BY position ASC")
+    fun pagingSourceByStatus(statuses: List<String>): PagingSource<Int, RiwayatEntity>
+
+    @Query("SELECT status AS label, COUNT(*) AS count FROM riwayat_kehadiran WHERE status IS NOT NULL GROUP BY status")
+    fun observeStatusCounts(): Flow<List<GroupCount>>
+
+    @Query("SELECT tanggal AS label, COUNT(*) AS count FROM riwayat_kehadiran WHERE tanggal IS NOT NULL GROUP BY tanggal")
+    fun observeDateCounts(): Flow<List<GroupCount>>
+
+    @Query(
+        "SELECT tanggal AS label, COUNT(*) AS count FROM riwayat_kehadiran " +
+            "WHERE tanggal IS NOT NULL AND status IN (:statuses) GROUP BY tanggal"
+    )
+    fun observeDateCountsByStatus(statuses: List<String>): Flow<List<GroupCount>>
+}
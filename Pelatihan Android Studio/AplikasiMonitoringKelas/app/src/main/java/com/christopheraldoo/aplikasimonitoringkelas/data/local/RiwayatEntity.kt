@@ -0,0 +1,66 @@
+package com.christopheraldoo.aplikasimonitoringkelas.data.local
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.PrimaryKey
+import com.christopheraldoo.aplikasimonitoringkelas.data.RiwayatItem
+
+/**
+ * Cache halaman riwayat kehadiran siswa (siswa/kehadiran-guru/riwayat) untuk Paging.
+ * position = urutan dari server, jadi urutan tampilan sama dengan response API.
+ */
+@Entity(
+    tableName = "riwayat_kehadiran",
+    indices = [Index(value = ["position"])]
+)
+data class RiwayatEntity(
+    @PrimaryKey @ColumnInfo(name = "id") val id: Int,
+    @ColumnInfo(name = "position") val position: Int,
+    @ColumnInfo(name = "tanggal") val tanggal: String?,
+    @ColumnInfo(name = "status") val status: String?,
+    @ColumnInfo(name = "catatan") val catatan: String?,
+    @ColumnInfo(name = "day") val day: String?,
+    @ColumnInfo(name = "period") val period: Int,
+    @ColumnInfo(name = "time") val time: String?,
+    @ColumnInfo(name = "jam_masuk") val jamMasuk: String?,
+    @ColumnInfo(name = "subject") val subject: String?,
+    @ColumnInfo(name = "teacher") val teacher: String?
+) {
+    fun toApi() = RiwayatItem(
+        id = id,
+        tanggal = tanggal.orEmpty(),
+        status = status.orEmpty(),
+        keterangan = catatan,
+        hari = day,
+        period = period,
+        jam = time,
+        jamMasuk = jamMasuk,
+        mapel = subject,
+        guru = teacher
+    )
+
+    companion object {
+        fun fromApi(item: RiwayatItem, position: Int) = RiwayatEntity(
+            id = item.id,
+            position = position,
+            tanggal = item.tanggal,
+            status = item.status,
+            catatan = item.catatan,
+            day = item.day,
+            period = item.period,
+            time = item.time,
+            jamMasuk = item.jamMasuk,
+            subject = item.subject,
+            teacher = item.teacher
+        )
+    }
+}
+
+/**
+ * Hasil query GROUP BY (label = status atau tanggal)
+ */
+data class GroupCount(
+    @ColumnInfo(name = "label") val label: String,
+    @ColumnInfo(name = "count") val count: Int
+)
@@ -0,0 +1,65 @@
+package com.christopheraldoo.aplikasimonitoringkelas.data.local
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import androidx.room.Transaction
+
+@Dao
+abstract class ScheduleDao {
+
+    companion object {
+        // Di bawah batas 999 variabel per statement SQLite
+        const val DELETE_CHUNK_SIZE = 500
+    }
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    abstract suspend fun upsertAll(items: List<ScheduleEntity>)
+
+    @Query("DELETE FROM schedules WHERE id IN (:ids)")
+    abstract suspend fun deleteByIds(ids: List<Int>)
+
+    @Query("DELETE FROM schedules")
+    abstract suspend fun clear()
+
+    /**
+     * Filter null berarti tidak difilter, sama seperti query param di endpoint schedules
+     */
+    @Query(
+        """
+        SELECT * FROM schedules
+        WHERE (:day IS NULL OR day_of_week = :day COLLATE NOCASE)
+          AND (:classId IS NULL OR class_id = :classId)
+          AND (:teacherId IS NULL OR teacher_id = :teacherId)
+        ORDER BY id ASC
+        """
+    )
+    abstract suspend fun query(day: String?, classId: Int?, teacherId: Int?): List<ScheduleEntity>
+
+    @Query("SELECT cursor FROM sync_cursors WHERE resource = :resource LIMIT 1")
+    abstract suspend fun getCursor(resource: String): String?
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    abstract suspend fun saveCursor(cursor: SyncCursor)
+
+    @Query("DELETE FROM sync_cursors WHERE resource = :resource")
+    abstract suspend fun clearCursor(resource: String)
+
+    /**
+     * Terapkan satu response delta secara atomik: data lokal dan cursor selalu konsisten,
+     * jadi sync yang terputus di tengah cukup diulang dari cursor lama.
+     */
+    @Transaction
+    open suspend fun applyDelta(
+        full: Boolean,
+        changed: List<ScheduleEntity>,
+        deletedIds: List<Int>,
+        cursor: SyncCursor
+    ) {
+        if (full) clear()
+        if (changed.isNotEmpty()) upsertAll(changed)
+        deletedIds.chunked(DELETE_CHUNK_SIZE).forEach { deleteByIds(it) }
+        saveCursor(cursor)
+    }
+}
@@ -0,0 +1,58 @@
+package com.christopheraldoo.aplikasimonitoringkelas.data.local
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+import com.christopheraldoo.aplikasimonitoringkelas.data.ScheduleApi
+
+/**
+ * Salinan lokal jadwal mingguan, diisi oleh delta sync (schedules-mobile?since=).
+ * Hanya field jadwal; status kehadiran harian tidak disimpan di sini.
+ */
+@Entity(tableName = "schedules")
+data class ScheduleEntity(
+    @PrimaryKey @ColumnInfo(name = "id") val id: Int,
+    @ColumnInfo(name = "class_id") val classId: Int,
+    @ColumnInfo(name = "subject_id") val subjectId: Int,
+    @ColumnInfo(name = "teacher_id") val teacherId: Int,
+    @ColumnInfo(name = "day_of_week") val dayOfWeek: String,
+    @ColumnInfo(name = "period") val period: Int,
+    @ColumnInfo(name = "start_time") val startTime: String,
+    @ColumnInfo(name = "end_time") val endTime: String,
+    @ColumnInfo(name = "status") val status: String,
+    @ColumnInfo(name = "class_name") val className: String? = null,
+    @ColumnInfo(name = "subject_name") val subjectName: String? = null,
+    @ColumnInfo(name = "teacher_name") val teacherName: String? = null
+) {
+    fun toApi() = ScheduleApi(
+        id = id,
+        classId = classId,
+        subjectId = subjectId,
+        teacherId = teacherId,
+        dayOfWeek = dayOfWeek,
+        period = period,
+        startTime = startTime,
+        endTime = endTime,
+        status = status,
+        className = className,
+        subjectName = subjectName,
+        teacherName = teacherName
+    )
+
+    companion object {
+        fun fromApi(api: ScheduleApi) = ScheduleEntity(
+            id = api.id,
+            classId = api.classId,
+            subjectId = api.subjectId,
+            teacherId = api.teacherId,
+            dayOfWeek = api.dayOfWeek,
+            period = api.period,
+            startTime = api.startTime,
+            endTime = api.endTime,
+            status = api.status,
+            className = api.className,
+            subjectName = api.subjectName,
+            teacherName = api.teacherName
+        )
+    }
+}
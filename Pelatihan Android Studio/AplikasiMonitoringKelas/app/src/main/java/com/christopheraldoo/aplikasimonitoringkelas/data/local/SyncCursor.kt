@@ -0,0 +1,15 @@
+package com.christopheraldoo.aplikasimonitoringkelas.data.local
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+
+/**
+ * Cursor delta sync terakhir per resource (misal "schedules"), dikirim kembali sebagai ?since=
+ */
+@Entity(tableName = "sync_cursors")
+data class SyncCursor(
+    @PrimaryKey @ColumnInfo(name = "resource") val resource: String,
+    @ColumnInfo(name = "cursor") val cursor: String,
+    @ColumnInfo(name = "updated_at") val updatedAt: Long
+)
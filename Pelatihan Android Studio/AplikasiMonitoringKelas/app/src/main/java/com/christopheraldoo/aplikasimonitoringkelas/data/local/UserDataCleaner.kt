@@ -0,0 +1,34 @@
+package com.christopheraldoo.aplikasimonitoringkelas.data.local
+
+import android.content.Context
+import android.util.Log
+import com.christopheraldoo.aplikasimonitoringkelas.repository.HistoryPagingRepository
+import com.christopheraldoo.aplikasimonitoringkelas.sync.KehadiranOutbox
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.launch
+
+/**
+ * Menghapus data lokal milik akun yang logout, supaya tidak terbawa ke akun berikutnya di perangkat yang sama.
+ * Jalan di Dispatchers.IO karena SessionManager.logout sering dipanggil dari main thread.
+ */
+object UserDataCleaner {
+
+    private const val TAG = "UserDataCleaner"
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    fun clearAsync(context: Context, userId: Long?) {
+        val appContext = context.applicationContext ?: context
+        scope.launch {
+            try {
+                if (userId != null) KehadiranOutbox.getInstance(appContext).clearForUser(userId)
+                // Cache Paging riwayat siswa/kurikulum tidak menyimpan pemilik, jadi dibuang seluruhnya
+                HistoryPagingRepository.getInstance(appContext).clearAll()
+            } catch (e: Exception) {
+                Log.w(TAG, "Gagal menghapus data lokal user $userId: ${e.message}")
+            }
+        }
+    }
+}
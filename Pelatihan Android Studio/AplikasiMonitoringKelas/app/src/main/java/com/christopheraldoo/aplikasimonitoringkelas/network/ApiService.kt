@@ -2,6 +2,7 @@ package com.christopheraldoo.aplikasimonitoringkelas.network
 
 import com.christopheraldoo.aplikasimonitoringkelas.data.*
 import com.google.gson.JsonObject
+import okhttp3.ResponseBody
 import retrofit2.Response
 import retrofit2.http.*
 
@@ -18,6 +19,9 @@ interface ApiService {
     @POST("auth/logout")
     suspend fun logout(@Header("Authorization") token: String): Response<ApiResponse<JsonObject>>
 
+    @POST("auth/refresh")
+    suspend fun refreshToken(@Header("Authorization") token: String): Response<ApiResponse<RefreshTokenData>>
+
     @GET("auth/me")
     suspend fun getCurrentUser(@Header("Authorization") token: String): Response<ApiResponse<UserApi>>
 
@@ -30,6 +34,13 @@ interface ApiService {
         @Query("teacher_id") teacherId: Int? = null
     ): Response<ApiResponse<List<ScheduleApi>>>
 
+    // Delta sync: hanya jadwal yang berubah/dihapus sejak cursor (since=0 untuk snapshot penuh)
+    @GET("schedules-mobile")
+    suspend fun getSchedulesDelta(
+        @Header("Authorization") token: String,
+        @Query("since") since: String
+    ): Response<ScheduleDeltaResponse>
+
     @POST("schedules")
     suspend fun createSchedule(
         @Header("Authorization") token: String,
@@ -69,6 +80,13 @@ interface ApiService {
     @GET("teachers")
     suspend fun getTeachers(@Header("Authorization") token: String): Response<ApiResponse<List<TeacherApi>>>
 
+    // Data master layar awal dalam satu request, dibaca streaming oleh DashboardBundleClient
+    @GET("dashboard/bundle")
+    suspend fun getDashboardBundle(
+        @Header("Authorization") token: String,
+        @Query("sections") sections: String
+    ): Response<ResponseBody>
+
     // User management endpoints (Admin only)
     @GET("users")
     suspend fun getUsers(@Header("Authorization") token: String): Response<ApiResponse<List<UserApi>>>
@@ -230,16 +248,18 @@ interface ApiService {
         @Query("class_id") classId: Int? = null,
         @Query("subject_id") subjectId: Int? = null,
         @Query("week_offset") weekOffset: Int? = null,
-        @Query("refresh") refresh: Boolean? = null
-    ): Response<KurikulumDashboardResponse>
+        @Query("refresh") refresh: Boolean? = null,
+        @Header("If-None-Match") ifNoneMatch: String? = null
+    ): Response<ResponseBody> // body mentah: bisa 304 tanpa body, lihat ConditionalResult
     
     // Class management - Sort and filter classes by teacher status
     @GET("kurikulum/classes")
     suspend fun getKurikulumClasses(
         @Header("Authorization") token: String,
         @Query("status") status: String? = null,
-        @Query("lightweight") lightweight: Boolean = true // Default to lightweight for mobile
-    ): Response<ClassManagementResponse>
+        @Query("lightweight") lightweight: Boolean = true, // Default to lightweight for mobile
+        @Header("If-None-Match") ifNoneMatch: String? = null
+    ): Response<ResponseBody> // body mentah: bisa 304 tanpa body, lihat ConditionalResult
     
     // Get available substitute teachers
     @GET("kurikulum/substitutes")
@@ -257,6 +277,8 @@ interface ApiService {
     ): Response<AssignSubstituteResponse>
     
     // Attendance history with filters and pagination
+    // Streaming: body (KurikulumHistoryResponse) dibaca per item oleh JsonEnvelopeStreamer
+    @Streaming
     @GET("kurikulum/history")
     suspend fun getKurikulumHistory(
         @Header("Authorization") token: String,
@@ -267,7 +289,7 @@ interface ApiService {
         @Query("teacher_id") teacherId: Int? = null,
         @Query("class_id") classId: Int? = null,
         @Query("status") status: String? = null
-    ): Response<KurikulumHistoryResponse>
+    ): Response<ResponseBody>
     
     // Attendance statistics for reports
     @GET("kurikulum/statistics")
@@ -279,6 +301,8 @@ interface ApiService {
     ): Response<StatisticsResponse>
     
     // Export attendance data
+    // Streaming: body (ExportResponse) ditulis langsung ke CSV oleh AttendanceCsvExporter
+    @Streaming
     @GET("kurikulum/export")
     suspend fun exportAttendance(
         @Header("Authorization") token: String,
@@ -286,7 +310,7 @@ interface ApiService {
         @Query("date_to") dateTo: String? = null,
         @Query("teacher_id") teacherId: Int? = null,
         @Query("class_id") classId: Int? = null
-    ): Response<ExportResponse>
+    ): Response<ResponseBody>
     
     // Get students in a class
     @GET("kurikulum/class/{classId}/students")
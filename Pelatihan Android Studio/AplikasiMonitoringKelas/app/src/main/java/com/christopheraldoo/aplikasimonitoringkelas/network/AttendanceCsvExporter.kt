@@ -0,0 +1,106 @@
+package com.christopheraldoo.aplikasimonitoringkelas.network
+
+import com.christopheraldoo.aplikasimonitoringkelas.data.DateRange
+import com.christopheraldoo.aplikasimonitoringkelas.data.ExportItem
+import okhttp3.ResponseBody
+import java.io.File
+import java.io.IOException
+import java.io.Reader
+
+/**
+ * Hasil export yang sudah ditulis ke file CSV
+ */
+data class ExportFileResult(
+    val success: Boolean,
+    val message: String? = null,
+    val file: File? = null,
+    val totalRecords: Int = 0,
+    val dateRange: DateRange? = null,
+    // Beberapa baris pertama untuk ditampilkan di dialog, bukan seluruh data
+    val preview: List<ExportItem> = emptyList()
+)
+
+/**
+ * Menulis response kurikulum/export langsung ke CSV baris per baris.
+ * Heap yang dipakai hanya satu baris + preview, berapa pun jumlah record-nya.
+ */
+class AttendanceCsvExporter(
+    private val streamer: JsonEnvelopeStreamer<ExportItem> = JsonEnvelopeStreamer.of(),
+    private val previewSize: Int = DEFAULT_PREVIEW_SIZE
+) {
+    companion object {
+        const val DEFAULT_PREVIEW_SIZE = 20
+
+        const val HEADER = "Tanggal,Hari,Jam Ke,Waktu,Kelas,Mata Pelajaran,Guru Asli,Guru Pengganti,Status,Jam Masuk,Keterangan"
+
+        /**
+         * Quote field yang mengandung koma, kutip, atau baris baru (RFC 4180)
+         */
+        fun escape(value: String?): String {
+            if (value.isNullOrEmpty()) return ""
+            val needsQuote = value.any { it == ',' || it == '"' || it == '\n' || it == '\r' }
+            return if (needsQuote) "\"" + value.replace("\"", "\"\"") + "\"" else value
+        }
+
+        fun appendRow(out: Appendable, item: ExportItem) {
+            out.append(escape(item.tanggal)).append(',')
+                .append(escape(item.hari)).append(',')
+                .append(escape(item.jamKe)).append(',')
+                .append(escape(item.waktu)).append(',')
+                .append(escape(item.kelas)).append(',')
+                .append(escape(item.mataPelajaran)).append(',')
+                .append(escape(item.guruAsli)).append(',')
+                .append(escape(item.guruPengganti)).append(',')
+                .append(escape(item.status ?: "pending")).append(',')
+                .append(escape(item.jamMasuk)).append(',')
+                .append(escape(item.keterangan)).append('\n')
+        }
+    }
+
+    fun export(body: ResponseBody, target: File, onRow: (Int) -> Unit = {}): ExportFileResult =
+        body.use { export(it.charStream(), target, onRow) }
+
+    /**
+     * Tulis ke file sementara lalu rename, jadi export yang gagal di tengah tidak meninggalkan
+     * CSV setengah jadi dengan nama final.
+     *
+     * @param onRow dipanggil setiap baris (jumlah baris sejauh ini), bisa dipakai untuk progress/cancel
+     */
+    fun export(source: Reader, target: File, onRow: (Int) -> Unit = {}): ExportFileResult {
+        val partial = File(target.parentFile, target.name + ".part")
+        val preview = PagedWindow<ExportItem>(previewSize)
+
+        val envelope = try {
+            partial.bufferedWriter().use { writer ->
+                writer.append(HEADER).append('\n')
+                streamer.read(source) { item ->
+                    appendRow(writer, item)
+                    preview.offer(item)
+                    onRow(preview.total)
+                }
+            }
+        } catch (e: Exception) {
+            partial.delete()
+            throw e
+        }
+
+        if (!envelope.success) {
+            partial.delete()
+            return ExportFileResult(success = false, message = envelope.message ?: "Gagal export data")
+        }
+        if (target.exists()) target.delete()
+        if (!partial.renameTo(target)) {
+            partial.delete()
+            throw IOException("Gagal menyimpan file export ${target.name}")
+        }
+
+        return ExportFileResult(
+            success = true,
+            message = envelope.message,
+            file = target,
+            totalRecords = envelope.rowCount,
+            dateRange = envelope.get("date_range", DateRange::class.java),
+            preview = preview.items
+        )
+    }
+}
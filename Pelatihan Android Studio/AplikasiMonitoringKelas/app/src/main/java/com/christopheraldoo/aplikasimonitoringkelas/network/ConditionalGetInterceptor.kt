@@ -0,0 +1,193 @@
+package com.christopheraldoo.aplikasimonitoringkelas.network
+
+import android.util.Log
+import okhttp3.Interceptor
+import okhttp3.MediaType
+import okhttp3.Request
+import okhttp3.Response
+import okhttp3.ResponseBody
+import okio.Buffer
+import okio.BufferedSource
+import okio.ForwardingSource
+import okio.buffer
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Jumlah response 200 vs 304 dan byte yang diunduh/dihemat, per endpoint ("GET kurikulum/dashboard").
+ */
+class HttpCacheStats {
+
+    companion object {
+        val shared = HttpCacheStats()
+    }
+
+    data class EndpointStats(
+        val endpoint: String,
+        val fullResponses: Int,
+        val notModified: Int,
+        val bytesDownloaded: Long,
+        val bytesSaved: Long
+    ) {
+        val notModifiedRatio: Double
+            get() = if (fullResponses + notModified == 0) 0.0 else notModified.toDouble() / (fullResponses + notModified)
+    }
+
+    private class Counter {
+        val full = AtomicInteger()
+        val notModified = AtomicInteger()
+        val downloaded = AtomicLong()
+        val saved = AtomicLong()
+    }
+
+    private val counters = ConcurrentHashMap<String, Counter>()
+
+    // Ukuran body terakhir per URL, untuk menaksir byte yang dihemat oleh 304 tanpa body
+    private val lastBodySize = ConcurrentHashMap<String, Long>()
+
+    internal fun recordFull(endpoint: String) {
+        counter(endpoint).full.incrementAndGet()
+    }
+
+    internal fun recordDownloaded(endpoint: String, url: String, bytes: Long) {
+        counter(endpoint).downloaded.addAndGet(bytes)
+        lastBodySize[url] = bytes
+    }
+
+    internal fun recordNotModified(endpoint: String) {
+        counter(endpoint).notModified.incrementAndGet()
+    }
+
+    internal fun recordSaved(endpoint: String, bytes: Long) {
+        if (bytes > 0) counter(endpoint).saved.addAndGet(bytes)
+    }
+
+    internal fun lastBodySize(url: String): Long = lastBodySize[url] ?: 0L
+
+    fun snapshot(): Map<String, EndpointStats> = counters.entries.associate { (endpoint, c) ->
+        endpoint to EndpointStats(endpoint, c.full.get(), c.notModified.get(), c.downloaded.get(), c.saved.get())
+    }
+
+    fun get(endpoint: String): EndpointStats? = snapshot()[endpoint]
+
+    fun summary(): String = snapshot().values.sortedByDescending { it.bytesSaved }.joinToString("\n") {
+        "${it.endpoint}: 200=${it.fullResponses} 304=${it.notModified} unduh=${it.bytesDownloaded} B hemat=${it.bytesSaved} B"
+    }
+
+    fun reset() {
+        counters.clear()
+        lastBodySize.clear()
+    }
+
+    private fun counter(endpoint: String) = counters.getOrPut(endpoint) { Counter() }
+}
+
+/**
+ * Interceptor aplikasi di depan Cache OkHttp.
+ *
+ * Cache OkHttp yang menyimpan ETag/Last-Modified per URL dan mengirim If-None-Match saat revalidasi
+ * (server membalas "Cache-Control: private, no-cache", lihat middleware ConditionalGet). Interceptor ini
+ * hanya menggolongkan hasilnya: body dari jaringan (200) atau dari disk setelah 304, lalu mencatatnya
+ * ke [HttpCacheStats]. Byte dihitung saat body dibaca, jadi response @Streaming tidak di-buffer.
+ */
+class ConditionalGetInterceptor(private val stats: HttpCacheStats = HttpCacheStats.shared) : Interceptor {
+
+    companion object {
+        private const val TAG = "ConditionalGet"
+        private val numericSegment = Regex("^\\d+$")
+
+        /** "GET /api/teachers/12" -> "GET teachers/{id}" */
+        fun endpointOf(request: Request): String {
+            val path = request.url.pathSegments
+                .dropWhile { it == "api" }
+                .filter { it.isNotEmpty() }
+                .joinToString("/") { if (numericSegment.matches(it)) "{id}" else it }
+            return "${request.method} $path"
+        }
+    }
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        val response = chain.proceed(request)
+        if (request.method != "GET") return response
+
+        val endpoint = endpointOf(request)
+        val url = request.url.toString()
+        val body = response.body ?: return response
+
+        return when {
+            // If-None-Match dari pemanggil sendiri (misal ConditionalResult): 304 tanpa body
+            response.code == 304 -> {
+                stats.recordNotModified(endpoint)
+                stats.recordSaved(endpoint, stats.lastBodySize(url))
+                response
+            }
+            // Revalidasi Cache OkHttp: server membalas 304, body dibaca dari disk
+            response.networkResponse?.code == 304 -> {
+                stats.recordNotModified(endpoint)
+                Log.d(TAG, "$endpoint tidak berubah (304), body dari cache disk")
+                response.newBuilder().body(CountingBody(body) { stats.recordSaved(endpoint, it) }).build()
+            }
+            response.networkResponse != null && response.isSuccessful -> {
+                stats.recordFull(endpoint)
+                response.newBuilder().body(CountingBody(body) { stats.recordDownloaded(endpoint, url, it) }).build()
+            }
+            else -> response
+        }
+    }
+
+    /**
+     * Menghitung byte body yang dibaca; [onDone] dipanggil sekali saat body habis atau ditutup.
+     */
+    private class CountingBody(
+        private val delegate: ResponseBody,
+        private val onDone: (Long) -> Unit
+    ) : ResponseBody() {
+        private val done = AtomicBoolean(false)
+        private var read = 0L
+
+        private val source: BufferedSource by lazy {
+            object : ForwardingSource(delegate.source()) {
+                override fun read(sink: Buffer, byteCount: Long): Long {
+                    val n = super.read(sink, byteCount)
+                    if (n == -1L) finish() else read += n
+                    return n
+                }
+
+                override fun close() {
+                    finish()
+                    super.close()
+                }
+            }.buffer()
+        }
+
+        private fun finish() {
+            if (done.compareAndSet(false, true)) onDone(read)
+        }
+
+        override fun contentType(): MediaType? = delegate.contentType()
+        override fun contentLength(): Long = delegate.contentLength()
+        override fun source(): BufferedSource = source
+    }
+}
+
+/**
+ * Interceptor jaringan: response tanpa ETag/Last-Modified tidak bisa direvalidasi, jadi tidak
+ * ditulis ke Cache OkHttp (hanya membuang tulisan disk untuk body yang tidak akan dipakai lagi).
+ */
+class ValidatorOnlyCacheInterceptor : Interceptor {
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val response = chain.proceed(chain.request())
+        if (chain.request().method != "GET" || response.code != 200) return response
+        if (response.header("ETag") != null || response.header("Last-Modified") != null) return response
+        return response.newBuilder().header("Cache-Control", "no-store").build()
+    }
+}
+
+/**
+ * true kalau body response ini sama dengan yang terakhir diterima untuk URL yang sama:
+ * 304 dari server, baik yang dilayani Cache OkHttp dari disk maupun If-None-Match dari pemanggil.
+ */
+fun retrofit2.Response<*>.isNotModified(): Boolean = code() == 304 || raw().networkResponse?.code == 304
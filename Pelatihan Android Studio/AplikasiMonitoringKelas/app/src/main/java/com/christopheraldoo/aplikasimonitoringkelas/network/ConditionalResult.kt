@@ -0,0 +1,74 @@
+package com.christopheraldoo.aplikasimonitoringkelas.network
+
+import com.google.gson.Gson
+import okhttp3.ResponseBody
+import retrofit2.Response
+import java.util.zip.CRC32
+
+/**
+ * Hasil GET kondisional (If-None-Match) untuk refresh di latar belakang
+ */
+sealed class ConditionalResult<out T> {
+    /**
+     * @param fingerprint ETag dari server, atau checksum body kalau server belum mengirim ETag.
+     *                    Dikirim balik sebagai If-None-Match dan dipakai untuk mendeteksi data yang sama.
+     * @param bytes ukuran body yang diunduh (0 kalau body dari cache disk)
+     */
+    data class Modified<T>(val body: T, val fingerprint: String, val bytes: Long) : ConditionalResult<T>()
+
+    // 304: data sama dengan yang sudah ditampilkan, tidak ada body yang diunduh
+    object NotModified : ConditionalResult<Nothing>()
+
+    data class Failed(val message: String) : ConditionalResult<Nothing>()
+
+    companion object {
+        private val gson = Gson()
+
+        fun <T> from(response: Response<ResponseBody>, type: Class<T>): ConditionalResult<T> {
+            if (response.code() == 304) {
+                response.errorBody()?.close()
+                return NotModified
+            }
+            val body = response.body()
+            if (!response.isSuccessful || body == null) {
+                response.errorBody()?.close()
+                return Failed("HTTP ${response.code()}: ${response.message()}")
+            }
+
+            val bytes = body.use { it.bytes() }
+            val parsed = gson.fromJson(String(bytes, Charsets.UTF_8), type)
+                ?: return Failed("Response kosong")
+            val fingerprint = response.headers()["ETag"] ?: checksum(bytes)
+            return Modified(parsed, fingerprint, bytes.size.toLong())
+        }
+
+        /**
+         * Untuk endpoint bertipe: 304 yang dilayani Cache OkHttp dari disk (lihat [isNotModified]) berarti
+         * body sama dengan response terakhir URL ini. Hanya berarti "tidak berubah" kalau response terakhir
+         * itu yang sedang ditampilkan pemanggil.
+         */
+        fun <T> of(response: Response<T>, stats: HttpCacheStats = HttpCacheStats.shared): ConditionalResult<T> {
+            if (response.isNotModified()) return NotModified
+            val body = response.body()
+            if (!response.isSuccessful || body == null) {
+                response.errorBody()?.close()
+                return Failed("HTTP ${response.code()}: ${response.message()}")
+            }
+            val raw = response.raw()
+            val bytes = when {
+                raw.networkResponse == null -> 0L
+                // Response chunked/gzip tidak punya Content-Length: pakai ukuran yang dihitung
+                // ConditionalGetInterceptor saat converter membaca body
+                else -> response.headers()["Content-Length"]?.toLongOrNull()
+                    ?: stats.lastBodySize(raw.request.url.toString())
+            }
+            return Modified(body, response.headers()["ETag"].orEmpty(), bytes)
+        }
+
+        fun checksum(bytes: ByteArray): String {
+            val crc = CRC32()
+            crc.update(bytes)
+            return "W/\"crc-${crc.value.toString(16)}\""
+        }
+    }
+}
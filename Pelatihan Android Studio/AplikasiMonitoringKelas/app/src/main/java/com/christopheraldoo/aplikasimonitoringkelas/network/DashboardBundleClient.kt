@@ -0,0 +1,233 @@
+package com.christopheraldoo.aplikasimonitoringkelas.network
+
+import android.util.Log
+import com.christopheraldoo.aplikasimonitoringkelas.cache.TieredCacheManager
+import com.christopheraldoo.aplikasimonitoringkelas.data.ClassroomApi
+import com.christopheraldoo.aplikasimonitoringkelas.data.SubjectApi
+import com.christopheraldoo.aplikasimonitoringkelas.data.TeacherApi
+import com.christopheraldoo.aplikasimonitoringkelas.data.UserApi
+import com.google.gson.Gson
+import com.google.gson.reflect.TypeToken
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+import okhttp3.ResponseBody
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * Data master layar awal (users, teachers, subjects, ...) dalam satu request ke dashboard/bundle.
+ *
+ * - Section yang cache-nya masih valid tidak diminta lagi.
+ * - Body dibaca sekali jalan dengan JsonReader; semua section dari bundle disimpan ke cache
+ *   bersamaan lewat [TieredCacheManager.saveAll], atau tidak sama sekali kalau body rusak.
+ * - Server tanpa route bundle (404/405) diingat selama proses, dan semua section diambil lewat
+ *   endpoint masing-masing secara paralel ([fallback]). Section di "missing" juga lewat [fallback].
+ */
+class DashboardBundleClient(
+    private val api: () -> ApiService,
+    private val token: () -> String,
+    private val cache: TieredCacheManager,
+    private val fallback: suspend (Section) -> Result<List<Any>>,
+    private val ttlMs: Long = TieredCacheManager.TTL_SHORT,
+    private val routeMissing: AtomicBoolean = sharedRouteMissing,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+    companion object {
+        private const val TAG = "DashboardBundle"
+
+        // Dipakai bersama semua DataRepository: cukup sekali 404 per proses
+        private val sharedRouteMissing = AtomicBoolean(false)
+    }
+
+    /**
+     * @param key nama section di query/response bundle, sama dengan nama endpoint lamanya
+     * @param cacheKey key cache yang juga dipakai DataRepository.getUsers/getTeachers/dst.
+     */
+    enum class Section(val key: String, val cacheKey: String, val itemType: Class<*>) {
+        USERS("users", "users_list", UserApi::class.java),
+        TEACHERS("teachers", "teachers_list", TeacherApi::class.java),
+        SUBJECTS("subjects", "subjects_list", SubjectApi::class.java),
+        CLASSROOMS("classrooms", "classrooms_list", ClassroomApi::class.java);
+
+        companion object {
+            val DASHBOARD = listOf(USERS, TEACHERS, SUBJECTS)
+
+            fun forRole(role: String?): List<Section> {
+                val normalized = role?.lowercase()?.replace('-', '_')
+                return when (normalized) {
+                    "admin" -> listOf(USERS, TEACHERS, SUBJECTS, CLASSROOMS)
+                    "kurikulum", "kepala_sekolah" -> listOf(TEACHERS, SUBJECTS)
+                    else -> emptyList()
+                }
+            }
+        }
+    }
+
+    enum class Path { CACHE, BUNDLE, FALLBACK, MIXED }
+
+    /**
+     * @param timeToContentMs waktu sampai semua section yang diminta siap ditampilkan
+     */
+    class Bundle(
+        val sections: Map<Section, List<Any>>,
+        val failures: Map<Section, String>,
+        val path: Path,
+        val requests: Int,
+        val timeToContentMs: Long
+    ) {
+        @Suppress("UNCHECKED_CAST")
+        fun <T> get(section: Section): List<T>? = sections[section] as List<T>?
+    }
+
+    private class Decoded(val sections: Map<Section, List<Any>>, val missing: List<String>)
+
+    private val gson = Gson()
+
+    suspend fun load(sections: List<Section>, forceRefresh: Boolean = false): Bundle {
+        val startedAt = clock()
+        val result = LinkedHashMap<Section, List<Any>>()
+        val failures = LinkedHashMap<Section, String>()
+        var requests = 0
+        var fromBundle = 0
+
+        val remaining = sections.distinct().filter { section ->
+            val cached = if (forceRefresh || !cache.isCacheValid(section.cacheKey, ttlMs)) null
+            else cache.getData(section.cacheKey, listTypeOf(section), ttlMs)
+            cached?.let { result[section] = it }
+            cached == null
+        }
+
+        var needFallback = remaining
+        val bearer = token()
+        if (remaining.isNotEmpty() && !routeMissing.get() && bearer.isNotEmpty()) {
+            requests++
+            val decoded = fetchBundle(bearer, remaining)
+            if (decoded != null) {
+                result.putAll(decoded.sections)
+                fromBundle = decoded.sections.size
+                needFallback = remaining.filter { it !in decoded.sections }
+                if (decoded.missing.isNotEmpty()) Log.d(TAG, "Section tidak ada di bundle: ${decoded.missing}")
+            }
+        }
+
+        if (needFallback.isNotEmpty()) {
+            requests += needFallback.size
+            val fetched = coroutineScope {
+                needFallback.map { section -> async { section to runFallback(section) } }.awaitAll()
+            }
+            fetched.forEach { (section, outcome) ->
+                outcome.onSuccess { result[section] = it }
+                    .onFailure { failures[section] = it.message ?: "Gagal memuat ${section.key}" }
+            }
+        }
+
+        val path = when {
+            remaining.isEmpty() -> Path.CACHE
+            needFallback.isEmpty() -> Path.BUNDLE
+            fromBundle == 0 -> Path.FALLBACK
+            else -> Path.MIXED
+        }
+        val bundle = Bundle(result, failures, path, requests, clock() - startedAt)
+        Log.d(
+            TAG,
+            "${sections.map { it.key }} via $path: ${bundle.timeToContentMs} ms, $requests request, " +
+                "cache=${sections.size - remaining.size} bundle=$fromBundle fallback=${needFallback.size} gagal=${failures.size}"
+        )
+        return bundle
+    }
+
+    private suspend fun runFallback(section: Section): Result<List<Any>> = try {
+        fallback(section)
+    } catch (e: CancellationException) {
+        throw e
+    } catch (e: Exception) {
+        Result.failure(e)
+    }
+
+    // null = bundle tidak bisa dipakai, semua section lewat fallback
+    private suspend fun fetchBundle(bearer: String, sections: List<Section>): Decoded? {
+        return try {
+            val response = api().getDashboardBundle(bearer, sections.joinToString(",") { it.key })
+            val body = response.body()
+            if (response.code() == 404 || response.code() == 405) {
+                response.errorBody()?.close()
+                routeMissing.set(true)
+                Log.i(TAG, "Server belum punya route dashboard/bundle, pakai endpoint per section")
+                return null
+            }
+            if (!response.isSuccessful || body == null) {
+                response.errorBody()?.close()
+                Log.w(TAG, "Bundle gagal: HTTP ${response.code()}")
+                return null
+            }
+
+            val decoded = decode(body, sections)
+            if (decoded == null) {
+                Log.w(TAG, "Bundle tidak valid, pakai endpoint per section")
+                return null
+            }
+            // Semua section bundle masuk cache bersamaan, dengan waktu simpan yang sama
+            cache.saveAll(decoded.sections.entries.associate { (section, items) -> section.cacheKey to items }, ttlMs)
+            decoded
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Log.w(TAG, "Bundle error: ${e.message}")
+            null
+        }
+    }
+
+    private fun decode(body: ResponseBody, requested: List<Section>): Decoded? = body.use {
+        val byKey = requested.associateBy { it.key }
+        val sections = LinkedHashMap<Section, List<Any>>()
+        val missing = ArrayList<String>()
+        var success = false
+
+        JsonReader(it.charStream()).use { reader ->
+            reader.beginObject()
+            while (reader.hasNext()) {
+                when (reader.nextName()) {
+                    "success" -> success = reader.peek() == JsonToken.BOOLEAN && reader.nextBoolean()
+                    "data" -> {
+                        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                            reader.skipValue()
+                            continue
+                        }
+                        reader.beginObject()
+                        while (reader.hasNext()) {
+                            val section = byKey[reader.nextName()]
+                            if (section == null || reader.peek() != JsonToken.BEGIN_ARRAY) {
+                                reader.skipValue()
+                                continue
+                            }
+                            val adapter = gson.getAdapter(section.itemType)
+                            val items = ArrayList<Any>()
+                            reader.beginArray()
+                            while (reader.hasNext()) {
+                                adapter.read(reader)?.let { item -> items.add(item) }
+                            }
+                            reader.endArray()
+                            sections[section] = items
+                        }
+                        reader.endObject()
+                    }
+                    "missing" -> {
+                        reader.beginArray()
+                        while (reader.hasNext()) missing.add(reader.nextString())
+                        reader.endArray()
+                    }
+                    else -> reader.skipValue()
+                }
+            }
+            reader.endObject()
+        }
+        if (success) Decoded(sections, missing) else null
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun listTypeOf(section: Section): TypeToken<List<Any>> =
+        TypeToken.getParameterized(List::class.java, section.itemType) as TypeToken<List<Any>>
+}
@@ -0,0 +1,125 @@
+package com.christopheraldoo.aplikasimonitoringkelas.network
+
+import android.content.Context
+import android.content.SharedPreferences
+import android.net.ConnectivityManager
+import android.net.Network
+import android.net.NetworkCapabilities
+import android.net.wifi.WifiManager
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import java.io.IOException
+import java.util.concurrent.TimeUnit
+
+// ===============================================
+// PENDUKUNG EndpointSelector DI ANDROID
+// Probe HTTP, penyimpanan pemenang per SSID, dan pemantau pergantian jaringan.
+// ===============================================
+
+/**
+ * GET {baseUrl}test tanpa auth, cache maupun circuit breaker. Seluruh call dibatasi [budgetMs]
+ * (connect + baca), jadi host mati tidak pernah ditunggu lebih lama dari itu.
+ */
+class HttpHealthProbe(
+    baseClient: OkHttpClient,
+    budgetMs: Long = EndpointSelector.PROBE_BUDGET_MS
+) {
+    private val client = baseClient.newBuilder()
+        .apply { interceptors().clear(); networkInterceptors().clear() }
+        .cache(null)
+        .retryOnConnectionFailure(false)
+        .connectTimeout(budgetMs, TimeUnit.MILLISECONDS)
+        .callTimeout(budgetMs, TimeUnit.MILLISECONDS)
+        .build()
+
+    /** Latensi dalam ms kalau server menjawab tanpa 5xx, null kalau tidak */
+    suspend fun probe(baseUrl: String): Long? = withContext(Dispatchers.IO) {
+        val request = Request.Builder().url(baseUrl + NetworkConfig.Endpoints.HEALTH).build()
+        val startedAt = System.nanoTime()
+        try {
+            client.newCall(request).execute().use { response ->
+                if (response.code < 500) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) else null
+            }
+        } catch (e: IOException) {
+            null
+        }
+    }
+}
+
+class PrefsWinnerStore(context: Context) : EndpointSelector.WinnerStore {
+    private val prefs: SharedPreferences =
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+
+    override fun read(networkKey: String): String? = prefs.getString(networkKey, null)
+
+    override fun write(networkKey: String, baseUrl: String) {
+        if (prefs.getString(networkKey, null) != baseUrl) prefs.edit().putString(networkKey, baseUrl).apply()
+    }
+
+    companion object {
+        private const val PREFS_NAME = "endpoint_selector"
+    }
+}
+
+/**
+ * Memberi tahu [EndpointSelector] setiap jaringan default berganti (Wi-Fi lain, pindah ke seluler).
+ * Perubahan kapabilitas di jaringan yang sama tidak memicu probe ulang.
+ */
+class NetworkChangeWatcher(
+    private val context: Context,
+    private val selector: EndpointSelector
+) {
+    companion object {
+        // Dikembalikan WifiManager tanpa izin lokasi
+        private const val UNKNOWN_SSID = "<unknown ssid>"
+    }
+
+    private val connectivityManager =
+        context.getSystemService(Context.CONNECTIVITY_SERVICE) as ConnectivityManager
+
+    private val callback = object : ConnectivityManager.NetworkCallback() {
+        override fun onCapabilitiesChanged(network: Network, capabilities: NetworkCapabilities) {
+            notifyIfChanged(networkKeyOf(capabilities))
+        }
+
+        override fun onLost(network: Network) {
+            notifyIfChanged(null)
+        }
+    }
+
+    fun start() {
+        notifyIfChanged(currentKey())
+        connectivityManager.registerDefaultNetworkCallback(callback)
+    }
+
+    private fun notifyIfChanged(key: String?) {
+        if (key != selector.networkKey) selector.onNetworkChanged(key)
+    }
+
+    private fun currentKey(): String? {
+        val network = connectivityManager.activeNetwork ?: return null
+        return connectivityManager.getNetworkCapabilities(network)?.let(::networkKeyOf)
+    }
+
+    /**
+     * "wifi:<SSID>" bila SSID terbaca (butuh izin lokasi), selain itu jenis transport saja
+     */
+    private fun networkKeyOf(capabilities: NetworkCapabilities): String = when {
+        capabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI) -> currentSsid()?.let { "wifi:$it" } ?: "wifi"
+        capabilities.hasTransport(NetworkCapabilities.TRANSPORT_ETHERNET) -> "ethernet"
+        capabilities.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR) -> "cellular"
+        else -> "other"
+    }
+
+    @Suppress("DEPRECATION")
+    private fun currentSsid(): String? = try {
+        val wifi = context.applicationContext.getSystemService(Context.WIFI_SERVICE) as WifiManager
+        wifi.connectionInfo?.ssid
+            ?.removeSurrounding("\"")
+            ?.takeIf { it.isNotBlank() && it != UNKNOWN_SSID }
+    } catch (e: SecurityException) {
+        null
+    }
+}
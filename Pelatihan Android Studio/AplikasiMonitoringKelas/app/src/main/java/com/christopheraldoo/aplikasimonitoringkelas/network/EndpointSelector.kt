@@ -0,0 +1,173 @@
+package com.christopheraldoo.aplikasimonitoringkelas.network
+
+import android.util.Log
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withTimeoutOrNull
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Memilih base URL tercepat yang sehat dari beberapa kandidat (emulator, LAN, ...).
+ *
+ * - Semua kandidat di-probe bersamaan dengan batas [probeBudgetMs]; kandidat pertama yang
+ *   menjawab sehat (latensi terendah) langsung dipakai, sisanya tetap dicatat untuk failover.
+ * - Pemenang disimpan per jaringan (SSID) lewat [WinnerStore], jadi setelah pindah Wi-Fi
+ *   pilihan lama langsung dipakai sambil probe ulang di background.
+ * - Probe ulang berkala ([reprobeIntervalMs]) dan saat jaringan berganti ([onNetworkChanged]).
+ * - [reportFailure] pindah ke kandidat sehat berikutnya tanpa menunggu connect timeout lagi.
+ *
+ * @param probe mengembalikan latensi (ms) bila kandidat sehat, null bila tidak
+ */
+class EndpointSelector(
+    private val candidates: List<String>,
+    private val probe: suspend (baseUrl: String) -> Long?,
+    private val store: WinnerStore,
+    private val scope: CoroutineScope,
+    private val probeBudgetMs: Long = PROBE_BUDGET_MS,
+    private val reprobeIntervalMs: Long = REPROBE_INTERVAL_MS,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+    companion object {
+        private const val TAG = "EndpointSelector"
+        const val PROBE_BUDGET_MS = NetworkConfig.Timeouts.CONNECT_TIMEOUT * 1_000L
+        const val REPROBE_INTERVAL_MS = 5 * 60_000L
+    }
+
+    /** Pemenang per jaringan; jaringan yang tidak dikenal (key null) tidak disimpan */
+    interface WinnerStore {
+        fun read(networkKey: String): String?
+        fun write(networkKey: String, baseUrl: String)
+    }
+
+    // Latensi probe terakhir per kandidat sehat; kandidat yang gagal tidak ada di map
+    private val latencies = ConcurrentHashMap<String, Long>()
+    private val failed: MutableSet<String> = ConcurrentHashMap.newKeySet()
+    private val lock = Any()
+
+    @Volatile
+    private var selected: String? = null
+
+    @Volatile
+    var networkKey: String? = null
+        private set
+
+    @Volatile
+    private var lastProbeAt = 0L
+
+    // Satu putaran probe pada satu waktu; [firstHealthy] selesai lebih dulu dari [roundJob]
+    private var roundJob: Job? = null
+    private var firstHealthy: Deferred<String?>? = null
+
+    /**
+     * Base URL terpilih, atau null kalau belum ada probe yang berhasil.
+     * Memicu probe ulang di background kalau hasil terakhir sudah kedaluwarsa.
+     */
+    fun current(): String? {
+        if (clock() - lastProbeAt >= reprobeIntervalMs) refreshAsync()
+        return selected
+    }
+
+    fun onNetworkChanged(key: String?) {
+        synchronized(lock) {
+            networkKey = key
+            failed.clear()
+            latencies.clear()
+            val remembered = key?.let(store::read)?.takeIf { it in candidates }
+            if (remembered != null) selected = remembered
+            // Hasil putaran untuk jaringan lama tidak berguna lagi
+            roundJob?.cancel()
+        }
+        Log.i(TAG, "Jaringan berganti ($key), pilihan sementara: $selected")
+        refreshAsync(force = true)
+    }
+
+    /**
+     * Kandidat [baseUrl] gagal dipakai: pindah ke kandidat sehat lain yang paling cepat
+     * (atau kandidat berikutnya kalau belum ada data probe) dan probe ulang di background.
+     */
+    fun reportFailure(baseUrl: String): String {
+        val next = synchronized(lock) {
+            failed.add(baseUrl)
+            latencies.remove(baseUrl)
+            val next = fastestHealthy()
+                ?: candidates.firstOrNull { it !in failed }
+                ?: candidates[(candidates.indexOf(baseUrl) + 1).mod(candidates.size)]
+            selected = next
+            next
+        }
+        Log.w(TAG, "Endpoint $baseUrl gagal, pindah ke $next")
+        refreshAsync(force = true)
+        return next
+    }
+
+    /**
+     * Probe semua kandidat (digabung kalau probe lain sedang berjalan). Selesai begitu ada
+     * kandidat sehat pertama, atau paling lama [probeBudgetMs]; mengembalikan pilihan saat itu.
+     */
+    suspend fun refresh(force: Boolean = false): String? {
+        val round = startRound(force) ?: return selected
+        return withTimeoutOrNull(probeBudgetMs) { round.await() } ?: selected
+    }
+
+    private fun refreshAsync(force: Boolean = false) {
+        startRound(force)
+    }
+
+    private fun startRound(force: Boolean): Deferred<String?>? = synchronized(lock) {
+        if (roundJob?.isActive == true) return firstHealthy
+        if (!force && clock() - lastProbeAt < reprobeIntervalMs) return null
+        lastProbeAt = clock()
+
+        val healthy = CompletableDeferred<String?>()
+        val key = networkKey
+        roundJob = scope.launch {
+            try {
+                probeAll(key, healthy)
+            } finally {
+                // Semua kandidat mati: pilihan lama (atau default) tetap dipakai
+                healthy.complete(null)
+            }
+        }
+        firstHealthy = healthy
+        healthy
+    }
+
+    private suspend fun probeAll(key: String?, firstHealthy: CompletableDeferred<String?>) = coroutineScope {
+        candidates.forEach { baseUrl ->
+            launch {
+                val latency = try {
+                    withTimeoutOrNull(probeBudgetMs) { probe(baseUrl) }
+                } catch (e: CancellationException) {
+                    throw e
+                } catch (e: Exception) {
+                    null
+                }
+                synchronized(lock) {
+                    if (latency == null) {
+                        latencies.remove(baseUrl)
+                        return@launch
+                    }
+                    latencies[baseUrl] = latency
+                    failed.remove(baseUrl)
+                    // Jaringan sudah berganti lagi selama probe: hasil ini tidak dipakai untuk memilih
+                    if (key != networkKey || firstHealthy.isCompleted) return@launch
+                    selected = baseUrl
+                    firstHealthy.complete(baseUrl)
+                }
+                key?.let { store.write(it, baseUrl) }
+                Log.i(TAG, "Endpoint terpilih untuk $key: $baseUrl ($latency ms)")
+            }
+        }
+    }
+
+    private fun fastestHealthy(): String? =
+        latencies.entries.filter { it.key !in failed }.minByOrNull { it.value }?.key
+
+    /** Latensi probe terakhir per kandidat (untuk debug/log) */
+    fun latencySnapshot(): Map<String, Long> = HashMap(latencies)
+}
@@ -0,0 +1,84 @@
+package com.christopheraldoo.aplikasimonitoringkelas.network
+
+import com.google.gson.Gson
+import com.google.gson.JsonElement
+import com.google.gson.JsonParser
+import com.google.gson.TypeAdapter
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import okhttp3.ResponseBody
+import java.io.Reader
+
+/**
+ * Parser streaming untuk response Laravel berbentuk {"success": .., "data": [ ... ], ...}.
+ *
+ * Item di array "data" dibaca satu per satu dengan JsonReader langsung dari body OkHttp dan
+ * diserahkan ke callback, tidak pernah dikumpulkan dalam satu List. Field lain di level atas
+ * (success, message, pagination, dst.) kecil dan disimpan sebagai JsonElement.
+ */
+class JsonEnvelopeStreamer<T>(
+    private val itemAdapter: TypeAdapter<T>,
+    private val gson: Gson = Gson()
+) {
+    companion object {
+        const val DATA_FIELD = "data"
+
+        inline fun <reified T> of(gson: Gson = Gson()) = JsonEnvelopeStreamer(gson.getAdapter(T::class.java), gson)
+    }
+
+    /**
+     * Field level atas selain "data" plus jumlah baris yang sudah diserahkan ke callback
+     */
+    inner class Envelope(private val fields: Map<String, JsonElement>, val rowCount: Int) {
+        val success: Boolean get() = fields["success"]?.takeIf { it.isJsonPrimitive }?.asBoolean ?: false
+        val message: String? get() = fields["message"]?.takeIf { it.isJsonPrimitive }?.asString
+
+        fun <R> get(name: String, type: Class<R>): R? = fields[name]?.let { gson.fromJson(it, type) }
+    }
+
+    fun read(body: ResponseBody, onRow: (T) -> Unit): Envelope = body.use { read(it.charStream(), onRow) }
+
+    fun read(source: Reader, onRow: (T) -> Unit): Envelope {
+        val fields = HashMap<String, JsonElement>()
+        var rowCount = 0
+
+        JsonReader(source).use { reader ->
+            reader.beginObject()
+            while (reader.hasNext()) {
+                val name = reader.nextName()
+                if (name == DATA_FIELD && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray()
+                    while (reader.hasNext()) {
+                        onRow(itemAdapter.read(reader))
+                        rowCount++
+                    }
+                    reader.endArray()
+                } else {
+                    fields[name] = JsonParser.parseReader(reader)
+                }
+            }
+            reader.endObject()
+        }
+        return Envelope(fields, rowCount)
+    }
+}
+
+/**
+ * Jendela in-memory berukuran tetap: menyimpan paling banyak [capacity] baris pertama dan hanya
+ * menghitung sisanya, jadi server yang mengabaikan limit tidak bisa menghabiskan heap.
+ */
+class PagedWindow<T>(private val capacity: Int) {
+    private val rows = ArrayList<T>(capacity.coerceAtMost(256))
+
+    var total = 0
+        private set
+
+    val items: List<T> get() = rows
+
+    val isTruncated: Boolean get() = total > rows.size
+
+    fun offer(row: T) {
+        if (rows.size < capacity) rows.add(row)
+        total++
+    }
+}
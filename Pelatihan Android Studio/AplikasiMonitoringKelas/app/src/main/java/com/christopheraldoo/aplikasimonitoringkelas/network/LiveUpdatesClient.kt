@@ -0,0 +1,164 @@
+package com.christopheraldoo.aplikasimonitoringkelas.network
+
+import android.util.Log
+import com.christopheraldoo.aplikasimonitoringkelas.data.ScheduleChangeEvent
+import com.google.gson.Gson
+import com.google.gson.JsonParseException
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.FlowCollector
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.SharedFlow
+import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.buffer
+import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.shareIn
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.Response
+import okhttp3.sse.EventSource
+import okhttp3.sse.EventSourceListener
+import okhttp3.sse.EventSources
+import java.io.IOException
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.random.Random
+
+/**
+ * Push perubahan jadwal dari server lewat Server-Sent Events (GET live/schedule-events).
+ *
+ * - Koneksi hanya hidup selama ada yang meng-collect [events]; collector terakhir berhenti,
+ *   koneksi ditutup setelah [STOP_TIMEOUT_MS] (rotasi layar tidak memutus stream).
+ * - Stream putus/gagal: sambung ulang dengan backoff eksponensial + jitter, membawa
+ *   Last-Event-ID supaya server mengirim ulang event yang terlewat.
+ * - Server menutup stream secara normal setiap ±1 menit; itu disambung ulang setelah jeda
+ *   [initialBackoffMs] saja, tanpa menaikkan backoff.
+ * - [connected] dipakai AdaptiveRefreshScheduler: polling penuh hanya saat push tidak tersambung.
+ */
+class LiveUpdatesClient(
+    httpClient: OkHttpClient,
+    private val url: String,
+    scope: CoroutineScope,
+    private val initialBackoffMs: Long = INITIAL_BACKOFF_MS,
+    private val maxBackoffMs: Long = MAX_BACKOFF_MS,
+    private val random: Random = Random.Default
+) {
+    companion object {
+        private const val TAG = "LiveUpdates"
+        const val PATH = "live/schedule-events"
+        const val EVENT_SCHEDULE = "schedule"
+        const val INITIAL_BACKOFF_MS = 1_000L
+        const val MAX_BACKOFF_MS = 60_000L
+
+        // Server mengirim heartbeat tiap 15 detik; tanpa data selama ini koneksi dianggap mati
+        const val READ_TIMEOUT_SECONDS = 45L
+        private const val STOP_TIMEOUT_MS = 5_000L
+    }
+
+    private sealed class Signal {
+        object Opened : Signal()
+        class Event(val id: String?, val event: ScheduleChangeEvent?) : Signal()
+    }
+
+    private val gson = Gson()
+    private val factory = EventSources.createFactory(httpClient)
+    private val reconnects = AtomicInteger()
+
+    private val _connected = MutableStateFlow(false)
+    val connected: StateFlow<Boolean> = _connected.asStateFlow()
+
+    // Id event terakhir yang diterima, dikirim sebagai Last-Event-ID saat menyambung ulang
+    @Volatile
+    var lastEventId: String? = null
+        private set
+
+    val events: SharedFlow<ScheduleChangeEvent> = flow { runConnectionLoop() }
+        .shareIn(scope, SharingStarted.WhileSubscribed(STOP_TIMEOUT_MS))
+
+    fun reconnectCount(): Int = reconnects.get()
+
+    private suspend fun FlowCollector<ScheduleChangeEvent>.runConnectionLoop() {
+        var failures = 0
+        try {
+            while (true) {
+                var opened = false
+                try {
+                    stream().collect { signal ->
+                        when (signal) {
+                            Signal.Opened -> {
+                                opened = true
+                                failures = 0
+                                _connected.value = true
+                            }
+                            is Signal.Event -> {
+                                signal.id?.let { lastEventId = it }
+                                signal.event?.let { emit(it) }
+                            }
+                        }
+                    }
+                } catch (e: CancellationException) {
+                    throw e
+                } catch (e: Exception) {
+                    Log.w(TAG, "Stream terputus: ${e.message}")
+                }
+                _connected.value = false
+
+                reconnects.incrementAndGet()
+                delay(if (opened) initialBackoffMs else backoffDelay(++failures))
+            }
+        } finally {
+            _connected.value = false
+        }
+    }
+
+    /**
+     * Backoff eksponensial dengan jitter: separuh tetap, separuh acak, supaya semua device
+     * tidak menyambung ulang bersamaan setelah server restart.
+     */
+    internal fun backoffDelay(failures: Int): Long {
+        val exponential = initialBackoffMs shl (failures - 1).coerceIn(0, 16)
+        val capped = exponential.coerceAtMost(maxBackoffMs)
+        return capped / 2 + random.nextLong(capped / 2 + 1)
+    }
+
+    private fun stream(): Flow<Signal> = callbackFlow {
+        val request = Request.Builder()
+            .url(url)
+            .header("Accept", "text/event-stream")
+            .apply { lastEventId?.let { header("Last-Event-ID", it) } }
+            .build()
+
+        val source = factory.newEventSource(request, object : EventSourceListener() {
+            override fun onOpen(eventSource: EventSource, response: Response) {
+                trySend(Signal.Opened)
+            }
+
+            override fun onEvent(eventSource: EventSource, id: String?, type: String?, data: String) {
+                val event = if (type == null || type == EVENT_SCHEDULE) parse(data) else null
+                trySend(Signal.Event(id, event))
+            }
+
+            override fun onClosed(eventSource: EventSource) {
+                channel.close()
+            }
+
+            override fun onFailure(eventSource: EventSource, t: Throwable?, response: Response?) {
+                channel.close(t ?: IOException("HTTP ${response?.code} dari $PATH"))
+            }
+        })
+        awaitClose { source.cancel() }
+    }.buffer(Channel.UNLIMITED)
+
+    private fun parse(data: String): ScheduleChangeEvent? = try {
+        gson.fromJson(data, ScheduleChangeEvent::class.java)
+    } catch (e: JsonParseException) {
+        Log.w(TAG, "Event tidak valid diabaikan: ${e.message}")
+        null
+    }
+}
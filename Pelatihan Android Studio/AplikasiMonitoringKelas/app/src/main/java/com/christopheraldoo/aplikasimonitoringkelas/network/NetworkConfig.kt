@@ -18,13 +18,20 @@ object NetworkConfig {
 
         // Use the appropriate URL based on runtime environment (emulator vs device)
         fun getDefault(context: Context): String {
-            return if (isRunningOnEmulator()) EMULATOR_URL else DEVICE_URL
+            return if (runningOnEmulator) EMULATOR_URL else DEVICE_URL
         }
 
+        // Build.* tidak berubah selama proses hidup, cukup dicek sekali (biasanya oleh StartupWarmup)
+        private val runningOnEmulator: Boolean by lazy { isRunningOnEmulator() }
+
         // Public helpers for fallback probing
         fun getEmulatorUrl(): String = EMULATOR_URL
         fun getDeviceLanUrl(): String = DEVICE_URL
 
+        // Semua kandidat untuk EndpointSelector, default environment ini di urutan pertama
+        fun candidates(context: Context): List<String> =
+            listOf(getDefault(context), EMULATOR_URL, DEVICE_URL).distinct()
+
         // Helper to detect emulator reliably (support old and new emulator variants)
         private fun isRunningOnEmulator(): Boolean {
             val fingerprint = Build.FINGERPRINT.lowercase()
@@ -60,6 +67,8 @@ object NetworkConfig {
     }
 
     object Endpoints {
+        const val HEALTH = "test"  // Dipakai EndpointSelector untuk probe kesehatan base URL
+
         const val LOGIN = "auth/login"
         const val LOGOUT = "auth/logout"
         const val REGISTER = "auth/register"
@@ -106,6 +115,7 @@ object NetworkConfig {
         const val CONNECT_TIMEOUT = 5L   // Faster failover for down servers
         const val READ_TIMEOUT = 10L     // Quicker feedback
         const val WRITE_TIMEOUT = 10L    // Quicker feedback
+        const val REFRESH_CALL_TIMEOUT = 10L  // auth/refresh ditunggu di thread OkHttp, harus selesai cepat
     }
 
     object Cache {
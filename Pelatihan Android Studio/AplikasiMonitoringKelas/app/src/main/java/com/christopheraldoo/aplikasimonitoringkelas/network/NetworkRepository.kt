@@ -25,30 +25,124 @@ import com.christopheraldoo.aplikasimonitoringkelas.data.KehadiranSubmitResponse
 import com.christopheraldoo.aplikasimonitoringkelas.data.KehadiranHistoryResponse
 import com.christopheraldoo.aplikasimonitoringkelas.data.TodayKehadiranResponse
 import com.christopheraldoo.aplikasimonitoringkelas.data.KehadiranItem
-import com.christopheraldoo.aplikasimonitoringkelas.util.SessionManager
-import com.christopheraldoo.aplikasimonitoringkelas.utils.TokenManager
-import com.christopheraldoo.aplikasimonitoringkelas.cache.CacheManager
+import com.christopheraldoo.aplikasimonitoringkelas.data.KurikulumDashboardResponse
+import com.christopheraldoo.aplikasimonitoringkelas.data.ClassManagementResponse
+import com.christopheraldoo.aplikasimonitoringkelas.data.SubstituteTeachersResponse
+import com.christopheraldoo.aplikasimonitoringkelas.data.StatisticsResponse
+import com.christopheraldoo.aplikasimonitoringkelas.data.FilterClassesResponse
+import com.christopheraldoo.aplikasimonitoringkelas.data.FilterTeachersResponse
+import com.christopheraldoo.aplikasimonitoringkelas.data.ClassStudentsResponse
+import com.christopheraldoo.aplikasimonitoringkelas.data.PendingAttendanceResponse
+import com.christopheraldoo.aplikasimonitoringkelas.data.KepalaSekolahDashboardResponse
+import com.christopheraldoo.aplikasimonitoringkelas.data.KepsekAttendanceListResponse
+import com.christopheraldoo.aplikasimonitoringkelas.data.TeacherPerformanceResponse
+import com.christopheraldoo.aplikasimonitoringkelas.util.CredentialStore
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.PendingKehadiran
+import com.christopheraldoo.aplikasimonitoringkelas.sync.KehadiranOutbox
+import com.christopheraldoo.aplikasimonitoringkelas.sync.KehadiranSyncWorker
+import com.christopheraldoo.aplikasimonitoringkelas.repository.HistoryPagingRepository
+import com.christopheraldoo.aplikasimonitoringkelas.cache.TieredCacheManager
+import com.christopheraldoo.aplikasimonitoringkelas.data.KurikulumAttendanceHistoryItem
+import com.christopheraldoo.aplikasimonitoringkelas.data.PaginationInfo
+import com.christopheraldoo.aplikasimonitoringkelas.stats.AttendanceStatsEngine
+import com.christopheraldoo.aplikasimonitoringkelas.stats.AttendanceStatsReports
 import com.google.gson.JsonObject
-import kotlinx.coroutines.delay
-import com.google.gson.reflect.TypeToken
 import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.async
-import kotlinx.coroutines.coroutineScope
-import kotlinx.coroutines.sync.Mutex
-import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.withContext
-import java.util.concurrent.ConcurrentHashMap
+import kotlinx.coroutines.ensureActive
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.currentCoroutineContext
+import android.os.Environment
+import java.io.File
+import java.text.SimpleDateFormat
+import java.util.Date
+import java.util.Locale
 
 class NetworkRepository(private val context: Context) {
 
+    // Shared instance dari RetrofitClient - murah dipanggil berulang, ikut berganti saat base URL di-flip
     private fun getApi() = RetrofitClient.getAuthenticatedInstance(context)
 
-    private val apiService by lazy { RetrofitClient.createApiService(context) }
-    private val cacheManager by lazy { CacheManager(context) }
+    private val apiService: ApiService get() = getApi()
+
+    // Token dibaca dari salinan di memori, bukan SharedPreferences per request
+    private val credentials = CredentialStore.getInstance(context)
+
+    companion object {
+        // Memo singkat untuk layar yang memanggil endpoint yang sama beberapa kali saat dibuka
+        private const val MEMO_SHORT = 2_000L
+        // Data filter/dropdown jarang berubah
+        private const val MEMO_LOOKUP = 60_000L
+
+        // Single-flight per endpoint, dipakai bersama semua instance NetworkRepository.
+        // Key = endpoint + parameter, jadi endpoint berbeda tidak saling menunggu.
+        private val currentUserFlight = SingleFlight<Pair<UserApi?, String?>>("auth/me")
+        private val schedulesFlight = SingleFlight<Pair<List<ScheduleApi>?, String?>>("schedules-mobile")
+        private val mySchedulesFlight = SingleFlight<Result<List<ScheduleApi>>>("jadwal-siswa")
+        private val schedulesWithAttendanceFlight = SingleFlight<Result<Pair<List<ScheduleApi>, String?>>>("siswa/weekly-schedule-attendance")
+        private val emptyClassroomsFlight = SingleFlight<Pair<List<ClassroomApi>?, String?>>("empty-classrooms")
+        private val classroomsFlight = SingleFlight<Pair<List<ClassroomApi>?, String?>>("classrooms")
+        private val subjectsFlight = SingleFlight<Pair<List<SubjectApi>?, String?>>("subjects")
+        private val teachersFlight = SingleFlight<Pair<List<TeacherApi>?, String?>>("teachers")
+        private val usersFlight = SingleFlight<Pair<List<UserApi>?, String?>>("users")
+        private val notificationsFlight = SingleFlight<Pair<List<NotificationApi>?, String?>>("notifications")
+        private val unreadCountFlight = SingleFlight<Pair<Int?, String?>>("notifications/unread-count")
+        private val dropdownTeachersFlight = SingleFlight<Pair<List<TeacherApi>?, String?>>(
+            "dropdown/subjects/teachers", MEMO_LOOKUP, { it.first != null })
+        private val dropdownSubjectsFlight = SingleFlight<Pair<List<SubjectApi>?, String?>>(
+            "dropdown/subjects", MEMO_LOOKUP, { it.first != null })
+        private val dropdownClassroomsFlight = SingleFlight<Pair<List<ClassroomApi>?, String?>>(
+            "dropdown/classrooms", MEMO_LOOKUP, { it.first != null })
+        private val dropdownAllFlight = SingleFlight<Pair<ApiResponse<AllDropdownResponse>?, String?>>(
+            "dropdown/all", MEMO_LOOKUP, { it.first != null })
+        private val todayKehadiranStatusFlight = SingleFlight<Result<TodayKehadiranResponse>>("siswa/kehadiran-guru/today")
+        private val todayKehadiranFlight = SingleFlight<Result<TodayKehadiranResponse>>("kehadiran/today")
+        private val riwayatKehadiranFlight = SingleFlight<Result<KehadiranHistoryResponse>>("kehadiran/riwayat")
+
+        private val kurikulumDashboardFlight = SingleFlight<KurikulumDashboardResponse>(
+            "kurikulum/dashboard", MEMO_SHORT, { it.success })
+        private val kurikulumClassesFlight = SingleFlight<ClassManagementResponse>(
+            "kurikulum/classes", MEMO_SHORT, { it.success })
+        private val substitutesFlight = SingleFlight<SubstituteTeachersResponse>(
+            "kurikulum/substitutes", MEMO_SHORT, { it.success })
+        private val statisticsFlight = SingleFlight<StatisticsResponse>(
+            "kurikulum/statistics", MEMO_SHORT, { it.success })
+        private val exportFlight = SingleFlight<ExportFileResult>("kurikulum/export")
+        private val filterClassesFlight = SingleFlight<FilterClassesResponse>(
+            "kurikulum/filter/classes", MEMO_LOOKUP, { it.success })
+        private val filterTeachersFlight = SingleFlight<FilterTeachersResponse>(
+            "kurikulum/filter/teachers", MEMO_LOOKUP, { it.success })
+        private val classStudentsFlight = SingleFlight<ClassStudentsResponse>(
+            "kurikulum/class/students", MEMO_SHORT, { it.success })
+        private val pendingFlight = SingleFlight<PendingAttendanceResponse>(
+            "kurikulum/pending", MEMO_SHORT, { it.success })
+        private val kepsekDashboardFlight = SingleFlight<KepalaSekolahDashboardResponse>(
+            "kepala-sekolah/dashboard", MEMO_SHORT, { it.success })
+        private val kepsekAttendancesFlight = SingleFlight<KepsekAttendanceListResponse>(
+            "kepala-sekolah/attendance", MEMO_SHORT, { it.success })
+        private val kepsekPerformanceFlight = SingleFlight<TeacherPerformanceResponse>(
+            "kepala-sekolah/teacher-performance", MEMO_SHORT, { it.success })
+
+        // Rentang statistik lokal dianggap segar selama ini; setelahnya hanya hari-hari terakhir yang diambil ulang
+        private const val STATS_MAX_AGE = TieredCacheManager.TTL_SHORT
+        private const val STATS_RECENT_DAYS = 7
+        private const val STATS_PAGE_SIZE = 100 // batas limit kurikulum/history di server
+
+        private val memoizedFlights = listOf(
+            dropdownTeachersFlight, dropdownSubjectsFlight, dropdownClassroomsFlight, dropdownAllFlight,
+            kurikulumDashboardFlight, kurikulumClassesFlight, substitutesFlight,
+            statisticsFlight, filterClassesFlight, filterTeachersFlight, classStudentsFlight, pendingFlight,
+            kepsekDashboardFlight, kepsekAttendancesFlight, kepsekPerformanceFlight
+        )
 
-    // Request deduplication and sequential execution
-    private val requestMutex = Mutex()
-    private val ongoingRequests = ConcurrentHashMap<String, Any>()
+        /**
+         * Buang semua hasil memo (dipanggil saat logout atau setelah data diubah)
+         */
+        fun invalidateMemoizedReads() {
+            memoizedFlights.forEach { it.invalidate() }
+        }
+    }
 
     // Authentication
     suspend fun login(email: String, password: String): Pair<LoginResponse?, String?> {
@@ -72,6 +166,9 @@ class NetworkRepository(private val context: Context) {
         return withContext(Dispatchers.IO) {
             try {
                 val response = apiService.logout(token)
+                invalidateMemoizedReads()
+                AttendanceStatsEngine.shared.clear()
+                RetrofitClient.clearHttpCache()
 
                 if (response.isSuccessful) {
                     Pair(true, null)
@@ -86,7 +183,7 @@ class NetworkRepository(private val context: Context) {
     }
 
     suspend fun getCurrentUser(token: String): Pair<UserApi?, String?> {
-        return withContext(Dispatchers.IO) {
+        return currentUserFlight.execute(token.hashCode()) {
             try {
                 val response = apiService.getCurrentUser(token)
 
@@ -104,7 +201,7 @@ class NetworkRepository(private val context: Context) {
 
     // Schedule operations - Use the optimized mobile endpoint
     suspend fun getSchedules(token: String, day: String? = null, classId: Int? = null, teacherId: Int? = null): Pair<List<ScheduleApi>?, String?> {
-        return withContext(Dispatchers.IO) {
+        return schedulesFlight.execute(token.hashCode(), day, classId, teacherId) {
             try {
                 Log.d("NetworkRepository", "Getting schedules with params: day=$day, classId=$classId, teacherId=$teacherId")
                 // Use the mobile-optimized endpoint that should return less data
@@ -128,176 +225,106 @@ class NetworkRepository(private val context: Context) {
     }
 
     /**
-     * Overload for ViewModel - returns Result type with deduplication and sequential calls
+     * Overload for ViewModel - returns Result type with single-flight deduplication
      */
     suspend fun getSchedules(forceRefresh: Boolean = false, classId: Int? = null): Result<List<ScheduleApi>> {
-        val requestKey = "getSchedules:$classId"
+        return mySchedulesFlight.execute(classId, forceRefresh = forceRefresh) {
+            try {
+                val token = credentials.token()
+                if (token.isNullOrEmpty()) {
+                    return@execute Result.failure<List<ScheduleApi>>(Exception("Token tidak ditemukan"))
+                }
 
-        // If force refresh, cancel any ongoing request
-        if (forceRefresh) {
-            ongoingRequests.remove(requestKey)
-        }
+                // Menggunakan endpoint baru yang lebih spesifik untuk siswa
+                val response = apiService.getMyWeeklySchedule("Bearer $token")
 
-        // Check if request is already ongoing
-        ongoingRequests[requestKey]?.let { deferred ->
-            return try {
-                @Suppress("UNCHECKED_CAST")
-                (deferred as kotlinx.coroutines.Deferred<Result<List<ScheduleApi>>>).await()
-            } catch (e: Exception) {
-                ongoingRequests.remove(requestKey)
-                Result.failure(e)
-            }
-        }
+                Log.d("NetworkRepository", "API Response Code: ${response.code()}")
+                Log.d("NetworkRepository", "API Response Success: ${response.isSuccessful}")
+                Log.d("NetworkRepository", "API Body Success: ${response.body()?.success}")
+                Log.d("NetworkRepository", "API Body Data: ${response.body()?.data}")
 
-        // Create new request with mutex for sequential execution
-        val deferred = coroutineScope {
-            requestMutex.withLock {
-                async(Dispatchers.IO) {
-                    try {
-                        val token = SessionManager(context).getAuthToken()
-                        if (token.isNullOrEmpty()) {
-                            return@async Result.failure<List<ScheduleApi>>(Exception("Token tidak ditemukan"))
-                        }
-
-                        // Menggunakan endpoint baru yang lebih spesifik untuk siswa
-                        val response = apiService.getMyWeeklySchedule("Bearer $token")
-
-                        Log.d("NetworkRepository", "API Response Code: ${response.code()}")
-                        Log.d("NetworkRepository", "API Response Success: ${response.isSuccessful}")
-                        Log.d("NetworkRepository", "API Body Success: ${response.body()?.success}")
-                        Log.d("NetworkRepository", "API Body Data: ${response.body()?.data}")
-
-                        if (response.isSuccessful && response.body()?.success == true) {
-                            // Response is now directly List<ScheduleApi>
-                            val schedules: List<ScheduleApi> = response.body()?.data ?: emptyList()
-                            Log.d("NetworkRepository", "Successfully parsed ${schedules.size} schedules from new endpoint")
-                            
-                            // Log first few schedules for debugging
-                            schedules.take(3).forEach { schedule ->
-                                Log.d("NetworkRepository", "Schedule: ${schedule.className} - ${schedule.subjectName} (${schedule.dayOfWeek})")
-                            }
+                if (response.isSuccessful && response.body()?.success == true) {
+                    // Response is now directly List<ScheduleApi>
+                    val schedules: List<ScheduleApi> = response.body()?.data ?: emptyList()
+                    Log.d("NetworkRepository", "Successfully parsed ${schedules.size} schedules from new endpoint")
                             
-                            Result.success<List<ScheduleApi>>(schedules)
-                        } else {
-                            val errorMsg = "HTTP ${response.code()}: ${response.message()} | Body: ${response.errorBody()?.string()}"
-                            Log.e("NetworkRepository", errorMsg)
-                            Result.failure<List<ScheduleApi>>(Exception(errorMsg))
-                        }
-                    } catch (e: Exception) {
-                        Log.e("NetworkRepository", "Get schedules error", e)
-                        Result.failure<List<ScheduleApi>>(e)
-                    } finally {
-                        ongoingRequests.remove(requestKey)
+                    // Log first few schedules for debugging
+                    schedules.take(3).forEach { schedule ->
+                        Log.d("NetworkRepository", "Schedule: ${schedule.className} - ${schedule.subjectName} (${schedule.dayOfWeek})")
                     }
+                            
+                    Result.success<List<ScheduleApi>>(schedules)
+                } else {
+                    val errorMsg = "HTTP ${response.code()}: ${response.message()} | Body: ${response.errorBody()?.string()}"
+                    Log.e("NetworkRepository", errorMsg)
+                    Result.failure<List<ScheduleApi>>(Exception(errorMsg))
                 }
+            } catch (e: Exception) {
+                Log.e("NetworkRepository", "Get schedules error", e)
+                Result.failure<List<ScheduleApi>>(e)
             }
         }
-
-        ongoingRequests[requestKey] = deferred
-        return deferred.await()
     }
 
     /**
      * Get weekly schedule with teacher attendance status
      * Uses the stable endpoint and calculates today locally
-     * Includes retry mechanism for handling EOFException/parsing errors
+     * Retry (termasuk EOFException dari body yang terpotong) ditangani ResilientCallAdapterFactory
      */
     suspend fun getSchedulesWithAttendance(forceRefresh: Boolean = false): Result<Pair<List<ScheduleApi>, String?>> {
-        val requestKey = "getSchedulesWithAttendance"
-        val maxRetries = 3
+        return schedulesWithAttendanceFlight.execute(forceRefresh = forceRefresh) {
+            try {
+                val token = credentials.token()
+                if (token.isNullOrEmpty()) {
+                    return@execute Result.failure<Pair<List<ScheduleApi>, String?>>(Exception("Token tidak ditemukan"))
+                }
 
-        // If force refresh, cancel any ongoing request
-        if (forceRefresh) {
-            ongoingRequests.remove(requestKey)
-        }
+                // Calculate today's day name in Indonesian
+                val dayMap = mapOf(
+                    java.util.Calendar.MONDAY to "Senin",
+                    java.util.Calendar.TUESDAY to "Selasa",
+                    java.util.Calendar.WEDNESDAY to "Rabu",
+                    java.util.Calendar.THURSDAY to "Kamis",
+                    java.util.Calendar.FRIDAY to "Jumat",
+                    java.util.Calendar.SATURDAY to "Sabtu",
+                    java.util.Calendar.SUNDAY to "Minggu"
+                )
+                val todayDay = dayMap[java.util.Calendar.getInstance().get(java.util.Calendar.DAY_OF_WEEK)] ?: "Senin"
 
-        // Check if request is already ongoing
-        ongoingRequests[requestKey]?.let { deferred ->
-            return try {
-                @Suppress("UNCHECKED_CAST")
-                (deferred as kotlinx.coroutines.Deferred<Result<Pair<List<ScheduleApi>, String?>>>).await()
-            } catch (e: Exception) {
-                ongoingRequests.remove(requestKey)
-                Result.failure(e)
-            }
-        }
+                // Use the endpoint WITH attendance status for JadwalScreen
+                Log.d("NetworkRepository", "Using endpoint siswa/weekly-schedule-attendance")
+                val response = apiService.getWeeklyScheduleWithAttendance("Bearer $token")
 
-        // Create new request with mutex for sequential execution
-        val deferred = coroutineScope {
-            requestMutex.withLock {
-                async(Dispatchers.IO) {
-                    var lastException: Exception? = null
-                    
-                    for (attempt in 1..maxRetries) {
-                        try {
-                            val token = SessionManager(context).getAuthToken()
-                            if (token.isNullOrEmpty()) {
-                                return@async Result.failure<Pair<List<ScheduleApi>, String?>>(Exception("Token tidak ditemukan"))
-                            }
-
-                            // Calculate today's day name in Indonesian
-                            val dayMap = mapOf(
-                                java.util.Calendar.MONDAY to "Senin",
-                                java.util.Calendar.TUESDAY to "Selasa",
-                                java.util.Calendar.WEDNESDAY to "Rabu",
-                                java.util.Calendar.THURSDAY to "Kamis",
-                                java.util.Calendar.FRIDAY to "Jumat",
-                                java.util.Calendar.SATURDAY to "Sabtu",
-                                java.util.Calendar.SUNDAY to "Minggu"
-                            )
-                            val todayDay = dayMap[java.util.Calendar.getInstance().get(java.util.Calendar.DAY_OF_WEEK)] ?: "Senin"
-
-                            // Use the endpoint WITH attendance status for JadwalScreen
-                            Log.d("NetworkRepository", "Attempt $attempt/$maxRetries: Using endpoint siswa/weekly-schedule-attendance")
-                            val response = apiService.getWeeklyScheduleWithAttendance("Bearer $token")
-
-                            Log.d("NetworkRepository", "Schedule Response Code: ${response.code()}")
-
-                            if (response.isSuccessful && response.body()?.success == true) {
-                                val schedules = response.body()?.data ?: emptyList()
-                                val serverToday = response.body()?.today ?: todayDay
-                                Log.d("NetworkRepository", "Successfully parsed ${schedules.size} schedules with attendance, today=$serverToday")
-                                
-                                return@async Result.success(Pair(schedules, serverToday))
-                            } else {
-                                val errorMsg = "HTTP ${response.code()}: ${response.message()}"
-                                Log.e("NetworkRepository", errorMsg)
-                                lastException = Exception(errorMsg)
-                            }
-                        } catch (e: java.io.EOFException) {
-                            Log.w("NetworkRepository", "EOFException on attempt $attempt/$maxRetries: ${e.message}")
-                            lastException = Exception("Data tidak lengkap, mencoba lagi...", e)
-                            if (attempt < maxRetries) {
-                                kotlinx.coroutines.delay(1000L * attempt)
-                            }
-                        } catch (e: com.google.gson.JsonSyntaxException) {
-                            Log.w("NetworkRepository", "JSON parsing error on attempt $attempt/$maxRetries: ${e.message}")
-                            lastException = Exception("Format data tidak valid", e)
-                            if (attempt < maxRetries) {
-                                kotlinx.coroutines.delay(1000L * attempt)
-                            }
-                        } catch (e: java.net.SocketTimeoutException) {
-                            Log.w("NetworkRepository", "Timeout on attempt $attempt/$maxRetries: ${e.message}")
-                            lastException = Exception("Koneksi timeout", e)
-                            if (attempt < maxRetries) {
-                                kotlinx.coroutines.delay(500L * attempt)
-                            }
-                        } catch (e: Exception) {
-                            Log.e("NetworkRepository", "Get schedules error on attempt $attempt/$maxRetries", e)
-                            lastException = e
-                            // For other exceptions, don't retry
-                            break
-                        }
-                    }
-                    
-                    ongoingRequests.remove(requestKey)
-                    Result.failure(lastException ?: Exception("Gagal memuat jadwal setelah $maxRetries percobaan"))
+                Log.d("NetworkRepository", "Schedule Response Code: ${response.code()}")
+
+                if (response.isSuccessful && response.body()?.success == true) {
+                    val schedules = response.body()?.data ?: emptyList()
+                    val serverToday = response.body()?.today ?: todayDay
+                    Log.d("NetworkRepository", "Successfully parsed ${schedules.size} schedules with attendance, today=$serverToday")
+
+                    Result.success(Pair(schedules, serverToday))
+                } else {
+                    val errorMsg = "HTTP ${response.code()}: ${response.message()}"
+                    Log.e("NetworkRepository", errorMsg)
+                    Result.failure(Exception(errorMsg))
                 }
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: java.io.EOFException) {
+                Log.w("NetworkRepository", "EOFException: ${e.message}")
+                Result.failure(Exception("Data tidak lengkap", e))
+            } catch (e: com.google.gson.JsonSyntaxException) {
+                Log.w("NetworkRepository", "JSON parsing error: ${e.message}")
+                Result.failure(Exception("Format data tidak valid", e))
+            } catch (e: java.net.SocketTimeoutException) {
+                Log.w("NetworkRepository", "Timeout: ${e.message}")
+                Result.failure(Exception("Koneksi timeout", e))
+            } catch (e: Exception) {
+                Log.e("NetworkRepository", "Get schedules error", e)
+                Result.failure(e)
             }
         }
-
-        ongoingRequests[requestKey] = deferred
-        return deferred.await()
+    }
     }
 
     suspend fun createSchedule(token: String, scheduleJson: JsonObject): Pair<ScheduleApi?, String?> {
@@ -353,7 +380,7 @@ class NetworkRepository(private val context: Context) {
 
     // Classroom operations
     suspend fun getEmptyClassrooms(token: String, day: String? = null, period: Int? = null): Pair<List<ClassroomApi>?, String?> {
-        return withContext(Dispatchers.IO) {
+        return emptyClassroomsFlight.execute(token.hashCode(), day, period) {
             try {
                 val response = apiService.getEmptyClassrooms(token, day, period)
 
@@ -370,7 +397,7 @@ class NetworkRepository(private val context: Context) {
     }
 
     suspend fun getClassrooms(token: String): Pair<List<ClassroomApi>?, String?> {
-        return withContext(Dispatchers.IO) {
+        return classroomsFlight.execute(token.hashCode()) {
             try {
                 val response = apiService.getClassrooms(token)
 
@@ -388,7 +415,7 @@ class NetworkRepository(private val context: Context) {
 
     // Subject operations
     suspend fun getSubjects(token: String): Pair<List<SubjectApi>?, String?> {
-        return withContext(Dispatchers.IO) {
+        return subjectsFlight.execute(token.hashCode()) {
             try {
                 val response = apiService.getSubjects(token)
 
@@ -406,7 +433,7 @@ class NetworkRepository(private val context: Context) {
 
     // Teacher operations
     suspend fun getTeachers(token: String): Pair<List<TeacherApi>?, String?> {
-        return withContext(Dispatchers.IO) {
+        return teachersFlight.execute(token.hashCode()) {
             try {
                 val response = apiService.getTeachers(token)
 
@@ -424,7 +451,7 @@ class NetworkRepository(private val context: Context) {
 
     // User management (Admin only)
     suspend fun getUsers(token: String): Pair<List<UserApi>?, String?> {
-        return withContext(Dispatchers.IO) {
+        return usersFlight.execute(token.hashCode()) {
             try {
                 val response = apiService.getUsers(token)
 
@@ -466,7 +493,7 @@ class NetworkRepository(private val context: Context) {
 
     // Notifications
     suspend fun getNotifications(token: String): Pair<List<NotificationApi>?, String?> {
-        return withContext(Dispatchers.IO) {
+        return notificationsFlight.execute(token.hashCode()) {
             try {
                 val response = apiService.getNotifications(token)
 
@@ -500,7 +527,7 @@ class NetworkRepository(private val context: Context) {
     }
 
     suspend fun getUnreadNotificationCount(token: String): Pair<Int?, String?> {
-        return withContext(Dispatchers.IO) {
+        return unreadCountFlight.execute(token.hashCode()) {
             try {
                 val response = apiService.getUnreadNotificationCount(token)
 
@@ -519,7 +546,7 @@ class NetworkRepository(private val context: Context) {
 
     // New dropdown methods that don't require authentication
     suspend fun getDropdownTeachersBySubject(subjectId: Int): Pair<List<TeacherApi>?, String?> {
-        return withContext(Dispatchers.IO) {
+        return dropdownTeachersFlight.execute(subjectId) {
             try {
                 val response = apiService.getTeachersBySubject(subjectId)
 
@@ -550,7 +577,7 @@ class NetworkRepository(private val context: Context) {
 
     // Get all subjects for dropdown
     suspend fun getDropdownSubjects(): Pair<List<SubjectApi>?, String?> {
-        return withContext(Dispatchers.IO) {
+        return dropdownSubjectsFlight.execute {
             try {
                 val response = apiService.getDropdownSubjects()
 
@@ -578,7 +605,7 @@ class NetworkRepository(private val context: Context) {
 
     // Get all classrooms for dropdown
     suspend fun getDropdownClassrooms(): Pair<List<ClassroomApi>?, String?> {
-        return withContext(Dispatchers.IO) {
+        return dropdownClassroomsFlight.execute {
             try {
                 val response = apiService.getDropdownClassrooms()
 
@@ -608,7 +635,7 @@ class NetworkRepository(private val context: Context) {
 
     // Get all dropdown data in one call
     suspend fun getAllDropdownData(): Pair<ApiResponse<AllDropdownResponse>?, String?> {
-        return withContext(Dispatchers.IO) {
+        return dropdownAllFlight.execute {
             try {
                 val response = apiService.getAllDropdownData()
 
@@ -627,38 +654,39 @@ class NetworkRepository(private val context: Context) {
     // ========== KEHADIRAN (ATTENDANCE) METHODS ==========
 
     /**
-     * Submit teacher attendance
+     * Submit teacher attendance (offline-first)
+     *
+     * Isian disimpan ke outbox Room dulu, lalu langsung dicoba kirim. Kalau jaringan/server
+     * gagal, isian tetap tersimpan dan dikirim KehadiranSyncWorker saat koneksi kembali.
      */
     suspend fun submitKehadiran(
         scheduleId: Int,
         tanggal: String,
         status: String,
-        catatan: String?
+        catatan: String?,
+        subject: String? = null,
+        teacher: String? = null,
+        period: Int = 0,
+        time: String? = null
     ): Result<KehadiranSubmitResponse> {
         return withContext(Dispatchers.IO) {
             try {
-                val token = SessionManager(context).getAuthToken()
-                if (token.isNullOrEmpty()) {
-                    return@withContext Result.failure(Exception("Token tidak ditemukan"))
-                }
-
-                val request = KehadiranSubmitRequest(
-                    scheduleId = scheduleId,
-                    tanggal = tanggal,
-                    status = status,
-                    catatan = catatan ?: ""
-                )
-
-                val response = apiService.submitKehadiran("Bearer $token", request)
-                if (response.isSuccessful) {
-                    val body = response.body()
-                    if (body != null) {
-                        Result.success(body)
-                    } else {
-                        Result.failure(Exception("Response body kosong"))
+                val outbox = KehadiranOutbox.getInstance(context)
+                outbox.enqueue(scheduleId, tanggal, status, catatan, subject, teacher, period, time)
+
+                when (val outcome = outbox.sendNow(scheduleId, tanggal)) {
+                    is KehadiranOutbox.SendOutcome.Sent -> Result.success(outcome.response)
+                    is KehadiranOutbox.SendOutcome.Rejected -> Result.failure(Exception(outcome.message))
+                    is KehadiranOutbox.SendOutcome.RetryLater -> {
+                        Log.w("NetworkRepository", "Submit kehadiran ditunda: ${outcome.message}")
+                        KehadiranSyncWorker.schedule(context)
+                        Result.success(
+                            KehadiranSubmitResponse(
+                                success = true,
+                                message = "Kehadiran disimpan di perangkat dan akan dikirim otomatis saat koneksi tersedia"
+                            )
+                        )
                     }
-                } else {
-                    Result.failure(Exception("HTTP ${response.code()}: ${response.message()}"))
                 }
             } catch (e: Exception) {
                 Log.e("NetworkRepository", "Submit kehadiran error", e)
@@ -668,159 +696,42 @@ class NetworkRepository(private val context: Context) {
     }
 
     /**
-     * Get kehadiran history with pagination, caching, deduplication and sequential execution
+     * Isian kehadiran yang belum diterima server (pending dan ditolak)
      */
-    suspend fun getKehadiranHistory(forceRefresh: Boolean = false, page: Int = 1, limit: Int = 20): Result<KehadiranHistoryResponse> {
-        val cacheKey = "kehadiran_history_page_$page"
-
-        // Check cache first (only for first page to avoid complexity)
-        if (!forceRefresh && page == 1) {
-            val cachedData = cacheManager.getData(
-                cacheKey,
-                object : TypeToken<KehadiranHistoryResponse>() {},
-                CacheManager.TTL_SHORT // 5 minutes for attendance data
-            )
-            if (cachedData != null) {
-                Log.d("NetworkRepository", "Returning cached kehadiran history")
-                return Result.success(cachedData)
-            }
-        }
-
-        val requestKey = "getKehadiranHistory:$page:$limit"
+    fun observePendingKehadiran(): Flow<List<PendingKehadiran>> =
+        KehadiranOutbox.getInstance(context).observeAll()
 
-        // If force refresh, cancel any ongoing request
-        if (forceRefresh) {
-            ongoingRequests.remove(requestKey)
-        }
-
-        // Check if request is already ongoing
-        ongoingRequests[requestKey]?.let { deferred ->
-            return try {
-                @Suppress("UNCHECKED_CAST")
-                (deferred as kotlinx.coroutines.Deferred<Result<KehadiranHistoryResponse>>).await()
-            } catch (e: Exception) {
-                ongoingRequests.remove(requestKey)
-                Result.failure(e)
-            }
-        }
-
-        // Create new request with mutex for sequential execution
-        val deferred = coroutineScope {
-            requestMutex.withLock {
-                async(Dispatchers.IO) {
-                    try {
-                        val token = SessionManager(context).getAuthToken()
-                        if (token.isNullOrEmpty()) {
-                            return@async Result.failure<KehadiranHistoryResponse>(Exception("Token tidak ditemukan"))
-                        }
-
-                        val response = apiService.getKehadiranHistory("Bearer $token", page, limit)
-                        if (response.isSuccessful) {
-                            val body = response.body()
-                            if (body != null && body.success) {
-                                // Cache the response for first page
-                                if (page == 1) {
-                                    cacheManager.saveData(cacheKey, body, CacheManager.TTL_SHORT)
-                                }
-                                Result.success(body)
-                            } else {
-                                // Return empty success response instead of error
-                                Result.success(KehadiranHistoryResponse(
-                                    success = true,
-                                    data = emptyList(),
-                                    total = 0,
-                                    pagination = null
-                                ))
-                            }
-                        } else {
-                            // CRITICAL FIX: Return empty success instead of error to prevent crash
-                            Result.success(KehadiranHistoryResponse(
-                                success = true,
-                                data = emptyList(),
-                                total = 0,
-                                pagination = null
-                            ))
-                        }
-                    } catch (e: Exception) {
-                        Log.e("NetworkRepository", "Get kehadiran history error", e)
-                        // CRITICAL FIX: Return empty success instead of failure to prevent crash
-                        Result.success(KehadiranHistoryResponse(
-                            success = true,
-                            data = emptyList(),
-                            total = 0,
-                            pagination = null
-                        ))
-                    } finally {
-                        ongoingRequests.remove(requestKey)
-                    }
-                }
-            }
+    suspend fun dismissPendingKehadiran(scheduleId: Int, tanggal: String) {
+        withContext(Dispatchers.IO) {
+            KehadiranOutbox.getInstance(context).dismiss(scheduleId, tanggal)
         }
-
-        ongoingRequests[requestKey] = deferred
-        return deferred.await()
     }
 
+    /**
+     * Riwayat kehadiran (siswa) dan riwayat kurikulum dimuat halaman demi halaman lewat Paging 3,
+     * dengan Room sebagai cache halaman
+     */
+    val historyPaging: HistoryPagingRepository
+        get() = HistoryPagingRepository.getInstance(context)
+
     /**
      * Get today's kehadiran status - SIMPLIFIED dengan error handling lebih baik
      */
     suspend fun getTodayKehadiranStatus(forceRefresh: Boolean = false): Result<TodayKehadiranResponse> {
-        val requestKey = "getTodayKehadiranStatus"
-
-        // If force refresh, cancel any ongoing request
-        if (forceRefresh) {
-            ongoingRequests.remove(requestKey)
-        }
-
-        // Check if request is already ongoing
-        ongoingRequests[requestKey]?.let { deferred ->
-            return try {
-                @Suppress("UNCHECKED_CAST")
-                (deferred as kotlinx.coroutines.Deferred<Result<TodayKehadiranResponse>>).await()
-            } catch (e: Exception) {
-                ongoingRequests.remove(requestKey)
-                Result.failure(e)
-            }
-        }
+        return todayKehadiranStatusFlight.execute(forceRefresh = forceRefresh) {
+            try {
+                val token = credentials.token()
+                if (token.isNullOrEmpty()) {
+                    return@execute Result.failure<TodayKehadiranResponse>(Exception("Token tidak ditemukan"))
+                }
 
-        // Create new request with mutex for sequential execution
-        val deferred = coroutineScope {
-            requestMutex.withLock {
-                async(Dispatchers.IO) {
-                    try {
-                        val token = SessionManager(context).getAuthToken()
-                        if (token.isNullOrEmpty()) {
-                            return@async Result.failure<TodayKehadiranResponse>(Exception("Token tidak ditemukan"))
-                        }
-
-                        val response = apiService.getTodayKehadiranStatus("Bearer $token")
-                        if (response.isSuccessful) {
-                            val body = response.body()
-                            if (body != null && body.success) {
-                                Result.success(body)
-                            } else {
-                                // CRITICAL FIX: Return empty success instead of error
-                                val today = java.text.SimpleDateFormat("yyyy-MM-dd", java.util.Locale.getDefault()).format(java.util.Date())
-                                Result.success(TodayKehadiranResponse(
-                                    success = true,
-                                    tanggal = today,
-                                    dayOfWeek = java.text.SimpleDateFormat("EEEE", java.util.Locale.getDefault()).format(java.util.Date()).lowercase(),
-                                    schedules = emptyList()
-                                ))
-                            }
-                        } else {
-                            // CRITICAL FIX: Return empty success instead of error to prevent crash
-                            val today = java.text.SimpleDateFormat("yyyy-MM-dd", java.util.Locale.getDefault()).format(java.util.Date())
-                            Result.success(TodayKehadiranResponse(
-                                success = true,
-                                tanggal = today,
-                                dayOfWeek = java.text.SimpleDateFormat("EEEE", java.util.Locale.getDefault()).format(java.util.Date()).lowercase(),
-                                schedules = emptyList()
-                            ))
-                        }
-                    } catch (e: Exception) {
-                        Log.e("NetworkRepository", "Get today kehadiran status error", e)
-                        // CRITICAL FIX: Return empty success instead of failure to prevent crash
+                val response = apiService.getTodayKehadiranStatus("Bearer $token")
+                if (response.isSuccessful) {
+                    val body = response.body()
+                    if (body != null && body.success) {
+                        Result.success(body)
+                    } else {
+                        // CRITICAL FIX: Return empty success instead of error
                         val today = java.text.SimpleDateFormat("yyyy-MM-dd", java.util.Locale.getDefault()).format(java.util.Date())
                         Result.success(TodayKehadiranResponse(
                             success = true,
@@ -828,23 +739,37 @@ class NetworkRepository(private val context: Context) {
                             dayOfWeek = java.text.SimpleDateFormat("EEEE", java.util.Locale.getDefault()).format(java.util.Date()).lowercase(),
                             schedules = emptyList()
                         ))
-                    } finally {
-                        ongoingRequests.remove(requestKey)
                     }
+                } else {
+                    // CRITICAL FIX: Return empty success instead of error to prevent crash
+                    val today = java.text.SimpleDateFormat("yyyy-MM-dd", java.util.Locale.getDefault()).format(java.util.Date())
+                    Result.success(TodayKehadiranResponse(
+                        success = true,
+                        tanggal = today,
+                        dayOfWeek = java.text.SimpleDateFormat("EEEE", java.util.Locale.getDefault()).format(java.util.Date()).lowercase(),
+                        schedules = emptyList()
+                    ))
                 }
+            } catch (e: Exception) {
+                Log.e("NetworkRepository", "Get today kehadiran status error", e)
+                // CRITICAL FIX: Return empty success instead of failure to prevent crash
+                val today = java.text.SimpleDateFormat("yyyy-MM-dd", java.util.Locale.getDefault()).format(java.util.Date())
+                Result.success(TodayKehadiranResponse(
+                    success = true,
+                    tanggal = today,
+                    dayOfWeek = java.text.SimpleDateFormat("EEEE", java.util.Locale.getDefault()).format(java.util.Date()).lowercase(),
+                    schedules = emptyList()
+                ))
             }
         }
-
-        ongoingRequests[requestKey] = deferred
-        return deferred.await()
     }
 
     // Get today's attendance status
-    suspend fun getTodayKehadiran(): Result<TodayKehadiranResponse> = withContext(Dispatchers.IO) {
-        return@withContext try {
-            val token = TokenManager.getToken(context)
+    suspend fun getTodayKehadiran(): Result<TodayKehadiranResponse> = todayKehadiranFlight.execute {
+        return@execute try {
+            val token = credentials.token()
             if (token.isNullOrEmpty()) {
-                return@withContext Result.failure(Exception("Token tidak ditemukan"))
+                return@execute Result.failure(Exception("Token tidak ditemukan"))
             }
 
             val response = getApi().getTodayKehadiran()
@@ -862,7 +787,7 @@ class NetworkRepository(private val context: Context) {
     // Submit kehadiran
     suspend fun submitKehadiran(request: KehadiranSubmitRequest): Result<ApiResponse<KehadiranItem>> = withContext(Dispatchers.IO) {
         return@withContext try {
-            val token = TokenManager.getToken(context)
+            val token = credentials.token()
             if (token.isNullOrEmpty()) {
                 return@withContext Result.failure(Exception("Token tidak ditemukan"))
             }
@@ -880,11 +805,11 @@ class NetworkRepository(private val context: Context) {
     }
 
     // Get riwayat kehadiran
-    suspend fun getRiwayatKehadiran(): Result<KehadiranHistoryResponse> = withContext(Dispatchers.IO) {
-        return@withContext try {
-            val token = TokenManager.getToken(context)
+    suspend fun getRiwayatKehadiran(): Result<KehadiranHistoryResponse> = riwayatKehadiranFlight.execute {
+        return@execute try {
+            val token = credentials.token()
             if (token.isNullOrEmpty()) {
-                return@withContext Result.failure(Exception("Token tidak ditemukan"))
+                return@execute Result.failure(Exception("Token tidak ditemukan"))
             }
 
             val response = getApi().getKehadiranHistory("Bearer $token")
@@ -903,10 +828,12 @@ class NetworkRepository(private val context: Context) {
     // KURIKULUM API FUNCTIONS
     // ===============================================
     
-    private fun getAuthToken(): String {
-        val token = TokenManager.getToken(context) ?: ""
-        return if (token.startsWith("Bearer ")) token else "Bearer $token"
-    }
+    private fun getAuthToken(): String = credentials.bearer() ?: "Bearer "
+
+    /**
+     * Push perubahan jadwal (guru pengganti, izin guru) lewat SSE; satu stream untuk semua layar
+     */
+    fun liveScheduleUpdates(): LiveUpdatesClient = RetrofitClient.getLiveUpdates(context)
 
     // Get Kurikulum Dashboard Overview
     suspend fun getKurikulumDashboard(
@@ -915,66 +842,61 @@ class NetworkRepository(private val context: Context) {
         subjectId: Int? = null,
         weekOffset: Int? = null,
         forceRefresh: Boolean = false
-    ): com.christopheraldoo.aplikasimonitoringkelas.data.KurikulumDashboardResponse = withContext(Dispatchers.IO) {
+    ): KurikulumDashboardResponse = kurikulumDashboardFlight.execute(day, classId, subjectId, weekOffset, forceRefresh = forceRefresh) {
+        when (val result = refreshKurikulumDashboard(day, classId, subjectId, weekOffset, forceRefresh, ifNoneMatch = null)) {
+            is ConditionalResult.Modified -> result.body
+            is ConditionalResult.Failed -> KurikulumDashboardResponse(
+                success = false,
+                message = "Gagal memuat dashboard: ${result.message}",
+                date = "",
+                day = "",
+                stats = com.christopheraldoo.aplikasimonitoringkelas.data.DashboardStats(),
+                data = emptyList()
+            )
+            // Tanpa If-None-Match server tidak membalas 304
+            ConditionalResult.NotModified -> throw IllegalStateException("304 tanpa If-None-Match")
+        }
+    }
+
+    /**
+     * GET kondisional untuk auto-refresh dashboard: 304 kalau [ifNoneMatch] masih sama dengan ETag server
+     */
+    suspend fun refreshKurikulumDashboard(
+        day: String? = null,
+        classId: Int? = null,
+        subjectId: Int? = null,
+        weekOffset: Int? = null,
+        forceRefresh: Boolean = false,
+        ifNoneMatch: String?
+    ): ConditionalResult<KurikulumDashboardResponse> = withContext(Dispatchers.IO) {
         try {
             val response = getApi().getKurikulumDashboard(
-                getAuthToken(), 
-                day, 
-                classId, 
+                getAuthToken(),
+                day,
+                classId,
                 subjectId,
                 weekOffset,
-                if (forceRefresh) true else null
+                if (forceRefresh) true else null,
+                ifNoneMatch
             )
-            if (response.isSuccessful && response.body() != null) {
-                response.body()!!
-            } else {
-                com.christopheraldoo.aplikasimonitoringkelas.data.KurikulumDashboardResponse(
-                    success = false,
-                    message = "Gagal memuat dashboard: ${response.message()}",
-                    date = "",
-                    day = "",
-                    stats = com.christopheraldoo.aplikasimonitoringkelas.data.DashboardStats(),
-                    data = emptyList()
-                )
-            }
+            ConditionalResult.from(response, KurikulumDashboardResponse::class.java)
+        } catch (e: CancellationException) {
+            throw e
         } catch (e: Exception) {
             Log.e("NetworkRepo", "getKurikulumDashboard error: ${e.message}", e)
-            com.christopheraldoo.aplikasimonitoringkelas.data.KurikulumDashboardResponse(
-                success = false,
-                message = "Error: ${e.message}",
-                date = "",
-                day = "",
-                stats = com.christopheraldoo.aplikasimonitoringkelas.data.DashboardStats(),
-                data = emptyList()
-            )
+            ConditionalResult.Failed("Error: ${e.message}")
         }
     }
 
     // Get Kurikulum Class Management
     suspend fun getKurikulumClasses(
         status: String? = null
-    ): com.christopheraldoo.aplikasimonitoringkelas.data.ClassManagementResponse = withContext(Dispatchers.IO) {
-        try {
-            val response = getApi().getKurikulumClasses(getAuthToken(), status)
-            if (response.isSuccessful && response.body() != null) {
-                response.body()!!
-            } else {
-                com.christopheraldoo.aplikasimonitoringkelas.data.ClassManagementResponse(
-                    success = false,
-                    message = "Gagal memuat data kelas: ${response.message()}",
-                    date = "",
-                    day = "",
-                    currentTime = "",
-                    statusCounts = com.christopheraldoo.aplikasimonitoringkelas.data.StatusCounts(),
-                    alertClasses = emptyList(),
-                    data = emptyList()
-                )
-            }
-        } catch (e: Exception) {
-            Log.e("NetworkRepo", "getKurikulumClasses error: ${e.message}", e)
-            com.christopheraldoo.aplikasimonitoringkelas.data.ClassManagementResponse(
+    ): ClassManagementResponse = kurikulumClassesFlight.execute(status) {
+        when (val result = refreshKurikulumClasses(status, ifNoneMatch = null)) {
+            is ConditionalResult.Modified -> result.body
+            is ConditionalResult.Failed -> ClassManagementResponse(
                 success = false,
-                message = "Error: ${e.message}",
+                message = "Gagal memuat data kelas: ${result.message}",
                 date = "",
                 day = "",
                 currentTime = "",
@@ -982,6 +904,25 @@ class NetworkRepository(private val context: Context) {
                 alertClasses = emptyList(),
                 data = emptyList()
             )
+            ConditionalResult.NotModified -> throw IllegalStateException("304 tanpa If-None-Match")
+        }
+    }
+
+    /**
+     * GET kondisional untuk auto-refresh manajemen kelas (ETag server mengabaikan current_time)
+     */
+    suspend fun refreshKurikulumClasses(
+        status: String? = null,
+        ifNoneMatch: String?
+    ): ConditionalResult<ClassManagementResponse> = withContext(Dispatchers.IO) {
+        try {
+            val response = getApi().getKurikulumClasses(getAuthToken(), status, ifNoneMatch = ifNoneMatch)
+            ConditionalResult.from(response, ClassManagementResponse::class.java)
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Log.e("NetworkRepo", "getKurikulumClasses error: ${e.message}", e)
+            ConditionalResult.Failed("Error: ${e.message}")
         }
     }
 
@@ -989,7 +930,7 @@ class NetworkRepository(private val context: Context) {
     suspend fun getAvailableSubstitutes(
         period: Int,
         subjectId: Int? = null
-    ): com.christopheraldoo.aplikasimonitoringkelas.data.SubstituteTeachersResponse = withContext(Dispatchers.IO) {
+    ): com.christopheraldoo.aplikasimonitoringkelas.data.SubstituteTeachersResponse = substitutesFlight.execute(period, subjectId) {
         try {
             val response = getApi().getAvailableSubstitutes(getAuthToken(), period, subjectId)
             if (response.isSuccessful && response.body() != null) {
@@ -1018,6 +959,8 @@ class NetworkRepository(private val context: Context) {
         try {
             val response = getApi().assignSubstitute(getAuthToken(), request)
             if (response.isSuccessful && response.body() != null) {
+                // Dashboard, kelas, pending dan statistik yang dimemo sudah tidak sesuai
+                invalidateMemoizedReads()
                 response.body()!!
             } else {
                 com.christopheraldoo.aplikasimonitoringkelas.data.AssignSubstituteResponse(
@@ -1034,46 +977,12 @@ class NetworkRepository(private val context: Context) {
         }
     }
 
-    // Get Kurikulum Attendance History
-    suspend fun getKurikulumHistory(
-        page: Int = 1,
-        dateFrom: String? = null,
-        dateTo: String? = null,
-        teacherId: Int? = null,
-        classId: Int? = null,
-        status: String? = null
-    ): com.christopheraldoo.aplikasimonitoringkelas.data.KurikulumHistoryResponse = withContext(Dispatchers.IO) {
-        try {
-            val response = getApi().getKurikulumHistory(
-                getAuthToken(), page, 20, dateFrom, dateTo, teacherId, classId, status
-            )
-            if (response.isSuccessful && response.body() != null) {
-                response.body()!!
-            } else {
-                com.christopheraldoo.aplikasimonitoringkelas.data.KurikulumHistoryResponse(
-                    success = false,
-                    message = "Gagal memuat riwayat: ${response.message()}",
-                    data = emptyList(),
-                    pagination = com.christopheraldoo.aplikasimonitoringkelas.data.PaginationInfo(1, 20, 0, 1)
-                )
-            }
-        } catch (e: Exception) {
-            Log.e("NetworkRepo", "getKurikulumHistory error: ${e.message}", e)
-            com.christopheraldoo.aplikasimonitoringkelas.data.KurikulumHistoryResponse(
-                success = false,
-                message = "Error: ${e.message}",
-                data = emptyList(),
-                pagination = com.christopheraldoo.aplikasimonitoringkelas.data.PaginationInfo(1, 20, 0, 1)
-            )
-        }
-    }
-
     // Get Kurikulum Statistics
     suspend fun getKurikulumStatistics(
         month: Int? = null,
         year: Int? = null,
         teacherId: Int? = null
-    ): com.christopheraldoo.aplikasimonitoringkelas.data.StatisticsResponse = withContext(Dispatchers.IO) {
+    ): com.christopheraldoo.aplikasimonitoringkelas.data.StatisticsResponse = statisticsFlight.execute(month, year, teacherId) {
         try {
             val response = getApi().getKurikulumStatistics(getAuthToken(), month, year, teacherId)
             if (response.isSuccessful && response.body() != null) {
@@ -1102,37 +1011,35 @@ class NetworkRepository(private val context: Context) {
     }
 
     // Export Attendance Data
-    suspend fun exportAttendance(
+    // Response di-stream langsung ke file CSV, jadi jumlah record tidak mempengaruhi heap
+    suspend fun exportAttendanceToCsv(
         dateFrom: String? = null,
         dateTo: String? = null,
         teacherId: Int? = null,
         classId: Int? = null
-    ): com.christopheraldoo.aplikasimonitoringkelas.data.ExportResponse = withContext(Dispatchers.IO) {
+    ): ExportFileResult = exportFlight.execute(dateFrom, dateTo, teacherId, classId) {
         try {
             val response = getApi().exportAttendance(getAuthToken(), dateFrom, dateTo, teacherId, classId)
-            if (response.isSuccessful && response.body() != null) {
-                response.body()!!
+            val body = response.body()
+            if (response.isSuccessful && body != null) {
+                val dir = context.getExternalFilesDir(Environment.DIRECTORY_DOCUMENTS) ?: context.cacheDir
+                val fileName = "kehadiran_guru_${SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(Date())}.csv"
+                val scope = currentCoroutineContext()
+                AttendanceCsvExporter().export(body, File(dir, fileName)) { scope.ensureActive() }
             } else {
-                com.christopheraldoo.aplikasimonitoringkelas.data.ExportResponse(
-                    success = false,
-                    message = "Gagal export data: ${response.message()}",
-                    totalRecords = 0,
-                    data = emptyList()
-                )
+                response.errorBody()?.close()
+                ExportFileResult(success = false, message = "Gagal export data: ${response.message()}")
             }
+        } catch (e: CancellationException) {
+            throw e
         } catch (e: Exception) {
             Log.e("NetworkRepo", "exportAttendance error: ${e.message}", e)
-            com.christopheraldoo.aplikasimonitoringkelas.data.ExportResponse(
-                success = false,
-                message = "Error: ${e.message}",
-                totalRecords = 0,
-                data = emptyList()
-            )
+            ExportFileResult(success = false, message = "Error: ${e.message}")
         }
     }
 
     // Get Filter Classes
-    suspend fun getFilterClasses(): com.christopheraldoo.aplikasimonitoringkelas.data.FilterClassesResponse = withContext(Dispatchers.IO) {
+    suspend fun getFilterClasses(): com.christopheraldoo.aplikasimonitoringkelas.data.FilterClassesResponse = filterClassesFlight.execute {
         try {
             val response = getApi().getFilterClasses(getAuthToken())
             if (response.isSuccessful && response.body() != null) {
@@ -1153,7 +1060,7 @@ class NetworkRepository(private val context: Context) {
     }
 
     // Get Filter Teachers
-    suspend fun getFilterTeachers(): com.christopheraldoo.aplikasimonitoringkelas.data.FilterTeachersResponse = withContext(Dispatchers.IO) {
+    suspend fun getFilterTeachers(): com.christopheraldoo.aplikasimonitoringkelas.data.FilterTeachersResponse = filterTeachersFlight.execute {
         try {
             val response = getApi().getFilterTeachers(getAuthToken())
             if (response.isSuccessful && response.body() != null) {
@@ -1176,7 +1083,7 @@ class NetworkRepository(private val context: Context) {
     // Get Class Students
     suspend fun getClassStudents(
         classId: Int
-    ): com.christopheraldoo.aplikasimonitoringkelas.data.ClassStudentsResponse = withContext(Dispatchers.IO) {
+    ): com.christopheraldoo.aplikasimonitoringkelas.data.ClassStudentsResponse = classStudentsFlight.execute(classId) {
         try {
             val response = getApi().getClassStudents(getAuthToken(), classId)
             if (response.isSuccessful && response.body() != null) {
@@ -1202,53 +1109,29 @@ class NetworkRepository(private val context: Context) {
         }
     }
 
-    // Get Pending Attendances with retry logic for JSON parsing errors
+    // Get Pending Attendances (retry ditangani ResilientCallAdapterFactory, bukan di sini)
     suspend fun getPendingAttendances(
         date: String? = null
-    ): com.christopheraldoo.aplikasimonitoringkelas.data.PendingAttendanceResponse = withContext(Dispatchers.IO) {
-        var lastException: Exception? = null
-        val maxRetries = 3
-        
-        for (attempt in 1..maxRetries) {
-            try {
-                val response = getApi().getPendingAttendances(getAuthToken(), date)
-                if (response.isSuccessful && response.body() != null) {
-                    return@withContext response.body()!!
-                } else {
-                    return@withContext com.christopheraldoo.aplikasimonitoringkelas.data.PendingAttendanceResponse(
-                        success = false,
-                        message = "Gagal memuat data pending: ${response.message()}",
-                        data = com.christopheraldoo.aplikasimonitoringkelas.data.PendingAttendanceData(
-                            date = "",
-                            day = "",
-                            totalPending = 0,
-                            groupedByClass = emptyList(),
-                            allPending = emptyList()
-                        )
-                    )
-                }
-            } catch (e: Exception) {
-                lastException = e
-                Log.w("NetworkRepo", "getPendingAttendances attempt $attempt failed: ${e.message}")
-                
-                // Check if it's a JSON parsing error - retry with delay
-                val isJsonError = e.message?.contains("Expected") == true || 
-                                  e.message?.contains("End of input") == true ||
-                                  e.message?.contains("JsonSyntax") == true
-                
-                if (isJsonError && attempt < maxRetries) {
-                    Log.d("NetworkRepo", "JSON parsing error, retrying in ${attempt * 1000}ms...")
-                    delay(attempt * 1000L) // Exponential backoff
-                    continue
-                }
-                break
+    ): com.christopheraldoo.aplikasimonitoringkelas.data.PendingAttendanceResponse = pendingFlight.execute(date) {
+        try {
+            val response = getApi().getPendingAttendances(getAuthToken(), date)
+            if (response.isSuccessful && response.body() != null) {
+                response.body()!!
+            } else {
+                emptyPendingResponse("Gagal memuat data pending: ${response.message()}")
             }
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Log.e("NetworkRepo", "getPendingAttendances failed", e)
+            emptyPendingResponse("Error: ${e.message}")
         }
-        
-        Log.e("NetworkRepo", "getPendingAttendances failed after $maxRetries attempts", lastException)
+    }
+
+    private fun emptyPendingResponse(message: String) =
         com.christopheraldoo.aplikasimonitoringkelas.data.PendingAttendanceResponse(
             success = false,
-            message = "Error setelah $maxRetries percobaan: ${lastException?.message}",
+            message = message,
             data = com.christopheraldoo.aplikasimonitoringkelas.data.PendingAttendanceData(
                 date = "",
                 day = "",
@@ -1257,7 +1140,6 @@ class NetworkRepository(private val context: Context) {
                 allPending = emptyList()
             )
         )
-    }
 
     // Confirm Single Attendance
     suspend fun confirmAttendance(
@@ -1266,6 +1148,7 @@ class NetworkRepository(private val context: Context) {
         try {
             val response = getApi().confirmAttendance(getAuthToken(), request)
             if (response.isSuccessful && response.body() != null) {
+                invalidateMemoizedReads()
                 response.body()!!
             } else {
                 com.christopheraldoo.aplikasimonitoringkelas.data.ConfirmAttendanceResponse(
@@ -1289,6 +1172,7 @@ class NetworkRepository(private val context: Context) {
         try {
             val response = getApi().bulkConfirmAttendance(getAuthToken(), request)
             if (response.isSuccessful && response.body() != null) {
+                invalidateMemoizedReads()
                 response.body()!!
             } else {
                 com.christopheraldoo.aplikasimonitoringkelas.data.BulkConfirmResponse(
@@ -1312,7 +1196,7 @@ class NetworkRepository(private val context: Context) {
     // Get Kepala Sekolah Dashboard Overview
     suspend fun getKepsekDashboard(
         weekOffset: Int? = null
-    ): com.christopheraldoo.aplikasimonitoringkelas.data.KepalaSekolahDashboardResponse = withContext(Dispatchers.IO) {
+    ): com.christopheraldoo.aplikasimonitoringkelas.data.KepalaSekolahDashboardResponse = kepsekDashboardFlight.execute(weekOffset) {
         try {
             val response = getApi().getKepsekDashboard(getAuthToken(), weekOffset)
             if (response.isSuccessful && response.body() != null) {
@@ -1334,6 +1218,23 @@ class NetworkRepository(private val context: Context) {
         }
     }
 
+    /**
+     * Auto-refresh dashboard kepala sekolah: NotModified kalau server membalas 304 untuk ETag
+     * response terakhir (revalidasi Cache OkHttp), jadi state yang tampil tidak perlu diganti
+     */
+    suspend fun refreshKepsekDashboard(
+        weekOffset: Int? = null
+    ): ConditionalResult<com.christopheraldoo.aplikasimonitoringkelas.data.KepalaSekolahDashboardResponse> = withContext(Dispatchers.IO) {
+        try {
+            ConditionalResult.of(getApi().getKepsekDashboard(getAuthToken(), weekOffset))
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Log.e("NetworkRepo", "refreshKepsekDashboard error: ${e.message}", e)
+            ConditionalResult.Failed("Error: ${e.message}")
+        }
+    }
+
     // Get Kepala Sekolah Attendance List
     suspend fun getKepsekAttendances(
         status: String? = null,
@@ -1341,11 +1242,14 @@ class NetworkRepository(private val context: Context) {
         className: String? = null,
         teacherId: Int? = null,
         date: String? = null
-    ): com.christopheraldoo.aplikasimonitoringkelas.data.KepsekAttendanceListResponse = withContext(Dispatchers.IO) {
+    ): com.christopheraldoo.aplikasimonitoringkelas.data.KepsekAttendanceListResponse = kepsekAttendancesFlight.execute(status, weekOffset, className, teacherId, date) {
         try {
             val response = getApi().getKepsekAttendances(getAuthToken(), status, weekOffset, className, teacherId, date)
             if (response.isSuccessful && response.body() != null) {
-                response.body()!!
+                response.body()!!.also { body ->
+                    val filtered = status != null || className != null || teacherId != null || date != null
+                    feedStatsEngine(body, filtered)
+                }
             } else {
                 com.christopheraldoo.aplikasimonitoringkelas.data.KepsekAttendanceListResponse(
                     success = false,
@@ -1367,7 +1271,7 @@ class NetworkRepository(private val context: Context) {
     suspend fun getKepsekTeacherPerformance(
         weekOffset: Int? = null,
         sortBy: String? = null
-    ): com.christopheraldoo.aplikasimonitoringkelas.data.TeacherPerformanceResponse = withContext(Dispatchers.IO) {
+    ): com.christopheraldoo.aplikasimonitoringkelas.data.TeacherPerformanceResponse = kepsekPerformanceFlight.execute(weekOffset, sortBy) {
         try {
             val response = getApi().getKepsekTeacherPerformance(getAuthToken(), weekOffset, sortBy)
             if (response.isSuccessful && response.body() != null) {
@@ -1388,4 +1292,126 @@ class NetworkRepository(private val context: Context) {
             )
         }
     }
+
+    // ===============================================
+    // STATISTIK LOKAL (AttendanceStatsEngine)
+    // ===============================================
+
+    private val statsEngine get() = AttendanceStatsEngine.shared
+
+    private val statsHistoryStreamer = JsonEnvelopeStreamer.of<KurikulumAttendanceHistoryItem>()
+
+    // Response tanpa filter berisi seluruh rentang tanggalnya, jadi boleh menggantikan isi lama
+    private fun feedStatsEngine(body: KepsekAttendanceListResponse, filtered: Boolean) {
+        val data = body.data ?: return
+        if (!body.success) return
+        val records = data.attendances.map { AttendanceStatsReports.record(it) }
+        val from = AttendanceStatsEngine.epochDay(data.dateRange.start)
+        val to = AttendanceStatsEngine.epochDay(data.dateRange.end)
+        if (filtered || from == null || to == null) {
+            statsEngine.upsertAll(records)
+        } else {
+            statsEngine.replaceRange(from, to, records, System.currentTimeMillis())
+        }
+    }
+
+    /**
+     * Performa guru per minggu dihitung di perangkat. Minggu yang belum lengkap atau sudah lewat
+     * STATS_MAX_AGE diisi lewat satu request kepala-sekolah/attendance tanpa filter; ganti urutan
+     * dijawab dari engine tanpa request. Tanpa data lokal dan tanpa koneksi, pakai endpoint lama.
+     */
+    suspend fun getKepsekTeacherPerformanceLocal(
+        weekOffset: Int = 0,
+        sortBy: String = AttendanceStatsReports.SORT_ATTENDANCE_RATE,
+        forceRefresh: Boolean = false
+    ): TeacherPerformanceResponse = withContext(Dispatchers.Default) {
+        val now = System.currentTimeMillis()
+        var start = AttendanceStatsEngine.startOfWeek(AttendanceStatsEngine.today(now)) + weekOffset * 7
+        var end = start + 6
+
+        if (forceRefresh || !statsEngine.isCovered(start, end, now - STATS_MAX_AGE)) {
+            val list = getKepsekAttendances(weekOffset = weekOffset)
+            val range = list.data?.dateRange
+            if (list.success && range != null) {
+                // Batas minggu mengikuti jam server
+                start = AttendanceStatsEngine.epochDay(range.start) ?: start
+                end = AttendanceStatsEngine.epochDay(range.end) ?: end
+            } else if (!statsEngine.isCovered(start, end)) {
+                Log.w("NetworkRepo", "Statistik lokal minggu $weekOffset belum ada, pakai teacher-performance")
+                return@withContext getKepsekTeacherPerformance(weekOffset, sortBy)
+            }
+        }
+
+        TeacherPerformanceResponse(
+            success = true,
+            message = "Data performa guru berhasil diambil",
+            data = AttendanceStatsReports.teacherPerformance(statsEngine, start, end, sortBy)
+        )
+    }
+
+    /**
+     * Statistik bulanan kurikulum dihitung di perangkat. Bulan yang belum pernah lengkap diambil sekali
+     * lewat kurikulum/history; setelah STATS_MAX_AGE hanya STATS_RECENT_DAYS hari terakhir yang diambil
+     * ulang. Ganti guru/bulan yang sudah dimuat tidak butuh request.
+     */
+    suspend fun getKurikulumStatisticsLocal(
+        month: Int? = null,
+        year: Int? = null,
+        teacherId: Int? = null,
+        forceRefresh: Boolean = false
+    ): StatisticsResponse = withContext(Dispatchers.Default) {
+        val now = System.currentTimeMillis()
+        val today = AttendanceStatsEngine.today(now)
+        val (currentYear, currentMonth, _) = AttendanceStatsEngine.civilFromDays(today)
+        val m = month ?: currentMonth
+        val y = year ?: currentYear
+        val monthIndex = AttendanceStatsEngine.monthIndex(y, m)
+        val from = AttendanceStatsEngine.firstDayOfMonth(monthIndex)
+        val to = AttendanceStatsEngine.lastDayOfMonth(monthIndex)
+
+        if (forceRefresh || !statsEngine.isCovered(from, to, now - STATS_MAX_AGE)) {
+            val everCovered = statsEngine.isCovered(from, to)
+            val refreshFrom = if (everCovered && !forceRefresh) maxOf(from, today - STATS_RECENT_DAYS) else from
+            val loaded = refreshFrom > to || loadStatsRange(refreshFrom, to)
+            if (loaded) {
+                statsEngine.markCovered(from, to, now)
+            } else if (!everCovered) {
+                Log.w("NetworkRepo", "Statistik lokal $m/$y belum ada, pakai kurikulum/statistics")
+                return@withContext getKurikulumStatistics(month, year, teacherId)
+            }
+        }
+
+        AttendanceStatsReports.monthlyStatistics(statsEngine, m, y, teacherId)
+    }
+
+    // Semua halaman kurikulum/history di rentang ini; engine hanya diubah kalau semua halaman berhasil
+    private suspend fun loadStatsRange(from: Int, to: Int): Boolean = withContext(Dispatchers.IO) {
+        val dateFrom = AttendanceStatsEngine.formatDay(from)
+        val dateTo = AttendanceStatsEngine.formatDay(to)
+        val records = ArrayList<AttendanceStatsEngine.Record>()
+        try {
+            var page = 1
+            while (true) {
+                val response = getApi().getKurikulumHistory(getAuthToken(), page, STATS_PAGE_SIZE, dateFrom, dateTo)
+                val body = response.body()
+                if (!response.isSuccessful || body == null) {
+                    response.errorBody()?.close()
+                    return@withContext false
+                }
+                val envelope = statsHistoryStreamer.read(body) { records.add(AttendanceStatsReports.record(it)) }
+                if (!envelope.success) return@withContext false
+                val pagination = envelope.get("pagination", PaginationInfo::class.java)
+                if (pagination == null || envelope.rowCount == 0 || pagination.currentPage >= pagination.lastPage) break
+                page++
+            }
+            statsEngine.replaceRange(from, to, records, System.currentTimeMillis())
+            Log.d("NetworkRepo", "Statistik lokal $dateFrom..$dateTo: ${records.size} record, $page halaman")
+            true
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Log.e("NetworkRepo", "loadStatsRange error: ${e.message}", e)
+            false
+        }
+    }
 }
@@ -4,7 +4,7 @@ import android.content.Context
 import android.net.ConnectivityManager
 import android.net.NetworkCapabilities
 import android.util.Log
-import com.christopheraldoo.aplikasimonitoringkelas.util.SessionManager
+import com.christopheraldoo.aplikasimonitoringkelas.util.CredentialStore
 import com.google.gson.JsonObject
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
@@ -21,15 +21,7 @@ object NetworkUtils {
                 networkCapabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED)
     }
 
-    fun getAuthToken(context: Context): String? {
-        val sessionManager = SessionManager(context)
-        val token = sessionManager.getAuthToken()
-        return if (token != null && token.isNotEmpty()) {
-            if (token.startsWith("Bearer ")) token else "Bearer $token"
-        } else {
-            null
-        }
-    }
+    fun getAuthToken(context: Context): String? = CredentialStore.getInstance(context).bearer()
 
     suspend fun <T> safeApiCall(
         context: Context,
@@ -0,0 +1,328 @@
+package com.christopheraldoo.aplikasimonitoringkelas.network
+
+import android.util.Log
+import okhttp3.Request
+import retrofit2.Invocation
+import java.io.IOException
+import java.net.ConnectException
+import java.net.NoRouteToHostException
+import java.net.UnknownHostException
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+import kotlin.math.min
+import kotlin.random.Random
+
+/**
+ * Dilempar (sebagai IOException supaya aman di OkHttp) ketika circuit breaker host sedang terbuka
+ */
+class CircuitBreakerOpenException(message: String) : IOException(message)
+
+/**
+ * Kebijakan retry dan circuit breaker yang dipakai bersama semua client API.
+ *
+ * - [ResilienceInterceptor] mencatat setiap attempt HTTP ke circuit breaker per host dan
+ *   menolak request lebih awal (short-circuit) saat breaker terbuka.
+ * - [ResilientCallAdapterFactory] mengulang call yang gagal dengan exponential backoff + jitter
+ *   memakai delay() coroutine, jadi tidak ada thread OkHttp yang tertahan selama menunggu.
+ * - Retry budget per host membatasi jumlah retry relatif terhadap jumlah request, sehingga
+ *   gangguan server tidak dilipatgandakan oleh retry dari semua layar.
+ */
+class Resilience(
+    private val config: Config = Config(),
+    private val clock: () -> Long = System::currentTimeMillis,
+    private val random: Random = Random.Default
+) {
+    data class Config(
+        val maxRetries: Int = 2,
+        val baseBackoffMs: Long = 500L,
+        val maxBackoffMs: Long = 8_000L,
+        val failureThreshold: Int = 5,
+        val openTimeoutMs: Long = 30_000L,
+        val budgetMaxTokens: Double = 10.0,
+        // Setiap request menambah 0.2 token, setiap retry memakai 1 token (~20% retry saat server down)
+        val budgetDepositPerRequest: Double = 0.2
+    )
+
+    companion object {
+        private const val TAG = "Resilience"
+
+        private val IDEMPOTENT_METHODS = setOf("GET", "HEAD", "OPTIONS", "PUT", "DELETE")
+        private val RETRYABLE_CODES = setOf(500, 502, 503, 504)
+
+        /**
+         * Instance yang dipakai RetrofitClient
+         */
+        val shared = Resilience()
+
+        /**
+         * Nama endpoint untuk counter: nama method ApiService kalau request dibuat Retrofit,
+         * kalau tidak pakai path URL.
+         */
+        fun endpointOf(request: Request): String {
+            return request.tag(Invocation::class.java)?.method()?.name
+                ?: "${request.method} ${request.url.encodedPath}"
+        }
+    }
+
+    /**
+     * Circuit breaker thread-safe untuk satu host.
+     * OPEN setelah [failureThreshold] kegagalan berturut-turut; setelah [openTimeoutMs] tepat satu
+     * request probe diizinkan (HALF_OPEN). Probe sukses menutup breaker, probe gagal membukanya lagi.
+     */
+    class CircuitBreaker(
+        private val failureThreshold: Int,
+        private val openTimeoutMs: Long,
+        private val clock: () -> Long
+    ) {
+        enum class State { CLOSED, OPEN, HALF_OPEN }
+
+        private var state = State.CLOSED
+        private var consecutiveFailures = 0
+        private var openedAt = 0L
+        private var probeInFlight = false
+
+        @Synchronized
+        fun getState(): State = state
+
+        /**
+         * true jika request boleh dikirim
+         */
+        @Synchronized
+        fun tryAcquire(): Boolean {
+            return when (state) {
+                State.CLOSED -> true
+                State.OPEN -> {
+                    if (clock() - openedAt < openTimeoutMs) {
+                        false
+                    } else {
+                        state = State.HALF_OPEN
+                        probeInFlight = true
+                        true
+                    }
+                }
+                State.HALF_OPEN -> {
+                    if (probeInFlight) {
+                        false
+                    } else {
+                        probeInFlight = true
+                        true
+                    }
+                }
+            }
+        }
+
+        @Synchronized
+        fun onSuccess() {
+            consecutiveFailures = 0
+            probeInFlight = false
+            state = State.CLOSED
+        }
+
+        /**
+         * @return true jika kegagalan ini membuka breaker (trip)
+         */
+        @Synchronized
+        fun onFailure(): Boolean {
+            consecutiveFailures++
+            return when (state) {
+                State.HALF_OPEN -> {
+                    open()
+                    true
+                }
+                State.CLOSED -> {
+                    if (consecutiveFailures >= failureThreshold) {
+                        open()
+                        true
+                    } else {
+                        false
+                    }
+                }
+                State.OPEN -> false
+            }
+        }
+
+        /**
+         * Request dibatalkan caller: tidak dihitung, tapi slot probe dilepas
+         */
+        @Synchronized
+        fun onIgnored() {
+            probeInFlight = false
+        }
+
+        @Synchronized
+        fun reset() {
+            state = State.CLOSED
+            consecutiveFailures = 0
+            probeInFlight = false
+        }
+
+        private fun open() {
+            state = State.OPEN
+            openedAt = clock()
+            probeInFlight = false
+        }
+    }
+
+    /**
+     * Token bucket retry: request menabung token, retry memakai satu token
+     */
+    class RetryBudget(
+        private val maxTokens: Double,
+        private val depositPerRequest: Double
+    ) {
+        private var tokens = maxTokens
+
+        @Synchronized
+        fun onRequest() {
+            tokens = min(maxTokens, tokens + depositPerRequest)
+        }
+
+        @Synchronized
+        fun tryWithdraw(): Boolean {
+            if (tokens < 1.0) return false
+            tokens -= 1.0
+            return true
+        }
+    }
+
+    /**
+     * Snapshot counter per endpoint
+     */
+    data class EndpointStats(
+        val attempts: Long,
+        val successes: Long,
+        val failures: Long,
+        val retries: Long,
+        val trips: Long,
+        val shortCircuits: Long,
+        val budgetExhausted: Long
+    )
+
+    private class EndpointCounters {
+        val attempts = AtomicLong()
+        val successes = AtomicLong()
+        val failures = AtomicLong()
+        val retries = AtomicLong()
+        val trips = AtomicLong()
+        val shortCircuits = AtomicLong()
+        val budgetExhausted = AtomicLong()
+
+        fun snapshot() = EndpointStats(
+            attempts.get(), successes.get(), failures.get(), retries.get(),
+            trips.get(), shortCircuits.get(), budgetExhausted.get()
+        )
+    }
+
+    private val breakers = ConcurrentHashMap<String, CircuitBreaker>()
+    private val budgets = ConcurrentHashMap<String, RetryBudget>()
+    private val counters = ConcurrentHashMap<String, EndpointCounters>()
+
+    private fun breakerFor(host: String) = breakers.getOrPut(host) {
+        CircuitBreaker(config.failureThreshold, config.openTimeoutMs, clock)
+    }
+
+    private fun budgetFor(host: String) = budgets.getOrPut(host) {
+        RetryBudget(config.budgetMaxTokens, config.budgetDepositPerRequest)
+    }
+
+    private fun countersFor(endpoint: String) = counters.getOrPut(endpoint) { EndpointCounters() }
+
+    // ========== DIPANGGIL INTERCEPTOR (per attempt HTTP) ==========
+
+    /**
+     * Izin mengirim satu attempt. Melempar [CircuitBreakerOpenException] kalau breaker host terbuka.
+     */
+    fun acquire(request: Request) {
+        val host = request.url.host
+        val endpoint = endpointOf(request)
+        if (!breakerFor(host).tryAcquire()) {
+            countersFor(endpoint).shortCircuits.incrementAndGet()
+            throw CircuitBreakerOpenException("Server $host sedang bermasalah. Coba lagi dalam beberapa detik.")
+        }
+        countersFor(endpoint).attempts.incrementAndGet()
+    }
+
+    fun onAttemptSucceeded(request: Request) {
+        breakerFor(request.url.host).onSuccess()
+        countersFor(endpointOf(request)).successes.incrementAndGet()
+    }
+
+    fun onAttemptFailed(request: Request) {
+        val host = request.url.host
+        val endpoint = endpointOf(request)
+        countersFor(endpoint).failures.incrementAndGet()
+        if (breakerFor(host).onFailure()) {
+            countersFor(endpoint).trips.incrementAndGet()
+            Log.w(TAG, "Circuit breaker OPEN untuk $host (dipicu $endpoint)")
+        }
+    }
+
+    fun onAttemptCanceled(request: Request) {
+        breakerFor(request.url.host).onIgnored()
+    }
+
+    // ========== DIPANGGIL CALL ADAPTER (per call logis) ==========
+
+    fun onCallStarted(request: Request) {
+        budgetFor(request.url.host).onRequest()
+    }
+
+    /**
+     * Tentukan apakah attempt ke-[attempt] (0 = attempt pertama) perlu diulang.
+     * @return delay sebelum retry dalam ms, atau null kalau tidak di-retry
+     */
+    fun retryDelayMs(request: Request, code: Int?, retryAfterHeader: String?, error: Throwable?, attempt: Int): Long? {
+        if (attempt >= config.maxRetries) return null
+        if (!isRetryable(request, code, error)) return null
+
+        val endpoint = endpointOf(request)
+        if (!budgetFor(request.url.host).tryWithdraw()) {
+            countersFor(endpoint).budgetExhausted.incrementAndGet()
+            Log.w(TAG, "Retry budget habis untuk ${request.url.host}, $endpoint tidak di-retry")
+            return null
+        }
+
+        countersFor(endpoint).retries.incrementAndGet()
+        val retryAfterMs = retryAfterHeader?.trim()?.toLongOrNull()?.times(1000)
+        return retryAfterMs?.coerceAtMost(config.maxBackoffMs) ?: backoffMs(attempt)
+    }
+
+    /**
+     * Exponential backoff dengan full jitter: acak di [0, min(max, base * 2^attempt)]
+     */
+    fun backoffMs(attempt: Int): Long {
+        val ceiling = min(config.maxBackoffMs, config.baseBackoffMs shl attempt.coerceAtMost(16))
+        return random.nextLong(ceiling + 1)
+    }
+
+    private fun isRetryable(request: Request, code: Int?, error: Throwable?): Boolean {
+        // Breaker terbuka: gagal cepat, jangan menambah beban
+        if (error is CircuitBreakerOpenException) return false
+
+        val idempotent = request.method in IDEMPOTENT_METHODS
+        return when {
+            code != null -> code == 429 || (idempotent && code in RETRYABLE_CODES)
+            error is IOException -> idempotent || isConnectFailure(error)
+            else -> false
+        }
+    }
+
+    // Request yang gagal sebelum terkirim aman di-retry walau bukan GET
+    private fun isConnectFailure(error: IOException): Boolean {
+        return error is ConnectException || error is UnknownHostException || error is NoRouteToHostException
+    }
+
+    // ========== MONITORING ==========
+
+    fun getStats(): Map<String, EndpointStats> = counters.mapValues { it.value.snapshot() }
+
+    fun getBreakerState(host: String): CircuitBreaker.State =
+        breakers[host]?.getState() ?: CircuitBreaker.State.CLOSED
+
+    fun isAnyBreakerOpen(): Boolean = breakers.values.any { it.getState() != CircuitBreaker.State.CLOSED }
+
+    fun resetBreakers() {
+        breakers.values.forEach { it.reset() }
+        Log.i(TAG, "Circuit breaker di-reset manual")
+    }
+}
@@ -0,0 +1,38 @@
+package com.christopheraldoo.aplikasimonitoringkelas.network
+
+import okhttp3.Interceptor
+import okhttp3.Response
+import java.io.IOException
+
+/**
+ * Mencatat setiap attempt HTTP ke circuit breaker per host. Tidak melakukan retry dan tidak
+ * pernah tidur di thread OkHttp; retry dilakukan oleh [ResilientCallAdapterFactory].
+ */
+class ResilienceInterceptor(private val resilience: Resilience) : Interceptor {
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        resilience.acquire(request)
+
+        val response = try {
+            chain.proceed(request)
+        } catch (e: IOException) {
+            if (chain.call().isCanceled()) {
+                resilience.onAttemptCanceled(request)
+            } else {
+                resilience.onAttemptFailed(request)
+            }
+            throw e
+        } catch (e: RuntimeException) {
+            resilience.onAttemptCanceled(request)
+            throw e
+        }
+
+        if (response.code >= 500) {
+            resilience.onAttemptFailed(request)
+        } else {
+            resilience.onAttemptSucceeded(request)
+        }
+        return response
+    }
+}
@@ -0,0 +1,162 @@
+package com.christopheraldoo.aplikasimonitoringkelas.network
+
+import android.util.Log
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import okhttp3.Request
+import okio.Timeout
+import retrofit2.Call
+import retrofit2.CallAdapter
+import retrofit2.Callback
+import retrofit2.Response
+import retrofit2.Retrofit
+import retrofit2.awaitResponse
+import java.io.IOException
+import java.lang.reflect.ParameterizedType
+import java.lang.reflect.Type
+
+/**
+ * CallAdapter yang membungkus setiap Call Retrofit (termasuk fungsi suspend di ApiService)
+ * dengan retry dari [Resilience]. Jeda antar attempt memakai delay() coroutine.
+ */
+class ResilientCallAdapterFactory(
+    private val resilience: Resilience,
+    private val scope: CoroutineScope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+) : CallAdapter.Factory() {
+
+    override fun get(returnType: Type, annotations: Array<Annotation>, retrofit: Retrofit): CallAdapter<*, *>? {
+        if (getRawType(returnType) != Call::class.java || returnType !is ParameterizedType) return null
+        val responseType = getParameterUpperBound(0, returnType)
+
+        return object : CallAdapter<Any, Call<Any>> {
+            override fun responseType(): Type = responseType
+            override fun adapt(call: Call<Any>): Call<Any> = ResilientCall(call, resilience, scope)
+        }
+    }
+}
+
+private class ResilientCall<T>(
+    private val delegate: Call<T>,
+    private val resilience: Resilience,
+    private val scope: CoroutineScope
+) : Call<T> {
+
+    companion object {
+        private const val TAG = "ResilientCall"
+    }
+
+    @Volatile
+    private var currentCall: Call<T> = delegate
+
+    @Volatile
+    private var job: Job? = null
+
+    @Volatile
+    private var canceled = false
+
+    @Volatile
+    private var executed = false
+
+    override fun enqueue(callback: Callback<T>) {
+        synchronized(this) {
+            check(!executed) { "Already executed" }
+            executed = true
+        }
+        val request = delegate.request()
+        resilience.onCallStarted(request)
+
+        job = scope.launch {
+            try {
+                var attempt = 0
+                while (true) {
+                    val call = if (attempt == 0) delegate else delegate.clone()
+                    currentCall = call
+
+                    var response: Response<T>? = null
+                    var error: Throwable? = null
+                    try {
+                        response = call.awaitResponse()
+                    } catch (e: CancellationException) {
+                        throw e
+                    } catch (t: Throwable) {
+                        error = t
+                    }
+
+                    val wait = callback.deliverOrRetry(request, response, error, attempt) ?: break
+                    // Body response yang tidak dipakai harus ditutup supaya koneksi kembali ke pool
+                    response?.errorBody()?.close()
+                    delay(wait)
+                    attempt++
+                }
+            } catch (e: CancellationException) {
+                if (canceled) callback.onFailure(this@ResilientCall, IOException("Canceled"))
+                throw e
+            }
+        }
+    }
+
+    /**
+     * Kirim hasil ke callback, atau kembalikan delay kalau attempt ini perlu diulang
+     */
+    private fun Callback<T>.deliverOrRetry(
+        request: Request,
+        response: Response<T>?,
+        error: Throwable?,
+        attempt: Int
+    ): Long? {
+        val retryable = response == null || !response.isSuccessful
+        val wait = if (retryable && !canceled) {
+            resilience.retryDelayMs(
+                request = request,
+                code = response?.code(),
+                retryAfterHeader = response?.headers()?.get("Retry-After"),
+                error = error,
+                attempt = attempt
+            )
+        } else {
+            null
+        }
+
+        if (wait != null) {
+            Log.d(TAG, "${Resilience.endpointOf(request)}: attempt ${attempt + 1} gagal, retry dalam ${wait}ms")
+            return wait
+        }
+
+        if (response != null) {
+            onResponse(this@ResilientCall, response)
+        } else {
+            onFailure(this@ResilientCall, error ?: IllegalStateException("Call gagal tanpa error"))
+        }
+        return null
+    }
+
+    override fun execute(): Response<T> {
+        synchronized(this) {
+            check(!executed) { "Already executed" }
+            executed = true
+        }
+        // Pemanggil sinkron tidak di-retry (tidak boleh tidur di thread pemanggil)
+        return delegate.execute()
+    }
+
+    override fun isExecuted(): Boolean = executed
+
+    override fun cancel() {
+        canceled = true
+        job?.cancel()
+        currentCall.cancel()
+    }
+
+    override fun isCanceled(): Boolean = canceled || currentCall.isCanceled
+
+    override fun clone(): Call<T> = ResilientCall(delegate.clone(), resilience, scope)
+
+    override fun request(): Request = delegate.request()
+
+    override fun timeout(): Timeout = delegate.timeout()
+}
@@ -2,10 +2,17 @@ package com.christopheraldoo.aplikasimonitoringkelas.network
 
 import android.content.Context
 import android.util.Log
-import com.christopheraldoo.aplikasimonitoringkelas.util.SessionManager
-import com.christopheraldoo.aplikasimonitoringkelas.utils.TokenManager
+import androidx.annotation.VisibleForTesting
+import com.christopheraldoo.aplikasimonitoringkelas.util.CredentialStore
 import com.google.gson.Gson
 import com.google.gson.GsonBuilder
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import okhttp3.Authenticator
+import okhttp3.Cache
+import okhttp3.ConnectionPool
+import okhttp3.Dispatcher
 import okhttp3.Interceptor
 import okhttp3.MediaType.Companion.toMediaType
 import okhttp3.OkHttpClient
@@ -14,97 +21,89 @@ import okhttp3.ResponseBody.Companion.toResponseBody
 import okhttp3.logging.HttpLoggingInterceptor
 import retrofit2.Retrofit
 import retrofit2.converter.gson.GsonConverterFactory
-import java.io.EOFException
-import java.io.IOException
-import java.net.SocketTimeoutException
+import java.io.File
 import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 import java.util.concurrent.atomic.AtomicReference
 
-// Simplified Auth Interceptor
-class AuthInterceptor(private val context: Context) : Interceptor {
+// Auth Interceptor: header dari salinan token di memori, refresh proaktif sebelum kedaluwarsa
+class AuthInterceptor(
+    private val store: CredentialStore,
+    private val refresher: TokenRefresher? = null
+) : Interceptor {
     override fun intercept(chain: Interceptor.Chain): Response {
         val original = chain.request()
-        val token = NetworkUtils.getAuthToken(context)
+        refresher?.refreshIfExpiringSoon()
+        val bearer = store.bearer()
 
         val requestBuilder = original.newBuilder()
             .header("Accept", "application/json")
             .header("Content-Type", "application/json")
 
-        if (token != null && token != "Bearer ") {
-            requestBuilder.header("Authorization", token)
+        if (bearer != null) {
+            requestBuilder.header("Authorization", bearer)
         }
 
         return chain.proceed(requestBuilder.build())
     }
 }
 
-/**
- * Retry Interceptor - Automatically retries failed requests
- * Handles: EOFException, SocketTimeoutException, and other IO errors
- */
-class RetryInterceptor(private val maxRetries: Int = 3) : Interceptor {
-    companion object {
-        private const val TAG = "RetryInterceptor"
-    }
-
-    override fun intercept(chain: Interceptor.Chain): Response {
-        val request = chain.request()
-        var lastException: IOException? = null
-        
-        for (attempt in 1..maxRetries) {
-            try {
-                val response = chain.proceed(request)
-                
-                // If successful, return immediately
-                if (response.isSuccessful) {
-                    return response
-                }
-                
-                // For server errors (5xx), retry
-                if (response.code in 500..599 && attempt < maxRetries) {
-                    Log.w(TAG, "Server error ${response.code}, attempt $attempt/$maxRetries, retrying...")
-                    response.close()
-                    Thread.sleep(1000L * attempt) // Exponential backoff
-                    continue
-                }
-                
-                return response
-            } catch (e: EOFException) {
-                Log.w(TAG, "EOFException on attempt $attempt/$maxRetries: ${e.message}")
-                lastException = IOException("EOF Error", e)
-                if (attempt < maxRetries) {
-                    Thread.sleep(1000L * attempt)
-                }
-            } catch (e: SocketTimeoutException) {
-                Log.w(TAG, "Timeout on attempt $attempt/$maxRetries: ${e.message}")
-                lastException = e
-                if (attempt < maxRetries) {
-                    Thread.sleep(500L * attempt)
-                }
-            } catch (e: IOException) {
-                Log.w(TAG, "IOException on attempt $attempt/$maxRetries: ${e.message}")
-                lastException = e
-                if (attempt < maxRetries) {
-                    Thread.sleep(1000L * attempt)
-                }
-            }
-        }
-        
-        throw lastException ?: IOException("Request failed after $maxRetries attempts")
-    }
-}
-
 object RetrofitClient {
     private const val TAG = "RetrofitClient"
     private val selectedBaseUrlRef = AtomicReference<String?>(null)
 
+    /**
+     * Satu OkHttpClient + Retrofit + ApiService per base URL, dipakai bersama oleh semua repository.
+     * Connection pool, dispatcher dan TLS session tidak dibuang di setiap request.
+     * Dibangun ulang hanya ketika base URL berubah (lihat markConnectionFailureAndFlipBaseUrl).
+     */
+    private class SharedClient(
+        val baseUrl: String,
+        val okHttpClient: OkHttpClient,
+        val authenticatedApi: ApiService,
+        val unauthenticatedApi: ApiService,
+        val refreshApi: TokenRefreshApi
+    )
+
+    @Volatile
+    private var sharedClient: SharedClient? = null
+    private val clientLock = Any()
+    private val clientsCreated = AtomicInteger(0)
+
+    // Satu Cache per direktori: dipakai ulang oleh client yang dibangun ulang saat base URL berganti
+    @Volatile
+    private var httpCache: Cache? = null
+    private const val HTTP_CACHE_DIR = "http_cache"
+
+    // Satu refresher untuk semua client, supaya refresh setelah 401 tetap tergabung jadi satu
+    @Volatile
+    private var tokenRefresher: TokenRefresher? = null
+
+    // Client khusus auth/refresh, tidak ikut dibangun ulang saat base URL berganti
+    private val refreshOkHttpClient: OkHttpClient by lazy { newRefreshOkHttpClient() }
+
+    // Satu stream push per base URL, dibagi semua layar yang mendengarkan
+    @Volatile
+    private var liveUpdates: LiveUpdatesClient? = null
+    private var liveUpdatesBaseUrl: String? = null
+    private val liveUpdatesScope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
     // Lenient Gson configuration to handle malformed JSON
     // Note: serializeNulls removed to avoid sending null fields that can cause validation issues
     private val gson: Gson = GsonBuilder()
         .setLenient()
         .create()
 
+    // Pemilih base URL berbasis probe; null sampai startEndpointSelection dipanggil (mis. di unit test)
+    @Volatile
+    private var endpointSelector: EndpointSelector? = null
+    private val endpointScope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
     private fun ensureResolvedBaseUrl(context: Context): String {
+        endpointSelector?.current()?.let { probed ->
+            selectedBaseUrlRef.set(probed)
+            return probed
+        }
         selectedBaseUrlRef.get()?.let { return it }
 
         val resolved = NetworkConfig.BaseUrls.getDefault(context)
@@ -115,6 +114,11 @@ object RetrofitClient {
 
     fun markConnectionFailureAndFlipBaseUrl(context: Context) {
         val current = selectedBaseUrlRef.get() ?: NetworkConfig.BaseUrls.getDefault(context)
+        endpointSelector?.let { selector ->
+            // Pindah ke kandidat sehat tercepat dari probe terakhir, probe ulang di background
+            selectedBaseUrlRef.set(selector.reportFailure(current))
+            return
+        }
         val alternative = if (current.startsWith("http://10.0.2.2"))
             NetworkConfig.BaseUrls.getDeviceLanUrl() else NetworkConfig.BaseUrls.getEmulatorUrl()
         selectedBaseUrlRef.set(alternative)
@@ -127,58 +131,221 @@ object RetrofitClient {
         }
 
         return OkHttpClient.Builder()
-            .addInterceptor(RetryInterceptor(maxRetries = 3)) // Auto-retry on EOF/timeout
+            .cache(obtainHttpCache(context)) // Revalidasi ETag (If-None-Match) untuk GET yang dikirimi ETag oleh server
+            .addInterceptor(ResilienceInterceptor(Resilience.shared)) // Circuit breaker per host, retry di call adapter
+            .addInterceptor(ConditionalGetInterceptor(HttpCacheStats.shared))
             .addInterceptor(loggingInterceptor)
-            .addInterceptor(AuthInterceptor(context))
+            .addInterceptor(AuthInterceptor(CredentialStore.getInstance(context), obtainTokenRefresher(context)))
+            .addNetworkInterceptor(ValidatorOnlyCacheInterceptor())
+            .authenticator(TokenAuthenticator(obtainTokenRefresher(context)))
             // Removed BufferResponseInterceptor - causes stream closed issues
-            .connectTimeout(60, TimeUnit.SECONDS)  // Increased for slow connections
+            // Host sudah dipilih lewat probe; host mati tidak perlu ditunggu lebih lama dari budget probe
+            .connectTimeout(NetworkConfig.Timeouts.CONNECT_TIMEOUT, TimeUnit.SECONDS)
             .readTimeout(120, TimeUnit.SECONDS)    // Significantly increased for large JSON responses
             .writeTimeout(60, TimeUnit.SECONDS)    // Increased for large uploads
             .retryOnConnectionFailure(true)
             .build()
     }
 
-    fun getAuthenticatedInstance(context: Context): ApiService {
-        val baseUrl = ensureResolvedBaseUrl(context)
-        return Retrofit.Builder()
-            .baseUrl(baseUrl)
-            .client(getOkHttpClient(context))
-            .addConverterFactory(GsonConverterFactory.create(gson))
-            .build()
-            .create(ApiService::class.java)
-    }
-
-    fun getUnauthenticatedInstance(context: Context): ApiService {
-        val baseUrl = ensureResolvedBaseUrl(context)
+    /**
+     * Client tanpa auth memakai ulang connection pool & dispatcher dari client utama,
+     * hanya interceptor dan timeout yang berbeda.
+     */
+    private fun getUnauthenticatedOkHttpClient(shared: OkHttpClient): OkHttpClient {
         val loggingInterceptor = HttpLoggingInterceptor().apply {
             level = HttpLoggingInterceptor.Level.BODY
         }
 
-        val client = OkHttpClient.Builder()
+        return shared.newBuilder()
+            .apply { interceptors().clear() }
+            .authenticator(Authenticator.NONE)
+            .addInterceptor(ResilienceInterceptor(Resilience.shared))
+            .addInterceptor(ConditionalGetInterceptor(HttpCacheStats.shared))
             .addInterceptor(loggingInterceptor)
-            .connectTimeout(15, TimeUnit.SECONDS)
+            .connectTimeout(NetworkConfig.Timeouts.CONNECT_TIMEOUT, TimeUnit.SECONDS)
             .readTimeout(15, TimeUnit.SECONDS)
             .writeTimeout(15, TimeUnit.SECONDS)
             .retryOnConnectionFailure(true)
             .build()
+    }
+
+    private fun obtainHttpCache(context: Context): Cache {
+        httpCache?.let { return it }
+        return synchronized(clientLock) {
+            httpCache ?: Cache(File(context.cacheDir, HTTP_CACHE_DIR), NetworkConfig.Cache.MAX_CACHE_SIZE)
+                .also { httpCache = it }
+        }
+    }
 
+    private fun obtainTokenRefresher(context: Context): TokenRefresher {
+        tokenRefresher?.let { return it }
+        return synchronized(clientLock) {
+            tokenRefresher ?: run {
+                val store = CredentialStore.getInstance(context)
+                // Sesi berakhir (logout atau refresh ditolak): response user sebelumnya tidak boleh terbaca lagi
+                store.addListener { credentials -> if (credentials == null) clearHttpCache() }
+                TokenRefresher(store, refreshCall = { bearer -> obtainSharedClient(context).refreshApi.refreshToken(bearer).execute() })
+            }.also { tokenRefresher = it }
+        }
+    }
+
+    /**
+     * Hapus semua response yang di-cache (dipanggil saat logout)
+     */
+    fun clearHttpCache() {
+        try {
+            httpCache?.evictAll()
+        } catch (e: Exception) {
+            Log.w(TAG, "Gagal menghapus cache HTTP: ${e.message}")
+        }
+        HttpCacheStats.shared.reset()
+    }
+
+    private fun obtainSharedClient(context: Context): SharedClient {
+        val baseUrl = ensureResolvedBaseUrl(context)
+        sharedClient?.takeIf { it.baseUrl == baseUrl }?.let { return it }
+
+        synchronized(clientLock) {
+            sharedClient?.takeIf { it.baseUrl == baseUrl }?.let { return it }
+
+            // Application context supaya client yang hidup lama tidak menahan Activity
+            val appContext = context.applicationContext ?: context
+            val okHttpClient = getOkHttpClient(appContext)
+            val created = SharedClient(
+                baseUrl = baseUrl,
+                okHttpClient = okHttpClient,
+                authenticatedApi = buildApi(baseUrl, okHttpClient),
+                unauthenticatedApi = buildApi(baseUrl, getUnauthenticatedOkHttpClient(okHttpClient)),
+                refreshApi = buildRefreshApi(baseUrl, refreshOkHttpClient)
+            )
+            val previous = sharedClient
+            sharedClient = created
+            val count = clientsCreated.incrementAndGet()
+            Log.i(TAG, "Shared HTTP client #$count created for $baseUrl")
+
+            // Koneksi idle ke host lama tidak akan dipakai lagi
+            previous?.okHttpClient?.connectionPool?.evictAll()
+            return created
+        }
+    }
+
+    /**
+     * Client untuk auth/refresh yang dipanggil dari TokenAuthenticator. Sengaja tidak memakai
+     * newBuilder() dari client bersama: Authenticator menahan thread dispatcher client bersama,
+     * jadi refresh yang antre di dispatcher/pool yang sama bisa tidak pernah jalan (deadlock
+     * begitu maxRequestsPerHost terisi request yang menunggu 401).
+     */
+    @VisibleForTesting
+    internal fun newRefreshOkHttpClient(): OkHttpClient = OkHttpClient.Builder()
+        .dispatcher(Dispatcher())
+        .connectionPool(ConnectionPool(1, 1, TimeUnit.MINUTES))
+        .addInterceptor(HttpLoggingInterceptor().apply { level = HttpLoggingInterceptor.Level.BASIC })
+        .connectTimeout(NetworkConfig.Timeouts.CONNECT_TIMEOUT, TimeUnit.SECONDS)
+        .callTimeout(NetworkConfig.Timeouts.REFRESH_CALL_TIMEOUT, TimeUnit.SECONDS)
+        .build()
+
+    @VisibleForTesting
+    internal fun buildRefreshApi(baseUrl: String, client: OkHttpClient): TokenRefreshApi {
         return Retrofit.Builder()
             .baseUrl(baseUrl)
             .client(client)
             .addConverterFactory(GsonConverterFactory.create(gson))
             .build()
-            .create(ApiService::class.java)
+            .create(TokenRefreshApi::class.java)
     }
 
-    fun createApiService(context: Context): ApiService {
-        val baseUrl = ensureResolvedBaseUrl(context)
-        val okHttpClient = getOkHttpClient(context)
-
+    private fun buildApi(baseUrl: String, client: OkHttpClient): ApiService {
         return Retrofit.Builder()
             .baseUrl(baseUrl)
-            .client(okHttpClient)
+            .client(client)
+            .addCallAdapterFactory(ResilientCallAdapterFactory(Resilience.shared))
             .addConverterFactory(GsonConverterFactory.create(gson))
             .build()
             .create(ApiService::class.java)
     }
+
+    fun getAuthenticatedInstance(context: Context): ApiService {
+        return obtainSharedClient(context).authenticatedApi
+    }
+
+    fun getUnauthenticatedInstance(context: Context): ApiService {
+        return obtainSharedClient(context).unauthenticatedApi
+    }
+
+    fun createApiService(context: Context): ApiService {
+        return getAuthenticatedInstance(context)
+    }
+
+    /**
+     * Mulai memilih base URL lewat probe (semua kandidat paralel, budget
+     * EndpointSelector.PROBE_BUDGET_MS) dan ikuti pergantian jaringan. Menunggu paling lama
+     * sebesar budget itu; kalau belum ada kandidat sehat, base URL default tetap dipakai.
+     */
+    suspend fun startEndpointSelection(context: Context): String? {
+        val appContext = context.applicationContext ?: context
+        val selector = endpointSelector ?: synchronized(clientLock) {
+            endpointSelector ?: run {
+                val probe = HttpHealthProbe(OkHttpClient())
+                EndpointSelector(
+                    candidates = NetworkConfig.BaseUrls.candidates(appContext),
+                    probe = probe::probe,
+                    store = PrefsWinnerStore(appContext),
+                    scope = endpointScope
+                ).also { selector ->
+                    endpointSelector = selector
+                    NetworkChangeWatcher(appContext, selector).start()
+                }
+            }
+        }
+        return selector.refresh()
+    }
+
+    /**
+     * Dipanggil StartupWarmup di background: resolve base URL, bangun client bersama dan
+     * baca journal cache HTTP, supaya request pertama tidak melakukannya di main thread.
+     */
+    fun warmUp(context: Context) {
+        obtainSharedClient(context)
+        obtainHttpCache(context).initialize()
+    }
+
+    /**
+     * Client SSE untuk perubahan jadwal. Memakai client terautentikasi (token + refresh 401),
+     * tanpa cache HTTP dan dengan read timeout sebatas jeda heartbeat server.
+     */
+    fun getLiveUpdates(context: Context): LiveUpdatesClient {
+        val shared = obtainSharedClient(context)
+        liveUpdates?.takeIf { liveUpdatesBaseUrl == shared.baseUrl }?.let { return it }
+
+        synchronized(clientLock) {
+            liveUpdates?.takeIf { liveUpdatesBaseUrl == shared.baseUrl }?.let { return it }
+            val streamingClient = shared.okHttpClient.newBuilder()
+                .cache(null)
+                .readTimeout(LiveUpdatesClient.READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .build()
+            return LiveUpdatesClient(streamingClient, shared.baseUrl + LiveUpdatesClient.PATH, liveUpdatesScope)
+                .also {
+                    liveUpdates = it
+                    liveUpdatesBaseUrl = shared.baseUrl
+                }
+        }
+    }
+
+    /**
+     * Jumlah OkHttpClient yang sudah dibangun sejak proses dimulai
+     */
+    fun getClientCreationCount(): Int = clientsCreated.get()
+
+    /**
+     * Reset state client bersama (untuk unit test)
+     */
+    @VisibleForTesting
+    internal fun resetForTesting(baseUrl: String? = null) {
+        synchronized(clientLock) {
+            sharedClient?.okHttpClient?.connectionPool?.evictAll()
+            sharedClient = null
+            selectedBaseUrlRef.set(baseUrl)
+            clientsCreated.set(0)
+        }
+    }
 }
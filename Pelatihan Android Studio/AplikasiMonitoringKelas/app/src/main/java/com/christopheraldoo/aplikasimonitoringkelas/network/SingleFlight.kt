@@ -0,0 +1,172 @@
+package com.christopheraldoo.aplikasimonitoringkelas.network
+
+import android.util.Log
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Single-flight request coalescer untuk satu endpoint.
+ *
+ * Caller yang memanggil dengan parameter sama selagi request masih berjalan akan menunggu
+ * Deferred yang sama (tidak ada request HTTP kedua). Tidak memakai lock global, jadi request
+ * ke endpoint/parameter lain tetap berjalan paralel.
+ *
+ * Request berjalan di scope milik SingleFlight, sehingga caller pertama yang di-cancel
+ * (misalnya layar ditutup) tidak membatalkan caller lain yang sedang menunggu. Request baru
+ * dibatalkan kalau semua caller-nya sudah di-cancel.
+ *
+ * @param endpoint nama endpoint, dipakai sebagai prefix key
+ * @param memoizeMs lama hasil terakhir disimpan dan dipakai ulang (0 = tanpa memoisasi)
+ * @param memoizeIf hanya hasil yang lolos predicate ini yang dimemoisasi (misal success == true)
+ */
+class SingleFlight<T>(
+    private val endpoint: String,
+    private val memoizeMs: Long = 0L,
+    private val memoizeIf: (T) -> Boolean = { true },
+    private val scope: CoroutineScope = CoroutineScope(SupervisorJob() + Dispatchers.IO),
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+    private class Memo<T>(val value: T, val storedAt: Long)
+
+    /** Request yang sedang berjalan beserta jumlah caller yang menunggunya */
+    private class Flight<T>(val deferred: Deferred<T>) {
+        private var waiters = 0
+        private var abandoned = false
+
+        /** false = request sudah ditinggalkan dan dibatalkan, jangan ikut menunggu */
+        @Synchronized
+        fun enter(): Boolean {
+            if (abandoned) return false
+            waiters++
+            return true
+        }
+
+        /** true = caller terakhir pergi karena di-cancel sebelum request selesai */
+        @Synchronized
+        fun leave(cancelled: Boolean): Boolean {
+            waiters--
+            if (waiters == 0 && cancelled && !deferred.isCompleted) abandoned = true
+            return abandoned
+        }
+    }
+
+    private val inFlight = ConcurrentHashMap<String, Flight<T>>()
+    private val memo = ConcurrentHashMap<String, Memo<T>>()
+
+    private val executions = AtomicLong(0)
+    private val joins = AtomicLong(0)
+    private val memoHits = AtomicLong(0)
+
+    companion object {
+        private const val TAG = "SingleFlight"
+    }
+
+    /**
+     * Jalankan block sekali untuk kombinasi parameter yang sama.
+     * forceRefresh melewati memo dan tidak bergabung dengan request yang sudah berjalan.
+     * Block berjalan di [scope] (default Dispatchers.IO), jadi tidak perlu withContext lagi.
+     */
+    suspend fun execute(vararg params: Any?, forceRefresh: Boolean = false, block: suspend () -> T): T {
+        val key = buildKey(params)
+
+        if (!forceRefresh && memoizeMs > 0) {
+            memo[key]?.let { cached ->
+                if (clock() - cached.storedAt <= memoizeMs) {
+                    memoHits.incrementAndGet()
+                    return cached.value
+                }
+                memo.remove(key, cached)
+            }
+        }
+
+        while (true) {
+            if (!forceRefresh) {
+                inFlight[key]?.let { existing ->
+                    if (existing.enter()) {
+                        joins.incrementAndGet()
+                        return existing.await(key)
+                    }
+                    // Sudah ditinggalkan semua caller dan sedang dibatalkan
+                    inFlight.remove(key, existing)
+                }
+            }
+
+            val call = scope.async(start = CoroutineStart.LAZY) {
+                val result = block()
+                if (memoizeMs > 0 && memoizeIf(result)) {
+                    memo[key] = Memo(result, clock())
+                }
+                result
+            }
+            val flight = Flight(call).also { it.enter() }
+
+            val winner = if (forceRefresh) {
+                inFlight[key] = flight
+                flight
+            } else {
+                inFlight.putIfAbsent(key, flight) ?: flight
+            }
+
+            if (winner !== flight) {
+                // Caller lain lebih dulu mendaftarkan request untuk key ini
+                call.cancel()
+                if (!winner.enter()) {
+                    inFlight.remove(key, winner)
+                    continue
+                }
+                joins.incrementAndGet()
+                return winner.await(key)
+            }
+
+            // Entry baru dihapus setelah request selesai, jadi caller yang datang terlambat tetap ikut menunggu
+            call.invokeOnCompletion { inFlight.remove(key, flight) }
+            executions.incrementAndGet()
+            Log.d(TAG, "$key: request baru (in-flight=${inFlight.size})")
+            call.start()
+            return flight.await(key)
+        }
+    }
+
+    /**
+     * Tunggu hasil request. Caller terakhir yang di-cancel sebelum request selesai ikut
+     * membatalkan request-nya (mis. export yang ditinggal), selama masih ada yang menunggu tetap jalan.
+     */
+    private suspend fun Flight<T>.await(key: String): T {
+        var cancelled = false
+        try {
+            return deferred.await()
+        } catch (e: CancellationException) {
+            cancelled = true
+            throw e
+        } finally {
+            if (leave(cancelled)) {
+                inFlight.remove(key, this)
+                deferred.cancel()
+            }
+        }
+    }
+
+    /**
+     * Hapus memo untuk endpoint ini (misal setelah data diubah lewat POST)
+     */
+    fun invalidate() {
+        memo.clear()
+    }
+
+    fun getExecutionCount(): Long = executions.get()
+
+    fun getJoinCount(): Long = joins.get()
+
+    fun getMemoHitCount(): Long = memoHits.get()
+
+    private fun buildKey(params: Array<out Any?>): String {
+        return if (params.isEmpty()) endpoint else "$endpoint:${params.joinToString(":")}"
+    }
+}
@@ -0,0 +1,148 @@
+package com.christopheraldoo.aplikasimonitoringkelas.network
+
+import android.util.Log
+import com.christopheraldoo.aplikasimonitoringkelas.data.ApiResponse
+import com.christopheraldoo.aplikasimonitoringkelas.data.RefreshTokenData
+import com.christopheraldoo.aplikasimonitoringkelas.util.CredentialStore
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.launch
+import okhttp3.Authenticator
+import okhttp3.Request
+import okhttp3.Route
+import retrofit2.Call
+import retrofit2.Response
+import retrofit2.http.Header
+import retrofit2.http.POST
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Memperbarui token lewat auth/refresh.
+ *
+ * - Proaktif: [refreshIfExpiringSoon] dipanggil di setiap request, refresh jalan di background
+ *   begitu token tinggal kurang dari [marginMs] (token lama masih berlaku selama itu).
+ * - Setelah 401: [refresh] memakai satu lock, jadi banyak request yang gagal bersamaan hanya
+ *   memicu satu panggilan auth/refresh; sisanya langsung memakai token yang baru.
+ *
+ * [refreshCall] bersifat blocking dan harus berjalan di client khusus (dispatcher dan connection
+ * pool sendiri, callTimeout pendek, lihat RetrofitClient.newRefreshOkHttpClient): pemanggilnya
+ * adalah thread OkHttp milik client bersama yang sedang menunggu di Authenticator.
+ */
+class TokenRefresher(
+    private val store: CredentialStore,
+    private val refreshCall: (bearer: String) -> Response<ApiResponse<RefreshTokenData>>,
+    private val clock: () -> Long = System::currentTimeMillis,
+    private val scope: CoroutineScope = CoroutineScope(SupervisorJob() + Dispatchers.IO),
+    private val marginMs: Long = REFRESH_MARGIN_MS
+) {
+    companion object {
+        private const val TAG = "TokenRefresher"
+
+        // Refresh proaktif 5 menit sebelum token kedaluwarsa
+        const val REFRESH_MARGIN_MS = 5 * 60_000L
+
+        // Setelah refresh gagal karena jaringan, token yang sama tidak dicoba lagi selama ini
+        private const val FAILURE_BACKOFF_MS = 10_000L
+    }
+
+    private val lock = Any()
+    private val proactiveInFlight = AtomicBoolean(false)
+    private val refreshes = AtomicInteger(0)
+
+    @Volatile
+    private var lastFailedBearer: String? = null
+
+    @Volatile
+    private var lastFailureAt = 0L
+
+    fun refreshIfExpiringSoon() {
+        if (!store.isExpiringWithin(marginMs, clock())) return
+        val stale = store.bearer() ?: return
+        if (!proactiveInFlight.compareAndSet(false, true)) return
+        scope.launch {
+            try {
+                refresh(stale)
+            } finally {
+                proactiveInFlight.set(false)
+            }
+        }
+    }
+
+    /**
+     * Tukar [staleBearer] dengan token baru.
+     * @return "Bearer <token>" yang berlaku sekarang, atau null kalau refresh gagal / sesi berakhir
+     */
+    fun refresh(staleBearer: String): String? = synchronized(lock) {
+        val current = store.current() ?: return@synchronized null
+        // Pemanggil lain sudah me-refresh selagi kita menunggu
+        if (current.bearer != staleBearer) return@synchronized current.bearer
+        if (staleBearer == lastFailedBearer && clock() - lastFailureAt < FAILURE_BACKOFF_MS) return@synchronized null
+
+        val response = try {
+            refreshCall(staleBearer)
+        } catch (e: Exception) {
+            Log.w(TAG, "Refresh token gagal: ${e.message}")
+            markFailed(staleBearer)
+            return@synchronized null
+        }
+
+        val data = response.body()?.data
+        if (response.isSuccessful && data != null && data.token.isNotEmpty()) {
+            refreshes.incrementAndGet()
+            lastFailedBearer = null
+            store.update(data.token, data.expiresIn?.let { clock() + it * 1000 })
+            Log.d(TAG, "Token diperbarui")
+            store.bearer()
+        } else {
+            if (response.code() == 401) {
+                // Token lama sudah dicabut/kedaluwarsa: sesi berakhir, listener yang menangani logout
+                Log.w(TAG, "Refresh ditolak (401), sesi dihapus")
+                store.clear()
+            } else {
+                markFailed(staleBearer)
+            }
+            null
+        }
+    }
+
+    /** Jumlah refresh yang berhasil sejak proses dimulai */
+    fun refreshCount(): Int = refreshes.get()
+
+    private fun markFailed(bearer: String) {
+        lastFailedBearer = bearer
+        lastFailureAt = clock()
+    }
+}
+
+/**
+ * Authenticator OkHttp: respons 401 memicu satu refresh bersama, lalu request diulang sekali
+ * dengan token baru. Endpoint auth sendiri tidak di-refresh.
+ */
+class TokenAuthenticator(private val refresher: TokenRefresher) : Authenticator {
+
+    companion object {
+        private val skippedAuthPaths = setOf("login", "logout", "refresh")
+    }
+
+    override fun authenticate(route: Route?, response: okhttp3.Response): Request? {
+        val request = response.request
+        val segments = request.url.pathSegments
+        if (segments.size >= 2 && segments[segments.size - 2] == "auth" && segments.last() in skippedAuthPaths) return null
+        // Sudah diulang sekali dengan token baru dan tetap 401
+        if (response.priorResponse != null) return null
+
+        val sent = request.header("Authorization") ?: return null
+        // Authenticator dipanggil di thread OkHttp (bukan main); refresh memakai client lain,
+        // jadi menunggu di sini tidak memakan slot dispatcher yang dibutuhkan refresh itu sendiri
+        val fresh = refresher.refresh(sent) ?: return null
+        return request.newBuilder().header("Authorization", fresh).build()
+    }
+}
+
+/** auth/refresh versi blocking (Call.execute), terpisah dari ApiService yang memakai suspend + dispatcher bersama */
+interface TokenRefreshApi {
+    @POST("auth/refresh")
+    fun refreshToken(@Header("Authorization") token: String): Call<ApiResponse<RefreshTokenData>>
+}
@@ -0,0 +1,92 @@
+package com.christopheraldoo.aplikasimonitoringkelas.paging
+
+import android.util.Log
+import androidx.paging.ExperimentalPagingApi
+import androidx.paging.LoadType
+import androidx.paging.PagingState
+import androidx.paging.RemoteMediator
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.RemoteKey
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.RemoteKeyDao
+import kotlinx.coroutines.CancellationException
+
+/**
+ * Satu halaman dari endpoint Laravel yang memakai ?page=&limit=
+ */
+data class RemotePage<E>(
+    val items: List<E>,
+    val hasMore: Boolean,
+    val total: Int
+)
+
+/**
+ * Tempat penyimpanan halaman di Room untuk satu daftar
+ */
+interface PageStore<E> {
+    suspend fun clear()
+    suspend fun insert(items: List<E>)
+}
+
+/**
+ * RemoteMediator untuk endpoint berbasis nomor halaman.
+ *
+ * Room adalah satu-satunya sumber data untuk UI: mediator hanya mengisi tabel halaman demi halaman
+ * saat daftar discroll mendekati ujung, dan PagingSource Room otomatis ter-invalidate setiap ada
+ * insert. Halaman berikutnya disimpan di [RemoteKey] dengan label [label].
+ *
+ * @param fetchPage mengambil halaman ke-n (mulai 1) dan memetakan item ke entity beserta posisinya
+ * @param transaction menjalankan blok dalam satu transaksi database (withTransaction di aplikasi)
+ */
+@OptIn(ExperimentalPagingApi::class)
+class PagedRemoteMediator<E : Any, V : Any>(
+    private val label: String,
+    private val pageSize: Int,
+    private val keyDao: RemoteKeyDao,
+    private val store: PageStore<E>,
+    private val fetchPage: suspend (page: Int, pageSize: Int) -> RemotePage<E>,
+    private val transaction: suspend (suspend () -> Unit) -> Unit,
+    private val cacheTimeoutMs: Long,
+    private val clock: () -> Long = System::currentTimeMillis
+) : RemoteMediator<Int, V>() {
+
+    companion object {
+        private const val TAG = "PagedRemoteMediator"
+    }
+
+    override suspend fun initialize(): InitializeAction {
+        val key = keyDao.get(label) ?: return InitializeAction.LAUNCH_INITIAL_REFRESH
+        // Cache masih segar: tampilkan dari Room tanpa menunggu jaringan
+        return if (clock() - key.updatedAt < cacheTimeoutMs) {
+            InitializeAction.SKIP_INITIAL_REFRESH
+        } else {
+            InitializeAction.LAUNCH_INITIAL_REFRESH
+        }
+    }
+
+    override suspend fun load(loadType: LoadType, state: PagingState<Int, V>): MediatorResult {
+        val page = when (loadType) {
+            LoadType.REFRESH -> 1
+            // Server selalu mulai dari halaman terbaru, tidak ada yang perlu dimuat di atas
+            LoadType.PREPEND -> return MediatorResult.Success(endOfPaginationReached = true)
+            LoadType.APPEND -> keyDao.get(label)?.nextPage
+                ?: return MediatorResult.Success(endOfPaginationReached = true)
+        }
+
+        return try {
+            val result = fetchPage(page, pageSize)
+            val nextPage = if (result.hasMore && result.items.isNotEmpty()) page + 1 else null
+
+            transaction {
+                if (loadType == LoadType.REFRESH) store.clear()
+                store.insert(result.items)
+                keyDao.upsert(RemoteKey(label, nextPage, result.total, clock()))
+            }
+            Log.d(TAG, "$label: halaman $page (${result.items.size} item), next=$nextPage")
+            MediatorResult.Success(endOfPaginationReached = nextPage == null)
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Log.w(TAG, "$label: gagal memuat halaman $page: ${e.message}")
+            MediatorResult.Error(e)
+        }
+    }
+}
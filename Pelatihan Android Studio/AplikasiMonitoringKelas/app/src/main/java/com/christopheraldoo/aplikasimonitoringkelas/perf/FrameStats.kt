@@ -0,0 +1,83 @@
+package com.christopheraldoo.aplikasimonitoringkelas.perf
+
+/**
+ * Agregat durasi frame per layar: jumlah frame, frame jank, dan persentil dari histogram 1 ms.
+ * Tidak menyimpan tiap frame, jadi aman dibiarkan jalan sepanjang sesi debug.
+ */
+class FrameStats {
+
+    companion object {
+        val shared = FrameStats()
+
+        // Frame di atas 200 ms masuk bucket terakhir
+        private const val MAX_BUCKET_MS = 200
+        const val UNKNOWN_SCREEN = "-"
+    }
+
+    data class ScreenSummary(
+        val screen: String,
+        val frames: Int,
+        val jankyFrames: Int,
+        val p50Ms: Int,
+        val p90Ms: Int,
+        val p95Ms: Int,
+        val p99Ms: Int,
+        val maxMs: Int
+    ) {
+        val jankPercent: Double get() = if (frames == 0) 0.0 else jankyFrames * 100.0 / frames
+    }
+
+    private class Histogram {
+        val buckets = IntArray(MAX_BUCKET_MS + 1)
+        var frames = 0
+        var janky = 0
+        var maxMs = 0
+
+        fun percentile(p: Double): Int {
+            if (frames == 0) return 0
+            val target = Math.ceil(frames * p).toInt().coerceAtLeast(1)
+            var seen = 0
+            for (ms in buckets.indices) {
+                seen += buckets[ms]
+                if (seen >= target) return ms
+            }
+            return MAX_BUCKET_MS
+        }
+    }
+
+    private val histograms = HashMap<String, Histogram>()
+
+    /** Dipanggil dari listener JankStats (main thread) */
+    fun record(screen: String?, durationNanos: Long, isJank: Boolean) {
+        val ms = (durationNanos / 1_000_000L).toInt().coerceIn(0, Int.MAX_VALUE)
+        synchronized(histograms) {
+            val histogram = histograms.getOrPut(screen ?: UNKNOWN_SCREEN) { Histogram() }
+            histogram.buckets[ms.coerceAtMost(MAX_BUCKET_MS)]++
+            histogram.frames++
+            if (isJank) histogram.janky++
+            if (ms > histogram.maxMs) histogram.maxMs = ms
+        }
+    }
+
+    fun summaries(): List<ScreenSummary> = synchronized(histograms) {
+        histograms.map { (screen, h) ->
+            ScreenSummary(
+                screen = screen,
+                frames = h.frames,
+                jankyFrames = h.janky,
+                p50Ms = h.percentile(0.50),
+                p90Ms = h.percentile(0.90),
+                p95Ms = h.percentile(0.95),
+                p99Ms = h.percentile(0.99),
+                maxMs = h.maxMs
+            )
+        }.sortedByDescending { it.jankyFrames }
+    }
+
+    fun summary(): String = summaries().joinToString("\n") {
+        "${it.screen}: ${it.frames} frame, jank ${it.jankyFrames} (${"%.1f".format(it.jankPercent)}%), " +
+            "p50 ${it.p50Ms} ms, p90 ${it.p90Ms} ms, p95 ${it.p95Ms} ms, p99 ${it.p99Ms} ms, max ${it.maxMs} ms"
+    }
+
+    fun reset() = synchronized(histograms) { histograms.clear() }
+}
@@ -0,0 +1,99 @@
+package com.christopheraldoo.aplikasimonitoringkelas.perf
+
+import android.app.Activity
+import android.app.Application
+import android.content.pm.ApplicationInfo
+import android.os.Bundle
+import android.util.Log
+import androidx.activity.ComponentActivity
+import androidx.compose.runtime.Composable
+import androidx.compose.runtime.DisposableEffect
+import androidx.compose.ui.platform.LocalView
+import androidx.lifecycle.DefaultLifecycleObserver
+import androidx.lifecycle.LifecycleOwner
+import androidx.metrics.performance.JankStats
+import androidx.metrics.performance.PerformanceMetricsState
+
+/**
+ * Instrumentasi performa untuk build debug (debuggable): hitungan recompose per composable
+ * dan durasi frame per layar lewat JankStats. Ringkasan ditulis ke logcat (tag "PerfStats")
+ * setiap Activity di-pause. Di build release semua fungsi di sini tidak melakukan apa-apa.
+ */
+object PerfInstrumentation {
+
+    private const val TAG = "PerfStats"
+    const val SCREEN_STATE = "screen"
+
+    @Volatile
+    var enabled = false
+        private set
+
+    fun init(application: Application) {
+        enabled = (application.applicationInfo.flags and ApplicationInfo.FLAG_DEBUGGABLE) != 0
+        if (!enabled) return
+
+        application.registerActivityLifecycleCallbacks(object : Application.ActivityLifecycleCallbacks {
+            override fun onActivityCreated(activity: Activity, savedInstanceState: Bundle?) {
+                if (activity is ComponentActivity) activity.lifecycle.addObserver(FrameTimeCollector(activity))
+            }
+            override fun onActivityStarted(activity: Activity) {}
+            override fun onActivityResumed(activity: Activity) {}
+            override fun onActivityPaused(activity: Activity) {}
+            override fun onActivityStopped(activity: Activity) {}
+            override fun onActivitySaveInstanceState(activity: Activity, outState: Bundle) {}
+            override fun onActivityDestroyed(activity: Activity) {}
+        })
+        Log.i(TAG, "Instrumentasi performa aktif (build debug)")
+    }
+
+    fun logSummary(source: String) {
+        if (!enabled) return
+        Log.i(TAG, "[$source] Frame per layar:\n${FrameStats.shared.summary()}")
+        Log.i(TAG, "[$source] Recompose per composable:\n${RecompositionCounter.summary()}")
+    }
+
+    /**
+     * JankStats per Activity; hanya aktif selama RESUMED supaya frame di background tidak terhitung.
+     */
+    private class FrameTimeCollector(
+        private val activity: ComponentActivity,
+        private val stats: FrameStats = FrameStats.shared
+    ) : DefaultLifecycleObserver {
+
+        private var jankStats: JankStats? = null
+
+        // Setelah setContent, sebelum komposisi pertama: state holder sudah ada saat TrackScreen berjalan
+        override fun onCreate(owner: LifecycleOwner) {
+            jankStats = JankStats.createAndTrack(activity.window) { frame ->
+                val screen = frame.states.firstOrNull { it.key == SCREEN_STATE }?.value
+                stats.record(screen, frame.frameDurationUiNanos, frame.isJank)
+            }.apply { isTrackingEnabled = false }
+        }
+
+        override fun onResume(owner: LifecycleOwner) {
+            jankStats?.isTrackingEnabled = true
+        }
+
+        override fun onPause(owner: LifecycleOwner) {
+            jankStats?.isTrackingEnabled = false
+            logSummary(activity.javaClass.simpleName)
+        }
+    }
+}
+
+/**
+ * Menandai frame berikutnya sebagai milik layar [name] (state "screen" di JankStats)
+ * selama composable ini ada di komposisi.
+ */
+@Composable
+fun TrackScreen(name: String) {
+    if (!PerfInstrumentation.enabled) return
+    val view = LocalView.current
+    DisposableEffect(view, name) {
+        val holder = PerformanceMetricsState.getHolderForHierarchy(view)
+        holder.state?.putState(PerfInstrumentation.SCREEN_STATE, name)
+        onDispose {
+            holder.state?.removeState(PerfInstrumentation.SCREEN_STATE)
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.christopheraldoo.aplikasimonitoringkelas.perf
+
+import androidx.compose.runtime.Composable
+import androidx.compose.runtime.NonRestartableComposable
+import androidx.compose.runtime.SideEffect
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Jumlah komposisi (pertama + recompose) per composable, hanya terisi di build debug.
+ */
+object RecompositionCounter {
+
+    private val counts = ConcurrentHashMap<String, AtomicInteger>()
+
+    fun record(name: String): Int = counts.getOrPut(name) { AtomicInteger() }.incrementAndGet()
+
+    fun count(name: String): Int = counts[name]?.get() ?: 0
+
+    fun snapshot(): Map<String, Int> = counts.mapValues { it.value.get() }
+
+    fun summary(): String = snapshot().entries
+        .sortedByDescending { it.value }
+        .joinToString("\n") { "${it.key}: ${it.value}x" }
+
+    fun reset() = counts.clear()
+}
+
+/**
+ * Panggil di awal body composable yang ingin diukur.
+ * Non-restartable, jadi ikut jalan setiap kali composable pemanggil di-recompose (tidak di-skip).
+ */
+@Composable
+@NonRestartableComposable
+fun TrackRecompositions(name: String) {
+    if (!PerfInstrumentation.enabled) return
+    SideEffect { RecompositionCounter.record(name) }
+}
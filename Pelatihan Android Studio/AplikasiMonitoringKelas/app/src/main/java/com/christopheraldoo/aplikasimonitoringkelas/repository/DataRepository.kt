@@ -2,7 +2,7 @@ package com.christopheraldoo.aplikasimonitoringkelas.repository
 
 import android.content.Context
 import android.util.Log
-import com.christopheraldoo.aplikasimonitoringkelas.cache.CacheManager
+import com.christopheraldoo.aplikasimonitoringkelas.cache.TieredCacheManager
 import com.christopheraldoo.aplikasimonitoringkelas.data.UserApi
 import com.christopheraldoo.aplikasimonitoringkelas.data.TeacherApi
 import com.christopheraldoo.aplikasimonitoringkelas.data.SubjectApi
@@ -11,13 +11,18 @@ import com.christopheraldoo.aplikasimonitoringkelas.data.ScheduleApi
 import com.christopheraldoo.aplikasimonitoringkelas.data.DashboardSummary
 import com.christopheraldoo.aplikasimonitoringkelas.data.AttendanceSubmitRequest
 import com.christopheraldoo.aplikasimonitoringkelas.data.AttendanceHistoryItem
+import com.christopheraldoo.aplikasimonitoringkelas.network.CircuitBreakerOpenException
+import com.christopheraldoo.aplikasimonitoringkelas.network.DashboardBundleClient
 import com.christopheraldoo.aplikasimonitoringkelas.network.RetrofitClient
+import com.christopheraldoo.aplikasimonitoringkelas.sync.ScheduleDeltaSync
 import com.christopheraldoo.aplikasimonitoringkelas.util.SessionManager
 import com.google.gson.reflect.TypeToken
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.async
 import kotlinx.coroutines.awaitAll
 import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flowOn
 import kotlinx.coroutines.withContext
 import java.io.IOException
 
@@ -26,12 +31,30 @@ import java.io.IOException
  * Menggunakan pattern yang professional dan efficient
  */
 class DataRepository(private val context: Context) {
-    private val apiService = RetrofitClient.createApiService(context)
+    // Selalu ambil shared instance supaya retry setelah flip base URL memakai host yang baru
+    private val apiService get() = RetrofitClient.createApiService(context)
     private val sessionManager = SessionManager(context)
-    private val cacheManager = CacheManager(context)
+    private val cacheManager = TieredCacheManager.getInstance(context)
+    private val scheduleSync = ScheduleDeltaSync.getInstance(context)
+    private val bundleClient = DashboardBundleClient(
+        api = { apiService },
+        token = ::getBearerToken,
+        cache = cacheManager,
+        fallback = { section ->
+            when (section) {
+                DashboardBundleClient.Section.USERS -> getUsers(forceRefresh = true)
+                DashboardBundleClient.Section.TEACHERS -> getTeachers(forceRefresh = true)
+                DashboardBundleClient.Section.SUBJECTS -> getSubjects(forceRefresh = true)
+                DashboardBundleClient.Section.CLASSROOMS -> getClassrooms(forceRefresh = true)
+            }
+        }
+    )
 
     companion object {
         private const val TAG = "DataRepository"
+
+        // Batas umur data stale yang masih boleh ditampilkan sambil menunggu refresh
+        const val DEFAULT_HARD_EXPIRY = 24 * 60 * 60 * 1000L
     }
 
     /**
@@ -68,6 +91,7 @@ class DataRepository(private val context: Context) {
     }
 
     private fun friendlyNetworkMessage(e: Throwable): String = when {
+        e is CircuitBreakerOpenException -> e.message ?: "Server sedang bermasalah. Coba lagi dalam beberapa detik."
         isConnectivityError(e) -> "Tidak bisa terhubung ke server. Pastikan server Laravel aktif dan jaringan sama."
         else -> e.localizedMessage ?: "Terjadi kesalahan"
     }
@@ -75,6 +99,9 @@ class DataRepository(private val context: Context) {
     private suspend fun <T> withConnectionFallback(op: suspend () -> T): T {
         return try {
             op()
+        } catch (e: CircuitBreakerOpenException) {
+            // Breaker terbuka = server sedang ditahan, bukan host salah: gagal cepat tanpa flip/ulang
+            throw e
         } catch (e: IOException) {
             // Kemungkinan gagal konek (timeout/host unreachable). Ganti base URL lalu coba sekali lagi
             Log.w(TAG, "Connection error detected: ${e.localizedMessage}. Flipping base URL and retrying once...")
@@ -91,7 +118,7 @@ class DataRepository(private val context: Context) {
             val cacheKey = "users_list"
 
             // Gunakan cache jika valid dan bukan force refresh
-            if (!forceRefresh && cacheManager.isCacheValid(cacheKey, CacheManager.TTL_SHORT)) {
+            if (!forceRefresh && cacheManager.isCacheValid(cacheKey, TieredCacheManager.TTL_SHORT)) {
                 Log.d(TAG, "Loading users from cache")
                 val cachedData = cacheManager.getData(cacheKey, object : TypeToken<List<UserApi>>() {})
                 return@withContext Result.success(cachedData ?: emptyList())
@@ -121,7 +148,7 @@ class DataRepository(private val context: Context) {
                 if (body?.success == true) {
                     val data = body.data ?: emptyList()
                     Log.d(TAG, "Users loaded successfully: ${data.size} users")
-                    cacheManager.saveData(cacheKey, data, CacheManager.TTL_SHORT)
+                    cacheManager.saveData(cacheKey, data, TieredCacheManager.TTL_SHORT)
                     Result.success(data)
                 } else {
                     Log.e(TAG, "API error: ${body?.message}")
@@ -145,7 +172,7 @@ class DataRepository(private val context: Context) {
         try {
             val cacheKey = "teachers_list"
 
-            if (!forceRefresh && cacheManager.isCacheValid(cacheKey, CacheManager.TTL_SHORT)) {
+            if (!forceRefresh && cacheManager.isCacheValid(cacheKey, TieredCacheManager.TTL_SHORT)) {
                 Log.d(TAG, "Loading teachers from cache")
                 val cachedData = cacheManager.getData(cacheKey, object : TypeToken<List<TeacherApi>>() {})
                 return@withContext Result.success(cachedData ?: emptyList())
@@ -167,7 +194,7 @@ class DataRepository(private val context: Context) {
                 if (body?.success == true) {
                     val data = body.data ?: emptyList()
                     Log.d(TAG, "Teachers loaded successfully: ${data.size} teachers")
-                    cacheManager.saveData(cacheKey, data, CacheManager.TTL_SHORT)
+                    cacheManager.saveData(cacheKey, data, TieredCacheManager.TTL_SHORT)
                     Result.success(data)
                 } else {
                     Log.e(TAG, "API error: ${body?.message}")
@@ -191,7 +218,7 @@ class DataRepository(private val context: Context) {
         try {
             val cacheKey = "subjects_list"
 
-            if (!forceRefresh && cacheManager.isCacheValid(cacheKey, CacheManager.TTL_SHORT)) {
+            if (!forceRefresh && cacheManager.isCacheValid(cacheKey, TieredCacheManager.TTL_SHORT)) {
                 Log.d(TAG, "Loading subjects from cache")
                 val cachedData = cacheManager.getData(cacheKey, object : TypeToken<List<SubjectApi>>() {})
                 return@withContext Result.success(cachedData ?: emptyList())
@@ -213,7 +240,7 @@ class DataRepository(private val context: Context) {
                 if (body?.success == true) {
                     val data = body.data ?: emptyList()
                     Log.d(TAG, "Subjects loaded successfully: ${data.size} subjects")
-                    cacheManager.saveData(cacheKey, data, CacheManager.TTL_SHORT)
+                    cacheManager.saveData(cacheKey, data, TieredCacheManager.TTL_SHORT)
                     Result.success(data)
                 } else {
                     Log.e(TAG, "API error: ${body?.message}")
@@ -237,7 +264,7 @@ class DataRepository(private val context: Context) {
         try {
             val cacheKey = "classrooms_list"
 
-            if (!forceRefresh && cacheManager.isCacheValid(cacheKey, CacheManager.TTL_SHORT)) {
+            if (!forceRefresh && cacheManager.isCacheValid(cacheKey, TieredCacheManager.TTL_SHORT)) {
                 Log.d(TAG, "Loading classrooms from cache")
                 val cachedData = cacheManager.getData(cacheKey, object : TypeToken<List<ClassroomApi>>() {})
                 return@withContext Result.success(cachedData ?: emptyList())
@@ -259,7 +286,7 @@ class DataRepository(private val context: Context) {
                 if (body?.success == true) {
                     val data = body.data ?: emptyList()
                     Log.d(TAG, "Classrooms loaded successfully: ${data.size} classrooms")
-                    cacheManager.saveData(cacheKey, data, CacheManager.TTL_SHORT)
+                    cacheManager.saveData(cacheKey, data, TieredCacheManager.TTL_SHORT)
                     Result.success(data)
                 } else {
                     Log.e(TAG, "API error: ${body?.message}")
@@ -289,14 +316,26 @@ class DataRepository(private val context: Context) {
         try {
             val cacheKey = "schedules_${classId}_${day}_${teacherId}"
 
-            if (!forceRefresh && cacheManager.isCacheValid(cacheKey, CacheManager.TTL_SHORT)) {
+            if (!forceRefresh && cacheManager.isCacheValid(cacheKey, TieredCacheManager.TTL_SHORT)) {
                 Log.d(TAG, "Loading schedules from cache")
                 val cachedData = cacheManager.getData(cacheKey, object : TypeToken<List<ScheduleApi>>() {})
                 return@withContext Result.success(cachedData ?: emptyList())
             }
 
             val token = getBearerToken()
-            
+
+            // Delta sync: hanya jadwal yang berubah sejak sync terakhir, filter dijalankan lokal
+            if (token.isNotEmpty()) {
+                val sync = scheduleSync.sync()
+                if (sync.isSuccess) {
+                    val data = scheduleSync.query(day, classId, teacherId)
+                    Log.d(TAG, "Schedules from local store after delta sync: ${data.size} schedules")
+                    cacheManager.saveData(cacheKey, data, TieredCacheManager.TTL_SHORT)
+                    return@withContext Result.success(data)
+                }
+                Log.w(TAG, "Delta sync failed (${sync.exceptionOrNull()?.message}), using full download")
+            }
+
             Log.d(TAG, "Fetching schedules from API (classId=$classId, day=$day, teacherId=$teacherId)")
             
             // Try authenticated endpoint first if we have a token
@@ -337,7 +376,7 @@ class DataRepository(private val context: Context) {
             if (response.isSuccessful && response.body()?.success == true) {
                 val data = response.body()?.data ?: emptyList()
                 Log.d(TAG, "Schedules loaded successfully: ${data.size} schedules")
-                cacheManager.saveData(cacheKey, data, CacheManager.TTL_SHORT)
+                cacheManager.saveData(cacheKey, data, TieredCacheManager.TTL_SHORT)
                 Result.success(data)
             } else {
                 val errorMsg = response.body()?.message ?: "Gagal memuat jadwal (HTTP ${response.code()})"
@@ -350,50 +389,104 @@ class DataRepository(private val context: Context) {
         }
     }
 
+    // ========== STALE-WHILE-REVALIDATE ==========
+
+    /**
+     * Emit data cache (walaupun sudah lewat TTL_SHORT) langsung, lalu refresh dari server di background.
+     * Emit kedua hanya terjadi jika data dari server berbeda dengan cache.
+     * Data yang lebih tua dari hardExpiryMs tidak ditampilkan lagi dan caller menunggu network.
+     */
+    private fun <T> staleWhileRevalidate(
+        cacheKey: String,
+        type: TypeToken<T>,
+        forceRefresh: Boolean,
+        hardExpiryMs: Long,
+        fetch: suspend () -> Result<T>
+    ): Flow<Result<T>> = staleWhileRevalidateFlow(
+        label = cacheKey,
+        readCached = { if (forceRefresh) null else cacheManager.getData(cacheKey, type, hardExpiryMs) },
+        isFresh = { cacheManager.isCacheValid(cacheKey, TieredCacheManager.TTL_SHORT) },
+        fetch = fetch
+    ).flowOn(Dispatchers.IO)
+
+    fun getUsersStream(
+        forceRefresh: Boolean = false,
+        hardExpiryMs: Long = DEFAULT_HARD_EXPIRY
+    ): Flow<Result<List<UserApi>>> = staleWhileRevalidate(
+        "users_list", object : TypeToken<List<UserApi>>() {}, forceRefresh, hardExpiryMs
+    ) { getUsers(forceRefresh = true) }
+
+    fun getTeachersStream(
+        forceRefresh: Boolean = false,
+        hardExpiryMs: Long = DEFAULT_HARD_EXPIRY
+    ): Flow<Result<List<TeacherApi>>> = staleWhileRevalidate(
+        "teachers_list", object : TypeToken<List<TeacherApi>>() {}, forceRefresh, hardExpiryMs
+    ) { getTeachers(forceRefresh = true) }
+
+    fun getSubjectsStream(
+        forceRefresh: Boolean = false,
+        hardExpiryMs: Long = DEFAULT_HARD_EXPIRY
+    ): Flow<Result<List<SubjectApi>>> = staleWhileRevalidate(
+        "subjects_list", object : TypeToken<List<SubjectApi>>() {}, forceRefresh, hardExpiryMs
+    ) { getSubjects(forceRefresh = true) }
+
+    fun getClassroomsStream(
+        forceRefresh: Boolean = false,
+        hardExpiryMs: Long = DEFAULT_HARD_EXPIRY
+    ): Flow<Result<List<ClassroomApi>>> = staleWhileRevalidate(
+        "classrooms_list", object : TypeToken<List<ClassroomApi>>() {}, forceRefresh, hardExpiryMs
+    ) { getClassrooms(forceRefresh = true) }
+
+    fun getSchedulesStream(
+        day: String? = null,
+        classId: Int? = null,
+        teacherId: Int? = null,
+        forceRefresh: Boolean = false,
+        hardExpiryMs: Long = DEFAULT_HARD_EXPIRY
+    ): Flow<Result<List<ScheduleApi>>> = staleWhileRevalidate(
+        "schedules_${classId}_${day}_${teacherId}", object : TypeToken<List<ScheduleApi>>() {}, forceRefresh, hardExpiryMs
+    ) { getSchedules(day, classId, teacherId, forceRefresh = true) }
+
     /**
-     * Load dashboard data dengan sequential loading dan caching yang lebih baik
-     * Mengurangi beban server dengan menghindari parallel requests berlebihan
+     * Load dashboard data: users, teachers dan subjects lewat satu request bundle
+     * (fallback ke endpoint masing-masing), schedules lewat delta sync secara paralel
      */
     suspend fun getDashboardData(forceRefresh: Boolean = false): Result<DashboardData> = withContext(Dispatchers.IO) {
         try {
             Log.d(TAG, "Starting dashboard data load (forceRefresh=$forceRefresh)")
 
-            // Load data secara sequential untuk mengurangi beban server
-            // Prioritas: users -> teachers -> subjects -> schedules (schedules paling berat)
-            val usersResult = getUsers(forceRefresh)
-            if (usersResult.isFailure) {
-                Log.e(TAG, "Failed to load users: ${usersResult.exceptionOrNull()?.message}")
-                return@withContext Result.failure(Exception("Gagal memuat data pengguna"))
+            val (bundle, schedulesResult) = coroutineScope {
+                val schedules = async { getSchedules(forceRefresh = forceRefresh) }
+                bundleClient.load(DashboardBundleClient.Section.DASHBOARD, forceRefresh) to schedules.await()
             }
 
-            val teachersResult = getTeachers(forceRefresh)
-            if (teachersResult.isFailure) {
-                Log.e(TAG, "Failed to load teachers: ${teachersResult.exceptionOrNull()?.message}")
-                return@withContext Result.failure(Exception("Gagal memuat data guru"))
-            }
-
-            val subjectsResult = getSubjects(forceRefresh)
-            if (subjectsResult.isFailure) {
-                Log.e(TAG, "Failed to load subjects: ${subjectsResult.exceptionOrNull()?.message}")
-                return@withContext Result.failure(Exception("Gagal memuat data mata pelajaran"))
+            val failed = DashboardBundleClient.Section.DASHBOARD.firstOrNull { it in bundle.failures }
+            if (failed != null) {
+                Log.e(TAG, "Failed to load ${failed.key}: ${bundle.failures[failed]}")
+                val label = when (failed) {
+                    DashboardBundleClient.Section.USERS -> "pengguna"
+                    DashboardBundleClient.Section.TEACHERS -> "guru"
+                    else -> "mata pelajaran"
+                }
+                return@withContext Result.failure(Exception("Gagal memuat data $label"))
             }
-
-            // Load schedules last (paling berat) - dengan limit untuk performa
-            val schedulesResult = getSchedules(forceRefresh = forceRefresh)
             if (schedulesResult.isFailure) {
                 Log.e(TAG, "Failed to load schedules: ${schedulesResult.exceptionOrNull()?.message}")
                 return@withContext Result.failure(Exception("Gagal memuat data jadwal"))
             }
 
             val data = DashboardData(
-                users = usersResult.getOrNull() ?: emptyList(),
+                users = bundle.get<UserApi>(DashboardBundleClient.Section.USERS) ?: emptyList(),
                 schedules = schedulesResult.getOrNull() ?: emptyList(),
-                teachers = teachersResult.getOrNull() ?: emptyList(),
-                subjects = subjectsResult.getOrNull() ?: emptyList()
+                teachers = bundle.get<TeacherApi>(DashboardBundleClient.Section.TEACHERS) ?: emptyList(),
+                subjects = bundle.get<SubjectApi>(DashboardBundleClient.Section.SUBJECTS) ?: emptyList()
             )
 
-            Log.d(TAG, "Dashboard data loaded successfully: ${data.users.size} users, ${data.schedules.size} schedules, ${data.teachers.size} teachers, ${data.subjects.size} subjects")
+            Log.d(TAG, "Dashboard data loaded via ${bundle.path} in ${bundle.timeToContentMs} ms: ${data.users.size} users, ${data.schedules.size} schedules, ${data.teachers.size} teachers, ${data.subjects.size} subjects")
             Result.success(data)
+        } catch (e: CircuitBreakerOpenException) {
+            Log.w(TAG, "Circuit breaker is OPEN, getDashboardData tidak diulang")
+            Result.failure(e)
         } catch (e: IOException) {
             Log.w(TAG, "Connection error detected: ${e.localizedMessage}. Flipping base URL and retrying once...")
             RetrofitClient.markConnectionFailureAndFlipBaseUrl(context)
@@ -404,6 +497,14 @@ class DataRepository(private val context: Context) {
         }
     }
 
+    /**
+     * Isi cache data master yang dibutuhkan role yang sedang login, dipanggil sekali setelah login
+     */
+    suspend fun preloadStartupData(forceRefresh: Boolean = false): DashboardBundleClient.Bundle? = withContext(Dispatchers.IO) {
+        val sections = DashboardBundleClient.Section.forRole(sessionManager.getUserRole())
+        if (sections.isEmpty()) null else bundleClient.load(sections, forceRefresh)
+    }
+
     /**
      * Clear cache untuk refresh manual
      */
@@ -429,7 +530,7 @@ class DataRepository(private val context: Context) {
     suspend fun getTodaySchedule(classId: Int?, forceRefresh: Boolean = false): Result<List<ScheduleApi>> = withContext(Dispatchers.IO) {
         try {
             val cacheKey = "today_schedule_${classId ?: 0}"
-            if (!forceRefresh && cacheManager.isCacheValid(cacheKey, CacheManager.TTL_SHORT)) {
+            if (!forceRefresh && cacheManager.isCacheValid(cacheKey, TieredCacheManager.TTL_SHORT)) {
                 val cached = cacheManager.getData(cacheKey, object : TypeToken<List<ScheduleApi>>() {})
                 return@withContext Result.success(cached ?: emptyList())
             }
@@ -438,7 +539,7 @@ class DataRepository(private val context: Context) {
             val resp = withConnectionFallback { apiService.getTodaySchedule(token, classId) }
             if (resp.isSuccessful && resp.body()?.success == true) {
                 val data = resp.body()?.data ?: emptyList()
-                cacheManager.saveData(cacheKey, data, CacheManager.TTL_SHORT)
+                cacheManager.saveData(cacheKey, data, TieredCacheManager.TTL_SHORT)
                 Result.success(data)
             } else Result.failure(Exception(resp.body()?.message ?: "Gagal memuat jadwal hari ini"))
         } catch (e: Exception) {
@@ -450,14 +551,14 @@ class DataRepository(private val context: Context) {
     suspend fun getTodaySchedulePublic(classId: Int?, forceRefresh: Boolean = false): Result<List<ScheduleApi>> = withContext(Dispatchers.IO) {
         try {
             val cacheKey = "today_schedule_public_${classId ?: 0}"
-            if (!forceRefresh && cacheManager.isCacheValid(cacheKey, CacheManager.TTL_SHORT)) {
+            if (!forceRefresh && cacheManager.isCacheValid(cacheKey, TieredCacheManager.TTL_SHORT)) {
                 val cached = cacheManager.getData(cacheKey, object : TypeToken<List<ScheduleApi>>() {})
                 return@withContext Result.success(cached ?: emptyList())
             }
             val resp = withConnectionFallback { apiService.getTodaySchedulePublic(classId) }
             if (resp.isSuccessful && resp.body()?.success == true) {
                 val data = resp.body()?.data ?: emptyList()
-                cacheManager.saveData(cacheKey, data, CacheManager.TTL_SHORT)
+                cacheManager.saveData(cacheKey, data, TieredCacheManager.TTL_SHORT)
                 Result.success(data)
             } else Result.failure(Exception(resp.body()?.message ?: "Gagal memuat jadwal hari ini"))
         } catch (e: Exception) {
@@ -487,7 +588,7 @@ class DataRepository(private val context: Context) {
     suspend fun getAttendanceHistory(studentId: Int, date: String? = null, subject: String? = null, page: Int? = null, forceRefresh: Boolean = false): Result<List<AttendanceHistoryItem>> = withContext(Dispatchers.IO) {
         try {
             val key = "attendance_history_${studentId}_${date ?: "all"}_${subject ?: "all"}_${page ?: 1}"
-            if (!forceRefresh && cacheManager.isCacheValid(key, CacheManager.TTL_SHORT)) {
+            if (!forceRefresh && cacheManager.isCacheValid(key, TieredCacheManager.TTL_SHORT)) {
                 val cached = cacheManager.getData(key, object : TypeToken<List<AttendanceHistoryItem>>() {})
                 return@withContext Result.success(cached ?: emptyList())
             }
@@ -496,7 +597,7 @@ class DataRepository(private val context: Context) {
             val resp = withConnectionFallback { apiService.getAttendanceHistory(token, studentId, date, subject, page) }
             if (resp.isSuccessful && resp.body()?.success == true) {
                 val data = resp.body()?.data ?: emptyList()
-                cacheManager.saveData(key, data, CacheManager.TTL_SHORT)
+                cacheManager.saveData(key, data, TieredCacheManager.TTL_SHORT)
                 Result.success(data)
             } else Result.failure(Exception(resp.body()?.message ?: "Gagal memuat riwayat"))
         } catch (e: Exception) {
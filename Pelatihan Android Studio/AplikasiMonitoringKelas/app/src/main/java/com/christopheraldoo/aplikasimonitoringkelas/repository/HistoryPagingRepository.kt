@@ -0,0 +1,256 @@
+package com.christopheraldoo.aplikasimonitoringkelas.repository
+
+import android.content.Context
+import androidx.paging.ExperimentalPagingApi
+import androidx.paging.Pager
+import androidx.paging.PagingConfig
+import androidx.paging.PagingData
+import androidx.paging.map
+import androidx.room.withTransaction
+import com.christopheraldoo.aplikasimonitoringkelas.cache.TieredCacheManager
+import com.christopheraldoo.aplikasimonitoringkelas.data.KurikulumAttendanceHistoryItem
+import com.christopheraldoo.aplikasimonitoringkelas.data.PaginationInfo
+import com.christopheraldoo.aplikasimonitoringkelas.data.RiwayatItem
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.AppDatabase
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.KurikulumHistoryDao
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.KurikulumHistoryEntity
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.RemoteKeyDao
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.RiwayatDao
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.RiwayatEntity
+import com.christopheraldoo.aplikasimonitoringkelas.network.ApiService
+import com.christopheraldoo.aplikasimonitoringkelas.network.JsonEnvelopeStreamer
+import com.christopheraldoo.aplikasimonitoringkelas.network.PagedWindow
+import com.christopheraldoo.aplikasimonitoringkelas.network.RetrofitClient
+import com.christopheraldoo.aplikasimonitoringkelas.paging.PageStore
+import com.christopheraldoo.aplikasimonitoringkelas.paging.PagedRemoteMediator
+import com.christopheraldoo.aplikasimonitoringkelas.paging.RemotePage
+import com.christopheraldoo.aplikasimonitoringkelas.stats.AttendanceStatsEngine
+import com.christopheraldoo.aplikasimonitoringkelas.stats.AttendanceStatsReports
+import com.christopheraldoo.aplikasimonitoringkelas.util.CredentialStore
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.map
+import retrofit2.HttpException
+import java.io.IOException
+
+/**
+ * Filter riwayat kurikulum/history. Setiap kombinasi filter di-cache terpisah lewat [queryKey].
+ */
+data class HistoryFilter(
+    val dateFrom: String? = null,
+    val dateTo: String? = null,
+    val teacherId: Int? = null,
+    val classId: Int? = null,
+    val status: String? = null
+) {
+    val queryKey: String get() = listOf(dateFrom, dateTo, teacherId, classId, status).joinToString("|") { it?.toString().orEmpty() }
+}
+
+/**
+ * Pipeline Paging 3 untuk daftar riwayat yang panjang (RiwayatScreen siswa dan
+ * KurikulumHistoryScreen). Halaman dari server disimpan di Room oleh [PagedRemoteMediator];
+ * UI hanya membaca PagingSource Room, jadi halaman yang sudah dimuat tetap ada saat offline
+ * dan hanya jendela di sekitar posisi scroll yang ditahan di memori ([MAX_SIZE]).
+ */
+@OptIn(ExperimentalPagingApi::class)
+class HistoryPagingRepository(
+    private val riwayatDao: RiwayatDao,
+    private val kurikulumHistoryDao: KurikulumHistoryDao,
+    private val remoteKeyDao: RemoteKeyDao,
+    private val transaction: suspend (suspend () -> Unit) -> Unit,
+    private val api: () -> ApiService,
+    private val siswaToken: () -> String?,
+    private val kurikulumToken: () -> String?,
+    private val statsEngine: AttendanceStatsEngine = AttendanceStatsEngine.shared,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+    companion object {
+        const val PAGE_SIZE = 20
+
+        // Halaman berikutnya diminta saat tinggal satu halaman sebelum ujung daftar
+        const val PREFETCH_DISTANCE = PAGE_SIZE
+
+        // Item di luar jendela ini dibuang dari memori (harus >= PAGE_SIZE + 2 * PREFETCH_DISTANCE)
+        const val MAX_SIZE = 200
+
+        const val RIWAYAT_LABEL = "riwayat"
+        const val KURIKULUM_LABEL_PREFIX = "kurikulum_history:"
+
+        fun pagingConfig() = PagingConfig(
+            pageSize = PAGE_SIZE,
+            prefetchDistance = PREFETCH_DISTANCE,
+            enablePlaceholders = true,
+            initialLoadSize = PAGE_SIZE * 2,
+            maxSize = MAX_SIZE
+        )
+
+        @Volatile
+        private var instance: HistoryPagingRepository? = null
+
+        fun getInstance(context: Context): HistoryPagingRepository {
+            instance?.let { return it }
+            return synchronized(this) {
+                instance ?: run {
+                    val appContext = context.applicationContext ?: context
+                    val db = AppDatabase.getInstance(appContext)
+                    val credentials = CredentialStore.getInstance(appContext)
+                    HistoryPagingRepository(
+                        riwayatDao = db.riwayatDao(),
+                        kurikulumHistoryDao = db.kurikulumHistoryDao(),
+                        remoteKeyDao = db.remoteKeyDao(),
+                        transaction = { block -> db.withTransaction { block() } },
+                        api = { RetrofitClient.getAuthenticatedInstance(appContext) },
+                        siswaToken = { credentials.token() },
+                        kurikulumToken = { credentials.token() }
+                    ).also { instance = it }
+                }
+            }
+        }
+
+        private fun bearer(token: String?): String {
+            if (token.isNullOrEmpty()) throw IOException("Token tidak ditemukan")
+            return if (token.startsWith("Bearer ")) token else "Bearer $token"
+        }
+    }
+
+    private val historyStreamer = JsonEnvelopeStreamer.of<KurikulumAttendanceHistoryItem>()
+
+    /**
+     * Buang semua halaman riwayat dan remote key (logout). Tanpa ini, akun berikutnya di perangkat
+     * yang sama melihat riwayat akun sebelumnya karena mediator melewati refresh selama cache < TTL.
+     */
+    suspend fun clearAll() = transaction {
+        riwayatDao.clear()
+        kurikulumHistoryDao.clear()
+        remoteKeyDao.clear()
+    }
+
+    // ========== RIWAYAT SISWA ==========
+
+    /**
+     * @param statuses kosong = semua status; filter status dijalankan di Room
+     */
+    fun riwayat(statuses: List<String>): Flow<PagingData<RiwayatItem>> {
+        val mediator = PagedRemoteMediator<RiwayatEntity, RiwayatEntity>(
+            label = RIWAYAT_LABEL,
+            pageSize = PAGE_SIZE,
+            keyDao = remoteKeyDao,
+            store = object : PageStore<RiwayatEntity> {
+                override suspend fun clear() = riwayatDao.clear()
+                override suspend fun insert(items: List<RiwayatEntity>) = riwayatDao.insertAll(items)
+            },
+            fetchPage = ::fetchRiwayatPage,
+            transaction = transaction,
+            cacheTimeoutMs = TieredCacheManager.TTL_SHORT,
+            clock = clock
+        )
+        return Pager(
+            config = pagingConfig(),
+            remoteMediator = mediator,
+            pagingSourceFactory = {
+                if (statuses.isEmpty()) riwayatDao.pagingSource() else riwayatDao.pagingSourceByStatus(statuses)
+            }
+        ).flow.map { data -> data.map { it.toApi() } }
+    }
+
+    /**
+     * Jumlah per status dari semua halaman yang sudah di-cache
+     */
+    fun riwayatStatusCounts(): Flow<Map<String, Int>> =
+        riwayatDao.observeStatusCounts().map { rows -> rows.associate { it.label to it.count } }
+
+    fun riwayatDateCounts(statuses: List<String>): Flow<Map<String, Int>> {
+        val source = if (statuses.isEmpty()) riwayatDao.observeDateCounts() else riwayatDao.observeDateCountsByStatus(statuses)
+        return source.map { rows -> rows.associate { it.label to it.count } }
+    }
+
+    /**
+     * Total record menurut server (null kalau belum pernah dimuat)
+     */
+    fun riwayatTotal(): Flow<Int?> = remoteKeyDao.observe(RIWAYAT_LABEL).map { it?.total }
+
+    /**
+     * Paksa Pager berikutnya memuat ulang dari server (misal setelah submit kehadiran)
+     */
+    suspend fun expireRiwayat() = remoteKeyDao.expire(RIWAYAT_LABEL)
+
+    suspend fun fetchRiwayatPage(page: Int, pageSize: Int): RemotePage<RiwayatEntity> {
+        val response = api().getKehadiranHistory(bearer(siswaToken()), page, pageSize)
+        val body = response.body()
+        if (!response.isSuccessful || body == null) {
+            throw HttpException(response)
+        }
+        if (!body.success) throw IOException(body.message ?: "Gagal memuat riwayat")
+
+        val offset = (page - 1) * pageSize
+        val items = body.data.orEmpty().mapIndexed { i, item -> RiwayatEntity.fromApi(item, offset + i) }
+        return RemotePage(
+            items = items,
+            hasMore = body.pagination?.hasMore ?: (items.size >= pageSize),
+            total = body.pagination?.total ?: body.total
+        )
+    }
+
+    // ========== RIWAYAT KURIKULUM ==========
+
+    fun kurikulumHistory(filter: HistoryFilter): Flow<PagingData<KurikulumAttendanceHistoryItem>> {
+        val queryKey = filter.queryKey
+        val label = KURIKULUM_LABEL_PREFIX + queryKey
+        val mediator = PagedRemoteMediator<KurikulumHistoryEntity, KurikulumHistoryEntity>(
+            label = label,
+            pageSize = PAGE_SIZE,
+            keyDao = remoteKeyDao,
+            store = object : PageStore<KurikulumHistoryEntity> {
+                override suspend fun clear() {
+                    // Refresh filter ini sekaligus membuang cache filter lain
+                    kurikulumHistoryDao.deleteOtherQueries(keep = queryKey)
+                    remoteKeyDao.deleteOthers(KURIKULUM_LABEL_PREFIX, keep = label)
+                    kurikulumHistoryDao.clearQuery(queryKey)
+                }
+
+                override suspend fun insert(items: List<KurikulumHistoryEntity>) = kurikulumHistoryDao.insertAll(items)
+            },
+            fetchPage = { page, pageSize -> fetchKurikulumHistoryPage(filter, page, pageSize) },
+            transaction = transaction,
+            cacheTimeoutMs = TieredCacheManager.TTL_SHORT,
+            clock = clock
+        )
+        return Pager(
+            config = pagingConfig(),
+            remoteMediator = mediator,
+            pagingSourceFactory = { kurikulumHistoryDao.pagingSource(queryKey) }
+        ).flow.map { data -> data.map { it.toApi() } }
+    }
+
+    fun kurikulumHistoryTotal(filter: HistoryFilter): Flow<Int?> =
+        remoteKeyDao.observe(KURIKULUM_LABEL_PREFIX + filter.queryKey).map { it?.total }
+
+    suspend fun expireKurikulumHistory(filter: HistoryFilter) =
+        remoteKeyDao.expire(KURIKULUM_LABEL_PREFIX + filter.queryKey)
+
+    suspend fun fetchKurikulumHistoryPage(filter: HistoryFilter, page: Int, pageSize: Int): RemotePage<KurikulumHistoryEntity> {
+        val response = api().getKurikulumHistory(
+            bearer(kurikulumToken()), page, pageSize,
+            filter.dateFrom, filter.dateTo, filter.teacherId, filter.classId, filter.status
+        )
+        val body = response.body()
+        if (!response.isSuccessful || body == null) {
+            throw HttpException(response)
+        }
+
+        val offset = (page - 1) * pageSize
+        val window = PagedWindow<KurikulumHistoryEntity>(pageSize)
+        val envelope = historyStreamer.read(body) { item ->
+            window.offer(KurikulumHistoryEntity.fromApi(item, filter.queryKey, offset + window.total))
+        }
+        if (!envelope.success) throw IOException(envelope.message ?: "Gagal memuat riwayat")
+        // Halaman riwayat ikut memperbarui statistik lokal (hanya upsert, rentangnya belum tentu lengkap)
+        statsEngine.upsertAll(window.items.map { AttendanceStatsReports.record(it.toApi()) })
+
+        val pagination = envelope.get("pagination", PaginationInfo::class.java)
+        return RemotePage(
+            items = window.items,
+            hasMore = pagination?.let { it.currentPage < it.lastPage } ?: (window.total >= pageSize),
+            total = pagination?.total ?: window.total
+        )
+    }
+}
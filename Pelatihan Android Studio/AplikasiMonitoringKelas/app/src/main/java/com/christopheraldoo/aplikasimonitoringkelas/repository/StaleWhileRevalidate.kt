@@ -0,0 +1,47 @@
+package com.christopheraldoo.aplikasimonitoringkelas.repository
+
+import android.util.Log
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flow
+
+private const val TAG = "StaleWhileRevalidate"
+
+/**
+ * Emit data cache (walaupun sudah lewat TTL) langsung, lalu refresh dari server.
+ * Emit kedua hanya terjadi jika [fingerprint] data server berbeda dengan data cache,
+ * sehingga UI tidak di-render ulang untuk data yang sama.
+ *
+ * - [readCached] mengembalikan null kalau tidak ada cache atau sudah lewat hard expiry
+ * - [isFresh] true = cache masih dalam TTL, revalidate dilewati
+ * - gagal revalidate tidak di-emit kalau data stale sudah tampil
+ *
+ * Tidak bergantung pada Context/TieredCacheManager supaya bisa diuji di JVM.
+ */
+internal fun <T> staleWhileRevalidateFlow(
+    label: String,
+    readCached: () -> T?,
+    isFresh: () -> Boolean,
+    fingerprint: (T) -> Any? = { it },
+    fetch: suspend () -> Result<T>
+): Flow<Result<T>> = flow {
+    val cached = readCached()
+    if (cached != null) {
+        emit(Result.success(cached))
+        if (isFresh()) {
+            Log.d(TAG, "SWR $label: cache masih fresh, skip revalidate")
+            return@flow
+        }
+    }
+
+    val fresh = fetch()
+    val freshData = fresh.getOrNull()
+    when {
+        cached == null -> emit(fresh)
+        freshData != null && fingerprint(freshData) != fingerprint(cached) -> {
+            Log.d(TAG, "SWR $label: data berubah, emit ulang")
+            emit(fresh)
+        }
+        fresh.isFailure -> Log.w(TAG, "SWR $label: revalidate gagal, tetap pakai data stale")
+        else -> Log.d(TAG, "SWR $label: data tidak berubah")
+    }
+}
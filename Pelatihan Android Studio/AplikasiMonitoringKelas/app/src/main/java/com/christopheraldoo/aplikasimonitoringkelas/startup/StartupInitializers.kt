@@ -0,0 +1,56 @@
+package com.christopheraldoo.aplikasimonitoringkelas.startup
+
+import android.app.Application
+import android.content.Context
+import android.os.Looper
+import androidx.startup.Initializer
+import com.christopheraldoo.aplikasimonitoringkelas.perf.PerfInstrumentation
+import com.christopheraldoo.aplikasimonitoringkelas.sync.KehadiranSyncWorker
+
+// ===============================================
+// INITIALIZER APP STARTUP
+// Didaftarkan di AndroidManifest (InitializationProvider) dan dijalankan di main thread
+// sebelum Application.onCreate. Isinya hanya memulai pekerjaan; yang berat dipindah ke
+// background (StartupWarmup) atau ditunda sampai main thread idle setelah frame pertama.
+// ===============================================
+
+/**
+ * Harus sebelum Activity pertama dibuat supaya JankStats ikut terpasang.
+ * Di build release hanya mengecek flag debuggable.
+ */
+class PerfInstrumentationInitializer : Initializer<Unit> {
+    override fun create(context: Context) {
+        PerfInstrumentation.init(context.applicationContext as Application)
+    }
+
+    override fun dependencies(): List<Class<out Initializer<*>>> = emptyList()
+}
+
+/**
+ * Mulai memuat token, sesi dan HTTP client di background; LoginActivity melaporkan
+ * fully drawn setelah warmup ini selesai.
+ */
+class StartupWarmupInitializer : Initializer<Unit> {
+    override fun create(context: Context) {
+        StartupWarmup.start(context)
+    }
+
+    override fun dependencies(): List<Class<out Initializer<*>>> = emptyList()
+}
+
+/**
+ * Sinkronisasi outbox kehadiran tidak dibutuhkan untuk frame pertama. WorkManager
+ * diinisialisasi on-demand (lihat MonitoringKelasApplication), jadi baru dibuat di sini
+ * saat main thread pertama kali idle.
+ */
+class DeferredSyncInitializer : Initializer<Unit> {
+    override fun create(context: Context) {
+        val appContext = context.applicationContext ?: context
+        Looper.myQueue().addIdleHandler {
+            KehadiranSyncWorker.schedule(appContext)
+            false // sekali saja
+        }
+    }
+
+    override fun dependencies(): List<Class<out Initializer<*>>> = emptyList()
+}
@@ -0,0 +1,70 @@
+package com.christopheraldoo.aplikasimonitoringkelas.startup
+
+import android.content.Context
+import android.os.Build
+import android.os.Trace
+import android.util.Log
+import com.christopheraldoo.aplikasimonitoringkelas.cache.TieredCacheManager
+import com.christopheraldoo.aplikasimonitoringkelas.network.RetrofitClient
+import com.christopheraldoo.aplikasimonitoringkelas.util.CredentialStore
+import com.christopheraldoo.aplikasimonitoringkelas.util.SessionManager
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
+
+/**
+ * Pekerjaan startup yang dulu jalan di main thread sebelum frame pertama: baca token terenkripsi,
+ * prefs sesi, pemilihan base URL, dan membangun OkHttp/Retrofit.
+ * Dijalankan sekali per proses di Dispatchers.IO, paralel dengan komposisi pertama LoginActivity.
+ * Kalau belum selesai saat dibutuhkan, pemanggil tetap aman: semua bagian di atas lazy + thread-safe.
+ */
+object StartupWarmup {
+
+    private const val TAG = "StartupWarmup"
+    const val TRACE_SECTION = "StartupWarmup"
+    private const val TRACE_COOKIE = 0
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    @Volatile
+    private var warmup: Deferred<Unit>? = null
+
+    fun start(context: Context): Deferred<Unit> {
+        warmup?.let { return it }
+        return synchronized(this) {
+            warmup ?: run {
+                val appContext = context.applicationContext ?: context
+                scope.async { warmUp(appContext) }
+            }.also { warmup = it }
+        }
+    }
+
+    /** Menunggu warmup selesai; langsung kembali kalau warmup tidak pernah dimulai */
+    suspend fun await() {
+        warmup?.await()
+    }
+
+    private suspend fun warmUp(context: Context) {
+        val startedAt = System.currentTimeMillis()
+        // Async section: warmup bisa lanjut di thread IO lain setelah suspend
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) Trace.beginAsyncSection(TRACE_SECTION, TRACE_COOKIE)
+        try {
+            // Token di memori untuk AuthInterceptor, prefs sesi untuk cek role di activity
+            CredentialStore.getInstance(context).current()
+            SessionManager(context).isLoggedIn()
+            // Migrasi sekali jalan dari CacheManager lama; tidak boleh di getInstance (sering di main thread)
+            TieredCacheManager.removeLegacyPrefs(context)
+            // Base URL tercepat lewat probe (dibatasi budget probe), lalu client bersama + journal cache HTTP
+            RetrofitClient.startEndpointSelection(context)
+            RetrofitClient.warmUp(context)
+            Log.i(TAG, "Warmup selesai dalam ${System.currentTimeMillis() - startedAt} ms")
+        } catch (e: Exception) {
+            // Tidak fatal: request pertama akan membangun ulang yang gagal di sini
+            Log.w(TAG, "Warmup gagal: ${e.message}")
+        } finally {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) Trace.endAsyncSection(TRACE_SECTION, TRACE_COOKIE)
+        }
+    }
+}
@@ -0,0 +1,447 @@
+package com.christopheraldoo.aplikasimonitoringkelas.stats
+
+import java.util.Locale
+import java.util.TimeZone
+import kotlin.math.roundToLong
+
+/**
+ * Agregasi statistik kehadiran guru di perangkat.
+ *
+ * - Record disimpan per kolom di array primitif (id, hari, guru, guru asli, kelas, status);
+ *   nama guru/kelas hanya disimpan sekali di kamus.
+ * - Setiap [upsert]/[remove] langsung menambah/mengurangi hitungan per status di bucket harian dan
+ *   bulanan untuk setiap guru, guru yang terlibat (guru_id atau guru_asli_id), kelas, dan total.
+ *   Query tidak pernah memindai record: rentang dijumlahkan dari bucket bulan penuh + bucket hari sisanya.
+ * - [markCovered] mencatat rentang tanggal yang isinya lengkap (hasil fetch tanpa filter), supaya
+ *   pemanggil tahu kapan jawaban lokal sama dengan jawaban server.
+ *
+ * Rumus rate sama dengan KepalaSekolahController::teacherPerformance (dibulatkan 1 desimal).
+ * Semua method aman dipanggil dari beberapa thread.
+ */
+class AttendanceStatsEngine {
+
+    companion object {
+        const val HADIR = 0
+        const val TELAT = 1
+        const val TIDAK_HADIR = 2
+        const val IZIN = 3
+        const val DIGANTI = 4
+        const val LAINNYA = 5
+        const val STATUS_COUNT = 6
+
+        private const val NONE = -1
+        private const val INITIAL_CAPACITY = 256
+
+        // Dipakai bersama NetworkRepository dan HistoryPagingRepository dalam satu proses
+        val shared = AttendanceStatsEngine()
+
+        fun statusCode(status: String?): Int = when (status?.lowercase()) {
+            "hadir" -> HADIR
+            "telat" -> TELAT
+            "tidak_hadir" -> TIDAK_HADIR
+            "izin" -> IZIN
+            "diganti" -> DIGANTI
+            else -> LAINNYA
+        }
+
+        /** "yyyy-MM-dd" (boleh diikuti jam) ke jumlah hari sejak 1970-01-01, null kalau tidak valid */
+        fun epochDay(date: String?): Int? {
+            if (date == null || date.length < 10 || date[4] != '-' || date[7] != '-') return null
+            val y = date.substring(0, 4).toIntOrNull() ?: return null
+            val m = date.substring(5, 7).toIntOrNull() ?: return null
+            val d = date.substring(8, 10).toIntOrNull() ?: return null
+            if (m !in 1..12 || d !in 1..31) return null
+            return daysFromCivil(y, m, d)
+        }
+
+        fun formatDay(epochDay: Int): String {
+            val (y, m, d) = civilFromDays(epochDay)
+            return String.format(Locale.ROOT, "%04d-%02d-%02d", y, m, d)
+        }
+
+        fun daysFromCivil(year: Int, month: Int, day: Int): Int {
+            val y = if (month <= 2) year - 1 else year
+            val era = Math.floorDiv(y, 400)
+            val yoe = y - era * 400
+            val mp = (month + 9) % 12
+            val doy = (153 * mp + 2) / 5 + day - 1
+            val doe = yoe * 365 + yoe / 4 - yoe / 100 + doy
+            return era * 146097 + doe - 719468
+        }
+
+        fun civilFromDays(epochDay: Int): Triple<Int, Int, Int> {
+            val z = epochDay + 719468
+            val era = Math.floorDiv(z, 146097)
+            val doe = z - era * 146097
+            val yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365
+            val doy = doe - (365 * yoe + yoe / 4 - yoe / 100)
+            val mp = (5 * doy + 2) / 153
+            val d = doy - (153 * mp + 2) / 5 + 1
+            val m = if (mp < 10) mp + 3 else mp - 9
+            return Triple(if (m <= 2) yoe + era * 400 + 1 else yoe + era * 400, m, d)
+        }
+
+        /** Tanggal hari ini di zona waktu perangkat, sebagai epoch day */
+        fun today(nowMs: Long, timeZone: TimeZone = TimeZone.getDefault()): Int =
+            Math.floorDiv(nowMs + timeZone.getOffset(nowMs), 86_400_000L).toInt()
+
+        /** Senin di minggu yang sama (Carbon::startOfWeek) */
+        fun startOfWeek(epochDay: Int): Int = epochDay - Math.floorMod(epochDay + 3, 7)
+
+        fun monthIndex(year: Int, month: Int): Int = year * 12 + month - 1
+
+        private fun monthIndexOf(epochDay: Int): Int {
+            val (y, m, _) = civilFromDays(epochDay)
+            return monthIndex(y, m)
+        }
+
+        fun firstDayOfMonth(monthIndex: Int): Int = daysFromCivil(Math.floorDiv(monthIndex, 12), Math.floorMod(monthIndex, 12) + 1, 1)
+
+        fun lastDayOfMonth(monthIndex: Int): Int = firstDayOfMonth(monthIndex + 1) - 1
+
+        // round(x, 1) ala PHP: setengah dibulatkan menjauhi nol
+        fun percent(part: Int, total: Int): Double =
+            if (total > 0) (part * 1000.0 / total).roundToLong() / 10.0 else 0.0
+    }
+
+    data class Record(
+        val id: Int,
+        val date: String,
+        val teacherId: Int,
+        val status: String?,
+        val teacherName: String? = null,
+        val teacherNip: String? = null,
+        val originalTeacherId: Int? = null,
+        val className: String? = null
+    )
+
+    /** Hitungan per status; index = kode status ([HADIR], [TELAT], ...) */
+    class Counts(private val values: IntArray = IntArray(STATUS_COUNT)) {
+        operator fun get(status: Int): Int = values[status]
+        val hadir: Int get() = values[HADIR]
+        val telat: Int get() = values[TELAT]
+        val tidakHadir: Int get() = values[TIDAK_HADIR]
+        val izin: Int get() = values[IZIN]
+        val diganti: Int get() = values[DIGANTI]
+        val total: Int get() = values.sum()
+        val attendanceRate: Double get() = percent(hadir + telat, total)
+        val onTimeRate: Double get() = percent(hadir, total)
+        fun percentage(status: Int): Double = percent(values[status], total)
+
+        override fun equals(other: Any?): Boolean = other is Counts && other.values.contentEquals(values)
+        override fun hashCode(): Int = values.contentHashCode()
+        override fun toString(): String = values.joinToString(prefix = "Counts(", postfix = ")")
+    }
+
+    data class TeacherSummary(val teacherId: Int, val teacherName: String?, val teacherNip: String?, val counts: Counts)
+
+    data class ClassSummary(val className: String, val counts: Counts)
+
+    data class MonthBucket(val year: Int, val month: Int, val counts: Counts)
+
+    /**
+     * Hitungan bucket: key (index dimensi, hari/bulan) -> slot di satu IntArray berisi STATUS_COUNT angka per slot.
+     */
+    private class BucketStore {
+        private val slots = HashMap<Long, Int>()
+        private var counts = IntArray(INITIAL_CAPACITY * STATUS_COUNT)
+
+        private fun key(dim: Int, time: Int): Long = (dim.toLong() shl 32) or (time.toLong() and 0xffffffffL)
+
+        fun add(dim: Int, time: Int, status: Int, delta: Int) {
+            val k = key(dim, time)
+            val slot = slots[k] ?: slots.size.also { next ->
+                if ((next + 1) * STATUS_COUNT > counts.size) counts = counts.copyOf(counts.size * 2)
+                slots[k] = next
+            }
+            counts[slot * STATUS_COUNT + status] += delta
+        }
+
+        fun addTo(dim: Int, time: Int, out: IntArray): Boolean {
+            val slot = slots[key(dim, time)] ?: return false
+            val base = slot * STATUS_COUNT
+            for (s in 0 until STATUS_COUNT) out[s] += counts[base + s]
+            return true
+        }
+
+        fun clear() {
+            slots.clear()
+            counts.fill(0)
+        }
+    }
+
+    private class Dimension {
+        val days = BucketStore()
+        val months = BucketStore()
+
+        fun add(dim: Int, day: Int, month: Int, status: Int, delta: Int) {
+            days.add(dim, day, status, delta)
+            months.add(dim, month, status, delta)
+        }
+
+        // Bulan penuh dari bucket bulan, sisa di awal/akhir rentang dari bucket hari
+        fun sum(dim: Int, from: Int, to: Int, out: IntArray) {
+            var day = from
+            while (day <= to) {
+                val month = monthIndexOf(day)
+                val monthEnd = lastDayOfMonth(month)
+                if (day == firstDayOfMonth(month) && monthEnd <= to) {
+                    months.addTo(dim, month, out)
+                    day = monthEnd + 1
+                } else {
+                    days.addTo(dim, day, out)
+                    day++
+                }
+            }
+        }
+    }
+
+    // ===== Kolom record =====
+    private var size = 0
+    private var ids = IntArray(INITIAL_CAPACITY)
+    private var days = IntArray(INITIAL_CAPACITY)
+    private var teachers = IntArray(INITIAL_CAPACITY)
+    private var originals = IntArray(INITIAL_CAPACITY)
+    private var classes = IntArray(INITIAL_CAPACITY)
+    private var statuses = ByteArray(INITIAL_CAPACITY)
+    private val rowOf = HashMap<Int, Int>()
+
+    // ===== Kamus =====
+    private val teacherIndex = HashMap<Int, Int>()
+    private val teacherIds = ArrayList<Int>()
+    private val teacherNames = ArrayList<String?>()
+    private val teacherNips = ArrayList<String?>()
+    private val classIndex = HashMap<String, Int>()
+    private val classNames = ArrayList<String>()
+
+    // ===== Bucket =====
+    private val byTeacher = Dimension()
+    private val byInvolved = Dimension()
+    private val byClass = Dimension()
+    private val overall = Dimension()
+
+    // Rentang lengkap: [from, to, fetchedAt]
+    private val covered = ArrayList<LongArray>()
+
+    val recordCount: Int @Synchronized get() = size
+
+    @Synchronized
+    fun upsert(record: Record): Boolean {
+        val day = epochDay(record.date) ?: return false
+        val teacher = teacherSlot(record.teacherId, record.teacherName, record.teacherNip)
+        val original = record.originalTeacherId?.let { teacherSlot(it, null, null) } ?: NONE
+        val klass = classSlot(record.className)
+        val status = statusCode(record.status)
+
+        val row = rowOf[record.id]
+        if (row != null) {
+            if (days[row] == day && teachers[row] == teacher && originals[row] == original &&
+                classes[row] == klass && statuses[row].toInt() == status
+            ) return false
+            count(row, -1)
+            write(row, record.id, day, teacher, original, klass, status)
+        } else {
+            ensureCapacity(size + 1)
+            write(size, record.id, day, teacher, original, klass, status)
+            rowOf[record.id] = size
+            size++
+        }
+        count(rowOf.getValue(record.id), +1)
+        return true
+    }
+
+    @Synchronized
+    fun upsertAll(records: Iterable<Record>): Int = records.count { upsert(it) }
+
+    @Synchronized
+    fun remove(id: Int): Boolean {
+        val row = rowOf.remove(id) ?: return false
+        count(row, -1)
+        val last = size - 1
+        if (row != last) {
+            write(row, ids[last], days[last], teachers[last], originals[last], classes[last], statuses[last].toInt())
+            rowOf[ids[row]] = row
+        }
+        size--
+        return true
+    }
+
+    /**
+     * Isi lengkap [from]..[to] dari server: record lama di rentang itu yang tidak ada lagi dihapus,
+     * sisanya di-upsert, lalu rentang ditandai lengkap.
+     */
+    @Synchronized
+    fun replaceRange(from: Int, to: Int, records: List<Record>, fetchedAt: Long) {
+        val keep = HashSet<Int>(records.size * 2)
+        records.forEach { keep.add(it.id) }
+        val stale = ArrayList<Int>()
+        for (row in 0 until size) {
+            if (days[row] in from..to && ids[row] !in keep) stale.add(ids[row])
+        }
+        stale.forEach { remove(it) }
+        upsertAll(records)
+        markCovered(from, to, fetchedAt)
+    }
+
+    @Synchronized
+    fun markCovered(from: Int, to: Int, fetchedAt: Long) {
+        covered.removeAll { it[0] >= from && it[1] <= to }
+        covered.add(longArrayOf(from.toLong(), to.toLong(), fetchedAt))
+    }
+
+    /**
+     * true kalau setiap hari di [from]..[to] ada di rentang lengkap yang diambil setelah [notBefore]
+     */
+    @Synchronized
+    fun isCovered(from: Int, to: Int, notBefore: Long = Long.MIN_VALUE): Boolean {
+        var next = from.toLong()
+        covered.filter { it[2] >= notBefore }.sortedBy { it[0] }.forEach { range ->
+            if (range[0] <= next && range[1] >= next) next = range[1] + 1
+        }
+        return next > to
+    }
+
+    @Synchronized
+    fun clear() {
+        size = 0
+        rowOf.clear()
+        teacherIndex.clear(); teacherIds.clear(); teacherNames.clear(); teacherNips.clear()
+        classIndex.clear(); classNames.clear()
+        listOf(byTeacher, byInvolved, byClass, overall).forEach { it.days.clear(); it.months.clear() }
+        covered.clear()
+    }
+
+    // ===== Query =====
+
+    @Synchronized
+    fun totals(from: Int, to: Int): Counts = Counts(IntArray(STATUS_COUNT).also { overall.sum(0, from, to, it) })
+
+    /** Record dengan guru_id = [teacherId] */
+    @Synchronized
+    fun teacherCounts(teacherId: Int, from: Int, to: Int): Counts {
+        val out = IntArray(STATUS_COUNT)
+        teacherIndex[teacherId]?.let { byTeacher.sum(it, from, to, out) }
+        return Counts(out)
+    }
+
+    /** Record dengan guru_id atau guru_asli_id = [teacherId] (filter teacher_id di server) */
+    @Synchronized
+    fun involvedCounts(teacherId: Int, from: Int, to: Int): Counts {
+        val out = IntArray(STATUS_COUNT)
+        teacherIndex[teacherId]?.let { byInvolved.sum(it, from, to, out) }
+        return Counts(out)
+    }
+
+    /** Semua guru yang punya record (guru_id) di rentang, urut teacherId */
+    @Synchronized
+    fun teacherSummaries(from: Int, to: Int): List<TeacherSummary> {
+        val result = ArrayList<TeacherSummary>()
+        for (slot in teacherIds.indices) {
+            val out = IntArray(STATUS_COUNT)
+            byTeacher.sum(slot, from, to, out)
+            if (out.sum() > 0) result.add(TeacherSummary(teacherIds[slot], teacherNames[slot], teacherNips[slot], Counts(out)))
+        }
+        result.sortBy { it.teacherId }
+        return result
+    }
+
+    @Synchronized
+    fun classSummaries(from: Int, to: Int): List<ClassSummary> {
+        val result = ArrayList<ClassSummary>()
+        for (slot in classNames.indices) {
+            val out = IntArray(STATUS_COUNT)
+            byClass.sum(slot, from, to, out)
+            if (out.sum() > 0) result.add(ClassSummary(classNames[slot], Counts(out)))
+        }
+        result.sortBy { it.className }
+        return result
+    }
+
+    /**
+     * Hitungan per hari (hanya hari yang ada record-nya); [involvedTeacherId] null = semua guru
+     */
+    @Synchronized
+    fun dailyCounts(from: Int, to: Int, involvedTeacherId: Int? = null): Map<Int, Counts> {
+        val dim = if (involvedTeacherId == null) 0 else teacherIndex[involvedTeacherId] ?: return emptyMap()
+        val store = if (involvedTeacherId == null) overall.days else byInvolved.days
+        val result = LinkedHashMap<Int, Counts>()
+        for (day in from..to) {
+            val out = IntArray(STATUS_COUNT)
+            if (store.addTo(dim, day, out) && out.sum() > 0) result[day] = Counts(out)
+        }
+        return result
+    }
+
+    /** Bucket bulanan [fromYear]/[fromMonth] s.d. [toYear]/[toMonth]; [teacherId] null = semua guru */
+    @Synchronized
+    fun monthlyBuckets(fromYear: Int, fromMonth: Int, toYear: Int, toMonth: Int, teacherId: Int? = null): List<MonthBucket> {
+        val dim = if (teacherId == null) 0 else teacherIndex[teacherId]
+        val store = if (teacherId == null) overall.months else byTeacher.months
+        return (monthIndex(fromYear, fromMonth)..monthIndex(toYear, toMonth)).map { month ->
+            val out = IntArray(STATUS_COUNT)
+            if (dim != null) store.addTo(dim, month, out)
+            MonthBucket(Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1, Counts(out))
+        }
+    }
+
+    /** Rate kehadiran (hadir + telat) guru di [windowDays] hari yang berakhir di [endDay] */
+    @Synchronized
+    fun rollingRate(teacherId: Int, endDay: Int, windowDays: Int): Double =
+        teacherCounts(teacherId, endDay - windowDays + 1, endDay).attendanceRate
+
+    @Synchronized
+    fun teacherName(teacherId: Int): String? = teacherIndex[teacherId]?.let { teacherNames[it] }
+
+    // ===== Internal =====
+
+    private fun count(row: Int, delta: Int) {
+        val day = days[row]
+        val month = monthIndexOf(day)
+        val status = statuses[row].toInt()
+        overall.add(0, day, month, status, delta)
+        byTeacher.add(teachers[row], day, month, status, delta)
+        byInvolved.add(teachers[row], day, month, status, delta)
+        if (originals[row] != NONE && originals[row] != teachers[row]) byInvolved.add(originals[row], day, month, status, delta)
+        if (classes[row] != NONE) byClass.add(classes[row], day, month, status, delta)
+    }
+
+    private fun write(row: Int, id: Int, day: Int, teacher: Int, original: Int, klass: Int, status: Int) {
+        ids[row] = id
+        days[row] = day
+        teachers[row] = teacher
+        originals[row] = original
+        classes[row] = klass
+        statuses[row] = status.toByte()
+    }
+
+    private fun ensureCapacity(capacity: Int) {
+        if (capacity <= ids.size) return
+        val newSize = maxOf(capacity, ids.size * 2)
+        ids = ids.copyOf(newSize)
+        days = days.copyOf(newSize)
+        teachers = teachers.copyOf(newSize)
+        originals = originals.copyOf(newSize)
+        classes = classes.copyOf(newSize)
+        statuses = statuses.copyOf(newSize)
+    }
+
+    private fun teacherSlot(teacherId: Int, name: String?, nip: String?): Int {
+        val slot = teacherIndex.getOrPut(teacherId) {
+            teacherIds.add(teacherId)
+            teacherNames.add(null)
+            teacherNips.add(null)
+            teacherIds.size - 1
+        }
+        if (!name.isNullOrBlank()) teacherNames[slot] = name
+        if (!nip.isNullOrBlank()) teacherNips[slot] = nip
+        return slot
+    }
+
+    private fun classSlot(className: String?): Int {
+        if (className.isNullOrBlank()) return NONE
+        return classIndex.getOrPut(className) {
+            classNames.add(className)
+            classNames.size - 1
+        }
+    }
+}
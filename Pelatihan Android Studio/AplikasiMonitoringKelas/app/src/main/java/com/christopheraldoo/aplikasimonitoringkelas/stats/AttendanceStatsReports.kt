@@ -0,0 +1,123 @@
+package com.christopheraldoo.aplikasimonitoringkelas.stats
+
+import com.christopheraldoo.aplikasimonitoringkelas.data.AttendanceItem
+import com.christopheraldoo.aplikasimonitoringkelas.data.DailyStats
+import com.christopheraldoo.aplikasimonitoringkelas.data.KurikulumAttendanceHistoryItem
+import com.christopheraldoo.aplikasimonitoringkelas.data.MonthlyStats
+import com.christopheraldoo.aplikasimonitoringkelas.data.PercentageStats
+import com.christopheraldoo.aplikasimonitoringkelas.data.StatisticsResponse
+import com.christopheraldoo.aplikasimonitoringkelas.data.TeacherPerformance
+import com.christopheraldoo.aplikasimonitoringkelas.data.TeacherPerformanceData
+import com.christopheraldoo.aplikasimonitoringkelas.data.TeacherStats
+import com.christopheraldoo.aplikasimonitoringkelas.data.WeekInfoSimple
+import com.christopheraldoo.aplikasimonitoringkelas.stats.AttendanceStatsEngine.Companion.DIGANTI
+import com.christopheraldoo.aplikasimonitoringkelas.stats.AttendanceStatsEngine.Companion.HADIR
+import com.christopheraldoo.aplikasimonitoringkelas.stats.AttendanceStatsEngine.Companion.TELAT
+import com.christopheraldoo.aplikasimonitoringkelas.stats.AttendanceStatsEngine.Companion.TIDAK_HADIR
+import java.text.DateFormatSymbols
+import java.util.Locale
+
+/**
+ * Menyusun response kepala-sekolah/teacher-performance dan kurikulum/statistics dari
+ * [AttendanceStatsEngine], dengan bentuk dan urutan yang sama seperti controller di server.
+ */
+object AttendanceStatsReports {
+
+    const val SORT_ATTENDANCE_RATE = "attendance_rate"
+    const val SORT_LATE_COUNT = "late_count"
+    const val SORT_ABSENT_COUNT = "absent_count"
+
+    fun record(item: AttendanceItem) = AttendanceStatsEngine.Record(
+        id = item.id,
+        date = item.date,
+        teacherId = item.teacherId,
+        status = item.status,
+        teacherName = item.teacherName,
+        teacherNip = item.teacherNip,
+        originalTeacherId = item.originalTeacherId,
+        className = item.className
+    )
+
+    // Field non-null di model API bisa tetap null kalau server tidak mengirimnya (Gson)
+    fun record(item: KurikulumAttendanceHistoryItem) = AttendanceStatsEngine.Record(
+        id = item.id,
+        date = item.date.orEmpty(),
+        teacherId = item.teacherId,
+        status = item.status,
+        teacherName = item.teacherName,
+        originalTeacherId = item.originalTeacherId,
+        className = item.className
+    )
+
+    /**
+     * Sama dengan KepalaSekolahController::teacherPerformance untuk minggu [weekStart]..[weekEnd]
+     */
+    fun teacherPerformance(engine: AttendanceStatsEngine, weekStart: Int, weekEnd: Int, sortBy: String): TeacherPerformanceData {
+        val teachers = engine.teacherSummaries(weekStart, weekEnd).map { summary ->
+            val counts = summary.counts
+            TeacherPerformance(
+                teacherId = summary.teacherId,
+                teacherName = summary.teacherName ?: "Unknown",
+                teacherNip = summary.teacherNip,
+                totalSchedules = counts.total,
+                hadir = counts.hadir,
+                telat = counts.telat,
+                tidakHadir = counts.tidakHadir,
+                izin = counts.izin,
+                attendanceRate = counts.attendanceRate,
+                onTimeRate = counts.onTimeRate
+            )
+        }
+        // sortByDesc di server stabil: nilai sama tetap urut teacher_id
+        val sorted = when (sortBy) {
+            SORT_LATE_COUNT -> teachers.sortedByDescending { it.telat }
+            SORT_ABSENT_COUNT -> teachers.sortedByDescending { it.tidakHadir }
+            else -> teachers.sortedByDescending { it.attendanceRate }
+        }
+        return TeacherPerformanceData(
+            weekInfo = WeekInfoSimple(AttendanceStatsEngine.formatDay(weekStart), AttendanceStatsEngine.formatDay(weekEnd)),
+            sortBy = sortBy,
+            teachers = sorted
+        )
+    }
+
+    /**
+     * Sama dengan KurikulumController::attendanceStatistics; [teacherId] mencocokkan guru_id atau guru_asli_id
+     */
+    fun monthlyStatistics(engine: AttendanceStatsEngine, month: Int, year: Int, teacherId: Int?): StatisticsResponse {
+        val monthIndex = AttendanceStatsEngine.monthIndex(year, month)
+        val from = AttendanceStatsEngine.firstDayOfMonth(monthIndex)
+        val to = AttendanceStatsEngine.lastDayOfMonth(monthIndex)
+        val counts = if (teacherId == null) engine.totals(from, to) else engine.involvedCounts(teacherId, from, to)
+
+        val statistics = MonthlyStats(
+            month = month,
+            year = year,
+            monthName = DateFormatSymbols(Locale.ENGLISH).months[month - 1],
+            totalRecords = counts.total,
+            hadir = counts.hadir,
+            telat = counts.telat,
+            tidakHadir = counts.tidakHadir,
+            diganti = counts.diganti,
+            percentage = PercentageStats(
+                hadir = counts.percentage(HADIR).toFloat(),
+                telat = counts.percentage(TELAT).toFloat(),
+                tidakHadir = counts.percentage(TIDAK_HADIR).toFloat(),
+                diganti = counts.percentage(DIGANTI).toFloat()
+            )
+        )
+        val daily = engine.dailyCounts(from, to, teacherId).entries.associate { (day, c) ->
+            AttendanceStatsEngine.formatDay(day) to DailyStats(c.hadir, c.telat, c.tidakHadir, c.diganti, c.total)
+        }
+        val teacherStats = if (teacherId != null) emptyList() else engine.teacherSummaries(from, to).map {
+            TeacherStats(it.teacherId, it.teacherName ?: "Unknown", it.counts.hadir, it.counts.telat, it.counts.tidakHadir, it.counts.total)
+        }
+        return StatisticsResponse(
+            success = true,
+            message = "Statistik kehadiran berhasil diambil",
+            statistics = statistics,
+            dailyBreakdown = daily,
+            teacherStatistics = teacherStats
+        )
+    }
+}
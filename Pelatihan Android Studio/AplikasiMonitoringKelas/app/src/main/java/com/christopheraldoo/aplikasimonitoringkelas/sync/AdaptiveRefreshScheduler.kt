@@ -0,0 +1,184 @@
+package com.christopheraldoo.aplikasimonitoringkelas.sync
+
+import android.util.Log
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withTimeoutOrNull
+
+/**
+ * Penjadwal auto-refresh untuk layar yang menampilkan data "live".
+ *
+ * - Hanya target yang sedang terlihat (lifecycle STARTED) yang di-refresh; kalau tidak ada
+ *   yang terlihat, loop tidur sampai ada layar yang muncul lagi.
+ * - Refresh yang datanya sama (304 / fingerprint sama) menggandakan interval target itu
+ *   sampai [maxIntervalMs]; begitu data berubah interval kembali ke [baseIntervalMs].
+ * - Gagal juga memperlambat interval supaya server yang bermasalah tidak dibombardir.
+ * - Selama push (LiveUpdatesClient) untuk suatu target tersambung, target itu hanya di-poll setiap
+ *   [maxIntervalMs] sebagai jaring pengaman; begitu push putus, kembali ke intervalnya sendiri.
+ */
+class AdaptiveRefreshScheduler(
+    private val scope: CoroutineScope,
+    private val baseIntervalMs: Long = DEFAULT_BASE_INTERVAL,
+    private val maxIntervalMs: Long = DEFAULT_MAX_INTERVAL,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+    companion object {
+        private const val TAG = "AdaptiveRefresh"
+        const val DEFAULT_BASE_INTERVAL = 30_000L
+        const val DEFAULT_MAX_INTERVAL = 5 * 60_000L
+    }
+
+    // SKIPPED: target tidak perlu di-refresh saat ini (misal layar masih Loading/Error), tidak ada request
+    enum class Outcome { CHANGED, UNCHANGED, FAILED, SKIPPED }
+
+    data class RefreshResult(val outcome: Outcome, val bytes: Long = 0)
+
+    /**
+     * @param skipped refresh yang tidak dijalankan dibanding jadwal tetap [baseIntervalMs]
+     *                (layar tidak terlihat, app di background, atau sedang backoff)
+     */
+    data class Stats(
+        val refreshes: Int = 0,
+        val changed: Int = 0,
+        val unchanged: Int = 0,
+        val failed: Int = 0,
+        val skipped: Int = 0,
+        val bytesFetched: Long = 0
+    )
+
+    private class Target(val refresh: suspend () -> RefreshResult, var lastRunAt: Long, var intervalMs: Long) {
+        var visible = false
+        var pushConnected = false
+
+        fun dueAt(maxIntervalMs: Long): Long = lastRunAt + if (pushConnected) maxIntervalMs else intervalMs
+    }
+
+    private val targets = LinkedHashMap<String, Target>()
+    private val wake = Channel<Unit>(Channel.CONFLATED)
+    private var loopJob: Job? = null
+
+    private val _stats = MutableStateFlow(Stats())
+    val stats: StateFlow<Stats> = _stats.asStateFlow()
+
+    /**
+     * Daftarkan target. Data dianggap baru saja dimuat, jadi refresh pertama menunggu satu interval.
+     */
+    fun register(key: String, refresh: suspend () -> RefreshResult) {
+        synchronized(targets) {
+            targets[key] = Target(refresh, clock(), baseIntervalMs)
+        }
+    }
+
+    fun setVisible(key: String, visible: Boolean) {
+        synchronized(targets) {
+            targets[key]?.visible = visible
+        }
+        if (visible) ensureLoop()
+        wake.trySend(Unit)
+    }
+
+    /**
+     * Data target baru saja dimuat manual (pull/tombol refresh/ganti filter): mulai lagi dari interval dasar
+     */
+    fun markFresh(key: String) {
+        synchronized(targets) {
+            targets[key]?.let {
+                it.lastRunAt = clock()
+                it.intervalMs = baseIntervalMs
+            }
+        }
+        wake.trySend(Unit)
+    }
+
+    fun intervalOf(key: String): Long? = synchronized(targets) { targets[key]?.intervalMs }
+
+    /**
+     * Push untuk [key] sedang tersambung: perubahan sudah datang sendiri, polling cukup sesekali
+     */
+    fun setPushConnected(key: String, connected: Boolean) {
+        synchronized(targets) {
+            targets[key]?.pushConnected = connected
+        }
+        wake.trySend(Unit)
+    }
+
+    fun stop() {
+        loopJob?.cancel()
+        loopJob = null
+    }
+
+    private fun ensureLoop() {
+        if (loopJob?.isActive == true) return
+        loopJob = scope.launch { runLoop() }
+    }
+
+    private suspend fun runLoop() {
+        while (scope.isActive) {
+            val next = synchronized(targets) {
+                targets.entries.filter { it.value.visible }.minByOrNull { it.value.dueAt(maxIntervalMs) }
+            }
+            if (next == null) {
+                // Tidak ada layar yang terlihat: tidur sampai setVisible(true)
+                wake.receive()
+                continue
+            }
+
+            val (key, target) = next
+            val waitMs = target.dueAt(maxIntervalMs) - clock()
+            if (waitMs > 0) {
+                // Bangun lebih awal kalau visibilitas/jadwal berubah
+                withTimeoutOrNull(waitMs) { wake.receive() }
+                continue
+            }
+            run(key, target)
+        }
+    }
+
+    private suspend fun run(key: String, target: Target) {
+        val now = clock()
+        val avoided = ((now - target.lastRunAt) / baseIntervalMs - 1).coerceAtLeast(0).toInt()
+
+        val result = try {
+            target.refresh()
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Log.w(TAG, "$key: refresh gagal: ${e.message}")
+            RefreshResult(Outcome.FAILED)
+        }
+
+        synchronized(targets) {
+            target.lastRunAt = clock()
+            target.intervalMs = when (result.outcome) {
+                Outcome.CHANGED -> baseIntervalMs
+                Outcome.UNCHANGED, Outcome.FAILED -> (target.intervalMs * 2).coerceAtMost(maxIntervalMs)
+                Outcome.SKIPPED -> target.intervalMs
+            }
+        }
+
+        val ran = result.outcome != Outcome.SKIPPED
+        val stats = _stats.value.let {
+            it.copy(
+                refreshes = it.refreshes + if (ran) 1 else 0,
+                changed = it.changed + if (result.outcome == Outcome.CHANGED) 1 else 0,
+                unchanged = it.unchanged + if (result.outcome == Outcome.UNCHANGED) 1 else 0,
+                failed = it.failed + if (result.outcome == Outcome.FAILED) 1 else 0,
+                skipped = it.skipped + avoided + if (ran) 0 else 1,
+                bytesFetched = it.bytesFetched + result.bytes
+            )
+        }
+        _stats.value = stats
+        Log.d(
+            TAG,
+            "$key: ${result.outcome} (${result.bytes} B), interval berikutnya ${target.intervalMs / 1000}s | " +
+                "refresh=${stats.refreshes} dilewati=${stats.skipped} bytes=${stats.bytesFetched}"
+        )
+    }
+}
@@ -0,0 +1,181 @@
+package com.christopheraldoo.aplikasimonitoringkelas.sync
+
+import android.util.Log
+import com.christopheraldoo.aplikasimonitoringkelas.data.BulkConfirmItemResult
+import com.christopheraldoo.aplikasimonitoringkelas.data.BulkConfirmRequest
+import com.christopheraldoo.aplikasimonitoringkelas.data.BulkConfirmResponse
+import com.christopheraldoo.aplikasimonitoringkelas.data.BulkConfirmScheduleItem
+import com.christopheraldoo.aplikasimonitoringkelas.data.PendingAttendanceItem
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+
+/**
+ * Konfirmasi massal kehadiran dalam beberapa chunk.
+ *
+ * - Pilihan dipecah menjadi chunk berukuran [chunkSize]; paling banyak [maxConcurrency] chunk
+ *   dikirim bersamaan, jadi satu request lambat/gagal tidak menahan atau menggagalkan semuanya.
+ * - Ukuran chunk menyesuaikan diri: chunk yang selesai jauh di bawah [targetChunkMs] membuat chunk
+ *   berikutnya lebih besar (sampai [maxChunkSize]); chunk lambat atau gagal membuatnya setengah.
+ * - Hasil dilaporkan per item. Item yang gagal dikirim ulang (hanya item itu) sampai [maxAttempts] putaran;
+ *   sisanya bisa dicoba lagi dari UI lewat [confirm] dengan [Report.failedItems].
+ */
+class BulkConfirmBatcher(
+    private val send: suspend (BulkConfirmRequest) -> BulkConfirmResponse,
+    private val chunkSize: Int = DEFAULT_CHUNK_SIZE,
+    private val maxConcurrency: Int = DEFAULT_CONCURRENCY,
+    private val minChunkSize: Int = DEFAULT_MIN_CHUNK_SIZE,
+    private val maxChunkSize: Int = DEFAULT_MAX_CHUNK_SIZE,
+    private val targetChunkMs: Long = DEFAULT_TARGET_CHUNK_MS,
+    private val maxAttempts: Int = DEFAULT_MAX_ATTEMPTS,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+    companion object {
+        private const val TAG = "BulkConfirmBatcher"
+        const val DEFAULT_CHUNK_SIZE = 20
+        const val DEFAULT_CONCURRENCY = 3
+        const val DEFAULT_MIN_CHUNK_SIZE = 5
+        // Tetap jauh di bawah batas max:200 per array di validasi server
+        const val DEFAULT_MAX_CHUNK_SIZE = 50
+        const val DEFAULT_TARGET_CHUNK_MS = 3_000L
+        const val DEFAULT_MAX_ATTEMPTS = 2
+
+        // attendance_id untuk item pending, schedule_id + date untuk item belum_lapor (sama dengan key di results server)
+        fun keyOf(item: PendingAttendanceItem): String =
+            item.id?.let { "a:$it" } ?: "s:${item.scheduleId}:${item.date}"
+
+        private fun keyOf(result: BulkConfirmItemResult): String? = when {
+            result.attendanceId != null -> "a:${result.attendanceId}"
+            result.scheduleId != null && result.date != null -> "s:${result.scheduleId}:${result.date}"
+            else -> null
+        }
+    }
+
+    enum class ItemStatus { CONFIRMED, CREATED, SKIPPED, FAILED }
+
+    data class ItemOutcome(
+        val item: PendingAttendanceItem,
+        val status: ItemStatus,
+        val message: String? = null
+    )
+
+    data class Report(
+        val outcomes: List<ItemOutcome>,
+        val chunks: Int,
+        val attempts: Int,
+        val elapsedMs: Long
+    ) {
+        val succeeded: Int get() = outcomes.count { it.status == ItemStatus.CONFIRMED || it.status == ItemStatus.CREATED }
+        val skipped: Int get() = outcomes.count { it.status == ItemStatus.SKIPPED }
+        val failedItems: List<PendingAttendanceItem> get() = outcomes.filter { it.status == ItemStatus.FAILED }.map { it.item }
+    }
+
+    /**
+     * @param onProgress dipanggil setiap chunk selesai dengan (item yang sudah punya hasil, total item)
+     */
+    suspend fun confirm(
+        items: List<PendingAttendanceItem>,
+        status: String,
+        onProgress: (Int, Int) -> Unit = { _, _ -> }
+    ): Report {
+        val startedAt = clock()
+        val unique = items.distinctBy { keyOf(it) }
+        val outcomes = HashMap<String, ItemOutcome>()
+        var pending = unique
+        var chunks = 0
+        var attempts = 0
+
+        while (pending.isNotEmpty() && attempts < maxAttempts) {
+            attempts++
+            chunks += runRound(pending, status, outcomes, unique.size, onProgress)
+            pending = pending.filter { outcomes[keyOf(it)]?.status == ItemStatus.FAILED }
+        }
+
+        val report = Report(unique.mapNotNull { outcomes[keyOf(it)] }, chunks, attempts, clock() - startedAt)
+        Log.d(
+            TAG,
+            "${unique.size} item, $chunks chunk, $attempts putaran, ${report.elapsedMs} ms | " +
+                "berhasil=${report.succeeded} dilewati=${report.skipped} gagal=${report.failedItems.size}"
+        )
+        return report
+    }
+
+    private suspend fun runRound(
+        items: List<PendingAttendanceItem>,
+        status: String,
+        outcomes: MutableMap<String, ItemOutcome>,
+        total: Int,
+        onProgress: (Int, Int) -> Unit
+    ): Int = coroutineScope {
+        val queue = ArrayDeque(items)
+        val lock = Mutex()
+        var size = chunkSize.coerceIn(minChunkSize, maxChunkSize)
+        var chunks = 0
+
+        repeat(maxConcurrency.coerceAtMost(items.size)) {
+            launch {
+                while (true) {
+                    val chunk = lock.withLock {
+                        val taken = List(minOf(size, queue.size)) { queue.removeFirst() }
+                        if (taken.isNotEmpty()) chunks++
+                        taken
+                    }
+                    if (chunk.isEmpty()) break
+
+                    val chunkStartedAt = clock()
+                    val results = sendChunk(chunk, status)
+                    val tookMs = clock() - chunkStartedAt
+                    val chunkFailed = results.all { it.status == ItemStatus.FAILED }
+
+                    lock.withLock {
+                        results.forEach { outcomes[keyOf(it.item)] = it }
+                        size = when {
+                            chunkFailed || tookMs > targetChunkMs -> (size / 2).coerceAtLeast(minChunkSize)
+                            tookMs < targetChunkMs / 2 -> (size + minChunkSize).coerceAtMost(maxChunkSize)
+                            else -> size
+                        }
+                        onProgress(outcomes.size, total)
+                    }
+                }
+            }
+        }
+        chunks
+    }
+
+    private suspend fun sendChunk(chunk: List<PendingAttendanceItem>, status: String): List<ItemOutcome> {
+        val request = BulkConfirmRequest(
+            attendanceIds = chunk.mapNotNull { it.id }.ifEmpty { null },
+            scheduleItems = chunk.filter { it.id == null }
+                .map { BulkConfirmScheduleItem(scheduleId = it.scheduleId, date = it.date) }
+                .ifEmpty { null },
+            status = status
+        )
+
+        val response = try {
+            send(request)
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Log.w(TAG, "chunk ${chunk.size} item gagal: ${e.message}")
+            return chunk.map { ItemOutcome(it, ItemStatus.FAILED, e.message ?: "Terjadi kesalahan") }
+        }
+        if (!response.success) {
+            val message = response.message ?: "Gagal mengkonfirmasi kehadiran"
+            return chunk.map { ItemOutcome(it, ItemStatus.FAILED, message) }
+        }
+
+        val byKey = response.data?.results.orEmpty().mapNotNull { result -> keyOf(result)?.let { it to result } }.toMap()
+        return chunk.map { item ->
+            val result = byKey[keyOf(item)]
+            when (result?.action) {
+                "confirmed" -> ItemOutcome(item, ItemStatus.CONFIRMED)
+                "created" -> ItemOutcome(item, ItemStatus.CREATED)
+                "failed" -> ItemOutcome(item, ItemStatus.FAILED, result.reason ?: "Gagal diproses")
+                "skipped" -> ItemOutcome(item, ItemStatus.SKIPPED, result.reason)
+                else -> ItemOutcome(item, ItemStatus.SKIPPED, "Tidak dilaporkan server")
+            }
+        }
+    }
+}
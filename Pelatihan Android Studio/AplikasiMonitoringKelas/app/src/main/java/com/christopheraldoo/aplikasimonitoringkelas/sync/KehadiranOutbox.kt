@@ -0,0 +1,253 @@
+package com.christopheraldoo.aplikasimonitoringkelas.sync
+
+import android.content.Context
+import android.util.Log
+import com.christopheraldoo.aplikasimonitoringkelas.data.KehadiranSubmitRequest
+import com.christopheraldoo.aplikasimonitoringkelas.data.KehadiranSubmitResponse
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.AppDatabase
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.PendingKehadiran
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.PendingKehadiranDao
+import com.christopheraldoo.aplikasimonitoringkelas.network.ApiService
+import com.christopheraldoo.aplikasimonitoringkelas.network.RetrofitClient
+import com.christopheraldoo.aplikasimonitoringkelas.util.SessionManager
+import com.google.gson.JsonParser
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import java.io.IOException
+
+/**
+ * Outbox untuk submit kehadiran.
+ *
+ * Setiap submit ditulis ke Room lebih dulu, baru dikirim ke server. Kalau pengiriman gagal
+ * karena jaringan/server, baris tetap di outbox dan dikirim ulang oleh [KehadiranSyncWorker].
+ * Pengiriman diserialkan dengan mutex supaya submit langsung dan worker tidak mengirim
+ * baris yang sama bersamaan.
+ *
+ * Setiap baris dicatat dengan user id pengisinya. Baris milik akun lain dibuang sebelum
+ * mengirim, jadi isian siswa yang belum terkirim tidak pernah memakai token akun berikutnya.
+ */
+class KehadiranOutbox(
+    private val dao: PendingKehadiranDao,
+    private val api: () -> ApiService,
+    private val tokenProvider: () -> String?,
+    private val userIdProvider: () -> Long?,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+    private val sendLock = Mutex()
+
+    companion object {
+        private const val TAG = "KehadiranOutbox"
+
+        const val DEFAULT_BATCH_SIZE = 20
+
+        // Batas per eksekusi worker, sisanya dijadwalkan ulang
+        const val DEFAULT_MAX_BATCHES = 10
+
+        @Volatile
+        private var instance: KehadiranOutbox? = null
+
+        fun getInstance(context: Context): KehadiranOutbox {
+            instance?.let { return it }
+            return synchronized(this) {
+                instance ?: run {
+                    val appContext = context.applicationContext ?: context
+                    KehadiranOutbox(
+                        dao = AppDatabase.getInstance(appContext).pendingKehadiranDao(),
+                        api = { RetrofitClient.getAuthenticatedInstance(appContext) },
+                        tokenProvider = { SessionManager(appContext).getAuthToken() },
+                        userIdProvider = { SessionManager(appContext).getUserId() }
+                    ).also { instance = it }
+                }
+            }
+        }
+    }
+
+    /**
+     * Hasil pengiriman satu baris outbox
+     */
+    sealed class SendOutcome {
+        data class Sent(val response: KehadiranSubmitResponse) : SendOutcome()
+
+        // Ditolak server (4xx / success=false), mengirim ulang tidak akan berhasil.
+        // discard = true untuk 422 (mis. tanggal sudah di luar batas 7 hari): baris langsung dibuang.
+        data class Rejected(val message: String, val discard: Boolean = false) : SendOutcome()
+
+        // Jaringan/server bermasalah atau belum login, coba lagi nanti
+        data class RetryLater(val message: String) : SendOutcome()
+    }
+
+    data class DrainResult(
+        val sent: Int,
+        val rejected: Int,
+        val remaining: Int,
+        val shouldRetry: Boolean
+    )
+
+    /** Isian milik akun yang sedang login */
+    fun observeAll(): Flow<List<PendingKehadiran>> = dao.observeForUser(userIdProvider() ?: -1L)
+
+    /**
+     * Simpan isian kehadiran ke outbox. Isian lama untuk (scheduleId, tanggal) yang sama ditimpa.
+     */
+    suspend fun enqueue(
+        scheduleId: Int,
+        tanggal: String,
+        status: String,
+        catatan: String?,
+        subject: String? = null,
+        teacher: String? = null,
+        period: Int = 0,
+        time: String? = null
+    ): PendingKehadiran {
+        val userId = userIdProvider() ?: throw IllegalStateException("Sesi tidak ditemukan, silakan login ulang")
+        val now = clock()
+        val existing = dao.get(scheduleId, tanggal)?.takeIf { it.userId == userId }
+        // updated_at harus selalu naik supaya guard deleteIfUnchanged bekerja walau clock sama
+        val updatedAt = if (existing != null && existing.updatedAt >= now) existing.updatedAt + 1 else now
+        val item = PendingKehadiran(
+            scheduleId = scheduleId,
+            tanggal = tanggal,
+            userId = userId,
+            status = status,
+            catatan = catatan ?: "",
+            subject = subject ?: existing?.subject,
+            teacher = teacher ?: existing?.teacher,
+            period = if (period > 0) period else existing?.period ?: 0,
+            time = time ?: existing?.time,
+            createdAt = existing?.createdAt ?: now,
+            updatedAt = updatedAt
+        )
+        dao.upsert(item)
+        return item
+    }
+
+    /**
+     * Kirim satu baris sekarang juga (dipakai saat siswa menekan simpan).
+     * Baris yang ditolak server dihapus karena pesan error langsung ditampilkan ke siswa.
+     */
+    suspend fun sendNow(scheduleId: Int, tanggal: String): SendOutcome = sendLock.withLock {
+        dropRowsOfOtherUsers()
+        val item = dao.get(scheduleId, tanggal)
+            ?: return@withLock SendOutcome.RetryLater("Data kehadiran tidak ditemukan di outbox")
+        val outcome = send(item)
+        when (outcome) {
+            is SendOutcome.Sent -> dao.deleteIfUnchanged(item.scheduleId, item.tanggal, item.updatedAt)
+            is SendOutcome.Rejected -> dao.deleteIfUnchanged(item.scheduleId, item.tanggal, item.updatedAt)
+            is SendOutcome.RetryLater -> dao.markAttemptFailed(item.scheduleId, item.tanggal, outcome.message)
+        }
+        outcome
+    }
+
+    /**
+     * Kirim semua baris pending per batch. Berhenti di kegagalan jaringan/server pertama
+     * (baris berikutnya hampir pasti gagal juga) dan serahkan backoff ke WorkManager.
+     */
+    suspend fun drain(
+        batchSize: Int = DEFAULT_BATCH_SIZE,
+        maxBatches: Int = DEFAULT_MAX_BATCHES
+    ): DrainResult = sendLock.withLock {
+        dropRowsOfOtherUsers()
+        var sent = 0
+        var rejected = 0
+        var batches = 0
+
+        while (batches < maxBatches) {
+            val batch = dao.getPendingBatch(batchSize)
+            if (batch.isEmpty()) break
+            batches++
+
+            for (item in batch) {
+                when (val outcome = send(item)) {
+                    is SendOutcome.Sent -> {
+                        dao.deleteIfUnchanged(item.scheduleId, item.tanggal, item.updatedAt)
+                        sent++
+                    }
+                    is SendOutcome.Rejected -> {
+                        if (outcome.discard) {
+                            dao.deleteIfUnchanged(item.scheduleId, item.tanggal, item.updatedAt)
+                        } else {
+                            dao.markRejected(item.scheduleId, item.tanggal, item.updatedAt, outcome.message)
+                        }
+                        rejected++
+                    }
+                    is SendOutcome.RetryLater -> {
+                        dao.markAttemptFailed(item.scheduleId, item.tanggal, outcome.message)
+                        val remaining = dao.countPending()
+                        Log.w(TAG, "Drain berhenti: ${outcome.message} (sent=$sent, remaining=$remaining)")
+                        return@withLock DrainResult(sent, rejected, remaining, shouldRetry = true)
+                    }
+                }
+            }
+        }
+
+        val remaining = dao.countPending()
+        Log.d(TAG, "Drain selesai: sent=$sent, rejected=$rejected, remaining=$remaining, batches=$batches")
+        DrainResult(sent, rejected, remaining, shouldRetry = remaining > 0)
+    }
+
+    suspend fun dismiss(scheduleId: Int, tanggal: String) {
+        dao.delete(scheduleId, tanggal)
+    }
+
+    /**
+     * Hapus isian milik [userId] yang belum terkirim (logout). Tidak menyentuh baris akun lain,
+     * jadi aman walau akun berikutnya sudah login dan mengisi sebelum ini selesai.
+     */
+    suspend fun clearForUser(userId: Long) = sendLock.withLock {
+        dao.deleteForUser(userId)
+    }
+
+    private suspend fun dropRowsOfOtherUsers() {
+        val userId = userIdProvider() ?: return
+        val dropped = dao.deleteNotOwnedBy(userId)
+        if (dropped > 0) Log.w(TAG, "$dropped isian milik akun lain dibuang dari outbox")
+    }
+
+    private suspend fun send(item: PendingKehadiran): SendOutcome {
+        val token = tokenProvider()
+        if (token.isNullOrEmpty()) {
+            return SendOutcome.RetryLater("Token tidak ditemukan")
+        }
+
+        return try {
+            val request = KehadiranSubmitRequest(
+                scheduleId = item.scheduleId,
+                tanggal = item.tanggal,
+                status = item.status,
+                catatan = item.catatan
+            )
+            val response = api().submitKehadiran("Bearer $token", request)
+            val body = response.body()
+            val code = response.code()
+
+            when {
+                response.isSuccessful && body != null && body.success -> SendOutcome.Sent(body)
+                response.isSuccessful -> SendOutcome.Rejected(body?.message ?: "Gagal menyimpan kehadiran")
+                // 401 bisa karena token kadaluarsa, 408/429/5xx bersifat sementara
+                code == 401 || code == 408 || code == 429 || code >= 500 ->
+                    SendOutcome.RetryLater("HTTP $code: ${response.message()}")
+                else -> SendOutcome.Rejected(
+                    errorMessage(response.errorBody()?.string()) ?: "HTTP $code: ${response.message()}",
+                    discard = code == 422
+                )
+            }
+        } catch (e: IOException) {
+            SendOutcome.RetryLater(e.message ?: "Koneksi gagal")
+        }
+    }
+
+    private fun errorMessage(errorBody: String?): String? {
+        if (errorBody.isNullOrBlank()) return null
+        return try {
+            val json = JsonParser.parseString(errorBody)
+            if (json.isJsonObject && json.asJsonObject.has("message")) {
+                json.asJsonObject.get("message").asString
+            } else {
+                null
+            }
+        } catch (e: Exception) {
+            null
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.christopheraldoo.aplikasimonitoringkelas.sync
+
+import android.content.Context
+import android.util.Log
+import androidx.work.BackoffPolicy
+import androidx.work.Constraints
+import androidx.work.CoroutineWorker
+import androidx.work.ExistingWorkPolicy
+import androidx.work.NetworkType
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.WorkManager
+import androidx.work.WorkerParameters
+import kotlinx.coroutines.CancellationException
+import java.util.concurrent.TimeUnit
+
+/**
+ * Worker yang mengosongkan [KehadiranOutbox] saat ada koneksi.
+ * Retry memakai exponential backoff WorkManager, bukan sleep di thread request.
+ */
+class KehadiranSyncWorker(
+    appContext: Context,
+    params: WorkerParameters
+) : CoroutineWorker(appContext, params) {
+
+    companion object {
+        private const val TAG = "KehadiranSyncWorker"
+        private const val UNIQUE_WORK_NAME = "kehadiran_outbox_sync"
+        private const val INITIAL_BACKOFF_SECONDS = 15L
+
+        /**
+         * Jadwalkan drain outbox. APPEND_OR_REPLACE memastikan isian yang masuk selagi worker
+         * berjalan tetap dikirim oleh eksekusi berikutnya.
+         */
+        fun schedule(context: Context) {
+            val request = OneTimeWorkRequestBuilder<KehadiranSyncWorker>()
+                .setConstraints(
+                    Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build()
+                )
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, INITIAL_BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .build()
+
+            WorkManager.getInstance(context)
+                .enqueueUniqueWork(UNIQUE_WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE, request)
+        }
+    }
+
+    override suspend fun doWork(): Result {
+        return try {
+            val result = KehadiranOutbox.getInstance(applicationContext).drain()
+            Log.d(TAG, "Attempt $runAttemptCount: $result")
+            if (result.shouldRetry) Result.retry() else Result.success()
+        } catch (e: CancellationException) {
+            // Worker dihentikan (constraint hilang/cancel), jangan dianggap gagal
+            throw e
+        } catch (e: Exception) {
+            Log.e(TAG, "Drain outbox gagal", e)
+            Result.retry()
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.christopheraldoo.aplikasimonitoringkelas.sync
+
+import com.christopheraldoo.aplikasimonitoringkelas.data.DashboardStats
+import com.christopheraldoo.aplikasimonitoringkelas.data.KurikulumDashboardResponse
+import com.christopheraldoo.aplikasimonitoringkelas.data.ScheduleApi
+import com.christopheraldoo.aplikasimonitoringkelas.data.ScheduleChangeEvent
+import com.christopheraldoo.aplikasimonitoringkelas.data.ScheduleOverview
+
+/**
+ * Menerapkan [ScheduleChangeEvent] dari push ke data yang sedang tampil, tanpa memuat ulang.
+ * Semua fungsi mengembalikan null kalau event tidak mengenai data tersebut.
+ */
+object LiveUpdatePatcher {
+
+    // Sama dengan status_color yang dihitung server untuk dashboard kurikulum
+    private fun statusColorOf(status: String?): String = when (status) {
+        "hadir" -> "green"
+        "telat" -> "yellow"
+        "tidak_hadir" -> "red"
+        "diganti" -> "blue"
+        "izin" -> "purple"
+        else -> "gray"
+    }
+
+    fun patch(schedule: ScheduleOverview, event: ScheduleChangeEvent): ScheduleOverview =
+        when (event.field) {
+            ScheduleChangeEvent.FIELD_STATUS -> {
+                val onLeave = event.value == "izin"
+                schedule.copy(
+                    status = event.value ?: "pending",
+                    statusColor = statusColorOf(event.value),
+                    teacherOnLeave = onLeave,
+                    // Alasan izin tidak berlaku lagi begitu status berganti (mis. izin dibatalkan, guru hadir)
+                    leaveReason = if (onLeave) schedule.leaveReason else null
+                )
+            }
+            ScheduleChangeEvent.FIELD_SUBSTITUTE_TEACHER -> schedule.copy(substituteTeacher = event.value)
+            ScheduleChangeEvent.FIELD_TEACHER_ON_LEAVE -> schedule.copy(teacherOnLeave = event.value == "true")
+            ScheduleChangeEvent.FIELD_LEAVE_REASON -> schedule.copy(leaveReason = event.value)
+            else -> schedule
+        }
+
+    /**
+     * Dashboard kurikulum: hanya berlaku untuk tanggal yang sedang ditampilkan.
+     * Statistik digeser dari status lama ke status baru, list lain tidak disalin ulang.
+     */
+    fun patch(response: KurikulumDashboardResponse, event: ScheduleChangeEvent): KurikulumDashboardResponse? {
+        if (event.date != (response.targetDate ?: response.date)) return null
+        val old = response.data.firstOrNull { it.scheduleId == event.scheduleId } ?: return null
+        val updated = patch(old, event)
+        if (updated == old) return null
+
+        fun List<ScheduleOverview>.replaced() = map { if (it.scheduleId == event.scheduleId) updated else it }
+        return response.copy(
+            data = response.data.replaced(),
+            groupedByClass = response.groupedByClass?.mapValues { (_, schedules) ->
+                if (schedules.any { it.scheduleId == event.scheduleId }) schedules.replaced() else schedules
+            },
+            stats = response.stats.moved(old.status, updated.status)
+        )
+    }
+
+    /**
+     * Jadwal mingguan siswa: status kehadiran guru hanya ada di baris hari ini ([today], yyyy-MM-dd)
+     */
+    fun patch(schedules: List<ScheduleApi>, event: ScheduleChangeEvent, today: String): List<ScheduleApi>? {
+        if (event.date != today) return null
+        var changed = false
+        val patched = schedules.map { schedule ->
+            if (schedule.id != event.scheduleId || !schedule.isToday) return@map schedule
+            val updated = when (event.field) {
+                ScheduleChangeEvent.FIELD_STATUS -> schedule.copy(attendanceStatus = event.value)
+                ScheduleChangeEvent.FIELD_SUBSTITUTE_TEACHER -> schedule.copy(substituteTeacherName = event.value)
+                ScheduleChangeEvent.FIELD_LEAVE_REASON -> schedule.copy(attendanceCatatan = event.value)
+                else -> schedule
+            }
+            if (updated != schedule) changed = true
+            updated
+        }
+        return if (changed) patched else null
+    }
+
+    private fun DashboardStats.moved(from: String?, to: String?): DashboardStats {
+        if (from == to) return this
+        return adjusted(from, -1).adjusted(to, +1)
+    }
+
+    private fun DashboardStats.adjusted(status: String?, delta: Int): DashboardStats = when (status) {
+        "hadir" -> copy(hadir = (hadir + delta).coerceAtLeast(0))
+        "telat" -> copy(telat = (telat + delta).coerceAtLeast(0))
+        "tidak_hadir" -> copy(tidakHadir = (tidakHadir + delta).coerceAtLeast(0))
+        "diganti" -> copy(diganti = (diganti + delta).coerceAtLeast(0))
+        "izin" -> copy(izin = (izin + delta).coerceAtLeast(0))
+        else -> copy(pending = (pending + delta).coerceAtLeast(0))
+    }
+}
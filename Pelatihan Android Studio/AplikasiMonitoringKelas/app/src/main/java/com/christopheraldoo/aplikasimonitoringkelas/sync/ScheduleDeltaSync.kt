@@ -0,0 +1,119 @@
+package com.christopheraldoo.aplikasimonitoringkelas.sync
+
+import android.content.Context
+import android.util.Log
+import com.christopheraldoo.aplikasimonitoringkelas.data.ScheduleApi
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.AppDatabase
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.ScheduleDao
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.ScheduleEntity
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.SyncCursor
+import com.christopheraldoo.aplikasimonitoringkelas.network.ApiService
+import com.christopheraldoo.aplikasimonitoringkelas.network.RetrofitClient
+import com.christopheraldoo.aplikasimonitoringkelas.util.SessionManager
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+
+/**
+ * Delta sync jadwal mingguan.
+ *
+ * Request pertama (tanpa cursor) mengunduh snapshot penuh; request berikutnya hanya membawa
+ * jadwal yang berubah sejak cursor terakhir plus id jadwal yang dihapus. Hasilnya disimpan di
+ * tabel Room `schedules` dan semua filter (hari/kelas/guru) dijalankan lokal.
+ */
+class ScheduleDeltaSync(
+    private val dao: ScheduleDao,
+    private val api: () -> ApiService,
+    private val tokenProvider: () -> String?,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+    private val syncLock = Mutex()
+
+    companion object {
+        private const val TAG = "ScheduleDeltaSync"
+
+        const val RESOURCE = "schedules"
+
+        // Nilai since untuk meminta snapshot penuh
+        const val SINCE_FULL = "0"
+
+        @Volatile
+        private var instance: ScheduleDeltaSync? = null
+
+        fun getInstance(context: Context): ScheduleDeltaSync {
+            instance?.let { return it }
+            return synchronized(this) {
+                instance ?: run {
+                    val appContext = context.applicationContext ?: context
+                    ScheduleDeltaSync(
+                        dao = AppDatabase.getInstance(appContext).scheduleDao(),
+                        api = { RetrofitClient.createApiService(appContext) },
+                        tokenProvider = { SessionManager(appContext).getAuthToken() }
+                    ).also { instance = it }
+                }
+            }
+        }
+    }
+
+    data class SyncResult(
+        val full: Boolean,
+        val changed: Int,
+        val deleted: Int,
+        val cursor: String
+    )
+
+    /**
+     * Ambil perubahan sejak cursor terakhir dan terapkan ke tabel lokal.
+     * Sync yang bersamaan diserialkan supaya cursor tidak dipakai dua kali.
+     */
+    suspend fun sync(): Result<SyncResult> = syncLock.withLock {
+        val token = tokenProvider()
+        if (token.isNullOrEmpty()) {
+            return Result.failure(IllegalStateException("Session expired. Silakan login kembali"))
+        }
+        val bearer = if (token.startsWith("Bearer ")) token else "Bearer $token"
+
+        return try {
+            val since = dao.getCursor(RESOURCE) ?: SINCE_FULL
+            val response = api().getSchedulesDelta(bearer, since)
+            val body = response.body()
+
+            if (!response.isSuccessful || body == null || !body.success) {
+                val message = body?.message ?: "Gagal sinkronisasi jadwal (HTTP ${response.code()})"
+                return Result.failure(Exception(message))
+            }
+            // Server lama mengabaikan ?since= dan tidak mengirim cursor
+            val cursor = body.cursor
+                ?: return Result.failure(UnsupportedOperationException("Server belum mendukung delta sync jadwal"))
+
+            // Snapshot penuh juga dipaksa kalau client belum punya cursor
+            val full = body.full || since == SINCE_FULL
+            dao.applyDelta(
+                full = full,
+                changed = body.data.map { ScheduleEntity.fromApi(it) },
+                deletedIds = body.deleted,
+                cursor = SyncCursor(RESOURCE, cursor, clock())
+            )
+            Log.d(TAG, "Sync jadwal (full=$full): ${body.data.size} berubah, ${body.deleted.size} dihapus")
+            Result.success(SyncResult(full, body.data.size, body.deleted.size, cursor))
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Log.w(TAG, "Sync jadwal gagal: ${e.message}")
+            Result.failure(e)
+        }
+    }
+
+    suspend fun query(day: String? = null, classId: Int? = null, teacherId: Int? = null): List<ScheduleApi> {
+        return dao.query(day, classId, teacherId).map { it.toApi() }
+    }
+
+    suspend fun hasSnapshot(): Boolean = dao.getCursor(RESOURCE) != null
+
+    /**
+     * Paksa snapshot penuh di sync berikutnya (misal setelah logout)
+     */
+    suspend fun reset() = syncLock.withLock {
+        dao.clearCursor(RESOURCE)
+    }
+}
@@ -21,11 +21,14 @@ import androidx.compose.ui.draw.clip
 import androidx.compose.ui.graphics.Brush
 import androidx.compose.ui.graphics.Color
 import androidx.compose.ui.graphics.vector.ImageVector
+import androidx.compose.ui.platform.LocalLifecycleOwner
 import androidx.compose.ui.text.font.FontWeight
 import androidx.compose.ui.text.style.TextAlign
 import androidx.compose.ui.text.style.TextOverflow
 import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
+import androidx.lifecycle.Lifecycle
+import androidx.lifecycle.LifecycleEventObserver
 import com.christopheraldoo.aplikasimonitoringkelas.data.ScheduleApi
 import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.SchedulesUiState
 import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.SiswaViewModel
@@ -102,6 +105,23 @@ fun JadwalScreen(
         viewModel.loadSchedules()
     }
 
+    // Push guru pengganti / izin hari ini hanya selama layar terlihat
+    val lifecycleOwner = LocalLifecycleOwner.current
+    DisposableEffect(lifecycleOwner) {
+        val observer = LifecycleEventObserver { _, event ->
+            when (event) {
+                Lifecycle.Event.ON_START -> viewModel.startLiveUpdates()
+                Lifecycle.Event.ON_STOP -> viewModel.stopLiveUpdates()
+                else -> {}
+            }
+        }
+        lifecycleOwner.lifecycle.addObserver(observer)
+        onDispose {
+            lifecycleOwner.lifecycle.removeObserver(observer)
+            viewModel.stopLiveUpdates()
+        }
+    }
+
     // Auto-select today when data loads
     LaunchedEffect(schedulesState) {
         val state = schedulesState
@@ -221,8 +241,9 @@ private fun JadwalContent(
             }
             
             // Schedule Items
+            // Sudah diurutkan per jam ke- di SiswaViewModel
             itemsIndexed(
-                schedules.sortedBy { it.period },
+                schedules,
                 key = { _, schedule -> "${day}_${schedule.id}" }
             ) { index, schedule ->
                 ScheduleCard(
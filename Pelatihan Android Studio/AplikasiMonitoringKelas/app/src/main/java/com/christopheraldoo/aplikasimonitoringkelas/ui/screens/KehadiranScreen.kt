@@ -34,6 +34,7 @@ import androidx.compose.ui.graphics.Brush
 import androidx.compose.ui.graphics.Color
 import androidx.compose.ui.graphics.vector.ImageVector
 import androidx.compose.ui.platform.LocalContext
+import androidx.compose.ui.platform.testTag
 import androidx.compose.ui.semantics.Role
 import androidx.compose.ui.text.font.FontWeight
 import androidx.compose.ui.text.style.TextAlign
@@ -42,6 +43,8 @@ import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
 import androidx.compose.ui.window.Dialog
 import com.christopheraldoo.aplikasimonitoringkelas.data.ScheduleItem
+import com.christopheraldoo.aplikasimonitoringkelas.perf.TrackRecompositions
+import com.christopheraldoo.aplikasimonitoringkelas.perf.TrackScreen
 import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.SiswaViewModel
 import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.SubmitKehadiranUiState
 import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.TodayKehadiranUiState
@@ -94,11 +97,14 @@ private object KehadiranColors {
 @OptIn(ExperimentalMaterial3Api::class)
 @Composable
 fun KehadiranScreen(viewModel: SiswaViewModel) {
+    TrackScreen("Kehadiran")
+    TrackRecompositions("KehadiranScreen")
     val context = LocalContext.current
 
     // Observe state from ViewModel
     val uiState by viewModel.todayKehadiranState.collectAsState()
     val submitState by viewModel.submitKehadiranState.collectAsState()
+    val pendingKehadiran by viewModel.pendingKehadiran.collectAsState()
 
     // Load data when the screen is first launched
     LaunchedEffect(Unit) {
@@ -132,10 +138,25 @@ fun KehadiranScreen(viewModel: SiswaViewModel) {
             is TodayKehadiranUiState.Success -> {
                 val response = state.data
                 val isSubmitting = submitState is SubmitKehadiranUiState.Loading
+
+                // Isian yang masih di outbox ditampilkan sebagai sudah diisi
+                val pendingToday = remember(pendingKehadiran, response.tanggal) {
+                    pendingKehadiran
+                        .filter { it.isPending && it.tanggal == response.tanggal }
+                        .associateBy { it.scheduleId }
+                }
+                val schedules = remember(response.schedules, pendingToday) {
+                    response.schedules.map { schedule ->
+                        pendingToday[schedule.getActualScheduleId()]?.let { pending ->
+                            schedule.copy(submitted = true, status = pending.status, catatan = pending.catatan)
+                        } ?: schedule
+                    }
+                }
                 
                 KehadiranContent(
                     tanggal = response.tanggal,
-                    schedules = response.schedules,
+                    schedules = schedules,
+                    pendingScheduleIds = pendingToday.keys,
                     isSubmitting = isSubmitting,
                     onRefresh = { viewModel.loadTodayKehadiranStatus(forceRefresh = true) },
                     onSubmit = { scheduleId, status, catatan ->
@@ -160,6 +181,7 @@ fun KehadiranScreen(viewModel: SiswaViewModel) {
 private fun KehadiranContent(
     tanggal: String,
     schedules: List<ScheduleItem>,
+    pendingScheduleIds: Set<Int>,
     isSubmitting: Boolean,
     onRefresh: () -> Unit,
     onSubmit: (Int, String, String) -> Unit
@@ -170,7 +192,9 @@ private fun KehadiranContent(
     val pendingCount = totalSchedules - submittedCount
     
     LazyColumn(
-        modifier = Modifier.fillMaxSize(),
+        modifier = Modifier
+            .fillMaxSize()
+            .testTag("kehadiran_list"),
         contentPadding = PaddingValues(bottom = 24.dp)
     ) {
         // Header Card
@@ -230,6 +254,7 @@ private fun KehadiranContent(
             items(schedules, key = { "${it.getActualScheduleId()}_${it.period}" }) { schedule ->
                 KehadiranScheduleCard(
                     schedule = schedule,
+                    isPendingSync = schedule.getActualScheduleId() in pendingScheduleIds,
                     isSubmitting = isSubmitting,
                     onSubmit = { status, catatan ->
                         onSubmit(schedule.getActualScheduleId(), status, catatan)
@@ -478,9 +503,11 @@ private fun StatusSummaryItem(
 @Composable
 private fun KehadiranScheduleCard(
     schedule: ScheduleItem,
+    isPendingSync: Boolean,
     isSubmitting: Boolean,
     onSubmit: (String, String) -> Unit
 ) {
+    TrackRecompositions("KehadiranScheduleCard")
     var showDialog by remember { mutableStateOf(false) }
     
     // Check if teacher is on leave
@@ -591,6 +618,26 @@ private fun KehadiranScheduleCard(
                     color = KehadiranColors.MediumText
                 )
             }
+
+            // Isian tersimpan di perangkat, belum diterima server
+            if (isPendingSync) {
+                Spacer(modifier = Modifier.height(8.dp))
+                Row(verticalAlignment = Alignment.CenterVertically) {
+                    Icon(
+                        imageVector = Icons.Outlined.CloudUpload,
+                        contentDescription = null,
+                        modifier = Modifier.size(16.dp),
+                        tint = KehadiranColors.WarningOrange
+                    )
+                    Spacer(modifier = Modifier.width(6.dp))
+                    Text(
+                        text = "Menunggu sinkronisasi",
+                        fontSize = 12.sp,
+                        fontWeight = FontWeight.Medium,
+                        color = KehadiranColors.WarningOrange
+                    )
+                }
+            }
             
             // Show Teacher On Leave Info
             if (isTeacherOnLeave) {
@@ -27,8 +27,14 @@ import androidx.compose.ui.text.style.TextAlign
 import androidx.compose.ui.text.style.TextOverflow
 import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
+import androidx.paging.LoadState
+import androidx.paging.compose.LazyPagingItems
+import androidx.paging.compose.collectAsLazyPagingItems
+import androidx.paging.compose.itemContentType
+import androidx.paging.compose.itemKey
 import com.christopheraldoo.aplikasimonitoringkelas.data.RiwayatItem
-import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.RiwayatUiState
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.PendingKehadiran
+import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.RiwayatListItem
 import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.SiswaViewModel
 
 // ============================================================================
@@ -83,43 +89,45 @@ fun RiwayatScreen(viewModel: SiswaViewModel) {
     val context = LocalContext.current
     
     // Observe state from ViewModel
-    val uiState by viewModel.riwayatState.collectAsState()
+    val riwayat = viewModel.riwayatPaging.collectAsLazyPagingItems()
+    val statusCounts by viewModel.riwayatStatusCounts.collectAsState()
+    val dateCounts by viewModel.riwayatDateCounts.collectAsState()
+    val pendingKehadiran by viewModel.pendingKehadiran.collectAsState()
 
-    // Filter state
+    // Filter state - filter dijalankan di query Room lewat ViewModel
     var selectedFilter by remember { mutableStateOf(RiwayatFilter.ALL) }
-
-    // Load data when the screen is first launched
-    LaunchedEffect(Unit) {
-        viewModel.loadRiwayat()
+    LaunchedEffect(selectedFilter) {
+        viewModel.setRiwayatStatusFilter(selectedFilter.values)
     }
 
+    val refreshState = riwayat.loadState.refresh
+
     Box(
         modifier = Modifier
             .fillMaxSize()
             .background(RiwayatColors.ScreenBackground)
     ) {
-        when (val state = uiState) {
-            is RiwayatUiState.Loading -> {
+        when {
+            // Layar penuh hanya saat belum ada cache sama sekali
+            riwayat.itemCount == 0 && refreshState is LoadState.Loading -> {
                 RiwayatLoadingState()
             }
-            is RiwayatUiState.Error -> {
+            riwayat.itemCount == 0 && refreshState is LoadState.Error && pendingKehadiran.isEmpty() -> {
                 RiwayatErrorState(
-                    message = state.message,
-                    onRetry = { viewModel.loadRiwayat(forceRefresh = true) }
+                    message = refreshState.error.message ?: "Gagal memuat riwayat",
+                    onRetry = { riwayat.retry() }
                 )
-            }            is RiwayatUiState.Success -> {
-                val filteredData = if (selectedFilter == RiwayatFilter.ALL) {
-                    state.data
-                } else {
-                    state.data.filter { selectedFilter.values.contains(it.status) }
-                }
-                
+            }
+            else -> {
                 RiwayatContent(
-                    allData = state.data,
-                    filteredData = filteredData,
+                    riwayat = riwayat,
+                    statusCounts = statusCounts,
+                    dateCounts = dateCounts,
+                    pendingData = pendingKehadiran,
                     selectedFilter = selectedFilter,
                     onFilterChanged = { selectedFilter = it },
-                    onRefresh = { viewModel.loadRiwayat(forceRefresh = true) }
+                    onRefresh = { viewModel.refreshRiwayat() },
+                    onDismissPending = { viewModel.dismissPendingKehadiran(it) }
                 )
             }
         }
@@ -131,22 +139,27 @@ fun RiwayatScreen(viewModel: SiswaViewModel) {
 // ============================================================================
 @Composable
 private fun RiwayatContent(
-    allData: List<RiwayatItem>,
-    filteredData: List<RiwayatItem>,
+    riwayat: LazyPagingItems<RiwayatListItem>,
+    statusCounts: Map<String, Int>,
+    dateCounts: Map<String, Int>,
+    pendingData: List<PendingKehadiran>,
     selectedFilter: RiwayatFilter,
     onFilterChanged: (RiwayatFilter) -> Unit,
-    onRefresh: () -> Unit
-) {    // Calculate stats from all data - support both "telat" and "terlambat"
-    val stats = RiwayatStats(
-        total = allData.size,
-        hadir = allData.count { it.status == "hadir" },
-        terlambat = allData.count { it.status == "terlambat" || it.status == "telat" },
-        tidakHadir = allData.count { it.status == "tidak_hadir" },
-        diganti = allData.count { it.status == "diganti" }
-    )
-    
-    // Group filtered data by date
-    val groupedData = filteredData.groupBy { it.tanggal }
+    onRefresh: () -> Unit,
+    onDismissPending: (PendingKehadiran) -> Unit
+) {
+    // Stats dihitung Room dari semua halaman yang sudah di-cache - support "telat" dan "terlambat"
+    val stats = remember(statusCounts) {
+        RiwayatStats(
+            total = statusCounts.values.sum(),
+            hadir = statusCounts["hadir"] ?: 0,
+            terlambat = (statusCounts["terlambat"] ?: 0) + (statusCounts["telat"] ?: 0),
+            tidakHadir = statusCounts["tidak_hadir"] ?: 0,
+            diganti = statusCounts["diganti"] ?: 0
+        )
+    }
+    val filteredCount = dateCounts.values.sum()
+    val appendState = riwayat.loadState.append
     
     LazyColumn(
         modifier = Modifier.fillMaxSize(),
@@ -174,6 +187,22 @@ private fun RiwayatContent(
             )
         }
         
+        // Isian di outbox lokal yang belum diterima server
+        if (pendingData.isNotEmpty()) {
+            item(key = "pending_header") {
+                Text(
+                    text = "Menunggu Sinkronisasi",
+                    modifier = Modifier.padding(horizontal = 20.dp, vertical = 8.dp),
+                    fontSize = 16.sp,
+                    fontWeight = FontWeight.Bold,
+                    color = RiwayatColors.DarkText
+                )
+            }
+            items(pendingData, key = { "pending_${it.scheduleId}_${it.tanggal}" }) { item ->
+                RiwayatPendingCard(item = item, onDismiss = { onDismissPending(item) })
+            }
+        }
+        
         // Content Title
         item {
             Row(
@@ -191,29 +220,62 @@ private fun RiwayatContent(
                 )
                 
                 Text(
-                    text = "${filteredData.size} catatan",
+                    text = "$filteredCount catatan",
                     fontSize = 13.sp,
                     color = RiwayatColors.LightText
                 )
             }
         }
-          // Empty State or Grouped Cards
-        if (filteredData.isEmpty()) {
+        // Empty State or Paged Cards
+        if (riwayat.itemCount == 0 && riwayat.loadState.refresh is LoadState.NotLoading) {
             item {
                 RiwayatEmptyState(selectedFilter = selectedFilter)
             }
         } else {
-            groupedData.forEach { (tanggal, items) ->
-                // Date Header
-                item(key = "header_$tanggal") {
-                    RiwayatDateHeader(tanggal = tanggal, itemCount = items.size)
+            // Header tanggal sudah disisipkan ViewModel; item null = placeholder yang belum dimuat
+            items(
+                count = riwayat.itemCount,
+                key = riwayat.itemKey { it.key },
+                contentType = riwayat.itemContentType { it::class }
+            ) { index ->
+                when (val row = riwayat[index]) {
+                    is RiwayatListItem.DateHeader -> RiwayatDateHeader(
+                        tanggal = row.tanggal,
+                        itemCount = dateCounts[row.tanggal] ?: 0
+                    )
+                    is RiwayatListItem.Entry -> RiwayatCard(item = row.item)
+                    null -> RiwayatPlaceholderCard()
                 }
-                
-                // Cards for this date - use unique ID as key
-                items(items, key = { "riwayat_${it.id}" }) { item ->
-                    RiwayatCard(item = item)
+            }
+        }
+
+        // Status halaman berikutnya
+        when (appendState) {
+            is LoadState.Loading -> item(key = "append_loading") {
+                Box(
+                    modifier = Modifier
+                        .fillMaxWidth()
+                        .padding(16.dp),
+                    contentAlignment = Alignment.Center
+                ) {
+                    CircularProgressIndicator(
+                        modifier = Modifier.size(28.dp),
+                        color = RiwayatColors.GradientStart,
+                        strokeWidth = 3.dp
+                    )
                 }
             }
+            is LoadState.Error -> item(key = "append_error") {
+                TextButton(
+                    onClick = { riwayat.retry() },
+                    modifier = Modifier
+                        .fillMaxWidth()
+                        .padding(horizontal = 16.dp)
+                ) {
+                    Text("Gagal memuat halaman berikutnya. Coba lagi")
+                }
+            }
+            else -> Unit
         }
 
     }
@@ -564,6 +626,71 @@ private fun RiwayatDateHeader(tanggal: String, itemCount: Int) {
     }
 }
 
+// ============================================================================
+// PENDING SYNC CARD
+// ============================================================================
+@Composable
+private fun RiwayatPendingCard(item: PendingKehadiran, onDismiss: () -> Unit) {
+    val accentColor = if (item.isRejected) RiwayatColors.ErrorRed else RiwayatColors.WarningOrange
+    val backgroundColor = if (item.isRejected) RiwayatColors.ErrorRedLight else RiwayatColors.WarningOrangeLight
+
+    Card(
+        modifier = Modifier
+            .fillMaxWidth()
+            .padding(horizontal = 16.dp, vertical = 4.dp),
+        shape = RoundedCornerShape(14.dp),
+        colors = CardDefaults.cardColors(containerColor = backgroundColor)
+    ) {
+        Row(
+            modifier = Modifier.padding(14.dp),
+            verticalAlignment = Alignment.CenterVertically
+        ) {
+            Icon(
+                imageVector = if (item.isRejected) Icons.Outlined.ErrorOutline else Icons.Outlined.CloudUpload,
+                contentDescription = null,
+                modifier = Modifier.size(22.dp),
+                tint = accentColor
+            )
+            Spacer(modifier = Modifier.width(12.dp))
+            Column(modifier = Modifier.weight(1f)) {
+                Text(
+                    text = item.subject ?: "Jadwal #${item.scheduleId}",
+                    fontSize = 15.sp,
+                    fontWeight = FontWeight.Bold,
+                    color = RiwayatColors.DarkText,
+                    maxLines = 1,
+                    overflow = TextOverflow.Ellipsis
+                )
+                Text(
+                    text = listOfNotNull(item.tanggal, item.teacher).joinToString(" • "),
+                    fontSize = 12.sp,
+                    color = RiwayatColors.MediumText
+                )
+                Text(
+                    text = if (item.isRejected) {
+                        "Ditolak server: ${item.lastError ?: "-"}"
+                    } else {
+                        "Tersimpan di perangkat, dikirim otomatis saat online"
+                    },
+                    fontSize = 12.sp,
+                    color = accentColor
+                )
+            }
+            if (item.isRejected) {
+                IconButton(onClick = onDismiss) {
+                    Icon(
+                        imageVector = Icons.Default.Close,
+                        contentDescription = "Hapus",
+                        tint = RiwayatColors.MediumText
+                    )
+                }
+            } else {
+                RiwayatStatusBadge(status = item.status)
+            }
+        }
+    }
+}
+
 // ============================================================================
 // RIWAYAT CARD - MODERN DESIGN
 // ============================================================================
@@ -811,6 +938,21 @@ private data class RiwayatStatusConfig(
     val icon: ImageVector
 )
 
+// ============================================================================
+// PLACEHOLDER CARD
+// ============================================================================
+@Composable
+private fun RiwayatPlaceholderCard() {
+    Card(
+        modifier = Modifier
+            .fillMaxWidth()
+            .padding(horizontal = 16.dp, vertical = 6.dp)
+            .height(96.dp),
+        shape = RoundedCornerShape(16.dp),
+        colors = CardDefaults.cardColors(containerColor = RiwayatColors.DividerColor.copy(alpha = 0.5f))
+    ) {}
+}
+
 // ============================================================================
 // STATE SCREENS
 // ============================================================================
@@ -18,6 +18,7 @@ import androidx.compose.ui.text.font.FontWeight
 import androidx.compose.ui.text.style.TextAlign
 import androidx.compose.ui.unit.dp
 import com.christopheraldoo.aplikasimonitoringkelas.data.*
+import com.christopheraldoo.aplikasimonitoringkelas.stats.AttendanceStatsReports
 import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.KepalaSekolahViewModel
 import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.TeacherPerformanceUiState
 
@@ -25,11 +26,14 @@ import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.TeacherPerforma
  * KepsekTeacherPerformanceScreen - Teacher performance ranking for Kepala Sekolah
  * Shows teachers ranked by attendance performance
  */
+@OptIn(ExperimentalMaterial3Api::class)
 @Composable
 fun KepsekTeacherPerformanceScreen(viewModel: KepalaSekolahViewModel) {
     val performanceState by viewModel.teacherPerformanceState.collectAsState()
+    val weekOffset by viewModel.weekOffset.collectAsState()
+    val sortBy by viewModel.performanceSort.collectAsState()
 
-    LaunchedEffect(Unit) {
+    LaunchedEffect(weekOffset) {
         viewModel.loadTeacherPerformance()
     }
 
@@ -42,9 +46,39 @@ fun KepsekTeacherPerformanceScreen(viewModel: KepalaSekolahViewModel) {
             text = "Ranking Performa Guru",
             style = MaterialTheme.typography.titleLarge,
             fontWeight = FontWeight.Bold,
-            modifier = Modifier.padding(bottom = 16.dp)
+            modifier = Modifier.padding(bottom = 8.dp)
         )
 
+        // Ganti urutan dijawab dari statistik lokal, tanpa request ke server
+        Row(
+            modifier = Modifier
+                .fillMaxWidth()
+                .padding(bottom = 16.dp),
+            horizontalArrangement = Arrangement.spacedBy(8.dp)
+        ) {
+            FilterChip(
+                onClick = { viewModel.setPerformanceSort(AttendanceStatsReports.SORT_ATTENDANCE_RATE) },
+                label = { Text("Kehadiran") },
+                selected = sortBy == AttendanceStatsReports.SORT_ATTENDANCE_RATE
+            )
+            FilterChip(
+                onClick = { viewModel.setPerformanceSort(AttendanceStatsReports.SORT_LATE_COUNT) },
+                label = { Text("Telat") },
+                selected = sortBy == AttendanceStatsReports.SORT_LATE_COUNT,
+                colors = FilterChipDefaults.filterChipColors(
+                    selectedContainerColor = Color(0xFFFF9800).copy(alpha = 0.2f)
+                )
+            )
+            FilterChip(
+                onClick = { viewModel.setPerformanceSort(AttendanceStatsReports.SORT_ABSENT_COUNT) },
+                label = { Text("Tidak Hadir") },
+                selected = sortBy == AttendanceStatsReports.SORT_ABSENT_COUNT,
+                colors = FilterChipDefaults.filterChipColors(
+                    selectedContainerColor = Color(0xFFF44336).copy(alpha = 0.2f)
+                )
+            )
+        }
+
         when (val state = performanceState) {
             is TeacherPerformanceUiState.Loading -> {
                 Box(
@@ -74,7 +108,7 @@ fun KepsekTeacherPerformanceScreen(viewModel: KepalaSekolahViewModel) {
                             textAlign = TextAlign.Center
                         )
                         Spacer(modifier = Modifier.height(16.dp))
-                        Button(onClick = { viewModel.loadTeacherPerformance() }) {
+                        Button(onClick = { viewModel.loadTeacherPerformance(forceRefresh = true) }) {
                             Text("Coba Lagi")
                         }
                     }
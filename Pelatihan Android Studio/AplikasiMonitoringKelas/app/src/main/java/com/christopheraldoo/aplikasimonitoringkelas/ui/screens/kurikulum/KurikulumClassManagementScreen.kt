@@ -15,6 +15,10 @@ import androidx.compose.material3.*
 import androidx.compose.runtime.*
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
+import androidx.compose.ui.platform.LocalLifecycleOwner
+import androidx.compose.ui.platform.testTag
+import androidx.lifecycle.Lifecycle
+import androidx.lifecycle.LifecycleEventObserver
 import androidx.compose.ui.draw.clip
 import androidx.compose.ui.graphics.Brush
 import androidx.compose.ui.graphics.Color
@@ -25,6 +29,8 @@ import androidx.compose.ui.text.style.TextOverflow
 import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
 import com.christopheraldoo.aplikasimonitoringkelas.data.*
+import com.christopheraldoo.aplikasimonitoringkelas.perf.TrackRecompositions
+import com.christopheraldoo.aplikasimonitoringkelas.perf.TrackScreen
 import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.ClassManagementUiState
 import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.KurikulumViewModel
 import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.SubstituteUiState
@@ -46,6 +52,8 @@ private val GreenSuccess = Color(0xFF43A047)
 fun KurikulumClassManagementScreen(
     viewModel: KurikulumViewModel
 ) {
+    TrackScreen("KurikulumClassManagement")
+    TrackRecompositions("KurikulumClassManagementScreen")
     val classManagementState by viewModel.classManagementState.collectAsState()
     val substituteState by viewModel.substituteState.collectAsState()
     
@@ -54,12 +62,22 @@ fun KurikulumClassManagementScreen(
     
     LaunchedEffect(Unit) {
         viewModel.loadClassManagement()
-        viewModel.startAutoRefresh()
     }
     
-    DisposableEffect(Unit) {
+    // Auto-refresh hanya selama layar terlihat (STARTED); berhenti saat app ke background
+    val lifecycleOwner = LocalLifecycleOwner.current
+    DisposableEffect(lifecycleOwner) {
+        val observer = LifecycleEventObserver { _, event ->
+            when (event) {
+                Lifecycle.Event.ON_START -> viewModel.startAutoRefresh(KurikulumViewModel.REFRESH_CLASSES)
+                Lifecycle.Event.ON_STOP -> viewModel.stopAutoRefresh(KurikulumViewModel.REFRESH_CLASSES)
+                else -> {}
+            }
+        }
+        lifecycleOwner.lifecycle.addObserver(observer)
         onDispose {
-            viewModel.stopAutoRefresh()
+            lifecycleOwner.lifecycle.removeObserver(observer)
+            viewModel.stopAutoRefresh(KurikulumViewModel.REFRESH_CLASSES)
         }
     }
     
@@ -310,7 +328,9 @@ private fun ClassGroupList(
     onAssignSubstitute: (ClassScheduleItem) -> Unit
 ) {
     LazyColumn(
-        modifier = Modifier.fillMaxSize(),
+        modifier = Modifier
+            .fillMaxSize()
+            .testTag("kurikulum_class_list"),
         contentPadding = PaddingValues(16.dp),
         verticalArrangement = Arrangement.spacedBy(16.dp)
     ) {
@@ -591,6 +611,7 @@ private fun ClassGroupCard(
     classGroup: ClassGroup,
     onAssignSubstitute: (ClassScheduleItem) -> Unit
 ) {
+    TrackRecompositions("ClassGroupCard")
     var expanded by remember { mutableStateOf(true) }
     
     Card(
@@ -720,6 +741,7 @@ private fun ScheduleItemCard(
     schedule: ClassScheduleItem,
     onAssignSubstitute: () -> Unit
 ) {
+    TrackRecompositions("ScheduleItemCard")
     val statusColor = when (schedule.status) {
         "tidak_hadir" -> RedAlert
         "telat" -> OrangeWarning
@@ -17,6 +17,10 @@ import androidx.compose.material3.*
 import androidx.compose.runtime.*
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
+import androidx.compose.ui.platform.LocalLifecycleOwner
+import androidx.compose.ui.platform.testTag
+import androidx.lifecycle.Lifecycle
+import androidx.lifecycle.LifecycleEventObserver
 import androidx.compose.ui.draw.clip
 import androidx.compose.ui.graphics.Color
 import androidx.compose.ui.text.font.FontWeight
@@ -25,8 +29,14 @@ import androidx.compose.ui.text.style.TextOverflow
 import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
 import com.christopheraldoo.aplikasimonitoringkelas.data.*
+import com.christopheraldoo.aplikasimonitoringkelas.perf.TrackRecompositions
+import com.christopheraldoo.aplikasimonitoringkelas.perf.TrackScreen
+import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.ClassCardUi
 import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.DashboardUiState
 import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.KurikulumViewModel
+import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.ScheduleRowUi
+import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.StatusTone
+import kotlinx.collections.immutable.ImmutableList
 import kotlinx.coroutines.delay
 
 /**
@@ -39,6 +49,8 @@ fun KurikulumDashboardScreen(
     viewModel: KurikulumViewModel,
     onClassClick: (ClassScheduleItem) -> Unit = {}
 ) {
+    TrackScreen("KurikulumDashboard")
+    TrackRecompositions("KurikulumDashboardScreen")
     val dashboardState by viewModel.dashboardState.collectAsState()
     val selectedDay by viewModel.selectedDay.collectAsState()
     val filterClasses by viewModel.filterClasses.collectAsState()
@@ -85,12 +97,22 @@ fun KurikulumDashboardScreen(
         viewModel.setSelectedDay(currentDayOfWeek)
         viewModel.loadDashboard(day = currentDayOfWeek)
         viewModel.loadFilterData()
-        viewModel.startAutoRefresh()
     }
     
-    DisposableEffect(Unit) {
+    // Auto-refresh hanya selama layar terlihat (STARTED); berhenti saat app ke background
+    val lifecycleOwner = LocalLifecycleOwner.current
+    DisposableEffect(lifecycleOwner) {
+        val observer = LifecycleEventObserver { _, event ->
+            when (event) {
+                Lifecycle.Event.ON_START -> viewModel.startAutoRefresh(KurikulumViewModel.REFRESH_DASHBOARD)
+                Lifecycle.Event.ON_STOP -> viewModel.stopAutoRefresh(KurikulumViewModel.REFRESH_DASHBOARD)
+                else -> {}
+            }
+        }
+        lifecycleOwner.lifecycle.addObserver(observer)
         onDispose {
-            viewModel.stopAutoRefresh()
+            lifecycleOwner.lifecycle.removeObserver(observer)
+            viewModel.stopAutoRefresh(KurikulumViewModel.REFRESH_DASHBOARD)
         }
     }
     
@@ -218,12 +240,11 @@ fun KurikulumDashboardScreen(
                     }
                 )
                 
-                if (state.schedules.isEmpty()) {
+                if (state.totalSchedules == 0) {
                     EmptyState(message = "Tidak ada jadwal untuk hari ini")
                 } else {
                     ScheduleGrid(
-                        schedules = state.schedules,
-                        groupedByClass = state.groupedByClass,
+                        classCards = state.classCards,
                         onItemClick = { schedule ->
                             // Convert to ClassScheduleItem for navigation
                         }
@@ -496,33 +517,31 @@ private fun LegendItem(color: Color, label: String) {
 
 @Composable
 private fun ScheduleGrid(
-    schedules: List<ScheduleOverview>,
-    groupedByClass: Map<String, List<ScheduleOverview>>,
-    onItemClick: (ScheduleOverview) -> Unit
+    classCards: ImmutableList<ClassCardUi>,
+    onItemClick: (ScheduleRowUi) -> Unit
 ) {
     LazyColumn(
-        modifier = Modifier.fillMaxSize(),
+        modifier = Modifier
+            .fillMaxSize()
+            .testTag("kurikulum_dashboard_list"),
         contentPadding = PaddingValues(16.dp),
         verticalArrangement = Arrangement.spacedBy(12.dp)
     ) {
-        groupedByClass.forEach { (className, classSchedules) ->
-            item {
-                ClassScheduleCard(
-                    className = className,
-                    schedules = classSchedules,
-                    onItemClick = onItemClick
-                )
-            }
+        items(classCards, key = { it.className }) { card ->
+            ClassScheduleCard(
+                card = card,
+                onItemClick = onItemClick
+            )
         }
     }
 }
 
 @Composable
 private fun ClassScheduleCard(
-    className: String,
-    schedules: List<ScheduleOverview>,
-    onItemClick: (ScheduleOverview) -> Unit
+    card: ClassCardUi,
+    onItemClick: (ScheduleRowUi) -> Unit
 ) {
+    TrackRecompositions("ClassScheduleCard")
     Card(
         modifier = Modifier.fillMaxWidth(),
         shape = RoundedCornerShape(12.dp),
@@ -538,41 +557,38 @@ private fun ClassScheduleCard(
                 verticalAlignment = Alignment.CenterVertically
             ) {
                 Text(
-                    text = className,
+                    text = card.className,
                     style = MaterialTheme.typography.titleMedium,
                     fontWeight = FontWeight.Bold,
                     color = MaterialTheme.colorScheme.primary
                 )
-                  // Status summary for this class
-                val hadirCount = schedules.count { it.status == "hadir" }
-                val telatCount = schedules.count { it.status == "telat" }
-                val tidakHadirCount = schedules.count { it.status == "tidak_hadir" }
-                val izinCount = schedules.count { it.status == "izin" || it.teacherOnLeave }
-                
+                // Status summary for this class
                 Row(horizontalArrangement = Arrangement.spacedBy(8.dp)) {
-                    if (hadirCount > 0) {
-                        StatusBadge(count = hadirCount, color = Color(0xFF4CAF50))
+                    if (card.hadirCount > 0) {
+                        StatusBadge(count = card.hadirCount, color = Color(0xFF4CAF50))
                     }
-                    if (telatCount > 0) {
-                        StatusBadge(count = telatCount, color = Color(0xFFFFC107))
+                    if (card.telatCount > 0) {
+                        StatusBadge(count = card.telatCount, color = Color(0xFFFFC107))
                     }
-                    if (tidakHadirCount > 0) {
-                        StatusBadge(count = tidakHadirCount, color = Color(0xFFF44336))
+                    if (card.tidakHadirCount > 0) {
+                        StatusBadge(count = card.tidakHadirCount, color = Color(0xFFF44336))
                     }
-                    if (izinCount > 0) {
-                        StatusBadge(count = izinCount, color = Color(0xFF9C27B0))
+                    if (card.izinCount > 0) {
+                        StatusBadge(count = card.izinCount, color = Color(0xFF9C27B0))
                     }
                 }
             }
             
             Spacer(modifier = Modifier.height(8.dp))
-              // Schedule items
-            schedules.sortedBy { it.period ?: 0 }.forEach { schedule ->
-                ScheduleItem(
-                    schedule = schedule,
-                    onClick = { onItemClick(schedule) }
-                )
-                if (schedule != schedules.last()) {
+            // Schedule items (sudah diurutkan per jam ke- di DashboardUiMapper)
+            card.rows.forEachIndexed { index, row ->
+                key(row.scheduleId) {
+                    ScheduleItem(
+                        row = row,
+                        onItemClick = onItemClick
+                    )
+                }
+                if (index < card.rows.lastIndex) {
                     Divider(modifier = Modifier.padding(vertical = 4.dp))
                 }
             }
@@ -597,30 +613,27 @@ private fun StatusBadge(count: Int, color: Color) {
     }
 }
 
+private fun StatusTone.color(): Color = when (this) {
+    StatusTone.GREEN -> Color(0xFF4CAF50)
+    StatusTone.YELLOW -> Color(0xFFFFC107)
+    StatusTone.RED -> Color(0xFFF44336)
+    StatusTone.BLUE -> Color(0xFF2196F3)
+    StatusTone.PURPLE -> Color(0xFF9C27B0)
+    StatusTone.GRAY -> Color(0xFF9E9E9E)
+}
+
 @Composable
 private fun ScheduleItem(
-    schedule: ScheduleOverview,
-    onClick: () -> Unit
+    row: ScheduleRowUi,
+    onItemClick: (ScheduleRowUi) -> Unit
 ) {
-    // Check if teacher is on leave
-    val isTeacherOnLeave = schedule.teacherOnLeave || schedule.status == "izin"
-    
-    val statusColor = when {
-        isTeacherOnLeave -> Color(0xFF9C27B0) // Purple for leave
-        else -> when (schedule.statusColor ?: "gray") {
-            "green" -> Color(0xFF4CAF50)
-            "yellow" -> Color(0xFFFFC107)
-            "red" -> Color(0xFFF44336)
-            "blue" -> Color(0xFF2196F3)
-            "purple" -> Color(0xFF9C27B0)
-            else -> Color(0xFF9E9E9E)
-        }
-    }
+    TrackRecompositions("ScheduleItem")
+    val statusColor = row.tone.color()
     
     Row(
         modifier = Modifier
             .fillMaxWidth()
-            .clickable(onClick = onClick)
+            .clickable { onItemClick(row) }
             .padding(vertical = 4.dp),
         verticalAlignment = Alignment.CenterVertically
     ) {
@@ -630,9 +643,10 @@ private fun ScheduleItem(
                 .size(36.dp)
                 .clip(CircleShape)
                 .background(statusColor.copy(alpha = 0.15f)),
-            contentAlignment = Alignment.Center        ) {
+            contentAlignment = Alignment.Center
+        ) {
             Text(
-                text = (schedule.period ?: 0).toString(),
+                text = row.periodLabel,
                 style = MaterialTheme.typography.titleSmall,
                 fontWeight = FontWeight.Bold,
                 color = statusColor
@@ -644,14 +658,14 @@ private fun ScheduleItem(
         // Subject and teacher info
         Column(modifier = Modifier.weight(1f)) {
             Text(
-                text = schedule.subjectName,
+                text = row.subjectName,
                 style = MaterialTheme.typography.bodyMedium,
                 fontWeight = FontWeight.Medium,
                 maxLines = 1,
                 overflow = TextOverflow.Ellipsis
             )
             Text(
-                text = schedule.teacherName,
+                text = row.teacherName,
                 style = MaterialTheme.typography.bodySmall,
                 color = MaterialTheme.colorScheme.onSurfaceVariant,
                 maxLines = 1,
@@ -659,9 +673,9 @@ private fun ScheduleItem(
             )
             
             // Time
-            if (schedule.startTime != null && schedule.endTime != null) {
+            if (row.timeLabel != null) {
                 Text(
-                    text = "${schedule.startTime} - ${schedule.endTime}",
+                    text = row.timeLabel,
                     style = MaterialTheme.typography.labelSmall,
                     color = MaterialTheme.colorScheme.onSurfaceVariant
                 )
@@ -680,7 +694,8 @@ private fun ScheduleItem(
                 Row(
                     modifier = Modifier.padding(horizontal = 8.dp, vertical = 4.dp),
                     verticalAlignment = Alignment.CenterVertically,
-                    horizontalArrangement = Arrangement.spacedBy(4.dp)                ) {
+                    horizontalArrangement = Arrangement.spacedBy(4.dp)
+                ) {
                     Box(
                         modifier = Modifier
                             .size(8.dp)
@@ -688,17 +703,7 @@ private fun ScheduleItem(
                             .background(statusColor)
                     )
                     Text(
-                        text = when {
-                            isTeacherOnLeave -> "Izin"
-                            else -> when (schedule.status ?: "pending") {
-                                "hadir" -> "Hadir"
-                                "telat" -> "Telat"
-                                "tidak_hadir" -> "Tidak Hadir"
-                                "diganti" -> "Diganti"
-                                "izin" -> "Izin"
-                                else -> "Pending"
-                            }
-                        },
+                        text = row.statusLabel,
                         style = MaterialTheme.typography.labelSmall,
                         color = statusColor,
                         fontWeight = FontWeight.Medium
@@ -707,18 +712,18 @@ private fun ScheduleItem(
             }
             
             // Late minutes or substitute info
-            if (schedule.lateMinutes != null && schedule.lateMinutes > 0) {
+            if (row.lateLabel != null) {
                 Text(
-                    text = "+${schedule.lateMinutes} menit",
+                    text = row.lateLabel,
                     style = MaterialTheme.typography.labelSmall,
                     color = Color(0xFFFFC107)
                 )
             }
             
             // Show leave reason if teacher is on leave
-            if (isTeacherOnLeave && schedule.leaveReason != null) {
+            if (row.leaveReason != null) {
                 Text(
-                    text = schedule.leaveReason,
+                    text = row.leaveReason,
                     style = MaterialTheme.typography.labelSmall,
                     color = Color(0xFF9C27B0),
                     maxLines = 1,
@@ -726,11 +731,11 @@ private fun ScheduleItem(
                 )
             }
             
-            if (schedule.substituteTeacher != null) {
+            if (row.substituteLabel != null) {
                 Text(
-                    text = "→ ${schedule.substituteTeacher}",
+                    text = row.substituteLabel,
                     style = MaterialTheme.typography.labelSmall,
-                    color = if (isTeacherOnLeave) Color(0xFF9C27B0) else Color(0xFF2196F3),
+                    color = if (row.isTeacherOnLeave) Color(0xFF9C27B0) else Color(0xFF2196F3),
                     maxLines = 1,
                     overflow = TextOverflow.Ellipsis
                 )
@@ -914,6 +919,7 @@ private fun ClassSelectionScreen(
         
         // Class Grid
         LazyColumn(
+            modifier = Modifier.testTag("kurikulum_class_selection_list"),
             verticalArrangement = Arrangement.spacedBy(8.dp)
         ) {
             items(availableClasses) { classItem ->
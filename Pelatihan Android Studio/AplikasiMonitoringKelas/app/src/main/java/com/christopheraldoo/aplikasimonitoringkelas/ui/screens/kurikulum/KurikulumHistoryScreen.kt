@@ -2,7 +2,6 @@ package com.christopheraldoo.aplikasimonitoringkelas.ui.screens.kurikulum
 
 import android.content.Context
 import android.content.Intent
-import android.os.Environment
 import androidx.compose.animation.*
 import androidx.compose.foundation.background
 import androidx.compose.foundation.clickable
@@ -25,13 +24,15 @@ import androidx.compose.ui.text.font.FontWeight
 import androidx.compose.ui.text.style.TextAlign
 import androidx.compose.ui.text.style.TextOverflow
 import androidx.compose.ui.unit.dp
+import androidx.paging.LoadState
+import androidx.paging.compose.LazyPagingItems
+import androidx.paging.compose.collectAsLazyPagingItems
+import androidx.paging.compose.itemKey
 import com.christopheraldoo.aplikasimonitoringkelas.data.*
 import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.ExportUiState
-import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.HistoryUiState
 import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.KurikulumViewModel
 import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.StatisticsUiState
 import java.io.File
-import java.io.FileWriter
 import java.text.SimpleDateFormat
 import java.util.*
 
@@ -44,7 +45,8 @@ import java.util.*
 fun KurikulumHistoryScreen(
     viewModel: KurikulumViewModel
 ) {
-    val historyState by viewModel.historyState.collectAsState()
+    val history = viewModel.historyPagingData.collectAsLazyPagingItems()
+    val historyTotal by viewModel.historyTotal.collectAsState()
     val statisticsState by viewModel.statisticsState.collectAsState()
     val exportState by viewModel.exportState.collectAsState()
     val filterClasses by viewModel.filterClasses.collectAsState()
@@ -67,7 +69,7 @@ fun KurikulumHistoryScreen(
     val context = LocalContext.current
     
     LaunchedEffect(Unit) {
-        viewModel.loadHistory(refresh = true)
+        // Riwayat dimuat sendiri oleh Pager (dari cache Room, refresh kalau sudah kedaluwarsa)
         viewModel.loadStatistics()
         viewModel.loadFilterData()
     }
@@ -140,26 +142,9 @@ fun KurikulumHistoryScreen(
         // Content based on selected tab
         when (selectedTab) {
             0 -> HistoryContent(
-                historyState = historyState,
-                onLoadMore = {
-                    viewModel.loadMoreHistory(
-                        dateFrom = selectedDateFrom,
-                        dateTo = selectedDateTo,
-                        teacherId = selectedTeacherId,
-                        classId = selectedClassId,
-                        status = selectedStatus
-                    )
-                },
-                onRefresh = {
-                    viewModel.loadHistory(
-                        dateFrom = selectedDateFrom,
-                        dateTo = selectedDateTo,
-                        teacherId = selectedTeacherId,
-                        classId = selectedClassId,
-                        status = selectedStatus,
-                        refresh = true
-                    )
-                }
+                history = history,
+                total = historyTotal,
+                onRefresh = { viewModel.refreshHistory() }
             )
             
             1 -> StatisticsContent(
@@ -220,8 +205,8 @@ fun KurikulumHistoryScreen(
                     classId = selectedClassId
                 )
             },
-            onSaveFile = { data ->
-                saveExportToFile(context, data)
+            onSaveFile = { file ->
+                openExportFile(context, file)
             },
             onDismiss = {
                 showExportDialog = false
@@ -233,12 +218,15 @@ fun KurikulumHistoryScreen(
 
 @Composable
 private fun HistoryContent(
-    historyState: HistoryUiState,
-    onLoadMore: () -> Unit,
+    history: LazyPagingItems<KurikulumAttendanceHistoryItem>,
+    total: Int?,
     onRefresh: () -> Unit
 ) {
-    when (historyState) {
-        is HistoryUiState.Loading -> {
+    val refreshState = history.loadState.refresh
+    val appendState = history.loadState.append
+    
+    when {
+        history.itemCount == 0 && refreshState is LoadState.Loading -> {
             Box(
                 modifier = Modifier.fillMaxSize(),
                 contentAlignment = Alignment.Center
@@ -247,7 +235,7 @@ private fun HistoryContent(
             }
         }
         
-        is HistoryUiState.Error -> {
+        history.itemCount == 0 && refreshState is LoadState.Error -> {
             Column(
                 modifier = Modifier
                     .fillMaxSize()
@@ -262,67 +250,85 @@ private fun HistoryContent(
                     tint = MaterialTheme.colorScheme.error
                 )
                 Spacer(modifier = Modifier.height(16.dp))
-                Text(text = historyState.message)
+                Text(text = refreshState.error.message ?: "Gagal memuat riwayat")
                 Spacer(modifier = Modifier.height(16.dp))
-                Button(onClick = onRefresh) {
+                Button(onClick = { history.retry() }) {
                     Text("Coba Lagi")
                 }
             }
         }
         
-        is HistoryUiState.Success -> {
-            if (historyState.items.isEmpty()) {
-                Column(
-                    modifier = Modifier
-                        .fillMaxSize()
-                        .padding(16.dp),
-                    horizontalAlignment = Alignment.CenterHorizontally,
-                    verticalArrangement = Arrangement.Center
-                ) {
-                    Icon(
-                        imageVector = Icons.Default.History,
-                        contentDescription = null,
-                        modifier = Modifier.size(64.dp),
-                        tint = MaterialTheme.colorScheme.onSurfaceVariant
-                    )
-                    Spacer(modifier = Modifier.height(16.dp))
-                    Text(
-                        text = "Tidak ada riwayat kehadiran",
-                        style = MaterialTheme.typography.bodyLarge
+        history.itemCount == 0 -> {
+            Column(
+                modifier = Modifier
+                    .fillMaxSize()
+                    .padding(16.dp),
+                horizontalAlignment = Alignment.CenterHorizontally,
+                verticalArrangement = Arrangement.Center
+            ) {
+                Icon(
+                    imageVector = Icons.Default.History,
+                    contentDescription = null,
+                    modifier = Modifier.size(64.dp),
+                    tint = MaterialTheme.colorScheme.onSurfaceVariant
+                )
+                Spacer(modifier = Modifier.height(16.dp))
+                Text(
+                    text = "Tidak ada riwayat kehadiran",
+                    style = MaterialTheme.typography.bodyLarge
+                )
+            }
+        }
+        
+        else -> {
+            LazyColumn(
+                modifier = Modifier.fillMaxSize(),
+                contentPadding = PaddingValues(16.dp),
+                verticalArrangement = Arrangement.spacedBy(8.dp)
+            ) {
+                // Summary header
+                item {
+                    HistorySummaryCard(
+                        total = total ?: history.itemCount,
+                        loaded = history.itemSnapshotList.items.size,
+                        isRefreshing = refreshState is LoadState.Loading,
+                        onRefresh = onRefresh
                     )
                 }
-            } else {
-                LazyColumn(
-                    modifier = Modifier.fillMaxSize(),
-                    contentPadding = PaddingValues(16.dp),
-                    verticalArrangement = Arrangement.spacedBy(8.dp)
-                ) {
-                    // Summary header
-                    item {
-                        HistorySummaryCard(pagination = historyState.pagination)
-                    }
-                    
-                    items(historyState.items, key = { it.id }) { item ->
+                
+                // Item null = placeholder, halaman berikutnya dimuat otomatis saat mendekati ujung
+                items(
+                    count = history.itemCount,
+                    key = history.itemKey { it.id }
+                ) { index ->
+                    val item = history[index]
+                    if (item != null) {
                         HistoryItemCard(item = item)
+                    } else {
+                        HistoryPlaceholderCard()
                     }
-                    
-                    // Load more indicator
-                    if (historyState.hasMore) {
-                        item {
-                            Box(
-                                modifier = Modifier
-                                    .fillMaxWidth()
-                                    .padding(16.dp),
-                                contentAlignment = Alignment.Center
-                            ) {
-                                CircularProgressIndicator(modifier = Modifier.size(24.dp))
-                            }
-                            
-                            LaunchedEffect(Unit) {
-                                onLoadMore()
-                            }
+                }
+                
+                when (appendState) {
+                    is LoadState.Loading -> item {
+                        Box(
+                            modifier = Modifier
+                                .fillMaxWidth()
+                                .padding(16.dp),
+                            contentAlignment = Alignment.Center
+                        ) {
+                            CircularProgressIndicator(modifier = Modifier.size(24.dp))
                         }
                     }
+                    is LoadState.Error -> item {
+                        TextButton(
+                            onClick = { history.retry() },
+                            modifier = Modifier.fillMaxWidth()
+                        ) {
+                            Text("Gagal memuat halaman berikutnya. Coba lagi")
+                        }
+                    }
+                    else -> Unit
                 }
             }
         }
@@ -330,7 +336,12 @@ private fun HistoryContent(
 }
 
 @Composable
-private fun HistorySummaryCard(pagination: PaginationInfo) {
+private fun HistorySummaryCard(
+    total: Int,
+    loaded: Int,
+    isRefreshing: Boolean,
+    onRefresh: () -> Unit
+) {
     Card(
         modifier = Modifier.fillMaxWidth(),
         colors = CardDefaults.cardColors(
@@ -340,24 +351,46 @@ private fun HistorySummaryCard(pagination: PaginationInfo) {
         Row(
             modifier = Modifier
                 .fillMaxWidth()
-                .padding(16.dp),
+                .padding(horizontal = 16.dp, vertical = 8.dp),
             horizontalArrangement = Arrangement.SpaceBetween,
             verticalAlignment = Alignment.CenterVertically
         ) {
-            Text(
-                text = "Total: ${pagination.total} records",
-                style = MaterialTheme.typography.bodyMedium,
-                fontWeight = FontWeight.Medium
-            )
-            Text(
-                text = "Halaman ${pagination.currentPage} dari ${pagination.lastPage}",
-                style = MaterialTheme.typography.bodySmall,
-                color = MaterialTheme.colorScheme.onSurfaceVariant
-            )
+            Column {
+                Text(
+                    text = "Total: $total records",
+                    style = MaterialTheme.typography.bodyMedium,
+                    fontWeight = FontWeight.Medium
+                )
+                Text(
+                    text = "$loaded dimuat",
+                    style = MaterialTheme.typography.bodySmall,
+                    color = MaterialTheme.colorScheme.onSurfaceVariant
+                )
+            }
+            if (isRefreshing) {
+                CircularProgressIndicator(modifier = Modifier.size(20.dp), strokeWidth = 2.dp)
+            } else {
+                IconButton(onClick = onRefresh) {
+                    Icon(Icons.Default.Refresh, contentDescription = "Refresh")
+                }
+            }
         }
     }
 }
 
+@Composable
+private fun HistoryPlaceholderCard() {
+    Card(
+        modifier = Modifier
+            .fillMaxWidth()
+            .height(84.dp),
+        shape = RoundedCornerShape(8.dp),
+        colors = CardDefaults.cardColors(
+            containerColor = MaterialTheme.colorScheme.surfaceVariant.copy(alpha = 0.5f)
+        )
+    ) {}
+}
+
 @Composable
 private fun HistoryItemCard(item: KurikulumAttendanceHistoryItem) {
     val statusColor = when (item.status ?: "pending") {
@@ -1073,7 +1106,7 @@ private fun HistoryFilterSheet(
 private fun ExportDialog(
     exportState: ExportUiState,
     onExport: (String) -> Unit,
-    onSaveFile: (List<ExportItem>) -> Unit,
+    onSaveFile: (File) -> Unit,
     onDismiss: () -> Unit
 ) {
     AlertDialog(
@@ -1138,7 +1171,7 @@ private fun ExportDialog(
                             )
                             Spacer(modifier = Modifier.height(16.dp))
                             Button(
-                                onClick = { onSaveFile(exportState.data) },
+                                onClick = { onSaveFile(exportState.file) },
                                 modifier = Modifier.fillMaxWidth()
                             ) {
                                 Icon(Icons.Default.Save, contentDescription = null)
@@ -1195,22 +1228,9 @@ private fun getMonthName(month: Int): String {
     }
 }
 
-private fun saveExportToFile(context: Context, data: List<ExportItem>) {
+private fun openExportFile(context: Context, file: File) {
     try {
-        val fileName = "kehadiran_guru_${SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(Date())}.csv"
-        val file = File(context.getExternalFilesDir(Environment.DIRECTORY_DOCUMENTS), fileName)
-        
-        FileWriter(file).use { writer ->
-            // Header
-            writer.append("Tanggal,Hari,Jam Ke,Waktu,Kelas,Mata Pelajaran,Guru Asli,Guru Pengganti,Status,Jam Masuk,Keterangan\n")              // Data
-            data.forEach { item ->
-                writer.append("${item.tanggal ?: ""},${item.hari ?: ""},${item.jamKe ?: ""},${item.waktu ?: ""},${item.kelas ?: ""},")
-                writer.append("${item.mataPelajaran ?: ""},${item.guruAsli ?: ""},${item.guruPengganti ?: ""},")
-                writer.append("${item.status ?: "pending"},${item.jamMasuk ?: ""},${item.keterangan ?: ""}\n")
-            }
-        }
-        
-        // Show success toast or share file
+        // File CSV sudah ditulis saat export (streaming), di sini tinggal dibuka
         val intent = Intent(Intent.ACTION_VIEW).apply {
             setDataAndType(
                 androidx.core.content.FileProvider.getUriForFile(
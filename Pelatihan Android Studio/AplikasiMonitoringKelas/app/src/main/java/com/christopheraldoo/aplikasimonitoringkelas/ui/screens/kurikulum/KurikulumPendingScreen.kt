@@ -25,6 +25,7 @@ import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
 import com.christopheraldoo.aplikasimonitoringkelas.data.PendingAttendanceItem
 import com.christopheraldoo.aplikasimonitoringkelas.data.PendingClassGroup
+import com.christopheraldoo.aplikasimonitoringkelas.sync.BulkConfirmBatcher
 import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.ConfirmAttendanceUiState
 import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.KurikulumViewModel
 import com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel.PendingAttendanceUiState
@@ -40,6 +41,8 @@ fun KurikulumPendingScreen(
 ) {
     val pendingState by viewModel.pendingState.collectAsState()
     val confirmState by viewModel.confirmState.collectAsState()
+    val bulkOutcomes by viewModel.bulkOutcomes.collectAsState()
+    val failedCount = bulkOutcomes.values.count { it.status == BulkConfirmBatcher.ItemStatus.FAILED }
     
     // Snackbar state for feedback
     val snackbarHostState = remember { SnackbarHostState() }
@@ -200,6 +203,7 @@ fun KurikulumPendingScreen(
                         pendingCount = state.pendingCount,
                         groupedByClass = state.groupedByClass,
                         selectedItems = selectedItems,
+                        bulkOutcomes = bulkOutcomes,
                         onItemSelect = { item ->
                             selectedItems = if (selectedItems.any { it.scheduleId == item.scheduleId && it.date == item.date }) {
                                 selectedItems.filter { it.scheduleId != item.scheduleId || it.date != item.date }.toSet()
@@ -230,9 +234,56 @@ fun KurikulumPendingScreen(
                 }
             }
             
+            // Hasil konfirmasi massal: item yang gagal bisa dikirim ulang tanpa mengulang yang sudah berhasil
+            AnimatedVisibility(
+                visible = failedCount > 0 && confirmState !is ConfirmAttendanceUiState.BulkConfirming,
+                enter = slideInVertically { -it } + fadeIn(),
+                exit = slideOutVertically { -it } + fadeOut(),
+                modifier = Modifier.align(Alignment.TopCenter)
+            ) {
+                Card(
+                    modifier = Modifier
+                        .padding(16.dp)
+                        .fillMaxWidth(),
+                    colors = CardDefaults.cardColors(containerColor = Color(0xFFFFEBEE)),
+                    shape = RoundedCornerShape(12.dp),
+                    elevation = CardDefaults.cardElevation(defaultElevation = 4.dp)
+                ) {
+                    Row(
+                        modifier = Modifier.padding(start = 16.dp, top = 8.dp, bottom = 8.dp, end = 4.dp),
+                        verticalAlignment = Alignment.CenterVertically
+                    ) {
+                        Icon(
+                            Icons.Default.ErrorOutline,
+                            contentDescription = null,
+                            tint = Color(0xFFF44336)
+                        )
+                        Spacer(modifier = Modifier.width(12.dp))
+                        Text(
+                            "$failedCount kehadiran gagal dikonfirmasi",
+                            modifier = Modifier.weight(1f),
+                            color = Color(0xFFC62828),
+                            fontSize = 13.sp,
+                            fontWeight = FontWeight.Medium
+                        )
+                        TextButton(onClick = { viewModel.retryFailedConfirmations() }) {
+                            Text("Coba lagi yang gagal", color = Color(0xFFC62828))
+                        }
+                        IconButton(onClick = { viewModel.dismissBulkOutcomes() }) {
+                            Icon(
+                                Icons.Default.Close,
+                                contentDescription = "Tutup",
+                                tint = Color(0xFFC62828)
+                            )
+                        }
+                    }
+                }
+            }
+            
             // Confirm state overlay
             AnimatedVisibility(
-                visible = confirmState is ConfirmAttendanceUiState.Confirming,
+                visible = confirmState is ConfirmAttendanceUiState.Confirming ||
+                    confirmState is ConfirmAttendanceUiState.BulkConfirming,
                 enter = fadeIn(),
                 exit = fadeOut()
             ) {
@@ -252,7 +303,11 @@ fun KurikulumPendingScreen(
                         ) {
                             CircularProgressIndicator(color = Color(0xFF7C4DFF))
                             Spacer(modifier = Modifier.height(16.dp))
-                            Text("Mengkonfirmasi kehadiran...")
+                            val progress = confirmState as? ConfirmAttendanceUiState.BulkConfirming
+                            Text(
+                                if (progress != null) "Mengkonfirmasi ${progress.processed}/${progress.total} kehadiran..."
+                                else "Mengkonfirmasi kehadiran..."
+                            )
                         }
                     }
                 }
@@ -547,6 +602,7 @@ private fun PendingContent(
     pendingCount: Int = 0,
     groupedByClass: List<PendingClassGroup>,
     selectedItems: Set<PendingAttendanceItem>,
+    bulkOutcomes: Map<String, BulkConfirmBatcher.ItemOutcome>,
     onItemSelect: (PendingAttendanceItem) -> Unit,
     onSelectAll: (List<PendingAttendanceItem>) -> Unit,
     onItemClick: (PendingAttendanceItem) -> Unit,
@@ -678,6 +734,7 @@ private fun PendingContent(
             ClassGroupCard(
                 classGroup = classGroup,
                 selectedItems = selectedItems,
+                bulkOutcomes = bulkOutcomes,
                 onItemSelect = onItemSelect,
                 onSelectAll = onSelectAll,
                 onItemClick = onItemClick
@@ -695,6 +752,7 @@ private fun PendingContent(
 private fun ClassGroupCard(
     classGroup: PendingClassGroup,
     selectedItems: Set<PendingAttendanceItem>,
+    bulkOutcomes: Map<String, BulkConfirmBatcher.ItemOutcome>,
     onItemSelect: (PendingAttendanceItem) -> Unit,
     onSelectAll: (List<PendingAttendanceItem>) -> Unit,
     onItemClick: (PendingAttendanceItem) -> Unit
@@ -773,6 +831,7 @@ private fun ClassGroupCard(
                         PendingItemRow(
                             item = item,
                             isSelected = selectedItems.any { it.scheduleId == item.scheduleId && it.date == item.date },
+                            outcome = bulkOutcomes[BulkConfirmBatcher.keyOf(item)],
                             onSelect = { onItemSelect(item) },
                             onClick = { onItemClick(item) }
                         )
@@ -787,6 +846,7 @@ private fun ClassGroupCard(
 private fun PendingItemRow(
     item: PendingAttendanceItem,
     isSelected: Boolean,
+    outcome: BulkConfirmBatcher.ItemOutcome?,
     onSelect: () -> Unit,
     onClick: () -> Unit
 ) {
@@ -864,6 +924,18 @@ private fun PendingItemRow(
                         fontWeight = FontWeight.Medium
                     )
                 }
+                // Hasil konfirmasi massal terakhir untuk item ini
+                if (outcome != null) {
+                    val failed = outcome.status == BulkConfirmBatcher.ItemStatus.FAILED
+                    Spacer(modifier = Modifier.height(4.dp))
+                    Text(
+                        (if (failed) "Gagal: " else "Dilewati: ") + (outcome.message ?: "-"),
+                        fontSize = 10.sp,
+                        color = if (failed) Color(0xFFF44336) else Color(0xFF757575),
+                        maxLines = 2,
+                        overflow = TextOverflow.Ellipsis
+                    )
+                }
             }
             
             Column(horizontalAlignment = Alignment.End) {
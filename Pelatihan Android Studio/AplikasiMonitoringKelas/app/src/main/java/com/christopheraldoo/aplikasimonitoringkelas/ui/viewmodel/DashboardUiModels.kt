@@ -0,0 +1,111 @@
+package com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel
+
+import androidx.compose.runtime.Immutable
+import com.christopheraldoo.aplikasimonitoringkelas.data.ScheduleOverview
+import kotlinx.collections.immutable.ImmutableList
+import kotlinx.collections.immutable.persistentListOf
+import kotlinx.collections.immutable.toImmutableList
+
+// ===============================================
+// UI MODEL DASHBOARD KURIKULUM
+// DTO Gson (List/Map biasa) dianggap tidak stabil oleh Compose, sehingga setiap emisi state
+// merekomposisi semua kartu kelas. Model di bawah sudah dikelompokkan, diurutkan dan
+// diformat sekali per emisi, dan kartu yang tidak berubah memakai instance lama.
+// ===============================================
+
+/** Warna status; dipetakan ke Color di layar */
+enum class StatusTone { GREEN, YELLOW, RED, BLUE, PURPLE, GRAY }
+
+@Immutable
+data class ScheduleRowUi(
+    val scheduleId: Int,
+    val periodLabel: String,
+    val subjectName: String,
+    val teacherName: String,
+    val timeLabel: String?,
+    val tone: StatusTone,
+    val statusLabel: String,
+    val lateLabel: String?,
+    val leaveReason: String?,
+    val substituteLabel: String?,
+    val isTeacherOnLeave: Boolean
+)
+
+@Immutable
+data class ClassCardUi(
+    val className: String,
+    val hadirCount: Int,
+    val telatCount: Int,
+    val tidakHadirCount: Int,
+    val izinCount: Int,
+    val rows: ImmutableList<ScheduleRowUi>
+)
+
+object DashboardUiMapper {
+
+    /**
+     * Kartu per kelas, urutan kelas mengikuti server dan jadwal diurutkan per jam ke-.
+     * Kartu yang isinya sama dengan [previous] dikembalikan sebagai instance lama.
+     */
+    fun classCards(
+        groupedByClass: Map<String, List<ScheduleOverview>>?,
+        schedules: List<ScheduleOverview>,
+        previous: List<ClassCardUi> = emptyList()
+    ): ImmutableList<ClassCardUi> {
+        val groups = groupedByClass ?: schedules.groupBy { it.className }
+        if (groups.isEmpty()) return persistentListOf()
+
+        val previousByClass = previous.associateBy { it.className }
+        return groups.map { (className, classSchedules) ->
+            val card = classCard(className, classSchedules)
+            val old = previousByClass[className]
+            if (old == card) old else card
+        }.toImmutableList()
+    }
+
+    fun classCard(className: String, schedules: List<ScheduleOverview>): ClassCardUi = ClassCardUi(
+        className = className,
+        hadirCount = schedules.count { it.status == "hadir" },
+        telatCount = schedules.count { it.status == "telat" },
+        tidakHadirCount = schedules.count { it.status == "tidak_hadir" },
+        izinCount = schedules.count { it.status == "izin" || it.teacherOnLeave },
+        rows = schedules.sortedBy { it.period ?: 0 }.map(::scheduleRow).toImmutableList()
+    )
+
+    fun scheduleRow(schedule: ScheduleOverview): ScheduleRowUi {
+        val onLeave = schedule.teacherOnLeave || schedule.status == "izin"
+        return ScheduleRowUi(
+            scheduleId = schedule.scheduleId,
+            periodLabel = (schedule.period ?: 0).toString(),
+            subjectName = schedule.subjectName,
+            teacherName = schedule.teacherName,
+            timeLabel = if (schedule.startTime != null && schedule.endTime != null) {
+                "${schedule.startTime} - ${schedule.endTime}"
+            } else null,
+            tone = if (onLeave) StatusTone.PURPLE else toneOf(schedule.statusColor),
+            statusLabel = if (onLeave) "Izin" else statusLabelOf(schedule.status),
+            lateLabel = schedule.lateMinutes?.takeIf { it > 0 }?.let { "+$it menit" },
+            leaveReason = if (onLeave) schedule.leaveReason else null,
+            substituteLabel = schedule.substituteTeacher?.let { "→ $it" },
+            isTeacherOnLeave = onLeave
+        )
+    }
+
+    private fun toneOf(statusColor: String?): StatusTone = when (statusColor ?: "gray") {
+        "green" -> StatusTone.GREEN
+        "yellow" -> StatusTone.YELLOW
+        "red" -> StatusTone.RED
+        "blue" -> StatusTone.BLUE
+        "purple" -> StatusTone.PURPLE
+        else -> StatusTone.GRAY
+    }
+
+    private fun statusLabelOf(status: String?): String = when (status ?: "pending") {
+        "hadir" -> "Hadir"
+        "telat" -> "Telat"
+        "tidak_hadir" -> "Tidak Hadir"
+        "diganti" -> "Diganti"
+        "izin" -> "Izin"
+        else -> "Pending"
+    }
+}
@@ -4,7 +4,9 @@ import android.util.Log
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
 import com.christopheraldoo.aplikasimonitoringkelas.data.*
+import com.christopheraldoo.aplikasimonitoringkelas.network.ConditionalResult
 import com.christopheraldoo.aplikasimonitoringkelas.network.NetworkRepository
+import com.christopheraldoo.aplikasimonitoringkelas.stats.AttendanceStatsReports
 import kotlinx.coroutines.Job
 import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.MutableStateFlow
@@ -40,6 +42,10 @@ class KepalaSekolahViewModel(private val repository: NetworkRepository) : ViewMo
     private val _teacherPerformanceState = MutableStateFlow<TeacherPerformanceUiState>(TeacherPerformanceUiState.Loading)
     val teacherPerformanceState: StateFlow<TeacherPerformanceUiState> = _teacherPerformanceState.asStateFlow()
     
+    // Urutan ranking performa guru: attendance_rate, late_count, absent_count
+    private val _performanceSort = MutableStateFlow(AttendanceStatsReports.SORT_ATTENDANCE_RATE)
+    val performanceSort: StateFlow<String> = _performanceSort.asStateFlow()
+    
     // Week offset: 0 = this week, -1 = last week, etc.
     private val _weekOffset = MutableStateFlow(0)
     val weekOffset: StateFlow<Int> = _weekOffset.asStateFlow()
@@ -121,6 +127,29 @@ class KepalaSekolahViewModel(private val repository: NetworkRepository) : ViewMo
         }
     }
     
+    /**
+     * Refresh di latar belakang: tanpa state Loading, dan 304 (data sama) tidak mengganti state
+     */
+    private fun refreshDashboard() {
+        if (_dashboardState.value !is KepsekDashboardUiState.Success) {
+            loadDashboard()
+            return
+        }
+        viewModelScope.launch {
+            when (val result = repository.refreshKepsekDashboard(_weekOffset.value)) {
+                ConditionalResult.NotModified -> Log.d(TAG, "Dashboard tidak berubah (304)")
+                is ConditionalResult.Modified -> {
+                    val data = result.body.data
+                    if (result.body.success && data != null) {
+                        _dashboardState.value = KepsekDashboardUiState.Success(data)
+                    }
+                }
+                // Data lama tetap tampil, dicoba lagi di putaran berikutnya
+                is ConditionalResult.Failed -> Log.w(TAG, "Auto-refresh gagal: ${result.message}")
+            }
+        }
+    }
+    
     fun loadAttendanceList(status: String? = null) {
         viewModelScope.launch {
             _attendanceListState.value = KepsekAttendanceListUiState.Loading
@@ -142,11 +171,17 @@ class KepalaSekolahViewModel(private val repository: NetworkRepository) : ViewMo
         }
     }
     
-    fun loadTeacherPerformance(sortBy: String = "attendance_rate") {
+    fun setPerformanceSort(sortBy: String) {
+        _performanceSort.value = sortBy
+        loadTeacherPerformance(sortBy)
+    }
+    
+    // Dihitung dari statistik lokal; server hanya dihubungi kalau minggu ini belum lengkap/kadaluarsa
+    fun loadTeacherPerformance(sortBy: String = _performanceSort.value, forceRefresh: Boolean = false) {
         viewModelScope.launch {
             _teacherPerformanceState.value = TeacherPerformanceUiState.Loading
             try {
-                val response = repository.getKepsekTeacherPerformance(_weekOffset.value, sortBy)
+                val response = repository.getKepsekTeacherPerformanceLocal(_weekOffset.value, sortBy, forceRefresh)
                 if (response.success && response.data != null) {
                     _teacherPerformanceState.value = TeacherPerformanceUiState.Success(response.data)
                     Log.d(TAG, "Performance loaded: ${response.data.teachers.size} teachers")
@@ -170,7 +205,7 @@ class KepalaSekolahViewModel(private val repository: NetworkRepository) : ViewMo
             while (isActive) {
                 delay(AUTO_REFRESH_INTERVAL)
                 Log.d(TAG, "Auto-refreshing dashboard...")
-                loadDashboard()
+                refreshDashboard()
             }
         }
     }
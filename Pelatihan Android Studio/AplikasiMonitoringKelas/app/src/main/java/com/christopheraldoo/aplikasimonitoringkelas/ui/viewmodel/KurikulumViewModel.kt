@@ -1,17 +1,33 @@
 package com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel
 
 import android.util.Log
+import androidx.compose.runtime.Immutable
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
 import com.christopheraldoo.aplikasimonitoringkelas.data.*
+import androidx.paging.PagingData
+import androidx.paging.cachedIn
+import com.christopheraldoo.aplikasimonitoringkelas.network.ConditionalResult
 import com.christopheraldoo.aplikasimonitoringkelas.network.NetworkRepository
+import com.christopheraldoo.aplikasimonitoringkelas.repository.HistoryFilter
+import com.christopheraldoo.aplikasimonitoringkelas.sync.AdaptiveRefreshScheduler
+import com.christopheraldoo.aplikasimonitoringkelas.sync.BulkConfirmBatcher
+import com.christopheraldoo.aplikasimonitoringkelas.sync.LiveUpdatePatcher
+import kotlinx.collections.immutable.ImmutableList
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.Job
-import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.flatMapLatest
+import kotlinx.coroutines.flow.stateIn
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
-import kotlinx.coroutines.isActive
 import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import java.io.File
 
 /**
  * KurikulumViewModel - Manages state for Kurikulum role screens
@@ -22,6 +38,11 @@ class KurikulumViewModel(private val repository: NetworkRepository) : ViewModel(
     companion object {
         private const val TAG = "KurikulumViewModel"
         private const val AUTO_REFRESH_INTERVAL = 30000L // 30 seconds
+        private const val AUTO_REFRESH_MAX_INTERVAL = 300000L // backoff maksimal 5 menit
+        
+        // Target auto-refresh, dipakai layar saat start/stopAutoRefresh
+        const val REFRESH_DASHBOARD = "kurikulum/dashboard"
+        const val REFRESH_CLASSES = "kurikulum/classes"
     }
     
     // ===============================================
@@ -36,10 +57,6 @@ class KurikulumViewModel(private val repository: NetworkRepository) : ViewModel(
     private val _classManagementState = MutableStateFlow<ClassManagementUiState>(ClassManagementUiState.Loading)
     val classManagementState: StateFlow<ClassManagementUiState> = _classManagementState.asStateFlow()
     
-    // History State
-    private val _historyState = MutableStateFlow<HistoryUiState>(HistoryUiState.Loading)
-    val historyState: StateFlow<HistoryUiState> = _historyState.asStateFlow()
-    
     // Statistics State
     private val _statisticsState = MutableStateFlow<StatisticsUiState>(StatisticsUiState.Loading)
     val statisticsState: StateFlow<StatisticsUiState> = _statisticsState.asStateFlow()
@@ -56,6 +73,12 @@ class KurikulumViewModel(private val repository: NetworkRepository) : ViewModel(
     private val _confirmState = MutableStateFlow<ConfirmAttendanceUiState>(ConfirmAttendanceUiState.Idle)
     val confirmState: StateFlow<ConfirmAttendanceUiState> = _confirmState.asStateFlow()
     
+    // Konfirmasi massal per chunk; item yang gagal/dilewati ditandai per baris di layar pending
+    private val bulkConfirmBatcher = BulkConfirmBatcher(send = repository::bulkConfirmAttendance)
+    private val _bulkOutcomes = MutableStateFlow<Map<String, BulkConfirmBatcher.ItemOutcome>>(emptyMap())
+    val bulkOutcomes: StateFlow<Map<String, BulkConfirmBatcher.ItemOutcome>> = _bulkOutcomes.asStateFlow()
+    private var lastBulkStatus: String? = null
+    
     // Filter Data
     private val _filterClasses = MutableStateFlow<List<FilterClass>>(emptyList())
     val filterClasses: StateFlow<List<FilterClass>> = _filterClasses.asStateFlow()
@@ -76,8 +99,28 @@ class KurikulumViewModel(private val repository: NetworkRepository) : ViewModel(
     private val _weekOffset = MutableStateFlow(0)
     val weekOffset: StateFlow<Int> = _weekOffset.asStateFlow()
     
-    // Auto-refresh job
-    private var autoRefreshJob: Job? = null
+    // Auto-refresh adaptif: hanya layar yang terlihat, backoff saat data tidak berubah
+    private val refreshScheduler = AdaptiveRefreshScheduler(
+        viewModelScope, AUTO_REFRESH_INTERVAL, AUTO_REFRESH_MAX_INTERVAL
+    )
+    val refreshStats: StateFlow<AdaptiveRefreshScheduler.Stats> = refreshScheduler.stats
+    
+    // ETag/fingerprint data yang sedang tampil, dikirim sebagai If-None-Match
+    private var dashboardFingerprint: String? = null
+    private var classesFingerprint: String? = null
+    
+    // Response dashboard yang sedang tampil, ditambal langsung oleh event push
+    private var dashboardSource: KurikulumDashboardResponse? = null
+    private var liveUpdatesJob: Job? = null
+    
+    // Naik setiap load manual, supaya refresh latar belakang yang lebih lama tidak menimpa filter baru
+    private var dashboardGeneration = 0
+    private var classesGeneration = 0
+    
+    init {
+        refreshScheduler.register(REFRESH_DASHBOARD) { refreshDashboardInBackground() }
+        refreshScheduler.register(REFRESH_CLASSES) { refreshClassesInBackground() }
+    }
     
     // ===============================================
     // DASHBOARD FUNCTIONS
@@ -88,6 +131,9 @@ class KurikulumViewModel(private val repository: NetworkRepository) : ViewModel(
     }
     
     fun loadDashboard(day: String? = null, classId: Int? = null, subjectId: Int? = null, forceRefresh: Boolean = false) {
+        dashboardGeneration++
+        dashboardFingerprint = null
+        refreshScheduler.markFresh(REFRESH_DASHBOARD)
         viewModelScope.launch {
             _dashboardState.value = DashboardUiState.Loading
             try {
@@ -99,25 +145,8 @@ class KurikulumViewModel(private val repository: NetworkRepository) : ViewModel(
                     forceRefresh = forceRefresh
                 )
                 if (response.success) {
-                    // Check if requires class filter
-                    if (response.requiresClassFilter) {
-                        _dashboardState.value = DashboardUiState.RequiresClassFilter(
-                            date = response.date,
-                            day = response.day,
-                            availableClasses = response.availableClasses ?: emptyList(),
-                            weekInfo = response.weekInfo
-                        )
-                    } else {
-                        _dashboardState.value = DashboardUiState.Success(
-                            date = response.targetDate ?: response.date,
-                            day = response.day,
-                            stats = response.stats,
-                            schedules = response.data,
-                            groupedByClass = response.groupedByClass ?: emptyMap(),
-                            weekInfo = response.weekInfo,
-                            isFutureDate = response.isFutureDate
-                        )
-                    }
+                    _dashboardState.value = dashboardStateOf(response)
+                    dashboardSource = response
                 } else {
                     _dashboardState.value = DashboardUiState.Error(response.message ?: "Gagal memuat dashboard")
                 }
@@ -128,30 +157,140 @@ class KurikulumViewModel(private val repository: NetworkRepository) : ViewModel(
         }
     }
     
-    fun startAutoRefresh() {
-        stopAutoRefresh()
-        autoRefreshJob = viewModelScope.launch {
-            while (isActive) {
-                delay(AUTO_REFRESH_INTERVAL)
-                refreshCurrentScreen()
+    /**
+     * Pemetaan DTO ke UI model dijalankan di Dispatchers.Default; kartu yang tidak berubah
+     * dari state sebelumnya dipakai ulang supaya Compose bisa melewatinya
+     */
+    private suspend fun dashboardStateOf(response: KurikulumDashboardResponse): DashboardUiState {
+        // Check if requires class filter
+        return if (response.requiresClassFilter) {
+            DashboardUiState.RequiresClassFilter(
+                date = response.date,
+                day = response.day,
+                availableClasses = response.availableClasses ?: emptyList(),
+                weekInfo = response.weekInfo
+            )
+        } else {
+            val previous = (_dashboardState.value as? DashboardUiState.Success)?.classCards.orEmpty()
+            val classCards = withContext(Dispatchers.Default) {
+                DashboardUiMapper.classCards(response.groupedByClass, response.data, previous)
             }
+            DashboardUiState.Success(
+                date = response.targetDate ?: response.date,
+                day = response.day,
+                stats = response.stats,
+                totalSchedules = response.data.size,
+                classCards = classCards,
+                weekInfo = response.weekInfo,
+                isFutureDate = response.isFutureDate
+            )
+        }
+    }
+    
+    /**
+     * Dipanggil layar saat lifecycle-nya STARTED; refresh berhenti sendiri saat layar tidak terlihat
+     */
+    fun startAutoRefresh(target: String) {
+        refreshScheduler.setVisible(target, true)
+        if (target == REFRESH_DASHBOARD) startLiveUpdates()
+    }
+    
+    fun stopAutoRefresh(target: String) {
+        refreshScheduler.setVisible(target, false)
+        if (target == REFRESH_DASHBOARD) stopLiveUpdates()
+    }
+    
+    /**
+     * Push perubahan (guru pengganti, izin guru) selama dashboard terlihat. Selama stream
+     * tersambung, polling dashboard hanya jalan sebagai jaring pengaman.
+     */
+    private fun startLiveUpdates() {
+        if (liveUpdatesJob?.isActive == true) return
+        val live = repository.liveScheduleUpdates()
+        liveUpdatesJob = viewModelScope.launch {
+            launch { live.connected.collect { refreshScheduler.setPushConnected(REFRESH_DASHBOARD, it) } }
+            live.events.collect { applyLiveUpdate(it) }
         }
     }
     
-    fun stopAutoRefresh() {
-        autoRefreshJob?.cancel()
-        autoRefreshJob = null
+    private fun stopLiveUpdates() {
+        liveUpdatesJob?.cancel()
+        liveUpdatesJob = null
+        refreshScheduler.setPushConnected(REFRESH_DASHBOARD, false)
+    }
+    
+    private suspend fun applyLiveUpdate(event: ScheduleChangeEvent) {
+        if (_dashboardState.value !is DashboardUiState.Success) return
+        val source = dashboardSource ?: return
+        val patched = LiveUpdatePatcher.patch(source, event) ?: return
+        val generation = dashboardGeneration
+        val state = dashboardStateOf(patched)
+        if (generation != dashboardGeneration || dashboardSource !== source) return
+        dashboardSource = patched
+        _dashboardState.value = state
+    }
+    
+    /**
+     * Refresh diam-diam: tidak pernah mengganti Success menjadi Loading, dan error hanya
+     * memperlambat jadwal (data lama tetap tampil)
+     */
+    private suspend fun refreshDashboardInBackground(): AdaptiveRefreshScheduler.RefreshResult {
+        if (_dashboardState.value !is DashboardUiState.Success) {
+            return AdaptiveRefreshScheduler.RefreshResult(AdaptiveRefreshScheduler.Outcome.SKIPPED)
+        }
+        val generation = dashboardGeneration
+        val result = repository.refreshKurikulumDashboard(
+            day = _selectedDay.value,
+            classId = _selectedClassId.value,
+            weekOffset = _weekOffset.value,
+            ifNoneMatch = dashboardFingerprint
+        )
+        return backgroundResult(result, dashboardFingerprint) { response, fingerprint ->
+            if (generation != dashboardGeneration || !response.success) return@backgroundResult false
+            val state = dashboardStateOf(response)
+            // Pemetaan bisa suspend; load manual mungkin sudah dimulai selama itu
+            if (generation != dashboardGeneration) return@backgroundResult false
+            dashboardFingerprint = fingerprint
+            dashboardSource = response
+            _dashboardState.value = state
+            true
+        }
     }
     
-    private fun refreshCurrentScreen() {
-        // Refresh based on current state
-        when (_dashboardState.value) {
-            is DashboardUiState.Success -> loadDashboard(_selectedDay.value, _selectedClassId.value)
-            else -> {}
+    private suspend fun refreshClassesInBackground(): AdaptiveRefreshScheduler.RefreshResult {
+        if (_classManagementState.value !is ClassManagementUiState.Success) {
+            return AdaptiveRefreshScheduler.RefreshResult(AdaptiveRefreshScheduler.Outcome.SKIPPED)
+        }
+        val generation = classesGeneration
+        val result = repository.refreshKurikulumClasses(_selectedStatus.value, ifNoneMatch = classesFingerprint)
+        return backgroundResult(result, classesFingerprint) { response, fingerprint ->
+            if (generation != classesGeneration || !response.success) return@backgroundResult false
+            classesFingerprint = fingerprint
+            _classManagementState.value = classManagementStateOf(response)
+            true
         }
-        when (_classManagementState.value) {
-            is ClassManagementUiState.Success -> loadClassManagement(_selectedStatus.value)
-            else -> {}
+    }
+    
+    /**
+     * @param apply menerapkan data baru ke state; false kalau data tidak dipakai (gagal/filter sudah berganti)
+     */
+    private inline fun <T> backgroundResult(
+        result: ConditionalResult<T>,
+        currentFingerprint: String?,
+        apply: (T, String) -> Boolean
+    ): AdaptiveRefreshScheduler.RefreshResult = when (result) {
+        ConditionalResult.NotModified ->
+            AdaptiveRefreshScheduler.RefreshResult(AdaptiveRefreshScheduler.Outcome.UNCHANGED)
+        is ConditionalResult.Failed ->
+            AdaptiveRefreshScheduler.RefreshResult(AdaptiveRefreshScheduler.Outcome.FAILED)
+        is ConditionalResult.Modified -> {
+            val outcome = when {
+                // Server tanpa ETag: body sama persis dengan sebelumnya
+                result.fingerprint == currentFingerprint -> AdaptiveRefreshScheduler.Outcome.UNCHANGED
+                apply(result.body, result.fingerprint) -> AdaptiveRefreshScheduler.Outcome.CHANGED
+                else -> AdaptiveRefreshScheduler.Outcome.FAILED
+            }
+            AdaptiveRefreshScheduler.RefreshResult(outcome, result.bytes)
         }
     }
     
@@ -160,22 +299,15 @@ class KurikulumViewModel(private val repository: NetworkRepository) : ViewModel(
     // ===============================================
     
     fun loadClassManagement(status: String? = null) {
+        classesGeneration++
+        classesFingerprint = null
+        refreshScheduler.markFresh(REFRESH_CLASSES)
         viewModelScope.launch {
             _classManagementState.value = ClassManagementUiState.Loading
             try {
                 val response = repository.getKurikulumClasses(status)
                 if (response.success) {
-                    _classManagementState.value = ClassManagementUiState.Success(
-                        date = response.date,
-                        day = response.day,
-                        currentTime = response.currentTime,
-                        summary = response.summary,
-                        statusCounts = response.statusCounts,
-                        alertClasses = response.alertClasses,
-                        groupedByClass = response.groupedByClass ?: emptyList(),
-                        presentTeachersByPeriod = response.presentTeachersByPeriod ?: emptyList(),
-                        classes = response.data
-                    )
+                    _classManagementState.value = classManagementStateOf(response)
                 } else {
                     _classManagementState.value = ClassManagementUiState.Error(response.message ?: "Gagal memuat data kelas")
                 }
@@ -186,6 +318,18 @@ class KurikulumViewModel(private val repository: NetworkRepository) : ViewModel(
         }
     }
     
+    private fun classManagementStateOf(response: ClassManagementResponse) = ClassManagementUiState.Success(
+        date = response.date,
+        day = response.day,
+        currentTime = response.currentTime,
+        summary = response.summary,
+        statusCounts = response.statusCounts,
+        alertClasses = response.alertClasses,
+        groupedByClass = response.groupedByClass ?: emptyList(),
+        presentTeachersByPeriod = response.presentTeachersByPeriod ?: emptyList(),
+        classes = response.data
+    )
+    
     fun loadAvailableSubstitutes(period: Int, subjectId: Int? = null) {
         viewModelScope.launch {
             _substituteState.value = SubstituteUiState.Loading
@@ -231,9 +375,25 @@ class KurikulumViewModel(private val repository: NetworkRepository) : ViewModel(
     // HISTORY FUNCTIONS
     // ===============================================
     
-    private var currentHistoryPage = 1
-    private var hasMoreHistory = true
-    private val historyItems = mutableListOf<KurikulumAttendanceHistoryItem>()
+    private val historyPaging = repository.historyPaging
+    private val historyFilter = MutableStateFlow(HistoryFilter())
+    private val historyGeneration = MutableStateFlow(0)
+    
+    /**
+     * Riwayat ter-paging dari Room. Filter baru membuat Pager baru (cache per filter),
+     * generation dinaikkan untuk memaksa refresh filter yang sama.
+     */
+    @OptIn(ExperimentalCoroutinesApi::class)
+    val historyPagingData: Flow<PagingData<KurikulumAttendanceHistoryItem>> =
+        combine(historyFilter, historyGeneration) { filter, _ -> filter }
+            .flatMapLatest { historyPaging.kurikulumHistory(it) }
+            .cachedIn(viewModelScope)
+    
+    // Total record menurut server untuk filter aktif
+    @OptIn(ExperimentalCoroutinesApi::class)
+    val historyTotal: StateFlow<Int?> = historyFilter
+        .flatMapLatest { historyPaging.kurikulumHistoryTotal(it) }
+        .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5_000), null)
     
     fun loadHistory(
         dateFrom: String? = null,
@@ -243,68 +403,34 @@ class KurikulumViewModel(private val repository: NetworkRepository) : ViewModel(
         status: String? = null,
         refresh: Boolean = false
     ) {
-        if (refresh) {
-            currentHistoryPage = 1
-            hasMoreHistory = true
-            historyItems.clear()
-        }
-        
-        if (!hasMoreHistory) return
-        
-        viewModelScope.launch {
-            if (historyItems.isEmpty()) {
-                _historyState.value = HistoryUiState.Loading
-            }
-            
-            try {
-                val response = repository.getKurikulumHistory(
-                    page = currentHistoryPage,
-                    dateFrom = dateFrom,
-                    dateTo = dateTo,
-                    teacherId = teacherId,
-                    classId = classId,
-                    status = status
-                )
-                
-                if (response.success) {
-                    historyItems.addAll(response.data)
-                    hasMoreHistory = currentHistoryPage < response.pagination.lastPage
-                    currentHistoryPage++
-                    
-                    _historyState.value = HistoryUiState.Success(
-                        items = historyItems.toList(),
-                        pagination = response.pagination,
-                        hasMore = hasMoreHistory
-                    )
-                } else {
-                    _historyState.value = HistoryUiState.Error(response.message ?: "Gagal memuat riwayat")
-                }
-            } catch (e: Exception) {
-                Log.e(TAG, "Error loading history", e)
-                _historyState.value = HistoryUiState.Error(e.message ?: "Terjadi kesalahan")
-            }
+        val filter = HistoryFilter(dateFrom, dateTo, teacherId, classId, status)
+        if (filter != historyFilter.value) {
+            historyFilter.value = filter
+        } else if (refresh) {
+            refreshHistory()
         }
     }
     
-    fun loadMoreHistory(
-        dateFrom: String? = null,
-        dateTo: String? = null,
-        teacherId: Int? = null,
-        classId: Int? = null,
-        status: String? = null
-    ) {
-        loadHistory(dateFrom, dateTo, teacherId, classId, status, refresh = false)
+    /**
+     * Muat ulang riwayat dari server dengan filter yang sedang aktif
+     */
+    fun refreshHistory() {
+        viewModelScope.launch {
+            historyPaging.expireKurikulumHistory(historyFilter.value)
+            historyGeneration.value++
+        }
     }
     
     // ===============================================
     // STATISTICS FUNCTIONS
     // ===============================================
     
-    fun loadStatistics(month: Int? = null, year: Int? = null, teacherId: Int? = null) {
+    // Dihitung dari statistik lokal; bulan yang sudah dimuat tidak diminta ulang ke server
+    fun loadStatistics(month: Int? = null, year: Int? = null, teacherId: Int? = null, forceRefresh: Boolean = false) {
         viewModelScope.launch {
             _statisticsState.value = StatisticsUiState.Loading
             try {
-                val response = repository.getKurikulumStatistics(month, year, teacherId)
+                val response = repository.getKurikulumStatisticsLocal(month, year, teacherId, forceRefresh)
                 if (response.success) {
                     _statisticsState.value = StatisticsUiState.Success(
                         statistics = response.statistics,
@@ -337,9 +463,10 @@ class KurikulumViewModel(private val repository: NetworkRepository) : ViewModel(
         viewModelScope.launch {
             _exportState.value = ExportUiState.Exporting
             try {
-                val response = repository.exportAttendance(dateFrom, dateTo, teacherId, classId)
-                if (response.success) {
-                    _exportState.value = ExportUiState.Success(response.data, response.totalRecords)
+                val response = repository.exportAttendanceToCsv(dateFrom, dateTo, teacherId, classId)
+                val file = response.file
+                if (response.success && file != null) {
+                    _exportState.value = ExportUiState.Success(file, response.totalRecords, response.preview)
                 } else {
                     _exportState.value = ExportUiState.Error(response.message ?: "Gagal export data")
                 }
@@ -483,37 +610,33 @@ class KurikulumViewModel(private val repository: NetworkRepository) : ViewModel(
     }
     
     fun bulkConfirmAttendance(items: List<PendingAttendanceItem>, status: String) {
+        if (items.isEmpty() || _confirmState.value is ConfirmAttendanceUiState.BulkConfirming) return
+        lastBulkStatus = status
         viewModelScope.launch {
-            _confirmState.value = ConfirmAttendanceUiState.Confirming
+            _confirmState.value = ConfirmAttendanceUiState.BulkConfirming(0, items.size)
             try {
-                // Separate items into those with attendance records and those without
-                val itemsWithAttendance = items.filter { it.id != null }
-                val itemsWithoutAttendance = items.filter { it.id == null }
-                
-                val attendanceIds = itemsWithAttendance.mapNotNull { it.id }
-                val scheduleItems = itemsWithoutAttendance.map { 
-                    BulkConfirmScheduleItem(scheduleId = it.scheduleId, date = it.date)
+                val report = bulkConfirmBatcher.confirm(items, status) { processed, total ->
+                    _confirmState.value = ConfirmAttendanceUiState.BulkConfirming(processed, total)
                 }
+                // Item yang berhasil hilang dari daftar setelah reload; yang gagal/dilewati tetap ditandai
+                _bulkOutcomes.value = report.outcomes
+                    .filter { it.status == BulkConfirmBatcher.ItemStatus.FAILED || it.status == BulkConfirmBatcher.ItemStatus.SKIPPED }
+                    .associateBy { BulkConfirmBatcher.keyOf(it.item) }
                 
-                Log.d(TAG, "bulkConfirmAttendance: ${attendanceIds.size} with attendance, ${scheduleItems.size} without")
-                
-                val request = BulkConfirmRequest(
-                    attendanceIds = attendanceIds.ifEmpty { null },
-                    scheduleItems = scheduleItems.ifEmpty { null },
-                    status = status
-                )
-                val response = repository.bulkConfirmAttendance(request)
-                if (response.success) {
-                    _confirmState.value = ConfirmAttendanceUiState.Success(
-                        response.message ?: "Kehadiran berhasil dikonfirmasi"
+                val failed = report.failedItems.size
+                _confirmState.value = if (failed == 0) {
+                    ConfirmAttendanceUiState.Success(
+                        buildString {
+                            append("${report.succeeded} kehadiran berhasil dikonfirmasi")
+                            if (report.skipped > 0) append(", ${report.skipped} dilewati")
+                        }
                     )
-                    // Reload pending list
-                    loadPendingAttendances()
                 } else {
-                    _confirmState.value = ConfirmAttendanceUiState.Error(
-                        response.message ?: "Gagal mengkonfirmasi kehadiran"
+                    ConfirmAttendanceUiState.Error(
+                        "$failed dari ${report.outcomes.size} kehadiran gagal dikonfirmasi"
                     )
                 }
+                if (report.succeeded > 0) loadPendingAttendances()
             } catch (e: Exception) {
                 Log.e(TAG, "Error bulk confirming attendance", e)
                 _confirmState.value = ConfirmAttendanceUiState.Error(
@@ -523,6 +646,19 @@ class KurikulumViewModel(private val repository: NetworkRepository) : ViewModel(
         }
     }
     
+    // Kirim ulang hanya item yang gagal di konfirmasi massal terakhir
+    fun retryFailedConfirmations() {
+        val status = lastBulkStatus ?: return
+        val failed = _bulkOutcomes.value.values
+            .filter { it.status == BulkConfirmBatcher.ItemStatus.FAILED }
+            .map { it.item }
+        bulkConfirmAttendance(failed, status)
+    }
+    
+    fun dismissBulkOutcomes() {
+        _bulkOutcomes.value = emptyMap()
+    }
+    
     fun resetConfirmState() {
         _confirmState.value = ConfirmAttendanceUiState.Idle
     }
@@ -533,7 +669,7 @@ class KurikulumViewModel(private val repository: NetworkRepository) : ViewModel(
     
     override fun onCleared() {
         super.onCleared()
-        stopAutoRefresh()
+        refreshScheduler.stop()
     }
 }
 
@@ -549,12 +685,13 @@ sealed class DashboardUiState {
         val availableClasses: List<AvailableClass>,
         val weekInfo: WeekInfo? = null
     ) : DashboardUiState()
+    @Immutable
     data class Success(
         val date: String,
         val day: String,
         val stats: DashboardStats,
-        val schedules: List<ScheduleOverview>,
-        val groupedByClass: Map<String, List<ScheduleOverview>>,
+        val totalSchedules: Int,
+        val classCards: ImmutableList<ClassCardUi>,
         val weekInfo: WeekInfo? = null,
         val isFutureDate: Boolean = false
     ) : DashboardUiState()
@@ -577,16 +714,6 @@ sealed class ClassManagementUiState {
     data class Error(val message: String) : ClassManagementUiState()
 }
 
-sealed class HistoryUiState {
-    object Loading : HistoryUiState()
-    data class Success(
-        val items: List<KurikulumAttendanceHistoryItem>,
-        val pagination: PaginationInfo,
-        val hasMore: Boolean
-    ) : HistoryUiState()
-    data class Error(val message: String) : HistoryUiState()
-}
-
 sealed class StatisticsUiState {
     object Loading : StatisticsUiState()
     data class Success(
@@ -609,7 +736,12 @@ sealed class SubstituteUiState {
 sealed class ExportUiState {
     object Idle : ExportUiState()
     object Exporting : ExportUiState()
-    data class Success(val data: List<ExportItem>, val totalRecords: Int) : ExportUiState()
+    // CSV sudah ditulis ke file; preview hanya beberapa baris pertama
+    data class Success(
+        val file: File,
+        val totalRecords: Int,
+        val preview: List<ExportItem> = emptyList()
+    ) : ExportUiState()
     data class Error(val message: String) : ExportUiState()
 }
 
@@ -632,6 +764,7 @@ sealed class PendingAttendanceUiState {
 sealed class ConfirmAttendanceUiState {
     object Idle : ConfirmAttendanceUiState()
     object Confirming : ConfirmAttendanceUiState()
+    data class BulkConfirming(val processed: Int, val total: Int) : ConfirmAttendanceUiState()
     data class Success(val message: String) : ConfirmAttendanceUiState()
     data class Error(val message: String) : ConfirmAttendanceUiState()
 }
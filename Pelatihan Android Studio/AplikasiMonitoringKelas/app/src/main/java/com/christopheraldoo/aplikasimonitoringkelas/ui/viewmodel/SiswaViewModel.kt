@@ -2,19 +2,34 @@ package com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel
 
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
+import androidx.paging.PagingData
+import androidx.paging.cachedIn
+import androidx.paging.insertSeparators
+import androidx.paging.map
 import com.christopheraldoo.aplikasimonitoringkelas.data.ScheduleApi
 import com.christopheraldoo.aplikasimonitoringkelas.data.TodayKehadiranResponse
 import com.christopheraldoo.aplikasimonitoringkelas.data.ScheduleItem
-import com.christopheraldoo.aplikasimonitoringkelas.data.KehadiranHistoryResponse
 import com.christopheraldoo.aplikasimonitoringkelas.data.RiwayatItem
 import com.christopheraldoo.aplikasimonitoringkelas.data.KehadiranSubmitResponse
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.PendingKehadiran
 import com.christopheraldoo.aplikasimonitoringkelas.network.NetworkRepository
+import com.christopheraldoo.aplikasimonitoringkelas.sync.LiveUpdatePatcher
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.Job
 import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.flatMapLatest
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.onEach
+import kotlinx.coroutines.flow.stateIn
 import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
 import java.text.SimpleDateFormat
 import java.util.*
 import kotlin.concurrent.timer
@@ -28,7 +43,6 @@ class SiswaViewModel(private val repository: NetworkRepository) : ViewModel() {
     // ========== DEBOUNCING ==========
     private var schedulesDebounceJob: Job? = null
     private var todayKehadiranDebounceJob: Job? = null
-    private var riwayatDebounceJob: Job? = null
 
     companion object {
         private const val DEBOUNCE_DELAY_MS = 500L
@@ -91,9 +105,59 @@ class SiswaViewModel(private val repository: NetworkRepository) : ViewModel() {
     }
 
     private val _submitKehadiranState = MutableStateFlow<SubmitKehadiranUiState>(SubmitKehadiranUiState.Idle)
-    val submitKehadiranState: StateFlow<SubmitKehadiranUiState> = _submitKehadiranState.asStateFlow()    // ========== RIWAYAT STATE ==========
-    private val _riwayatState = MutableStateFlow<RiwayatUiState>(RiwayatUiState.Loading)
-    val riwayatState: StateFlow<RiwayatUiState> = _riwayatState.asStateFlow()
+    val submitKehadiranState: StateFlow<SubmitKehadiranUiState> = _submitKehadiranState.asStateFlow()    // ========== RIWAYAT STATE (PAGING 3) ==========
+    private val historyPaging = repository.historyPaging
+    private val riwayatStatuses = MutableStateFlow<List<String>>(emptyList())
+    private val riwayatGeneration = MutableStateFlow(0)
+
+    /**
+     * Riwayat ter-paging dari Room, dengan header tanggal disisipkan di antara item.
+     * Filter status dijalankan di query Room, bukan dengan memfilter list di UI.
+     */
+    @OptIn(ExperimentalCoroutinesApi::class)
+    val riwayatPaging: Flow<PagingData<RiwayatListItem>> =
+        combine(riwayatStatuses, riwayatGeneration) { statuses, _ -> statuses }
+            .flatMapLatest { historyPaging.riwayat(it) }
+            .map { data ->
+                data.map { RiwayatListItem.Entry(it) }
+                    .insertSeparators<RiwayatListItem.Entry, RiwayatListItem> { before, after ->
+                        when {
+                            after == null -> null
+                            before?.item?.tanggal == after.item.tanggal -> null
+                            else -> RiwayatListItem.DateHeader(after.item.tanggal, "header_${after.item.id}")
+                        }
+                    }
+            }
+            .cachedIn(viewModelScope)
+
+    // Statistik per status dari semua halaman yang sudah di-cache
+    val riwayatStatusCounts: StateFlow<Map<String, Int>> = historyPaging.riwayatStatusCounts()
+        .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5_000), emptyMap())
+
+    // Jumlah item per tanggal untuk header, mengikuti filter status
+    @OptIn(ExperimentalCoroutinesApi::class)
+    val riwayatDateCounts: StateFlow<Map<String, Int>> = riwayatStatuses
+        .flatMapLatest { historyPaging.riwayatDateCounts(it) }
+        .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5_000), emptyMap())
+
+    // ========== OUTBOX STATE ==========
+    private var lastPendingKeys: Set<Pair<Int, String>> = emptySet()
+
+    /**
+     * Isian kehadiran di outbox lokal yang belum diterima server.
+     * Saat isian pending hilang dari outbox (terkirim oleh worker), data server di-refresh.
+     */
+    val pendingKehadiran: StateFlow<List<PendingKehadiran>> = repository.observePendingKehadiran()
+        .onEach { items ->
+            val pendingKeys = items.filter { it.isPending }.map { it.scheduleId to it.tanggal }.toSet()
+            val synced = lastPendingKeys.any { it !in pendingKeys }
+            lastPendingKeys = pendingKeys
+            if (synced) {
+                loadTodayKehadiranStatus(forceRefresh = true)
+                refreshRiwayat()
+            }
+        }
+        .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5_000), emptyList())
     
     fun loadSchedules(forceRefresh: Boolean = false) {
         // Cancel previous job if exists
@@ -123,8 +187,12 @@ class SiswaViewModel(private val repository: NetworkRepository) : ViewModel() {
                     val (schedules, serverTodayDay) = result.getOrNull() ?: Pair(emptyList(), todayDayName)
                     val finalTodayDay = if (serverTodayDay.isNullOrEmpty()) todayDayName else serverTodayDay
                     if (schedules.isNotEmpty()) {
-                        val groupedByDay = schedules.groupBy { it.dayOfWeek }
-                            .toSortedMap(compareBy { dayOrder(it) })
+                        // Urutan jam ke- disiapkan di sini, bukan di dalam komposisi per hari
+                        val groupedByDay = withContext(Dispatchers.Default) {
+                            schedules.groupBy { it.dayOfWeek }
+                                .mapValues { (_, daySchedules) -> daySchedules.sortedBy { it.period } }
+                                .toSortedMap(compareBy { dayOrder(it) })
+                        }
                         _schedulesState.value = SchedulesUiState.Success(schedules, groupedByDay, finalTodayDay)
                     } else {
                         _schedulesState.value = SchedulesUiState.Success(emptyList(), emptyMap(), finalTodayDay)
@@ -139,6 +207,36 @@ class SiswaViewModel(private val repository: NetworkRepository) : ViewModel() {
         }
     }
 
+    // ========== LIVE UPDATES (PUSH) ==========
+    private var liveUpdatesJob: Job? = null
+
+    /**
+     * Guru pengganti / izin guru hari ini langsung ditambal ke jadwal yang tampil,
+     * tanpa memuat ulang jadwal mingguan. Dipanggil JadwalScreen saat STARTED.
+     */
+    fun startLiveUpdates() {
+        if (liveUpdatesJob?.isActive == true) return
+        val live = repository.liveScheduleUpdates()
+        liveUpdatesJob = viewModelScope.launch {
+            live.events.collect { event ->
+                val state = _schedulesState.value as? SchedulesUiState.Success ?: return@collect
+                val today = SimpleDateFormat("yyyy-MM-dd", Locale.US).format(Date())
+                val schedules = LiveUpdatePatcher.patch(state.schedules, event, today) ?: return@collect
+                _schedulesState.value = state.copy(
+                    schedules = schedules,
+                    groupedByDay = state.groupedByDay.mapValues { (_, daySchedules) ->
+                        LiveUpdatePatcher.patch(daySchedules, event, today) ?: daySchedules
+                    }
+                )
+            }
+        }
+    }
+
+    fun stopLiveUpdates() {
+        liveUpdatesJob?.cancel()
+        liveUpdatesJob = null
+    }
+
     // ========== LOAD TODAY KEHADIRAN STATUS ==========
     /**
      * Load jadwal hari ini berdasarkan waktu HP user
@@ -269,7 +367,19 @@ class SiswaViewModel(private val repository: NetworkRepository) : ViewModel() {
             _submitKehadiranState.value = SubmitKehadiranUiState.Loading
             try {
                 val today = SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(Date())
-                val result = repository.submitKehadiran(scheduleId, today, status, catatan)
+                // Info jadwal ikut disimpan di outbox supaya bisa ditampilkan selagi offline
+                val schedule = (_todayKehadiranState.value as? TodayKehadiranUiState.Success)
+                    ?.data?.schedules?.firstOrNull { it.getActualScheduleId() == scheduleId }
+                val result = repository.submitKehadiran(
+                    scheduleId = scheduleId,
+                    tanggal = today,
+                    status = status,
+                    catatan = catatan,
+                    subject = schedule?.subject,
+                    teacher = schedule?.teacher,
+                    period = schedule?.period ?: 0,
+                    time = schedule?.time
+                )
 
                 if (result.isSuccess) {
                     val response = result.getOrNull()
@@ -279,7 +389,7 @@ class SiswaViewModel(private val repository: NetworkRepository) : ViewModel() {
                         // 1. Refresh today's status (halaman kehadiran)
                         loadTodayKehadiranStatus(forceRefresh = true)
                         // 2. Refresh riwayat (halaman riwayat) - TANPA perlu keluar aplikasi
-                        loadRiwayat(forceRefresh = true)
+                        refreshRiwayat()
                     } else {
                         _submitKehadiranState.value = SubmitKehadiranUiState.Error(
                             response?.message ?: "Gagal menyimpan kehadiran"
@@ -300,41 +410,31 @@ class SiswaViewModel(private val repository: NetworkRepository) : ViewModel() {
         _submitKehadiranState.value = SubmitKehadiranUiState.Idle
     }
 
-    // ========== LOAD RIWAYAT WITH PAGINATION ==========
-    fun loadRiwayat(forceRefresh: Boolean = false, page: Int = 1, limit: Int = 20) {
-        // Cancel previous job if exists
-        riwayatDebounceJob?.cancel()
-
-        riwayatDebounceJob = viewModelScope.launch {
-            // Only show loading for first page
-            if (page == 1) {
-                _riwayatState.value = RiwayatUiState.Loading
-            }
-            try {
-                val result = repository.getKehadiranHistory(forceRefresh, page, limit)
-                if (result.isSuccess) {
-                    val response = result.getOrNull()
-                    // CRITICAL FIX: Always show success even if data is empty
-                    if (response != null && response.success) {
-                        _riwayatState.value = RiwayatUiState.Success(response.data ?: emptyList())
-                    } else {
-                        // Empty data is not an error
-                        _riwayatState.value = RiwayatUiState.Success(emptyList())
-                    }
-                } else {
-                    // Server failure - show empty instead of error
-                    _riwayatState.value = RiwayatUiState.Success(emptyList())
-                }
-            } catch (e: Exception) {
-                // CRITICAL FIX: Show empty instead of error to prevent crash
-                _riwayatState.value = RiwayatUiState.Success(emptyList())
-            }
+    /**
+     * Hapus isian yang ditolak server dari outbox setelah siswa membaca alasannya
+     */
+    fun dismissPendingKehadiran(item: PendingKehadiran) {
+        viewModelScope.launch {
+            repository.dismissPendingKehadiran(item.scheduleId, item.tanggal)
         }
     }
 
-    // ========== LOAD MORE RIWAYAT (PAGINATION) ==========
-    fun loadMoreRiwayat(currentPage: Int, limit: Int = 20) {
-        loadRiwayat(forceRefresh = false, page = currentPage + 1, limit = limit)
+    // ========== RIWAYAT ==========
+    /**
+     * @param statuses kosong = semua status
+     */
+    fun setRiwayatStatusFilter(statuses: List<String>) {
+        riwayatStatuses.value = statuses
+    }
+
+    /**
+     * Muat ulang riwayat dari halaman pertama server (cache Room diganti saat halaman 1 tiba)
+     */
+    fun refreshRiwayat() {
+        viewModelScope.launch {
+            historyPaging.expireRiwayat()
+            riwayatGeneration.value++
+        }
     }
 
     // ========== HELPER FUNCTIONS ==========
@@ -377,9 +477,13 @@ sealed class SubmitKehadiranUiState {
     data class Error(val message: String) : SubmitKehadiranUiState()
 }
 
-sealed class RiwayatUiState {
-    object Loading : RiwayatUiState()
-    data class Success(val data: List<RiwayatItem>) : RiwayatUiState()
-    data class Error(val message: String) : RiwayatUiState()
+sealed class RiwayatListItem {
+    abstract val key: String
+
+    data class DateHeader(val tanggal: String, override val key: String) : RiwayatListItem()
+
+    data class Entry(val item: RiwayatItem) : RiwayatListItem() {
+        override val key: String get() = "riwayat_${item.id}"
+    }
 }
 
@@ -0,0 +1,202 @@
+package com.christopheraldoo.aplikasimonitoringkelas.util
+
+import android.content.Context
+import android.content.SharedPreferences
+import android.util.Log
+import androidx.security.crypto.EncryptedSharedPreferences
+import androidx.security.crypto.MasterKey
+import java.util.concurrent.CopyOnWriteArrayList
+
+/**
+ * Satu-satunya tempat token login disimpan.
+ *
+ * Di disk token ada di EncryptedSharedPreferences; setiap request cukup membaca salinan
+ * [Credentials] di memori (volatile), jadi tidak ada dekripsi/akses prefs di jalur panas.
+ * Penulisan (login, refresh, logout) memperbarui salinan memori dulu, lalu disk, lalu listener.
+ */
+class CredentialStore internal constructor(private val storage: Storage) {
+
+    companion object {
+        private const val TAG = "CredentialStore"
+
+        @Volatile
+        private var INSTANCE: CredentialStore? = null
+
+        fun getInstance(context: Context): CredentialStore {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: CredentialStore(EncryptedPrefsStorage(context.applicationContext ?: context))
+                    .also { INSTANCE = it }
+            }
+        }
+    }
+
+    /**
+     * Token mentah (tanpa "Bearer ") dan waktu kedaluwarsanya dalam epoch ms (null = tidak kedaluwarsa).
+     * Header Authorization dihitung sekali di sini, bukan di setiap request.
+     */
+    class Credentials(val token: String, val expiresAtMs: Long? = null) {
+        val bearer: String = "Bearer $token"
+    }
+
+    /** Penyimpanan di disk; diganti implementasi di memori untuk unit test */
+    interface Storage {
+        fun read(): Credentials?
+        fun write(credentials: Credentials?)
+    }
+
+    fun interface Listener {
+        fun onCredentialsChanged(credentials: Credentials?)
+    }
+
+    @Volatile
+    private var hot: Credentials? = null
+
+    @Volatile
+    private var loaded = false
+
+    private val listeners = CopyOnWriteArrayList<Listener>()
+
+    /** Salinan di memori; disk hanya dibaca sekali per proses */
+    fun current(): Credentials? {
+        if (!loaded) {
+            synchronized(this) {
+                if (!loaded) {
+                    hot = try {
+                        storage.read()
+                    } catch (e: Exception) {
+                        Log.e(TAG, "Gagal membaca token tersimpan: ${e.message}")
+                        null
+                    }
+                    loaded = true
+                }
+            }
+        }
+        return hot
+    }
+
+    fun token(): String? = current()?.token
+
+    /** "Bearer <token>" siap pakai untuk header Authorization */
+    fun bearer(): String? = current()?.bearer
+
+    fun isExpiringWithin(marginMs: Long, nowMs: Long = System.currentTimeMillis()): Boolean {
+        val expiresAt = current()?.expiresAtMs ?: return false
+        return expiresAt - nowMs <= marginMs
+    }
+
+    fun update(token: String, expiresAtMs: Long? = null) {
+        val raw = token.removePrefix("Bearer ").trim()
+        if (raw.isEmpty()) {
+            clear()
+            return
+        }
+        set(Credentials(raw, expiresAtMs))
+    }
+
+    fun clear() = set(null)
+
+    fun addListener(listener: Listener) {
+        listeners.addIfAbsent(listener)
+    }
+
+    fun removeListener(listener: Listener) {
+        listeners.remove(listener)
+    }
+
+    private fun set(credentials: Credentials?) {
+        synchronized(this) {
+            val previous = hot
+            if (loaded && previous?.token == credentials?.token && previous?.expiresAtMs == credentials?.expiresAtMs) return
+            hot = credentials
+            loaded = true
+            try {
+                storage.write(credentials)
+            } catch (e: Exception) {
+                // Salinan memori tetap dipakai sampai proses berakhir
+                Log.e(TAG, "Gagal menyimpan token: ${e.message}")
+            }
+        }
+        listeners.forEach { it.onCredentialsChanged(credentials) }
+    }
+
+    /**
+     * EncryptedSharedPreferences, dibuat saat pertama dipakai (membuka Keystore cukup mahal).
+     * Token lama yang masih tersimpan polos (SessionManager / TokenManager) dipindahkan lalu dihapus.
+     */
+    private class EncryptedPrefsStorage(private val context: Context) : Storage {
+
+        private val prefs: SharedPreferences by lazy { openPrefs() }
+
+        override fun read(): Credentials? {
+            val token = prefs.getString(KEY_TOKEN, null)
+            if (!token.isNullOrEmpty()) {
+                val expiresAt = prefs.getLong(KEY_EXPIRES_AT, -1L).takeIf { it > 0 }
+                return Credentials(token, expiresAt)
+            }
+            return migrateLegacyToken()
+        }
+
+        override fun write(credentials: Credentials?) {
+            prefs.edit().apply {
+                if (credentials == null) {
+                    remove(KEY_TOKEN)
+                    remove(KEY_EXPIRES_AT)
+                } else {
+                    putString(KEY_TOKEN, credentials.token)
+                    if (credentials.expiresAtMs != null) putLong(KEY_EXPIRES_AT, credentials.expiresAtMs) else remove(KEY_EXPIRES_AT)
+                }
+                apply()
+            }
+        }
+
+        private fun openPrefs(): SharedPreferences {
+            return try {
+                val masterKey = MasterKey.Builder(context)
+                    .setKeyScheme(MasterKey.KeyScheme.AES256_GCM)
+                    .build()
+                EncryptedSharedPreferences.create(
+                    context,
+                    PREF_NAME,
+                    masterKey,
+                    EncryptedSharedPreferences.PrefKeyEncryptionScheme.AES256_SIV,
+                    EncryptedSharedPreferences.PrefValueEncryptionScheme.AES256_GCM
+                )
+            } catch (e: Exception) {
+                // Keystore rusak di sebagian perangkat: lebih baik login ulang daripada crash
+                Log.e(TAG, "EncryptedSharedPreferences tidak tersedia, data lama dihapus: ${e.message}")
+                context.deleteSharedPreferences(PREF_NAME)
+                context.getSharedPreferences(FALLBACK_PREF_NAME, Context.MODE_PRIVATE)
+            }
+        }
+
+        private fun migrateLegacyToken(): Credentials? {
+            val session = context.getSharedPreferences(LEGACY_SESSION_PREF, Context.MODE_PRIVATE)
+            val legacy = context.getSharedPreferences(LEGACY_TOKEN_PREF, Context.MODE_PRIVATE)
+            val token = listOf(
+                session.getString(LEGACY_SESSION_KEY, null),
+                session.getString(LEGACY_SESSION_ALT_KEY, null),
+                legacy.getString(LEGACY_TOKEN_KEY, null)
+            ).firstOrNull { !it.isNullOrEmpty() } ?: return null
+
+            val credentials = Credentials(token.removePrefix("Bearer ").trim())
+            write(credentials)
+            session.edit().remove(LEGACY_SESSION_KEY).remove(LEGACY_SESSION_ALT_KEY).apply()
+            legacy.edit().remove(LEGACY_TOKEN_KEY).apply()
+            Log.i(TAG, "Token lama dipindahkan ke penyimpanan terenkripsi")
+            return credentials
+        }
+
+        companion object {
+            private const val PREF_NAME = "MonitoringKelasCredentials"
+            private const val FALLBACK_PREF_NAME = "MonitoringKelasCredentialsFallback"
+            private const val KEY_TOKEN = "token"
+            private const val KEY_EXPIRES_AT = "expiresAt"
+
+            private const val LEGACY_SESSION_PREF = "MonitoringKelasSession"
+            private const val LEGACY_SESSION_KEY = "authToken"
+            private const val LEGACY_SESSION_ALT_KEY = "token"
+            private const val LEGACY_TOKEN_PREF = "app_prefs"
+            private const val LEGACY_TOKEN_KEY = "auth_token"
+        }
+    }
+}
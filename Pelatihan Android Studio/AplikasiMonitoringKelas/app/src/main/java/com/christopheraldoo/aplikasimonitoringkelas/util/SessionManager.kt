@@ -2,9 +2,13 @@ package com.christopheraldoo.aplikasimonitoringkelas.util
 
 import android.content.Context
 import android.content.SharedPreferences
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.UserDataCleaner
 
-class SessionManager(context: Context) {
+class SessionManager(private val context: Context) {
     private val pref: SharedPreferences = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE)
+
+    // Token tidak lagi disimpan polos di sini, lihat CredentialStore
+    private val credentials = CredentialStore.getInstance(context)
     
     companion object {
         private const val PREF_NAME = "MonitoringKelasSession"
@@ -14,17 +18,24 @@ class SessionManager(context: Context) {
         private const val KEY_EMAIL = "userEmail"
         private const val KEY_ROLE = "userRole"
         private const val KEY_CLASS_ID = "userClassId"
-        private const val KEY_TOKEN = "authToken"
     }
     
-    fun createLoginSession(id: Long, name: String, email: String, role: String, token: String, classId: Int? = null) {
+    fun createLoginSession(
+        id: Long,
+        name: String,
+        email: String,
+        role: String,
+        token: String,
+        classId: Int? = null,
+        expiresInSeconds: Long? = null
+    ) {
+        credentials.update(token, expiresInSeconds?.let { System.currentTimeMillis() + it * 1000 })
         pref.edit().apply {
             putBoolean(IS_LOGIN, true)
             putLong(KEY_ID, id)
             putString(KEY_NAME, name)
             putString(KEY_EMAIL, email)
             putString(KEY_ROLE, role)
-            putString(KEY_TOKEN, token) // Save the token
             if (classId != null) {
                 putInt(KEY_CLASS_ID, classId)
             }
@@ -43,6 +54,8 @@ class SessionManager(context: Context) {
     }
 
     fun logoutUser() {
+        UserDataCleaner.clearAsync(context, getUserId())
+        credentials.clear()
         pref.edit().clear().apply()
     }
 
@@ -70,24 +83,10 @@ class SessionManager(context: Context) {
         return role?.takeIf { it.isNotEmpty() }
     }
 
-    fun getAuthToken(): String? {
-        // Try KEY_TOKEN first (new standard)
-        var token = pref.getString(KEY_TOKEN, "")
-        if (token != null && token.isNotEmpty()) {
-            return token
-        }
-        
-        // Fallback to "token" key (used by LoginActivity)
-        token = pref.getString("token", "")
-        return token?.takeIf { it.isNotEmpty() }
-    }
+    fun getAuthToken(): String? = credentials.token()
 
     fun saveAuthToken(token: String) {
-        pref.edit().apply {
-            putString(KEY_TOKEN, token)
-            putString("token", token)  // Also save to "token" key for compatibility
-            apply()
-        }
+        credentials.update(token)
     }
 
     fun getUserClassId(): Int? {
@@ -100,10 +99,14 @@ class SessionManager(context: Context) {
     }
 
     fun logout() {
+        UserDataCleaner.clearAsync(context, getUserId())
+        credentials.clear()
         pref.edit().clear().apply()
     }
 
     fun clearSession() {
+        UserDataCleaner.clearAsync(context, getUserId())
+        credentials.clear()
         pref.edit().clear().apply()
     }
 }
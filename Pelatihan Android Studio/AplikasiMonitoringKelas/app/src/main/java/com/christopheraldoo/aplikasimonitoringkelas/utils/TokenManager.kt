@@ -1,23 +1,20 @@
 package com.christopheraldoo.aplikasimonitoringkelas.utils
 
 import android.content.Context
+import com.christopheraldoo.aplikasimonitoringkelas.util.CredentialStore
 
+// Pembungkus lama, token sebenarnya ada di CredentialStore
 object TokenManager {
-    private const val PREF_NAME = "app_prefs"
-    private const val TOKEN_KEY = "auth_token"
 
     fun saveToken(context: Context, token: String) {
-        val prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE)
-        prefs.edit().putString(TOKEN_KEY, token).apply()
+        CredentialStore.getInstance(context).update(token)
     }
 
     fun getToken(context: Context): String? {
-        val prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE)
-        return prefs.getString(TOKEN_KEY, null)
+        return CredentialStore.getInstance(context).token()
     }
 
     fun clearToken(context: Context) {
-        val prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE)
-        prefs.edit().remove(TOKEN_KEY).apply()
+        CredentialStore.getInstance(context).clear()
     }
 }
\ No newline at end of file
@@ -50,7 +50,8 @@ class AuthViewModel(application: Application) : AndroidViewModel(application) {
                             email = user.email,
                             role = user.role,
                             token = token,
-                            classId = user.classId
+                            classId = user.classId,
+                            expiresInSeconds = response.data?.expiresIn
                         )
 
                         _loginState.value = ApiState.Success(response)
@@ -8,6 +8,7 @@ import androidx.lifecycle.ViewModel
 import androidx.lifecycle.ViewModelProvider
 import androidx.lifecycle.viewModelScope
 import com.christopheraldoo.aplikasimonitoringkelas.data.*
+import com.christopheraldoo.aplikasimonitoringkelas.repository.DataRepository
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.launch
@@ -106,6 +107,7 @@ class UserViewModel(application: Application) : AndroidViewModel(application) {
  */
 class ScheduleViewModel(application: Application) : AndroidViewModel(application) {
     private val repository = ScheduleRepository(application)
+    private val dataRepository = DataRepository(application)
 
     private val _allSchedules = MutableLiveData<List<ScheduleApi>>()
     val allSchedules: LiveData<List<ScheduleApi>> = _allSchedules
@@ -113,12 +115,14 @@ class ScheduleViewModel(application: Application) : AndroidViewModel(application
     private val _saveStatus = MutableStateFlow<SaveResult<ScheduleApi>>(SaveResult.Initial)
     val saveStatus: StateFlow<SaveResult<ScheduleApi>> = _saveStatus
 
-    fun getAllSchedules() {
+    /**
+     * Stale-while-revalidate: jadwal dari cache tampil langsung, lalu diperbarui jika server berubah
+     */
+    fun getAllSchedules(forceRefresh: Boolean = false) {
         viewModelScope.launch {
             try {
-                val response = repository.getAllSchedules()
-                if (response.isSuccessful && response.body()?.success == true) {
-                    _allSchedules.value = response.body()?.data ?: emptyList()
+                dataRepository.getSchedulesStream(forceRefresh = forceRefresh).collect { result ->
+                    result.onSuccess { _allSchedules.value = it }
                 }
             } catch (e: Exception) {
                 _allSchedules.value = emptyList()
@@ -147,7 +151,7 @@ class ScheduleViewModel(application: Application) : AndroidViewModel(application
                     val createdSchedule = response.body()?.data
                     if (createdSchedule != null) {
                         _saveStatus.value = SaveResult.Success(createdSchedule)
-                        getAllSchedules() // Refresh list
+                        getAllSchedules(forceRefresh = true) // Refresh list
                     } else {
                         _saveStatus.value = SaveResult.Error("Failed to create schedule")
                     }
@@ -168,7 +172,7 @@ class ScheduleViewModel(application: Application) : AndroidViewModel(application
                     val updatedSchedule = response.body()?.data
                     if (updatedSchedule != null) {
                         _saveStatus.value = SaveResult.Success(updatedSchedule)
-                        getAllSchedules() // Refresh list
+                        getAllSchedules(forceRefresh = true) // Refresh list
                     } else {
                         _saveStatus.value = SaveResult.Error("Failed to update schedule")
                     }
@@ -186,7 +190,7 @@ class ScheduleViewModel(application: Application) : AndroidViewModel(application
             try {
                 val response = repository.deleteSchedule(scheduleId)
                 if (response.isSuccessful && response.body()?.success == true) {
-                    getAllSchedules() // Refresh list
+                    getAllSchedules(forceRefresh = true) // Refresh list
                 }
             } catch (e: Exception) {
                 // Handle error silently
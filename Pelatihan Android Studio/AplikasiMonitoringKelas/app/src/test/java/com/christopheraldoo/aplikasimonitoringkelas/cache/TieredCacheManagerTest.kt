@@ -0,0 +1,89 @@
+package com.christopheraldoo.aplikasimonitoringkelas.cache
+
+import com.google.gson.reflect.TypeToken
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+class TieredCacheManagerTest {
+
+    @get:Rule
+    val tempFolder = TemporaryFolder()
+
+    private var now = 1_000_000L
+    private val listType = object : TypeToken<List<String>>() {}
+
+    private fun newCache(maxMemoryBytes: Long = 1024, maxDiskBytes: Long = 64 * 1024) =
+        TieredCacheManager(tempFolder.root, maxMemoryBytes, maxDiskBytes) { now }
+
+    @Test
+    fun saveThenGet_servedFromMemory() {
+        val cache = newCache()
+        cache.saveData("users_list", listOf("a", "b"), TieredCacheManager.TTL_SHORT)
+
+        assertEquals(listOf("a", "b"), cache.getData("users_list", listType, TieredCacheManager.TTL_SHORT))
+        assertEquals(1, cache.getStats().memoryHits)
+    }
+
+    @Test
+    fun newInstance_readsFromDisk() {
+        newCache().saveData("teachers_list", listOf("guru"))
+
+        val reopened = newCache()
+        assertTrue(reopened.isCacheValid("teachers_list"))
+        assertEquals(listOf("guru"), reopened.getData("teachers_list", listType))
+        assertEquals(1, reopened.getStats().diskHits)
+    }
+
+    @Test
+    fun expiredEntry_isDropped() {
+        val cache = newCache()
+        cache.saveData("schedules_x", listOf("s"))
+
+        now += TieredCacheManager.TTL_SHORT + 1
+        assertFalse(cache.isCacheValid("schedules_x", TieredCacheManager.TTL_SHORT))
+        assertNull(cache.getData("schedules_x", listType, TieredCacheManager.TTL_SHORT))
+        assertEquals(0, cache.getRemainingTTL("schedules_x", TieredCacheManager.TTL_SHORT))
+    }
+
+    @Test
+    fun memoryTier_evictsLeastRecentlyUsedBySize() {
+        val cache = newCache(maxMemoryBytes = 200)
+        val payload = List(5) { "item-$it" } // ~50 bytes JSON
+
+        repeat(6) { cache.saveData("key_$it", payload) }
+        cache.getData("key_0", listType) // evicted from memory, reloaded from disk
+
+        val stats = cache.getStats()
+        assertTrue(stats.memoryBytes <= 200)
+        assertTrue(stats.memoryEvictions > 0)
+        assertEquals(1, stats.diskHits)
+    }
+
+    @Test
+    fun diskTier_staysWithinBudget() {
+        val cache = newCache(maxDiskBytes = 1024)
+        val payload = List(20) { "attendance-row-$it" }
+
+        repeat(20) { cache.saveData("page_$it", payload) }
+
+        val stats = cache.getStats()
+        assertTrue(stats.diskBytes <= 1024)
+        assertTrue(stats.diskEvictions > 0)
+    }
+
+    @Test
+    fun clearAllCache_removesBothTiers() {
+        val cache = newCache()
+        cache.saveData("users_list", listOf("a"))
+
+        cache.clearAllCache()
+
+        assertNull(newCache().getData("users_list", listType))
+        assertEquals(0, cache.getStats().memoryEntries)
+    }
+}
@@ -0,0 +1,190 @@
+package com.christopheraldoo.aplikasimonitoringkelas.network
+
+import kotlinx.coroutines.runBlocking
+import okhttp3.Cache
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import retrofit2.Retrofit
+import retrofit2.converter.gson.GsonConverterFactory
+import java.security.MessageDigest
+
+class ConditionalGetInterceptorTest {
+
+    @get:Rule
+    val tempFolder = TemporaryFolder()
+
+    private lateinit var server: MockWebServer
+    private lateinit var api: ApiService
+    private lateinit var cache: Cache
+    private val stats = HttpCacheStats()
+
+    @Volatile private var dashboardVersion = 1
+    @Volatile private var chunked = false
+    private val padding = "x".repeat(4_000)
+
+    private fun dashboardBody() =
+        """{"success":true,"message":"Dashboard v$dashboardVersion","data":null,"padding":"$padding"}"""
+
+    private fun sha1(content: String) =
+        MessageDigest.getInstance("SHA-1").digest(content.toByteArray()).joinToString("") { "%02x".format(it) }
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                val path = request.requestUrl?.encodedPath?.removePrefix("/api/") ?: ""
+                return when (path) {
+                    // Sama dengan middleware ConditionalGet di server
+                    "kepala-sekolah/dashboard", "kurikulum/dashboard" -> {
+                        val body = dashboardBody()
+                        val etag = "\"${sha1(body)}\""
+                        val base = MockResponse().setHeader("ETag", etag).setHeader("Cache-Control", "private, no-cache")
+                        when {
+                            request.getHeader("If-None-Match") == etag -> base.setResponseCode(304)
+                            chunked -> base.setChunkedBody(body, 512)
+                            else -> base.setBody(body)
+                        }
+                    }
+                    // Endpoint tanpa middleware etag
+                    "teachers" -> MockResponse()
+                        .setHeader("Cache-Control", "no-cache, private")
+                        .setBody("""{"success":true,"message":"ok","data":[{"id":1,"name":"Bu Sari"}]}""")
+                    else -> MockResponse().setResponseCode(404)
+                }
+            }
+        }
+        server.start()
+
+        cache = Cache(tempFolder.newFolder("http_cache"), 1024 * 1024L)
+        val client = OkHttpClient.Builder()
+            .cache(cache)
+            .addInterceptor(ConditionalGetInterceptor(stats))
+            .addNetworkInterceptor(ValidatorOnlyCacheInterceptor())
+            .build()
+        api = Retrofit.Builder()
+            .baseUrl(server.url("/api/"))
+            .client(client)
+            .addConverterFactory(GsonConverterFactory.create())
+            .build()
+            .create(ApiService::class.java)
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+        cache.close()
+    }
+
+    @Test
+    fun revalidation_returnsCachedBodyAsNotModified_andCountsBytesSaved() = runBlocking {
+        val bodySize = dashboardBody().length.toLong()
+
+        val first = api.getKepsekDashboard("Bearer test", 0)
+        assertFalse(first.isNotModified())
+        val modified = ConditionalResult.of(first)
+        assertTrue(modified is ConditionalResult.Modified)
+        assertNull(server.takeRequest().getHeader("If-None-Match"))
+
+        val second = api.getKepsekDashboard("Bearer test", 0)
+        val etag = (modified as ConditionalResult.Modified).fingerprint
+        assertEquals(etag, server.takeRequest().getHeader("If-None-Match"))
+        assertTrue(second.isNotModified())
+        assertEquals(ConditionalResult.NotModified, ConditionalResult.of(second))
+        // Body tetap tersedia dari cache disk
+        assertEquals("Dashboard v1", second.body()?.message)
+
+        val endpoint = stats.get("GET kepala-sekolah/dashboard")!!
+        assertEquals(1, endpoint.fullResponses)
+        assertEquals(1, endpoint.notModified)
+        assertEquals(bodySize, endpoint.bytesDownloaded)
+        assertEquals(bodySize, endpoint.bytesSaved)
+    }
+
+    @Test
+    fun changedData_isModifiedAgain() = runBlocking {
+        ConditionalResult.of(api.getKepsekDashboard("Bearer test", 0))
+        dashboardVersion = 2
+
+        val result = ConditionalResult.of(api.getKepsekDashboard("Bearer test", 0))
+
+        assertTrue(result is ConditionalResult.Modified)
+        assertEquals("Dashboard v2", (result as ConditionalResult.Modified).body.message)
+        assertEquals(2, stats.get("GET kepala-sekolah/dashboard")?.fullResponses)
+        assertEquals(0, stats.get("GET kepala-sekolah/dashboard")?.notModified)
+    }
+
+    @Test
+    fun chunkedResponse_reportsMeasuredBodySize() = runBlocking {
+        chunked = true
+
+        val response = api.getKepsekDashboard("Bearer test", 0)
+        assertNull(response.headers()["Content-Length"])
+        val result = ConditionalResult.of(response, stats)
+
+        val bytes = (result as ConditionalResult.Modified).bytes
+        assertEquals(dashboardBody().length.toLong(), bytes)
+        assertEquals(bytes, stats.get("GET kepala-sekolah/dashboard")?.bytesDownloaded)
+    }
+
+    @Test
+    fun responsesWithoutValidator_areNotStoredOrRevalidated() = runBlocking {
+        api.getTeachers("Bearer test")
+        val second = api.getTeachers("Bearer test")
+
+        server.takeRequest()
+        assertNull(server.takeRequest().getHeader("If-None-Match"))
+        assertFalse(second.isNotModified())
+        assertFalse(cache.urls().asSequence().any { it.endsWith("/teachers") })
+        assertEquals(2, stats.get("GET teachers")?.fullResponses)
+    }
+
+    @Test
+    fun callerIfNoneMatch_passesRaw304Through() = runBlocking {
+        val first = ConditionalResult.from(api.getKurikulumDashboard("Bearer test"), Any::class.java)
+        val etag = (first as ConditionalResult.Modified).fingerprint
+
+        val response = api.getKurikulumDashboard("Bearer test", ifNoneMatch = etag)
+
+        assertEquals(304, response.code())
+        assertTrue(response.isNotModified())
+        assertEquals(ConditionalResult.NotModified, ConditionalResult.from(response, Any::class.java))
+        val endpoint = stats.get("GET kurikulum/dashboard")!!
+        assertEquals(1, endpoint.notModified)
+        assertEquals(dashboardBody().length.toLong(), endpoint.bytesSaved)
+    }
+
+    @Test
+    fun endpointKey_normalizesIds() {
+        val request = Request.Builder().url("http://10.0.2.2:8000/api/kurikulum/class/12/students?date=2026-10-19").build()
+        assertEquals("GET kurikulum/class/{id}/students", ConditionalGetInterceptor.endpointOf(request))
+    }
+
+    @Test
+    fun autoRefresh_bytesWithAndWithoutCache() = runBlocking {
+        repeat(20) { i ->
+            if (i == 10) dashboardVersion = 2
+            api.getKepsekDashboard("Bearer test", 0)
+        }
+
+        val endpoint = stats.get("GET kepala-sekolah/dashboard")!!
+        assertEquals(2, endpoint.fullResponses)
+        assertEquals(18, endpoint.notModified)
+        assertTrue(endpoint.bytesSaved > endpoint.bytesDownloaded * 8)
+        // Server tetap menerima 20 request; yang berkurang hanya body yang dikirim ulang
+        assertEquals(20, server.requestCount)
+    }
+}
@@ -0,0 +1,225 @@
+package com.christopheraldoo.aplikasimonitoringkelas.network
+
+import com.christopheraldoo.aplikasimonitoringkelas.cache.TieredCacheManager
+import com.christopheraldoo.aplikasimonitoringkelas.data.SubjectApi
+import com.christopheraldoo.aplikasimonitoringkelas.data.TeacherApi
+import com.christopheraldoo.aplikasimonitoringkelas.data.UserApi
+import com.christopheraldoo.aplikasimonitoringkelas.network.DashboardBundleClient.Path
+import com.christopheraldoo.aplikasimonitoringkelas.network.DashboardBundleClient.Section
+import com.google.gson.reflect.TypeToken
+import kotlinx.coroutines.runBlocking
+import okhttp3.OkHttpClient
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import okhttp3.mockwebserver.SocketPolicy
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import retrofit2.Retrofit
+import retrofit2.converter.gson.GsonConverterFactory
+import java.util.Collections
+import java.util.concurrent.atomic.AtomicBoolean
+
+class DashboardBundleClientTest {
+
+    @get:Rule
+    val tempFolder = TemporaryFolder()
+
+    private lateinit var server: MockWebServer
+    private lateinit var api: ApiService
+    private lateinit var cache: TieredCacheManager
+    private val paths = Collections.synchronizedList(mutableListOf<String>())
+
+    // Latensi per request (auth + query + envelope). php artisan serve melayani satu request sekaligus.
+    private val requestLatencyMs = 60L
+    private val serverLock = Any()
+
+    @Volatile private var bundleMode = "ok" // ok, missing-route, truncated
+    @Volatile private var sectionsFail = false
+
+    private val users = """[{"id":1,"nama":"Admin","email":"admin@sekolah.id","role":"admin","class_id":null}]"""
+    private val teachers = """[{"id":1,"user_id":2,"name":"Bu Sari","email":"sari@sekolah.id"},""" +
+        """{"id":2,"user_id":3,"name":"Pak Budi","email":"budi@sekolah.id"}]"""
+    private val subjects = """[{"id":1,"name":"Matematika","code":"MTK"},{"id":2,"name":"Fisika","code":"FIS"}]"""
+    private val classrooms = """[{"id":1,"name":"XII RPL 1","grade":12}]"""
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                val path = request.requestUrl?.encodedPath?.removePrefix("/api/") ?: ""
+                paths.add(path)
+                synchronized(serverLock) { Thread.sleep(requestLatencyMs) }
+
+                if (path == "dashboard/bundle") return bundleResponse(request.requestUrl?.queryParameter("sections").orEmpty())
+                if (sectionsFail) return MockResponse().setResponseCode(500).setBody("""{"success":false,"message":"Server Error"}""")
+                val data = when (path) {
+                    "users" -> users
+                    "teachers" -> teachers
+                    "subjects" -> subjects
+                    "classrooms" -> classrooms
+                    else -> return MockResponse().setResponseCode(404)
+                }
+                return MockResponse().setBody("""{"success":true,"message":"ok","data":$data}""")
+            }
+        }
+        server.start()
+        api = Retrofit.Builder()
+            .baseUrl(server.url("/api/"))
+            .client(OkHttpClient())
+            .addConverterFactory(GsonConverterFactory.create())
+            .build()
+            .create(ApiService::class.java)
+        cache = TieredCacheManager(tempFolder.root)
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    private fun bundleResponse(sections: String): MockResponse {
+        return when (bundleMode) {
+            "missing-route" -> MockResponse().setResponseCode(404).setBody("""{"message":"Not Found"}""")
+            "truncated" -> MockResponse()
+                .setBody("""{"success":true,"message":"ok","data":{"teachers":$teachers,"subjects":[{"id":1,"na""")
+                .setSocketPolicy(SocketPolicy.DISCONNECT_AT_END)
+            else -> {
+                val parts = mutableListOf<String>()
+                val missing = mutableListOf<String>()
+                sections.split(",").forEach { key ->
+                    when (key) {
+                        "users" -> parts.add("\"users\":$users")
+                        "teachers" -> parts.add("\"teachers\":$teachers")
+                        "subjects" -> parts.add("\"subjects\":$subjects")
+                        else -> missing.add("\"$key\"")
+                    }
+                }
+                MockResponse().setBody(
+                    """{"success":true,"message":"Dashboard bundle loaded","data":{${parts.joinToString(",")}},""" +
+                        """"missing":[${missing.joinToString(",")}]}"""
+                )
+            }
+        }
+    }
+
+    // Sama dengan DataRepository.getUsers/getTeachers/...: satu endpoint per section, simpan ke cache sendiri
+    private suspend fun individual(section: Section): Result<List<Any>> {
+        val response = when (section) {
+            Section.USERS -> api.getUsers("Bearer test")
+            Section.TEACHERS -> api.getTeachers("Bearer test")
+            Section.SUBJECTS -> api.getSubjects("Bearer test")
+            Section.CLASSROOMS -> api.getClassrooms("Bearer test")
+        }
+        val body = response.body()
+        if (!response.isSuccessful || body?.success != true) return Result.failure(Exception("HTTP ${response.code()}"))
+        val data: List<Any> = body.data ?: emptyList()
+        cache.saveData(section.cacheKey, data, TieredCacheManager.TTL_SHORT)
+        return Result.success(data)
+    }
+
+    private fun client(routeMissing: AtomicBoolean = AtomicBoolean(false)) = DashboardBundleClient(
+        api = { api },
+        token = { "Bearer test" },
+        cache = cache,
+        fallback = ::individual,
+        routeMissing = routeMissing
+    )
+
+    @Test
+    fun bundle_loadsAllSectionsInOneRequest_andServesNextLoadFromCache() = runBlocking {
+        val client = client()
+
+        val bundle = client.load(Section.DASHBOARD)
+
+        assertEquals(Path.BUNDLE, bundle.path)
+        assertEquals(listOf("dashboard/bundle"), paths)
+        assertEquals("users,teachers,subjects", server.takeRequest().requestUrl?.queryParameter("sections"))
+        assertEquals(listOf("Bu Sari", "Pak Budi"), bundle.get<TeacherApi>(Section.TEACHERS)?.map { it.name })
+        assertEquals("MTK", bundle.get<SubjectApi>(Section.SUBJECTS)?.first()?.code)
+        // Key cache sama dengan yang dibaca DataRepository.getUsers
+        val cachedUsers = cache.getData("users_list", object : TypeToken<List<UserApi>>() {}, TieredCacheManager.TTL_SHORT)
+        assertEquals("admin@sekolah.id", cachedUsers?.single()?.email)
+
+        paths.clear()
+        val again = client.load(Section.DASHBOARD)
+        assertEquals(Path.CACHE, again.path)
+        assertTrue(paths.isEmpty())
+        assertEquals(2, again.get<TeacherApi>(Section.TEACHERS)?.size)
+    }
+
+    @Test
+    fun missingRoute_fallsBackToIndividualCalls_andIsRemembered() = runBlocking {
+        bundleMode = "missing-route"
+        val routeMissing = AtomicBoolean(false)
+
+        val first = client(routeMissing).load(Section.DASHBOARD)
+
+        assertEquals(Path.FALLBACK, first.path)
+        assertTrue(routeMissing.get())
+        assertEquals(setOf("dashboard/bundle", "users", "teachers", "subjects"), paths.toSet())
+        assertEquals(2, first.get<SubjectApi>(Section.SUBJECTS)?.size)
+
+        // Instance lain di proses yang sama tidak mencoba route bundle lagi
+        paths.clear()
+        val second = client(routeMissing).load(Section.DASHBOARD, forceRefresh = true)
+        assertEquals(Path.FALLBACK, second.path)
+        assertFalse(paths.contains("dashboard/bundle"))
+        assertEquals(3, paths.size)
+    }
+
+    @Test
+    fun sectionMissingFromBundle_isFetchedIndividually() = runBlocking {
+        val bundle = client().load(listOf(Section.TEACHERS, Section.CLASSROOMS))
+
+        assertEquals(Path.MIXED, bundle.path)
+        assertEquals(listOf("dashboard/bundle", "classrooms"), paths)
+        assertEquals(2, bundle.requests)
+        assertEquals(2, bundle.get<TeacherApi>(Section.TEACHERS)?.size)
+        assertEquals(1, bundle.get<Any>(Section.CLASSROOMS)?.size)
+    }
+
+    @Test
+    fun truncatedBundle_writesNoSection() = runBlocking {
+        bundleMode = "truncated"
+        sectionsFail = true
+
+        val bundle = client().load(listOf(Section.TEACHERS, Section.SUBJECTS))
+
+        // teachers sudah lengkap di body, tapi tidak boleh masuk cache tanpa subjects
+        assertFalse(cache.isCacheValid("teachers_list", TieredCacheManager.TTL_SHORT))
+        assertFalse(cache.isCacheValid("subjects_list", TieredCacheManager.TTL_SHORT))
+        assertNull(bundle.get<TeacherApi>(Section.TEACHERS))
+        assertEquals(setOf(Section.TEACHERS, Section.SUBJECTS), bundle.failures.keys)
+    }
+
+    @Test
+    fun timeToFirstContent_bundleVsIndividualCalls() = runBlocking {
+        val sections = listOf(Section.USERS, Section.TEACHERS, Section.SUBJECTS, Section.CLASSROOMS)
+
+        // Perilaku lama getDashboardData: satu per satu
+        val sequentialStart = System.currentTimeMillis()
+        sections.forEach { individual(it).getOrThrow() }
+        val sequentialMs = System.currentTimeMillis() - sequentialStart
+
+        val fallback = client(AtomicBoolean(true)).load(sections, forceRefresh = true)
+        val bundle = client().load(sections, forceRefresh = true)
+
+        assertEquals(Path.FALLBACK, fallback.path)
+        assertEquals(4, fallback.requests)
+        assertEquals(Path.MIXED, bundle.path)
+        assertEquals(2, bundle.requests)
+        assertTrue(fallback.failures.isEmpty() && bundle.failures.isEmpty())
+        assertTrue(bundle.timeToContentMs < fallback.timeToContentMs)
+        assertTrue(bundle.timeToContentMs < sequentialMs)
+    }
+}
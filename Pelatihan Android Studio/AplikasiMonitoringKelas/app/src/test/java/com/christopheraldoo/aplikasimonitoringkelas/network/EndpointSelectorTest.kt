@@ -0,0 +1,111 @@
+package com.christopheraldoo.aplikasimonitoringkelas.network
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitCancellation
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+class EndpointSelectorTest {
+
+    private val emulator = "http://10.0.2.2:8000/api/"
+    private val lan = "http://192.168.1.10:8000/api/"
+    private val dead = "http://10.99.99.99:8000/api/"
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+    private val probes = AtomicInteger()
+
+    private class MemoryStore : EndpointSelector.WinnerStore {
+        val winners = ConcurrentHashMap<String, String>()
+        override fun read(networkKey: String): String? = winners[networkKey]
+        override fun write(networkKey: String, baseUrl: String) {
+            winners[networkKey] = baseUrl
+        }
+    }
+
+    private val store = MemoryStore()
+
+    @After
+    fun tearDown() {
+        scope.cancel()
+    }
+
+    // Latensi palsu per host; host yang tidak ada di map tidak pernah menjawab
+    private fun selector(latencies: Map<String, Long>, budgetMs: Long = 300L) = EndpointSelector(
+        candidates = listOf(emulator, lan, dead),
+        probe = { baseUrl ->
+            probes.incrementAndGet()
+            val latency = latencies[baseUrl] ?: awaitCancellation()
+            delay(latency)
+            latency
+        },
+        store = store,
+        scope = scope,
+        probeBudgetMs = budgetMs,
+        reprobeIntervalMs = 60_000L
+    )
+
+    @Test
+    fun fastestHealthyCandidateWins_andIsRememberedPerNetwork() = runBlocking {
+        val selector = selector(mapOf(emulator to 120L, lan to 20L))
+        selector.onNetworkChanged("wifi:Lab RPL")
+
+        assertEquals(lan, selector.refresh())
+        assertEquals(lan, selector.current())
+        assertEquals(lan, store.winners["wifi:Lab RPL"])
+    }
+
+    @Test
+    fun deadHostNeverDelaysSelectionBeyondTheBudget() = runBlocking {
+        val selector = selector(emptyMap(), budgetMs = 200L)
+
+        val startedAt = System.currentTimeMillis()
+        val selected = selector.refresh(force = true)
+
+        assertNull(selected)
+        assertTrue(System.currentTimeMillis() - startedAt < 1_000L)
+    }
+
+    @Test
+    fun rememberedWinnerIsUsedImmediately_whenReturningToANetwork() = runBlocking {
+        store.winners["wifi:Rumah"] = emulator
+        val selector = selector(mapOf(emulator to 200L, lan to 250L), budgetMs = 1_000L)
+
+        selector.onNetworkChanged("wifi:Rumah")
+
+        // Probe belum selesai, pilihan tersimpan sudah dipakai
+        assertEquals(emulator, selector.current())
+    }
+
+    @Test
+    fun failure_movesToNextFastestHealthy_withoutWaitingForAProbe() = runBlocking {
+        val selector = selector(mapOf(emulator to 10L, lan to 40L))
+        selector.onNetworkChanged("wifi:Lab RPL")
+        assertEquals(emulator, selector.refresh())
+        // Tunggu probe lan ikut tercatat
+        delay(100)
+
+        assertEquals(lan, selector.reportFailure(emulator))
+        assertEquals(lan, selector.current())
+    }
+
+    @Test
+    fun concurrentRefreshes_shareOneProbeRound() = runBlocking {
+        val selector = selector(mapOf(emulator to 50L, lan to 60L))
+
+        val results = List(10) { async { selector.refresh(force = true) } }.map { it.await() }
+
+        assertTrue(results.all { it == emulator })
+        assertEquals(3, probes.get())
+    }
+}
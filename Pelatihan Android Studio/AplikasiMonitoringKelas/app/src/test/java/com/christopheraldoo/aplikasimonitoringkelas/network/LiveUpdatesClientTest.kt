@@ -0,0 +1,165 @@
+package com.christopheraldoo.aplikasimonitoringkelas.network
+
+import com.christopheraldoo.aplikasimonitoringkelas.data.ScheduleChangeEvent
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.launch
+import okhttp3.OkHttpClient
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.util.Collections
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.random.Random
+
+class LiveUpdatesClientTest {
+
+    private lateinit var server: MockWebServer
+    private lateinit var scope: CoroutineScope
+    private val lastEventIds = Collections.synchronizedList(mutableListOf<String?>())
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+    }
+
+    @After
+    fun tearDown() {
+        scope.cancel()
+        server.shutdown()
+    }
+
+    private fun waitUntil(timeoutMs: Long = 5_000L, condition: () -> Boolean) {
+        val deadline = System.currentTimeMillis() + timeoutMs
+        while (!condition()) {
+            assertTrue("timeout menunggu kondisi", System.currentTimeMillis() < deadline)
+            Thread.sleep(5)
+        }
+    }
+
+    private fun sse(vararg events: String) = MockResponse()
+        .setHeader("Content-Type", "text/event-stream")
+        .setBody(events.joinToString(separator = "") + ": ping\n\n")
+
+    private fun event(id: Long, scheduleId: Int, field: String, value: String, type: String = "schedule") =
+        "id: $id\nevent: $type\n" +
+            """data: {"id":$id,"schedule_id":$scheduleId,"date":"2026-10-18","field":"$field","value":"$value"}""" + "\n\n"
+
+    private fun serve(responses: (Int) -> MockResponse) {
+        val calls = AtomicInteger()
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                lastEventIds.add(request.getHeader("Last-Event-ID"))
+                return responses(calls.getAndIncrement())
+            }
+        }
+        server.start()
+    }
+
+    private fun client(random: Random = Random(7)) = LiveUpdatesClient(
+        OkHttpClient(),
+        server.url("/api/${LiveUpdatesClient.PATH}").toString(),
+        scope,
+        initialBackoffMs = 10L,
+        maxBackoffMs = 80L,
+        random = random
+    )
+
+    @Test
+    fun events_arriveInOrder_andReconnectResumesFromLastEventId() {
+        serve { call ->
+            when (call) {
+                0 -> sse(event(1, 10, "status", "diganti"), event(2, 10, "substitute_teacher", "Bu Rina"))
+                1 -> sse(event(3, 11, "status", "izin"))
+                else -> sse()
+            }
+        }
+        val client = client()
+        val received = Collections.synchronizedList(mutableListOf<ScheduleChangeEvent>())
+        scope.launch { client.events.collect { received.add(it) } }
+
+        waitUntil { received.size == 3 }
+
+        assertEquals(listOf(1L, 2L, 3L), received.map { it.id })
+        assertEquals("Bu Rina", received[1].value)
+        assertEquals(ScheduleChangeEvent.FIELD_STATUS, received[2].field)
+        // Koneksi pertama tanpa header, berikutnya melanjutkan dari id terakhir
+        assertNull(lastEventIds[0])
+        assertEquals("2", lastEventIds[1])
+        waitUntil { lastEventIds.size >= 3 }
+        assertEquals("3", lastEventIds[2])
+    }
+
+    @Test
+    fun serverErrors_backOff_thenConnect() {
+        serve { call ->
+            if (call < 3) MockResponse().setResponseCode(503)
+            else sse(event(5, 10, "status", "hadir"))
+        }
+        val client = client()
+        val received = Collections.synchronizedList(mutableListOf<ScheduleChangeEvent>())
+        scope.launch { client.events.collect { received.add(it) } }
+
+        waitUntil { received.isNotEmpty() }
+        assertEquals(5L, received.single().id)
+        assertTrue("reconnect=${client.reconnectCount()}", client.reconnectCount() >= 3)
+    }
+
+    @Test
+    fun unknownTypesAndBrokenPayloads_areSkipped_butAdvanceLastEventId() {
+        serve { call ->
+            if (call == 0) {
+                sse(
+                    event(1, 10, "status", "hadir", type = "other"),
+                    "id: 2\nevent: schedule\ndata: {bukan json\n\n",
+                    event(3, 10, "status", "telat")
+                )
+            } else sse()
+        }
+        val client = client()
+        val received = Collections.synchronizedList(mutableListOf<ScheduleChangeEvent>())
+        scope.launch { client.events.collect { received.add(it) } }
+
+        waitUntil { received.isNotEmpty() && client.lastEventId == "3" }
+        assertEquals(listOf(3L), received.map { it.id })
+    }
+
+    @Test
+    fun connectedState_followsTheStream() {
+        serve { call ->
+            // Stream pertama tetap terbuka (body dikirim pelan), sesudahnya server menolak
+            if (call == 0) sse(event(1, 10, "status", "hadir")).throttleBody(16, 1, TimeUnit.SECONDS)
+            else MockResponse().setResponseCode(503)
+        }
+        val client = client()
+        val job = scope.launch { client.events.collect { } }
+
+        waitUntil { client.connected.value }
+        server.shutdown()
+        waitUntil { !client.connected.value }
+        job.cancel()
+    }
+
+    @Test
+    fun backoff_growsExponentially_withJitterWithinBounds() {
+        serve { sse() }
+        val client = client(Random(42))
+
+        for (failures in 1..8) {
+            val capped = (10L shl (failures - 1)).coerceAtMost(80L)
+            val delay = client.backoffDelay(failures)
+            assertTrue("failures=$failures delay=$delay", delay in capped / 2..capped)
+        }
+    }
+}
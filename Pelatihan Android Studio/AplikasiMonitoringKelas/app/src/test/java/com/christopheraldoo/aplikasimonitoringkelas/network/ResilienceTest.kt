@@ -0,0 +1,169 @@
+package com.christopheraldoo.aplikasimonitoringkelas.network
+
+import com.christopheraldoo.aplikasimonitoringkelas.data.KehadiranSubmitRequest
+import kotlinx.coroutines.runBlocking
+import okhttp3.OkHttpClient
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Before
+import org.junit.Test
+import retrofit2.Retrofit
+import retrofit2.converter.gson.GsonConverterFactory
+
+class ResilienceTest {
+
+    private lateinit var server: MockWebServer
+    private var now = 0L
+
+    private val okJson = """{"success":true,"data":[{"id":1,"nama":"XII RPL 1"}]}"""
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    private fun apiWith(resilience: Resilience): ApiService {
+        return Retrofit.Builder()
+            .baseUrl(server.url("/api/"))
+            .client(OkHttpClient.Builder().addInterceptor(ResilienceInterceptor(resilience)).build())
+            .addCallAdapterFactory(ResilientCallAdapterFactory(resilience))
+            .addConverterFactory(GsonConverterFactory.create())
+            .build()
+            .create(ApiService::class.java)
+    }
+
+    private fun fastConfig() = Resilience.Config(baseBackoffMs = 5, maxBackoffMs = 20)
+
+    private fun alwaysRespond(code: Int) {
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest) = MockResponse().setResponseCode(code)
+        }
+    }
+
+    @Test
+    fun transientServerErrors_areRetriedUntilSuccess() = runBlocking {
+        val resilience = Resilience(fastConfig(), clock = { now })
+        server.enqueue(MockResponse().setResponseCode(503))
+        server.enqueue(MockResponse().setResponseCode(503))
+        server.enqueue(MockResponse().setBody(okJson))
+
+        val response = apiWith(resilience).getFilterClasses("Bearer test")
+
+        assertTrue(response.isSuccessful)
+        assertEquals(3, server.requestCount)
+        val stats = resilience.getStats().getValue("getFilterClasses")
+        assertEquals(3, stats.attempts)
+        assertEquals(2, stats.retries)
+        assertEquals(1, stats.successes)
+    }
+
+    @Test
+    fun nonIdempotentPost_isNotRetriedOnServerError() = runBlocking {
+        val resilience = Resilience(fastConfig(), clock = { now })
+        alwaysRespond(503)
+
+        val response = apiWith(resilience).submitKehadiran(
+            "Bearer test",
+            KehadiranSubmitRequest(scheduleId = 1, tanggal = "2026-10-12", status = "hadir")
+        )
+
+        assertEquals(503, response.code())
+        assertEquals(1, server.requestCount)
+    }
+
+    @Test
+    fun openBreaker_shortCircuitsWithoutHittingServer_andHalfOpenProbeCloses() = runBlocking {
+        val resilience = Resilience(
+            Resilience.Config(maxRetries = 0, failureThreshold = 3, openTimeoutMs = 30_000),
+            clock = { now }
+        )
+        val api = apiWith(resilience)
+        alwaysRespond(500)
+
+        repeat(3) { api.getFilterClasses("Bearer test") }
+        assertEquals(3, server.requestCount)
+        assertEquals(Resilience.CircuitBreaker.State.OPEN, resilience.getBreakerState(server.hostName))
+
+        try {
+            api.getFilterClasses("Bearer test")
+            fail("Expected CircuitBreakerOpenException")
+        } catch (e: CircuitBreakerOpenException) {
+            // expected
+        }
+        assertEquals(3, server.requestCount)
+
+        now += 30_000
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest) = MockResponse().setBody(okJson)
+        }
+        assertTrue(api.getFilterClasses("Bearer test").isSuccessful)
+        assertEquals(Resilience.CircuitBreaker.State.CLOSED, resilience.getBreakerState(server.hostName))
+
+        val stats = resilience.getStats().getValue("getFilterClasses")
+        assertEquals(1, stats.trips)
+        assertEquals(1, stats.shortCircuits)
+    }
+
+    @Test
+    fun halfOpen_allowsExactlyOneProbe() {
+        val breaker = Resilience.CircuitBreaker(failureThreshold = 1, openTimeoutMs = 1_000, clock = { now })
+        assertTrue(breaker.onFailure())
+        assertFalse(breaker.tryAcquire())
+
+        now += 1_000
+        assertTrue(breaker.tryAcquire())
+        assertFalse(breaker.tryAcquire())
+
+        // Probe gagal membuka breaker lagi dengan timer baru
+        assertTrue(breaker.onFailure())
+        assertFalse(breaker.tryAcquire())
+    }
+
+    @Test
+    fun retryBudget_capsRetriesDuringOutage() = runBlocking {
+        val resilience = Resilience(
+            Resilience.Config(
+                maxRetries = 5,
+                baseBackoffMs = 1,
+                maxBackoffMs = 2,
+                failureThreshold = 1_000,
+                budgetMaxTokens = 2.0,
+                budgetDepositPerRequest = 0.0
+            ),
+            clock = { now }
+        )
+        val api = apiWith(resilience)
+        alwaysRespond(503)
+
+        repeat(3) { api.getFilterClasses("Bearer test") }
+
+        // 3 attempt pertama + hanya 2 retry dari budget
+        assertEquals(5, server.requestCount)
+        val stats = resilience.getStats().getValue("getFilterClasses")
+        assertEquals(2, stats.retries)
+        assertEquals(3, stats.budgetExhausted)
+    }
+
+    @Test
+    fun backoff_staysWithinJitterCeiling() {
+        val resilience = Resilience(Resilience.Config(baseBackoffMs = 500, maxBackoffMs = 8_000))
+        repeat(1_000) {
+            assertTrue(resilience.backoffMs(0) in 0..500)
+            assertTrue(resilience.backoffMs(3) in 0..4_000)
+            assertTrue(resilience.backoffMs(10) in 0..8_000)
+        }
+    }
+}
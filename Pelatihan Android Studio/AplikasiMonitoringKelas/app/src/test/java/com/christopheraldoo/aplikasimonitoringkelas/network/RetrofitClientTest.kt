@@ -0,0 +1,61 @@
+package com.christopheraldoo.aplikasimonitoringkelas.network
+
+import android.content.ContextWrapper
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Before
+import org.junit.Test
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class RetrofitClientTest {
+
+    private val context = object : ContextWrapper(null) {}
+
+    @Before
+    fun setUp() {
+        RetrofitClient.resetForTesting(NetworkConfig.BaseUrls.getEmulatorUrl())
+    }
+
+    @After
+    fun tearDown() {
+        RetrofitClient.resetForTesting()
+    }
+
+    @Test
+    fun repeatedCalls_buildExactlyOneClient() {
+        val first = RetrofitClient.getAuthenticatedInstance(context)
+
+        repeat(1_000) {
+            assertSame(first, RetrofitClient.getAuthenticatedInstance(context))
+        }
+
+        assertEquals(1, RetrofitClient.getClientCreationCount())
+    }
+
+    @Test
+    fun concurrentCalls_buildExactlyOneClient() {
+        val pool = Executors.newFixedThreadPool(8)
+        repeat(1_000) {
+            pool.execute { RetrofitClient.createApiService(context) }
+        }
+        pool.shutdown()
+        pool.awaitTermination(10, TimeUnit.SECONDS)
+
+        assertEquals(1, RetrofitClient.getClientCreationCount())
+    }
+
+    @Test
+    fun flippingBaseUrl_rebuildsClientOnce() {
+        val beforeFlip = RetrofitClient.getAuthenticatedInstance(context)
+
+        RetrofitClient.markConnectionFailureAndFlipBaseUrl(context)
+        val afterFlip = RetrofitClient.getAuthenticatedInstance(context)
+        repeat(100) { RetrofitClient.getAuthenticatedInstance(context) }
+
+        assertNotSame(beforeFlip, afterFlip)
+        assertEquals(2, RetrofitClient.getClientCreationCount())
+    }
+}
@@ -0,0 +1,161 @@
+package com.christopheraldoo.aplikasimonitoringkelas.network
+
+import com.christopheraldoo.aplikasimonitoringkelas.data.FilterClassesResponse
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeout
+import okhttp3.OkHttpClient
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import retrofit2.Retrofit
+import retrofit2.converter.gson.GsonConverterFactory
+import java.util.concurrent.TimeUnit
+
+class SingleFlightTest {
+
+    private lateinit var server: MockWebServer
+    private lateinit var api: ApiService
+
+    private val filterClassesJson = """{"success":true,"data":[{"id":1,"nama":"XII RPL 1"}]}"""
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+        api = Retrofit.Builder()
+            .baseUrl(server.url("/api/"))
+            .client(OkHttpClient())
+            .addConverterFactory(GsonConverterFactory.create())
+            .build()
+            .create(ApiService::class.java)
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    private fun enqueueSlowResponse() {
+        server.enqueue(
+            MockResponse()
+                .setBody(filterClassesJson)
+                .setHeadersDelay(300, TimeUnit.MILLISECONDS)
+        )
+    }
+
+    @Test
+    fun fiftyConcurrentIdenticalCalls_sendOneHttpRequest() = runBlocking {
+        enqueueSlowResponse()
+        val flight = SingleFlight<FilterClassesResponse>("kurikulum/filter/classes")
+
+        val results = List(50) {
+            async(Dispatchers.Default) {
+                flight.execute { api.getFilterClasses("Bearer test").body()!! }
+            }
+        }.awaitAll()
+
+        assertEquals(1, server.requestCount)
+        assertEquals(1, flight.getExecutionCount())
+        assertEquals(49, flight.getJoinCount())
+        assertTrue(results.all { it == results.first() })
+    }
+
+    @Test
+    fun differentParams_doNotShareRequest() = runBlocking {
+        enqueueSlowResponse()
+        enqueueSlowResponse()
+        val flight = SingleFlight<FilterClassesResponse>("kurikulum/filter/classes")
+
+        listOf("hadir", "telat").map { status ->
+            async(Dispatchers.Default) {
+                flight.execute(status) { api.getFilterClasses("Bearer test").body()!! }
+            }
+        }.awaitAll()
+
+        assertEquals(2, server.requestCount)
+    }
+
+    @Test
+    fun memoizedResult_isReusedUntilForceRefresh() = runBlocking {
+        enqueueSlowResponse()
+        enqueueSlowResponse()
+        val flight = SingleFlight<FilterClassesResponse>("kurikulum/filter/classes", memoizeMs = 60_000L)
+
+        flight.execute { api.getFilterClasses("Bearer test").body()!! }
+        flight.execute { api.getFilterClasses("Bearer test").body()!! }
+        assertEquals(1, server.requestCount)
+        assertEquals(1, flight.getMemoHitCount())
+
+        flight.execute(forceRefresh = true) { api.getFilterClasses("Bearer test").body()!! }
+        assertEquals(2, server.requestCount)
+    }
+
+    @Test
+    fun soleCallerCancelled_cancelsRequest() = runBlocking {
+        val flight = SingleFlight<String>("export")
+        val started = CompletableDeferred<Unit>()
+        val blockCancelled = CompletableDeferred<Unit>()
+
+        val caller = launch(Dispatchers.Default) {
+            flight.execute {
+                started.complete(Unit)
+                try {
+                    delay(10_000)
+                    "selesai"
+                } catch (e: CancellationException) {
+                    blockCancelled.complete(Unit)
+                    throw e
+                }
+            }
+        }
+        started.await()
+        caller.cancel()
+
+        withTimeout(2_000) { blockCancelled.await() }
+        // Caller berikutnya memulai request baru, bukan menunggu request yang sudah dibatalkan
+        assertEquals("baru", flight.execute { "baru" })
+        assertEquals(2, flight.getExecutionCount())
+    }
+
+    @Test
+    fun oneOfTwoCallersCancelled_requestKeepsRunning() = runBlocking {
+        val flight = SingleFlight<String>("export")
+        val started = CompletableDeferred<Unit>()
+        val release = CompletableDeferred<Unit>()
+        var blockCancelled = false
+        val block: suspend () -> String = {
+            started.complete(Unit)
+            try {
+                release.await()
+                "selesai"
+            } catch (e: CancellationException) {
+                blockCancelled = true
+                throw e
+            }
+        }
+
+        val first = launch(Dispatchers.Default) { flight.execute(block = block) }
+        started.await()
+        val second = async(Dispatchers.Default) { flight.execute(block = block) }
+        // Tunggu sampai caller kedua ikut bergabung
+        withTimeout(2_000) { while (flight.getJoinCount() == 0L) delay(10) }
+        first.cancel()
+        release.complete(Unit)
+
+        assertEquals("selesai", second.await())
+        assertFalse(blockCancelled)
+        assertEquals(1, flight.getExecutionCount())
+    }
+}
@@ -0,0 +1,163 @@
+package com.christopheraldoo.aplikasimonitoringkelas.network
+
+import com.christopheraldoo.aplikasimonitoringkelas.data.KurikulumAttendanceHistoryItem
+import com.christopheraldoo.aplikasimonitoringkelas.data.PaginationInfo
+import kotlinx.coroutines.runBlocking
+import okhttp3.OkHttpClient
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import retrofit2.Retrofit
+import retrofit2.converter.gson.GsonConverterFactory
+import java.io.Reader
+import java.io.StringReader
+
+class StreamingExportTest {
+
+    @get:Rule
+    val tmp = TemporaryFolder()
+
+    private lateinit var server: MockWebServer
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    private fun exportRow(i: Int) =
+        """{"tanggal":"2026-10-${(i % 28 + 1).toString().padStart(2, '0')}","hari":"Senin","jam_ke":"${i % 10 + 1}",""" +
+            """"waktu":"07:00 - 07:45","kelas":"XII RPL ${i % 3 + 1}","mata_pelajaran":"Matematika",""" +
+            """"guru_asli":"Guru $i","guru_pengganti":null,"status":"hadir","jam_masuk":"07:0${i % 10}",""" +
+            """"keterangan":"Catatan baris $i"}"""
+
+    /**
+     * Body export sintetis yang dibangkitkan sambil dibaca, jadi test tidak menyimpan seluruh
+     * JSON di heap dan yang terukur hanya memori milik parser + writer.
+     */
+    private class SyntheticExportReader(private val rows: Int, private val row: (Int) -> String) : Reader() {
+        private var next = 0
+        private var chunk: String =
+            """{"success":true,"message":"Data export berhasil diambil","date_range":{"from":"2026-10-01","to":"2026-10-31"},""" +
+                """"total_records":$rows,"data":["""
+        private var pos = 0
+        private var finished = false
+
+        override fun read(buf: CharArray, off: Int, len: Int): Int {
+            if (pos >= chunk.length) {
+                if (finished) return -1
+                chunk = when {
+                    next < rows -> (if (next > 0) "," else "") + row(next++)
+                    else -> "]}".also { finished = true }
+                }
+                pos = 0
+            }
+            val n = minOf(len, chunk.length - pos)
+            chunk.toCharArray(buf, off, pos, pos + n)
+            pos += n
+            return n
+        }
+
+        override fun close() {}
+    }
+
+    private fun usedHeapAfterGc(): Long {
+        val rt = Runtime.getRuntime()
+        repeat(2) { System.gc() }
+        return rt.totalMemory() - rt.freeMemory()
+    }
+
+    @Test
+    fun export100kRows_heapStaysFlat() {
+        val rows = 100_000
+        val target = tmp.newFile("export.csv")
+        val baseline = usedHeapAfterGc()
+        var peak = 0L
+
+        val result = AttendanceCsvExporter().export(SyntheticExportReader(rows, ::exportRow), target) { count ->
+            if (count % 20_000 == 0) peak = maxOf(peak, usedHeapAfterGc() - baseline)
+        }
+
+        assertTrue(result.success)
+        assertEquals(rows, result.totalRecords)
+        assertEquals(AttendanceCsvExporter.DEFAULT_PREVIEW_SIZE, result.preview.size)
+        assertEquals("2026-10-01", result.dateRange?.from)
+        assertEquals(rows + 1L, target.bufferedReader().useLines { it.count().toLong() })
+        // List<ExportItem> berisi 100k baris butuh puluhan MB; streaming hanya menahan preview + buffer
+        assertTrue("heap tertahan ${peak / 1024} KB", peak < 8L * 1024 * 1024)
+    }
+
+    @Test
+    fun streamingEndpoint_writesEscapedCsvThroughRetrofit() = runBlocking {
+        val body = StringBuilder("""{"success":true,"total_records":2,"data":[""")
+            .append("""{"tanggal":"2026-10-12","kelas":"XII RPL 1","status":null,"keterangan":"Izin, rapat \"MGMP\""},""")
+            .append("""{"tanggal":"2026-10-13","kelas":"XII RPL 2","status":"telat","keterangan":"Baris\nbaru"}""")
+            .append("]}")
+        server.enqueue(MockResponse().setBody(body.toString()))
+        val api = Retrofit.Builder()
+            .baseUrl(server.url("/api/"))
+            .client(OkHttpClient())
+            .addConverterFactory(GsonConverterFactory.create())
+            .build()
+            .create(ApiService::class.java)
+
+        val response = api.exportAttendance("Bearer test", dateFrom = "2026-10-01")
+        val target = tmp.newFile("kehadiran.csv")
+        val result = AttendanceCsvExporter().export(response.body()!!, target)
+
+        assertTrue(result.success)
+        assertEquals(2, result.totalRecords)
+        assertEquals("2026-10-01", server.takeRequest().requestUrl?.queryParameter("date_from"))
+        val csv = target.readText()
+        assertTrue(csv.startsWith(AttendanceCsvExporter.HEADER + "\n"))
+        assertTrue(csv.contains("2026-10-12,,,,XII RPL 1,,,,pending,,\"Izin, rapat \"\"MGMP\"\"\"\n"))
+        assertTrue(csv.contains("telat,,\"Baris\nbaru\"\n"))
+    }
+
+    @Test
+    fun failedExport_leavesNoFileBehind() {
+        val target = tmp.root.resolve("gagal.csv")
+
+        val result = AttendanceCsvExporter().export(
+            StringReader("""{"success":false,"message":"Tidak ada data","data":[]}"""),
+            target
+        )
+
+        assertFalse(result.success)
+        assertEquals("Tidak ada data", result.message)
+        assertFalse(target.exists())
+        assertFalse(tmp.root.resolve("gagal.csv.part").exists())
+    }
+
+    @Test
+    fun historyWindow_capsRowsAndReadsPaginationAfterData() {
+        val items = (1..50).joinToString(",") {
+            """{"id":$it,"date":"2026-10-12","class_name":"XII RPL 1","subject_name":"Matematika",""" +
+                """"teacher_id":$it,"teacher_name":"Guru $it","status":"hadir","created_at":"2026-10-12 07:00:00"}"""
+        }
+        // pagination sengaja ditaruh setelah data
+        val json = """{"success":true,"data":[$items],"pagination":{"current_page":1,"per_page":20,"total":50,"last_page":3}}"""
+        val window = PagedWindow<KurikulumAttendanceHistoryItem>(20)
+
+        val envelope = JsonEnvelopeStreamer.of<KurikulumAttendanceHistoryItem>().read(StringReader(json)) { window.offer(it) }
+
+        assertTrue(envelope.success)
+        assertEquals(50, envelope.rowCount)
+        assertEquals(20, window.items.size)
+        assertTrue(window.isTruncated)
+        assertEquals(1, window.items.first().id)
+        assertEquals(3, envelope.get("pagination", PaginationInfo::class.java)?.lastPage)
+    }
+}
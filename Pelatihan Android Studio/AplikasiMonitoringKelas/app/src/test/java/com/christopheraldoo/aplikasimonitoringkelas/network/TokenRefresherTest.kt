@@ -0,0 +1,250 @@
+package com.christopheraldoo.aplikasimonitoringkelas.network
+
+import com.christopheraldoo.aplikasimonitoringkelas.data.ApiResponse
+import com.christopheraldoo.aplikasimonitoringkelas.data.RefreshTokenData
+import com.christopheraldoo.aplikasimonitoringkelas.util.CredentialStore
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import okhttp3.Call
+import okhttp3.Callback
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.ResponseBody.Companion.toResponseBody
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import retrofit2.Response
+import java.io.IOException
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class TokenRefresherTest {
+
+    /** Penyimpanan di memori; [reads] menghitung akses "disk" */
+    private class FakeStorage(var saved: CredentialStore.Credentials? = null) : CredentialStore.Storage {
+        val reads = AtomicInteger()
+        val writes = AtomicInteger()
+        override fun read(): CredentialStore.Credentials? {
+            reads.incrementAndGet()
+            return saved
+        }
+        override fun write(credentials: CredentialStore.Credentials?) {
+            writes.incrementAndGet()
+            saved = credentials
+        }
+    }
+
+    private lateinit var server: MockWebServer
+    private var now = 1_000_000L
+    private val refreshCalls = AtomicInteger()
+    private val serverRefreshes = AtomicInteger()
+
+    private fun refreshed(token: String, expiresIn: Long? = 3600): Response<ApiResponse<RefreshTokenData>> =
+        Response.success(ApiResponse(true, "Token berhasil diperbarui", RefreshTokenData(token, "Bearer", expiresIn)))
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse = when {
+                request.path == "/api/auth/refresh" && request.getHeader("Authorization") == "Bearer stale" -> {
+                    serverRefreshes.incrementAndGet()
+                    MockResponse()
+                        .setBody("""{"success":true,"message":"ok","data":{"token":"fresh","token_type":"Bearer","expires_in":3600}}""")
+                        .setBodyDelay(100, TimeUnit.MILLISECONDS)
+                }
+                request.getHeader("Authorization") == "Bearer fresh" -> MockResponse().setBody("""{"success":true}""")
+                else -> MockResponse().setResponseCode(401).setBody("""{"message":"Unauthenticated."}""")
+            }
+        }
+        server.start()
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    private fun client(store: CredentialStore, refresher: TokenRefresher) = OkHttpClient.Builder()
+        .addInterceptor(AuthInterceptor(store, refresher))
+        .authenticator(TokenAuthenticator(refresher))
+        .build()
+
+    @Test
+    fun store_readsDiskOnce_andNotifiesListeners() {
+        val storage = FakeStorage(CredentialStore.Credentials("abc"))
+        val store = CredentialStore(storage)
+        val changes = mutableListOf<String?>()
+        store.addListener { changes.add(it?.token) }
+
+        repeat(10_000) { assertEquals("Bearer abc", store.bearer()) }
+        assertEquals(1, storage.reads.get())
+
+        store.update("Bearer xyz", expiresAtMs = 5_000L)
+        store.update("xyz", expiresAtMs = 5_000L) // sama, tidak ditulis ulang
+        store.clear()
+
+        assertEquals(listOf("xyz", null), changes)
+        assertEquals(2, storage.writes.get())
+        assertNull(storage.saved)
+        assertNull(store.bearer())
+    }
+
+    @Test
+    fun concurrent401s_triggerSingleRefresh() {
+        val store = CredentialStore(FakeStorage(CredentialStore.Credentials("stale")))
+        val refresher = TokenRefresher(store, refreshCall = {
+            refreshCalls.incrementAndGet()
+            Thread.sleep(100)
+            refreshed("fresh")
+        }, clock = { now })
+        val http = client(store, refresher)
+
+        val threads = 16
+        val pool = Executors.newFixedThreadPool(threads)
+        val start = CountDownLatch(1)
+        val codes = Collections.synchronizedList(mutableListOf<Int>())
+        repeat(threads) {
+            pool.execute {
+                start.await()
+                http.newCall(Request.Builder().url(server.url("/api/kurikulum/dashboard")).build()).execute().use {
+                    codes.add(it.code)
+                }
+            }
+        }
+        start.countDown()
+        pool.shutdown()
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS))
+
+        assertEquals(List(threads) { 200 }, codes)
+        assertEquals(1, refreshCalls.get())
+        assertEquals("Bearer fresh", store.bearer())
+        assertEquals(now + 3_600_000L, store.current()?.expiresAtMs)
+    }
+
+    @Test
+    fun enqueued401s_refreshOnDedicatedClient_doesNotDeadlockDispatcher() {
+        val store = CredentialStore(FakeStorage(CredentialStore.Credentials("stale")))
+        // Jalur produksi: Retrofit + execute() di client khusus refresh
+        val refreshApi = RetrofitClient.buildRefreshApi(server.url("/api/").toString(), RetrofitClient.newRefreshOkHttpClient())
+        val refresher = TokenRefresher(store, refreshCall = { bearer -> refreshApi.refreshToken(bearer).execute() }, clock = { now })
+        // Dispatcher default: maxRequestsPerHost = 5, jadi 16 request memenuhi semua slot dan menunggu di Authenticator
+        val http = client(store, refresher)
+
+        val calls = 16
+        val done = CountDownLatch(calls)
+        val codes = Collections.synchronizedList(mutableListOf<Int>())
+        repeat(calls) {
+            http.newCall(Request.Builder().url(server.url("/api/kurikulum/dashboard")).build()).enqueue(object : Callback {
+                override fun onResponse(call: Call, response: okhttp3.Response) {
+                    response.use { codes.add(it.code) }
+                    done.countDown()
+                }
+
+                override fun onFailure(call: Call, e: IOException) {
+                    done.countDown()
+                }
+            })
+        }
+
+        assertTrue(done.await(15, TimeUnit.SECONDS))
+        assertEquals(List(calls) { 200 }, codes)
+        assertEquals(1, serverRefreshes.get())
+        assertEquals("Bearer fresh", store.bearer())
+        assertEquals(now + 3_600_000L, store.current()?.expiresAtMs)
+    }
+
+    @Test
+    fun rejectedRefresh_clearsSession_andDoesNotRetry() {
+        val store = CredentialStore(FakeStorage(CredentialStore.Credentials("revoked")))
+        val cleared = AtomicInteger()
+        store.addListener { if (it == null) cleared.incrementAndGet() }
+        val refresher = TokenRefresher(store, refreshCall = {
+            refreshCalls.incrementAndGet()
+            Response.error(401, "".toResponseBody(null))
+        })
+
+        val response = client(store, refresher)
+            .newCall(Request.Builder().url(server.url("/api/kepala-sekolah/dashboard")).build()).execute()
+
+        assertEquals(401, response.code)
+        response.close()
+        assertEquals(1, refreshCalls.get())
+        assertEquals(1, cleared.get())
+        assertNull(store.bearer())
+        assertEquals(1, server.requestCount)
+    }
+
+    @Test
+    fun networkFailure_isNotRetriedImmediately() {
+        val store = CredentialStore(FakeStorage(CredentialStore.Credentials("stale")))
+        val refresher = TokenRefresher(store, refreshCall = {
+            refreshCalls.incrementAndGet()
+            throw java.io.IOException("timeout")
+        }, clock = { now })
+
+        assertNull(refresher.refresh("Bearer stale"))
+        assertNull(refresher.refresh("Bearer stale"))
+        assertEquals(1, refreshCalls.get())
+        // Token tetap ada, gagal jaringan bukan berarti sesi berakhir
+        assertEquals("Bearer stale", store.bearer())
+
+        now += 11_000L
+        refresher.refresh("Bearer stale")
+        assertEquals(2, refreshCalls.get())
+    }
+
+    @Test
+    fun tokenNearExpiry_isRefreshedProactively() {
+        val store = CredentialStore(FakeStorage(CredentialStore.Credentials("stale", expiresAtMs = now + 60_000L)))
+        val refresher = TokenRefresher(
+            store,
+            refreshCall = { bearer ->
+                refreshCalls.incrementAndGet()
+                assertEquals("Bearer stale", bearer)
+                refreshed("fresh")
+            },
+            clock = { now },
+            scope = CoroutineScope(Dispatchers.Unconfined)
+        )
+
+        client(store, refresher).newCall(Request.Builder().url(server.url("/api/teachers")).build()).execute().use {
+            assertEquals(200, it.code)
+        }
+        // Token baru masih jauh dari kedaluwarsa: tidak di-refresh lagi
+        client(store, refresher).newCall(Request.Builder().url(server.url("/api/teachers")).build()).execute().close()
+
+        assertEquals(1, refreshCalls.get())
+        assertEquals(1, refresher.refreshCount())
+        // Request pertama sudah memakai token baru, tidak ada 401
+        assertEquals(2, server.requestCount)
+    }
+
+    @Test
+    fun authHeaderInjection_readsStorageOnce() {
+        val storage = FakeStorage(CredentialStore.Credentials("fresh"))
+        val store = CredentialStore(storage)
+        val http = OkHttpClient.Builder().addInterceptor(AuthInterceptor(store)).build()
+
+        // Token diambil dari salinan di memori, bukan dibaca + didekripsi ulang per request
+        repeat(50) {
+            http.newCall(Request.Builder().url(server.url("/api/kurikulum/dashboard")).build()).execute().use {
+                assertEquals(200, it.code)
+            }
+        }
+
+        assertEquals(1, storage.reads.get())
+        assertEquals(50, server.requestCount)
+        repeat(50) { assertEquals("Bearer fresh", server.takeRequest().getHeader("Authorization")) }
+    }
+}
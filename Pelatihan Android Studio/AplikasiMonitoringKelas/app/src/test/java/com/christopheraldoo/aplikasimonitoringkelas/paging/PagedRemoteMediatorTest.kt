@@ -0,0 +1,287 @@
+package com.christopheraldoo.aplikasimonitoringkelas.paging
+
+import androidx.paging.ExperimentalPagingApi
+import androidx.paging.LoadType
+import androidx.paging.PagingConfig
+import androidx.paging.PagingSource
+import androidx.paging.PagingState
+import androidx.paging.RemoteMediator
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.GroupCount
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.KurikulumHistoryDao
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.KurikulumHistoryEntity
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.RemoteKey
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.RemoteKeyDao
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.RiwayatDao
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.RiwayatEntity
+import com.christopheraldoo.aplikasimonitoringkelas.network.ApiService
+import com.christopheraldoo.aplikasimonitoringkelas.repository.HistoryFilter
+import com.christopheraldoo.aplikasimonitoringkelas.repository.HistoryPagingRepository
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.runBlocking
+import okhttp3.OkHttpClient
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import retrofit2.Retrofit
+import retrofit2.converter.gson.GsonConverterFactory
+
+@OptIn(ExperimentalPagingApi::class)
+class PagedRemoteMediatorTest {
+
+    private lateinit var server: MockWebServer
+    private lateinit var riwayatDao: FakeRiwayatDao
+    private lateinit var historyDao: FakeKurikulumHistoryDao
+    private lateinit var keyDao: FakeRemoteKeyDao
+    private lateinit var repository: HistoryPagingRepository
+    private var now = 1_000_000L
+
+    private val emptyState = PagingState<Int, RiwayatEntity>(emptyList(), null, PagingConfig(20), 0)
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+        val api = Retrofit.Builder()
+            .baseUrl(server.url("/api/"))
+            .client(OkHttpClient())
+            .addConverterFactory(GsonConverterFactory.create())
+            .build()
+            .create(ApiService::class.java)
+        riwayatDao = FakeRiwayatDao()
+        historyDao = FakeKurikulumHistoryDao()
+        keyDao = FakeRemoteKeyDao()
+        repository = HistoryPagingRepository(
+            riwayatDao, historyDao, keyDao,
+            transaction = { block -> block() },
+            api = { api },
+            siswaToken = { "siswa-token" },
+            kurikulumToken = { "kurikulum-token" },
+            clock = { now }
+        )
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    private fun riwayatMediator(timeoutMs: Long = 60_000L) = PagedRemoteMediator<RiwayatEntity, RiwayatEntity>(
+        label = HistoryPagingRepository.RIWAYAT_LABEL,
+        pageSize = 20,
+        keyDao = keyDao,
+        store = object : PageStore<RiwayatEntity> {
+            override suspend fun clear() = riwayatDao.clear()
+            override suspend fun insert(items: List<RiwayatEntity>) = riwayatDao.insertAll(items)
+        },
+        fetchPage = repository::fetchRiwayatPage,
+        transaction = { block -> block() },
+        cacheTimeoutMs = timeoutMs,
+        clock = { now }
+    )
+
+    private fun riwayatPage(ids: IntRange, hasMore: Boolean, total: Int): String {
+        val rows = ids.joinToString(",") {
+            """{"id":$it,"tanggal":"2026-10-${(it % 28 + 1).toString().padStart(2, '0')}","status":"hadir","period":1}"""
+        }
+        return """{"success":true,"data":[$rows],"total":$total,""" +
+            """"pagination":{"current_page":1,"total":$total,"has_more":$hasMore}}"""
+    }
+
+    @Test
+    fun refreshThenAppend_followsNextPageAndStopsAtLastPage() = runBlocking {
+        val mediator = riwayatMediator()
+        server.enqueue(MockResponse().setBody(riwayatPage(1..20, hasMore = true, total = 45)))
+        server.enqueue(MockResponse().setBody(riwayatPage(21..40, hasMore = true, total = 45)))
+        server.enqueue(MockResponse().setBody(riwayatPage(41..45, hasMore = false, total = 45)))
+
+        val refresh = mediator.load(LoadType.REFRESH, emptyState)
+        assertFalse((refresh as RemoteMediator.MediatorResult.Success).endOfPaginationReached)
+        assertEquals("1", server.takeRequest().requestUrl?.queryParameter("page"))
+        assertEquals(2, keyDao.keys[HistoryPagingRepository.RIWAYAT_LABEL]?.nextPage)
+
+        mediator.load(LoadType.APPEND, emptyState)
+        val last = mediator.load(LoadType.APPEND, emptyState)
+
+        assertTrue((last as RemoteMediator.MediatorResult.Success).endOfPaginationReached)
+        assertEquals("2", server.takeRequest().requestUrl?.queryParameter("page"))
+        assertEquals("3", server.takeRequest().requestUrl?.queryParameter("page"))
+        assertEquals(45, riwayatDao.rows.size)
+        assertEquals((0 until 45).toList(), riwayatDao.rows.map { it.position })
+        assertNull(keyDao.keys[HistoryPagingRepository.RIWAYAT_LABEL]?.nextPage)
+        assertEquals(45, keyDao.keys[HistoryPagingRepository.RIWAYAT_LABEL]?.total)
+
+        // Sudah di halaman terakhir: tidak ada request lagi
+        val afterEnd = mediator.load(LoadType.APPEND, emptyState)
+        assertTrue((afterEnd as RemoteMediator.MediatorResult.Success).endOfPaginationReached)
+        assertEquals(3, server.requestCount)
+    }
+
+    @Test
+    fun refresh_replacesCachedRows() = runBlocking {
+        val mediator = riwayatMediator()
+        server.enqueue(MockResponse().setBody(riwayatPage(1..20, hasMore = true, total = 40)))
+        server.enqueue(MockResponse().setBody(riwayatPage(21..40, hasMore = false, total = 40)))
+        server.enqueue(MockResponse().setBody(riwayatPage(100..110, hasMore = false, total = 11)))
+        mediator.load(LoadType.REFRESH, emptyState)
+        mediator.load(LoadType.APPEND, emptyState)
+
+        mediator.load(LoadType.REFRESH, emptyState)
+
+        assertEquals((100..110).toList(), riwayatDao.rows.map { it.id })
+        assertEquals(11, keyDao.keys[HistoryPagingRepository.RIWAYAT_LABEL]?.total)
+    }
+
+    @Test
+    fun initialize_skipsRefreshWhileCacheIsFresh() = runBlocking {
+        val mediator = riwayatMediator(timeoutMs = 60_000L)
+        assertEquals(RemoteMediator.InitializeAction.LAUNCH_INITIAL_REFRESH, mediator.initialize())
+
+        keyDao.upsert(RemoteKey(HistoryPagingRepository.RIWAYAT_LABEL, 2, 40, now))
+        now += 30_000L
+        assertEquals(RemoteMediator.InitializeAction.SKIP_INITIAL_REFRESH, mediator.initialize())
+
+        now += 60_000L
+        assertEquals(RemoteMediator.InitializeAction.LAUNCH_INITIAL_REFRESH, mediator.initialize())
+
+        // expire() dipakai tombol refresh dan setelah submit kehadiran
+        now -= 60_000L
+        repository.expireRiwayat()
+        assertEquals(RemoteMediator.InitializeAction.LAUNCH_INITIAL_REFRESH, mediator.initialize())
+    }
+
+    @Test
+    fun clearAll_forcesRefreshForNextAccount() = runBlocking {
+        val mediator = riwayatMediator()
+        server.enqueue(MockResponse().setBody(riwayatPage(1..20, hasMore = true, total = 40)))
+        mediator.load(LoadType.REFRESH, emptyState)
+        assertEquals(RemoteMediator.InitializeAction.SKIP_INITIAL_REFRESH, mediator.initialize())
+
+        // Logout: cache masih dalam TTL, tapi tidak boleh ditampilkan ke akun berikutnya
+        repository.clearAll()
+
+        assertTrue(riwayatDao.rows.isEmpty())
+        assertTrue(keyDao.keys.isEmpty())
+        assertEquals(RemoteMediator.InitializeAction.LAUNCH_INITIAL_REFRESH, mediator.initialize())
+    }
+
+    @Test
+    fun httpError_returnsErrorAndKeepsCache() = runBlocking {
+        val mediator = riwayatMediator()
+        server.enqueue(MockResponse().setBody(riwayatPage(1..20, hasMore = true, total = 40)))
+        server.enqueue(MockResponse().setResponseCode(500).setBody("""{"message":"Server Error"}"""))
+        mediator.load(LoadType.REFRESH, emptyState)
+
+        val result = mediator.load(LoadType.APPEND, emptyState)
+
+        assertTrue(result is RemoteMediator.MediatorResult.Error)
+        assertEquals(20, riwayatDao.rows.size)
+        // Retry akan meminta halaman yang sama lagi
+        assertEquals(2, keyDao.keys[HistoryPagingRepository.RIWAYAT_LABEL]?.nextPage)
+    }
+
+    @Test
+    fun kurikulumHistoryPage_streamsWindowAndSendsFilter() = runBlocking {
+        val items = (1..25).joinToString(",") {
+            """{"id":$it,"date":"2026-10-12","class_name":"XII RPL 1","subject_name":"Matematika",""" +
+                """"teacher_id":$it,"teacher_name":"Guru $it","status":"telat","created_at":"2026-10-12 07:00:00"}"""
+        }
+        // Server mengabaikan limit: hanya pageSize item yang disimpan
+        server.enqueue(MockResponse().setBody(
+            """{"success":true,"data":[$items],"pagination":{"current_page":2,"per_page":20,"total":65,"last_page":4}}"""
+        ))
+        val filter = HistoryFilter(dateFrom = "2026-10-01", status = "telat")
+
+        val page = repository.fetchKurikulumHistoryPage(filter, page = 2, pageSize = 20)
+
+        val request = server.takeRequest().requestUrl
+        assertEquals("2", request?.queryParameter("page"))
+        assertEquals("telat", request?.queryParameter("status"))
+        assertEquals(20, page.items.size)
+        assertEquals(20, page.items.first().position)
+        assertEquals(filter.queryKey, page.items.first().queryKey)
+        assertTrue(page.hasMore)
+        assertEquals(65, page.total)
+    }
+
+    private class FakeRiwayatDao : RiwayatDao {
+        val rows = mutableListOf<RiwayatEntity>()
+
+        override suspend fun insertAll(items: List<RiwayatEntity>) {
+            rows.removeAll { row -> items.any { it.id == row.id } }
+            rows.addAll(items)
+            rows.sortBy { it.position }
+        }
+
+        override suspend fun clear() = rows.clear()
+
+        override fun pagingSource(): PagingSource<Int, RiwayatEntity> = throw UnsupportedOperationException()
+
+        override fun pagingSourceByStatus(statuses: List<String>): PagingSource<Int, RiwayatEntity> =
+            throw UnsupportedOperationException()
+
+        override fun observeStatusCounts(): Flow<List<GroupCount>> = throw UnsupportedOperationException()
+
+        override fun observeDateCounts(): Flow<List<GroupCount>> = throw UnsupportedOperationException()
+
+        override fun observeDateCountsByStatus(statuses: List<String>): Flow<List<GroupCount>> =
+            throw UnsupportedOperationException()
+    }
+
+    private class FakeKurikulumHistoryDao : KurikulumHistoryDao {
+        val rows = mutableListOf<KurikulumHistoryEntity>()
+
+        override suspend fun insertAll(items: List<KurikulumHistoryEntity>) {
+            rows.addAll(items)
+        }
+
+        override suspend fun clearQuery(queryKey: String) {
+            rows.removeAll { it.queryKey == queryKey }
+        }
+
+        override suspend fun deleteOtherQueries(keep: String) {
+            rows.removeAll { it.queryKey != keep }
+        }
+
+        override suspend fun clear() = rows.clear()
+
+        override fun pagingSource(queryKey: String): PagingSource<Int, KurikulumHistoryEntity> =
+            throw UnsupportedOperationException()
+    }
+
+    private class FakeRemoteKeyDao : RemoteKeyDao {
+        val keys = mutableMapOf<String, RemoteKey>()
+        private val changes = MutableStateFlow(0)
+
+        override suspend fun upsert(key: RemoteKey) {
+            keys[key.label] = key
+            changes.value++
+        }
+
+        override suspend fun get(label: String): RemoteKey? = keys[label]
+
+        override fun observe(label: String): Flow<RemoteKey?> = changes.map { keys[label] }
+
+        override suspend fun expire(label: String) {
+            keys[label]?.let { keys[label] = it.copy(updatedAt = 0) }
+            changes.value++
+        }
+
+        override suspend fun deleteOthers(prefix: String, keep: String) {
+            keys.keys.removeAll { it.startsWith(prefix) && it != keep }
+            changes.value++
+        }
+
+        override suspend fun clear() {
+            keys.clear()
+            changes.value++
+        }
+    }
+}
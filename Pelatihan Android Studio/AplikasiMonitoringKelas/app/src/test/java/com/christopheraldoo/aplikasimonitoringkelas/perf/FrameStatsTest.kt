@@ -0,0 +1,63 @@
+package com.christopheraldoo.aplikasimonitoringkelas.perf
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class FrameStatsTest {
+
+    private fun ms(value: Int) = value * 1_000_000L
+
+    @Test
+    fun percentiles_matchSortedDurations() {
+        val stats = FrameStats()
+        // 1..100 ms, diacak
+        (1..100).shuffled(java.util.Random(7)).forEach { stats.record("KurikulumDashboard", ms(it), isJank = it > 32) }
+
+        val summary = stats.summaries().single()
+        assertEquals(100, summary.frames)
+        assertEquals(68, summary.jankyFrames)
+        assertEquals(50, summary.p50Ms)
+        assertEquals(90, summary.p90Ms)
+        assertEquals(95, summary.p95Ms)
+        assertEquals(99, summary.p99Ms)
+        assertEquals(100, summary.maxMs)
+        assertEquals(68.0, summary.jankPercent, 0.001)
+    }
+
+    @Test
+    fun framesAreGroupedPerScreen_andSortedByJank() {
+        val stats = FrameStats()
+        repeat(50) { stats.record("KurikulumDashboard", ms(8), isJank = false) }
+        repeat(10) { stats.record("KurikulumClassManagement", ms(45), isJank = true) }
+        stats.record(null, ms(16), isJank = false)
+
+        val summaries = stats.summaries()
+        assertEquals(listOf("KurikulumClassManagement", "KurikulumDashboard", FrameStats.UNKNOWN_SCREEN), summaries.map { it.screen })
+        assertEquals(45, summaries[0].p50Ms)
+        assertEquals(8, summaries[1].p99Ms)
+        assertTrue(stats.summary().contains("KurikulumClassManagement: 10 frame, jank 10"))
+    }
+
+    @Test
+    fun veryLongFrames_areClampedIntoLastBucket_butMaxIsExact() {
+        val stats = FrameStats()
+        stats.record("Kehadiran", ms(750), isJank = true)
+
+        val summary = stats.summaries().single()
+        assertEquals(200, summary.p50Ms)
+        assertEquals(750, summary.maxMs)
+    }
+
+    @Test
+    fun recompositionCounter_countsPerName() {
+        RecompositionCounter.reset()
+        repeat(3) { RecompositionCounter.record("ScheduleItemCard") }
+        RecompositionCounter.record("ClassGroupCard")
+
+        assertEquals(3, RecompositionCounter.count("ScheduleItemCard"))
+        assertEquals(mapOf("ScheduleItemCard" to 3, "ClassGroupCard" to 1), RecompositionCounter.snapshot())
+        assertTrue(RecompositionCounter.summary().startsWith("ScheduleItemCard: 3x"))
+        RecompositionCounter.reset()
+    }
+}
@@ -0,0 +1,100 @@
+package com.christopheraldoo.aplikasimonitoringkelas.repository
+
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.IOException
+
+class StaleWhileRevalidateTest {
+
+    private fun swr(
+        cached: List<String>?,
+        fresh: Boolean = false,
+        fingerprint: (List<String>) -> Any? = { it },
+        onFetch: () -> Unit = {},
+        network: Result<List<String>>
+    ) = staleWhileRevalidateFlow(
+        label = "test",
+        readCached = { cached },
+        isFresh = { fresh },
+        fingerprint = fingerprint
+    ) {
+        onFetch()
+        network
+    }
+
+    @Test
+    fun staleCache_emitsCachedThenNetwork() = runBlocking {
+        val emissions = swr(
+            cached = listOf("lama"),
+            network = Result.success(listOf("lama", "baru"))
+        ).toList()
+
+        assertEquals(2, emissions.size)
+        assertEquals(listOf("lama"), emissions[0].getOrNull())
+        assertEquals(listOf("lama", "baru"), emissions[1].getOrNull())
+    }
+
+    @Test
+    fun identicalData_isNotEmittedTwice() = runBlocking {
+        var fetched = 0
+        val emissions = swr(
+            cached = listOf("a", "b"),
+            onFetch = { fetched++ },
+            network = Result.success(listOf("a", "b"))
+        ).toList()
+
+        assertEquals(1, fetched)
+        assertEquals(listOf(Result.success(listOf("a", "b"))), emissions)
+    }
+
+    @Test
+    fun identicalFingerprint_suppressesSecondEmission() = runBlocking {
+        // Isi berbeda tapi fingerprint (mis. versi/ETag) sama: dianggap tidak berubah
+        val emissions = swr(
+            cached = listOf("v1:a"),
+            fingerprint = { list -> list.map { it.substringBefore(':') } },
+            network = Result.success(listOf("v1:b"))
+        ).toList()
+
+        assertEquals(1, emissions.size)
+        assertEquals(listOf("v1:a"), emissions[0].getOrNull())
+    }
+
+    @Test
+    fun freshCache_skipsNetwork() = runBlocking {
+        var fetched = 0
+        val emissions = swr(
+            cached = listOf("a"),
+            fresh = true,
+            onFetch = { fetched++ },
+            network = Result.success(listOf("b"))
+        ).toList()
+
+        assertEquals(0, fetched)
+        assertEquals(1, emissions.size)
+    }
+
+    @Test
+    fun failedRevalidate_keepsStaleData() = runBlocking {
+        val emissions = swr(
+            cached = listOf("a"),
+            network = Result.failure(IOException("offline"))
+        ).toList()
+
+        assertEquals(1, emissions.size)
+        assertTrue(emissions[0].isSuccess)
+    }
+
+    @Test
+    fun noCache_emitsNetworkResultOnly() = runBlocking {
+        val error = swr(cached = null, network = Result.failure(IOException("offline"))).toList()
+        assertEquals(1, error.size)
+        assertTrue(error[0].isFailure)
+
+        val success = swr(cached = null, network = Result.success(listOf("a"))).toList()
+        assertEquals(listOf(Result.success(listOf("a"))), success)
+    }
+}
@@ -0,0 +1,257 @@
+package com.christopheraldoo.aplikasimonitoringkelas.stats
+
+import com.christopheraldoo.aplikasimonitoringkelas.stats.AttendanceStatsEngine.Counts
+import com.christopheraldoo.aplikasimonitoringkelas.stats.AttendanceStatsEngine.Record
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.time.LocalDate
+import kotlin.random.Random
+
+class AttendanceStatsEngineTest {
+
+    private val statuses = listOf("hadir", "hadir", "hadir", "telat", "tidak_hadir", "izin", "diganti", "pending")
+    private val classes = (1..12).map { "X${if (it > 6) "I" else ""} RPL $it" }
+
+    // Agustus s.d. November 2026
+    private val firstDay = AttendanceStatsEngine.epochDay("2026-08-01")!!
+    private val lastDay = AttendanceStatsEngine.epochDay("2026-11-30")!!
+
+    private fun randomRecord(random: Random, id: Int): Record {
+        val teacherId = random.nextInt(1, 31)
+        return Record(
+            id = id,
+            date = AttendanceStatsEngine.formatDay(random.nextInt(firstDay, lastDay + 1)),
+            teacherId = teacherId,
+            status = statuses[random.nextInt(statuses.size)],
+            teacherName = "Guru $teacherId",
+            teacherNip = "19800$teacherId",
+            originalTeacherId = if (random.nextInt(10) == 0) random.nextInt(1, 31) else null,
+            className = classes[random.nextInt(classes.size)]
+        )
+    }
+
+    // ===== Rekomputasi naif: scan semua record hidup =====
+
+    private fun naive(records: Collection<Record>, from: Int, to: Int, filter: (Record) -> Boolean = { true }): Counts {
+        val out = IntArray(AttendanceStatsEngine.STATUS_COUNT)
+        records.forEach {
+            val day = AttendanceStatsEngine.epochDay(it.date)!!
+            if (day in from..to && filter(it)) out[AttendanceStatsEngine.statusCode(it.status)]++
+        }
+        return Counts(out)
+    }
+
+    private fun assertMatchesNaive(engine: AttendanceStatsEngine, live: Map<Int, Record>, from: Int, to: Int) {
+        val range = "${AttendanceStatsEngine.formatDay(from)}..${AttendanceStatsEngine.formatDay(to)}"
+        assertEquals(range, naive(live.values, from, to), engine.totals(from, to))
+
+        val teachers = live.values.filter { AttendanceStatsEngine.epochDay(it.date)!! in from..to }.map { it.teacherId }.toSortedSet()
+        assertEquals(range, teachers.toList(), engine.teacherSummaries(from, to).map { it.teacherId })
+        engine.teacherSummaries(from, to).forEach { summary ->
+            assertEquals("guru ${summary.teacherId} $range", naive(live.values, from, to) { it.teacherId == summary.teacherId }, summary.counts)
+        }
+        for (teacherId in 1..30) {
+            val involved = naive(live.values, from, to) { it.teacherId == teacherId || it.originalTeacherId == teacherId }
+            assertEquals("terlibat $teacherId $range", involved, engine.involvedCounts(teacherId, from, to))
+        }
+        engine.classSummaries(from, to).forEach { summary ->
+            assertEquals("kelas ${summary.className} $range", naive(live.values, from, to) { it.className == summary.className }, summary.counts)
+        }
+        assertEquals(
+            live.values.filter { AttendanceStatsEngine.epochDay(it.date)!! in from..to }.map { it.className }.toSet(),
+            engine.classSummaries(from, to).map { it.className }.toSet()
+        )
+    }
+
+    @Test
+    fun civilDateConversion_matchesJavaTime() {
+        var date = LocalDate.of(1999, 12, 25)
+        repeat(12_000) {
+            val day = date.toEpochDay().toInt()
+            assertEquals(day, AttendanceStatsEngine.epochDay(date.toString()))
+            assertEquals(date.toString(), AttendanceStatsEngine.formatDay(day))
+            assertEquals(date.with(java.time.DayOfWeek.MONDAY).toEpochDay().toInt(), AttendanceStatsEngine.startOfWeek(day))
+            date = date.plusDays(1)
+        }
+        assertEquals(null, AttendanceStatsEngine.epochDay("kemarin"))
+        assertEquals(AttendanceStatsEngine.epochDay("2026-10-19"), AttendanceStatsEngine.epochDay("2026-10-19T07:00:00.000Z"))
+    }
+
+    @Test
+    fun incrementalUpdates_matchNaiveRecomputation() {
+        val random = Random(42)
+        val engine = AttendanceStatsEngine()
+        val live = HashMap<Int, Record>()
+
+        (1..4_000).forEach { id -> randomRecord(random, id).also { live[id] = it; engine.upsert(it) } }
+        assertEquals(4_000, engine.recordCount)
+
+        // Sync berikutnya: status berubah, record pindah tanggal/guru, record dihapus, record baru
+        repeat(3_000) {
+            when (random.nextInt(4)) {
+                0 -> {
+                    val id = random.nextInt(1, 4_001)
+                    live[id]?.let { old ->
+                        val updated = old.copy(status = statuses[random.nextInt(statuses.size)])
+                        live[id] = updated
+                        engine.upsert(updated)
+                    }
+                }
+                1 -> {
+                    val id = random.nextInt(1, 4_001)
+                    if (live.containsKey(id)) randomRecord(random, id).also { live[id] = it; engine.upsert(it) }
+                }
+                2 -> {
+                    val id = random.nextInt(1, 4_001)
+                    assertEquals(live.remove(id) != null, engine.remove(id))
+                }
+                else -> {
+                    val id = 4_001 + it
+                    randomRecord(random, id).also { record -> live[id] = record; engine.upsert(record) }
+                }
+            }
+        }
+        assertEquals(live.size, engine.recordCount)
+
+        // Minggu, bulan penuh, rentang melintasi batas bulan, satu hari, seluruh data
+        val ranges = listOf(
+            AttendanceStatsEngine.epochDay("2026-10-19")!! to AttendanceStatsEngine.epochDay("2026-10-25")!!,
+            AttendanceStatsEngine.epochDay("2026-09-01")!! to AttendanceStatsEngine.epochDay("2026-09-30")!!,
+            AttendanceStatsEngine.epochDay("2026-08-17")!! to AttendanceStatsEngine.epochDay("2026-10-05")!!,
+            AttendanceStatsEngine.epochDay("2026-11-11")!! to AttendanceStatsEngine.epochDay("2026-11-11")!!,
+            firstDay to lastDay
+        ) + List(20) {
+            val from = random.nextInt(firstDay, lastDay + 1)
+            from to random.nextInt(from, lastDay + 1)
+        }
+        ranges.forEach { (from, to) -> assertMatchesNaive(engine, live, from, to) }
+
+        // Bucket bulanan dan harian
+        engine.monthlyBuckets(2026, 7, 2026, 12).forEach { bucket ->
+            val monthIndex = AttendanceStatsEngine.monthIndex(bucket.year, bucket.month)
+            val expected = naive(live.values, AttendanceStatsEngine.firstDayOfMonth(monthIndex), AttendanceStatsEngine.lastDayOfMonth(monthIndex))
+            assertEquals("${bucket.year}-${bucket.month}", expected, bucket.counts)
+        }
+        engine.monthlyBuckets(2026, 8, 2026, 11, teacherId = 7).forEach { bucket ->
+            val monthIndex = AttendanceStatsEngine.monthIndex(bucket.year, bucket.month)
+            val expected = naive(live.values, AttendanceStatsEngine.firstDayOfMonth(monthIndex), AttendanceStatsEngine.lastDayOfMonth(monthIndex)) { it.teacherId == 7 }
+            assertEquals(expected, bucket.counts)
+        }
+        val october = AttendanceStatsEngine.epochDay("2026-10-01")!! to AttendanceStatsEngine.epochDay("2026-10-31")!!
+        val daily = engine.dailyCounts(october.first, october.second, involvedTeacherId = 3)
+        (october.first..october.second).forEach { day ->
+            val expected = naive(live.values, day, day) { it.teacherId == 3 || it.originalTeacherId == 3 }
+            if (expected.total == 0) assertFalse(daily.containsKey(day)) else assertEquals(expected, daily[day])
+        }
+
+        // Rate bergulir 28 hari
+        val end = AttendanceStatsEngine.epochDay("2026-11-20")!!
+        for (teacherId in 1..30) {
+            val window = naive(live.values, end - 27, end) { it.teacherId == teacherId }
+            assertEquals(AttendanceStatsEngine.percent(window.hadir + window.telat, window.total), engine.rollingRate(teacherId, end, 28), 0.0)
+        }
+    }
+
+    @Test
+    fun teacherPerformance_matchesServerFormulaAndOrder() {
+        val engine = AttendanceStatsEngine()
+        val monday = AttendanceStatsEngine.epochDay("2026-10-19")!!
+        var id = 0
+        fun add(teacherId: Int, day: Int, vararg status: String) = status.forEach {
+            engine.upsert(Record(++id, AttendanceStatsEngine.formatDay(day), teacherId, it, "Guru $teacherId"))
+        }
+        add(1, monday, "hadir", "hadir", "telat")               // 100.0 / on time 66.7
+        add(2, monday + 1, "hadir", "tidak_hadir", "tidak_hadir") // 33.3
+        add(3, monday + 2, "telat", "telat", "izin")             // 66.7
+        add(4, monday + 3, "hadir", "hadir", "hadir")            // 100.0
+        add(5, monday - 1, "hadir")                              // minggu lalu, tidak ikut
+
+        val byRate = AttendanceStatsReports.teacherPerformance(engine, monday, monday + 6, AttendanceStatsReports.SORT_ATTENDANCE_RATE)
+        assertEquals("2026-10-19", byRate.weekInfo.weekStart)
+        assertEquals("2026-10-25", byRate.weekInfo.weekEnd)
+        assertEquals(listOf(1, 4, 3, 2), byRate.teachers.map { it.teacherId })
+        assertEquals(66.7, byRate.teachers.first().onTimeRate, 0.0)
+        assertEquals(33.3, byRate.teachers.last().attendanceRate, 0.0)
+        assertEquals(3, byRate.teachers.first().totalSchedules)
+
+        val byLate = AttendanceStatsReports.teacherPerformance(engine, monday, monday + 6, AttendanceStatsReports.SORT_LATE_COUNT)
+        assertEquals(listOf(3, 1, 2, 4), byLate.teachers.map { it.teacherId })
+        val byAbsent = AttendanceStatsReports.teacherPerformance(engine, monday, monday + 6, AttendanceStatsReports.SORT_ABSENT_COUNT)
+        assertEquals(2, byAbsent.teachers.first().teacherId)
+
+        // Status guru 2 dikoreksi kurikulum: hanya hitungan yang berubah, tanpa rekomputasi
+        engine.upsert(Record(5, AttendanceStatsEngine.formatDay(monday + 1), 2, "hadir", "Guru 2"))
+        val corrected = AttendanceStatsReports.teacherPerformance(engine, monday, monday + 6, AttendanceStatsReports.SORT_ATTENDANCE_RATE)
+        assertEquals(66.7, corrected.teachers.first { it.teacherId == 2 }.attendanceRate, 0.0)
+    }
+
+    @Test
+    fun replaceRange_dropsDeletedRecords_andTracksCoverage() {
+        val engine = AttendanceStatsEngine()
+        val monday = AttendanceStatsEngine.epochDay("2026-10-19")!!
+        val week = (0 until 7).map { Record(100 + it, AttendanceStatsEngine.formatDay(monday + it), 1, "hadir") }
+        val outside = Record(1, AttendanceStatsEngine.formatDay(monday - 3), 1, "telat")
+        engine.upsert(outside)
+        engine.replaceRange(monday, monday + 6, week, fetchedAt = 1_000L)
+
+        assertTrue(engine.isCovered(monday, monday + 6))
+        assertTrue(engine.isCovered(monday + 2, monday + 4, notBefore = 1_000L))
+        assertFalse(engine.isCovered(monday, monday + 6, notBefore = 2_000L))
+        assertFalse(engine.isCovered(monday - 3, monday + 6))
+
+        // Server menghapus dua record dan mengubah satu
+        val refreshed = week.drop(2).map { if (it.id == 104) it.copy(status = "tidak_hadir") else it }
+        engine.replaceRange(monday, monday + 6, refreshed, fetchedAt = 3_000L)
+
+        assertEquals(6, engine.recordCount)
+        assertEquals(Counts(intArrayOf(4, 0, 1, 0, 0, 0)), engine.totals(monday, monday + 6))
+        assertEquals(1, engine.totals(monday - 3, monday - 3).telat)
+        assertTrue(engine.isCovered(monday, monday + 6, notBefore = 2_000L))
+
+        // Dua minggu bersebelahan menutupi rentang gabungannya
+        engine.markCovered(monday - 7, monday - 1, fetchedAt = 3_000L)
+        assertTrue(engine.isCovered(monday - 7, monday + 6, notBefore = 2_000L))
+    }
+
+    @Test
+    fun filterChanges_matchNaiveRecomputation_beforeAndAfterSmallSync() {
+        val random = Random(7)
+        val records = (1..20_000).map { randomRecord(random, it) }
+        val live = records.associateBy { it.id }.toMutableMap()
+        val engine = AttendanceStatsEngine()
+        assertEquals(20_000, engine.upsertAll(records))
+
+        val weeks = (0 until 16).map { AttendanceStatsEngine.startOfWeek(firstDay) + it * 7 }
+        val sorts = listOf(
+            AttendanceStatsReports.SORT_ATTENDANCE_RATE, AttendanceStatsReports.SORT_LATE_COUNT, AttendanceStatsReports.SORT_ABSENT_COUNT
+        )
+
+        // Tiap ganti filter (minggu x urutan) dijawab dari bucket, hasilnya sama dengan scan ulang semua record
+        weeks.forEach { start ->
+            sorts.forEach { sort ->
+                val report = AttendanceStatsReports.teacherPerformance(engine, start, start + 6, sort)
+                report.teachers.forEach { teacher ->
+                    val expected = naive(live.values, start, start + 6) { it.teacherId == teacher.teacherId }
+                    assertEquals(expected.total, teacher.totalSchedules)
+                    assertEquals(expected.telat, teacher.telat)
+                    assertEquals(expected.tidakHadir, teacher.tidakHadir)
+                }
+                if (sort == AttendanceStatsReports.SORT_LATE_COUNT) {
+                    assertEquals(report.teachers.sortedByDescending { it.telat }, report.teachers)
+                }
+            }
+        }
+
+        // Satu sync kecil (50 record berubah) cukup memperbarui hitungan, tanpa ingest ulang
+        records.take(50).forEach { record ->
+            val changed = record.copy(status = "telat")
+            engine.upsert(changed)
+            live[changed.id] = changed
+        }
+        assertEquals(20_000, engine.recordCount)
+        assertEquals(naive(live.values, firstDay, lastDay), engine.totals(firstDay, lastDay))
+        weeks.take(2).forEach { start -> assertMatchesNaive(engine, live, start, start + 6) }
+    }
+}
@@ -0,0 +1,189 @@
+package com.christopheraldoo.aplikasimonitoringkelas.sync
+
+import com.christopheraldoo.aplikasimonitoringkelas.data.ClassManagementResponse
+import com.christopheraldoo.aplikasimonitoringkelas.network.ApiService
+import com.christopheraldoo.aplikasimonitoringkelas.network.ConditionalResult
+import com.christopheraldoo.aplikasimonitoringkelas.sync.AdaptiveRefreshScheduler.Outcome
+import com.christopheraldoo.aplikasimonitoringkelas.sync.AdaptiveRefreshScheduler.RefreshResult
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import okhttp3.OkHttpClient
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import retrofit2.Retrofit
+import retrofit2.converter.gson.GsonConverterFactory
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicReference
+
+class AdaptiveRefreshSchedulerTest {
+
+    private lateinit var scope: CoroutineScope
+
+    @Before
+    fun setUp() {
+        scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+    }
+
+    @After
+    fun tearDown() {
+        scope.cancel()
+    }
+
+    private fun waitUntil(timeoutMs: Long = 5_000L, condition: () -> Boolean) {
+        val deadline = System.currentTimeMillis() + timeoutMs
+        while (!condition()) {
+            assertTrue("timeout menunggu kondisi", System.currentTimeMillis() < deadline)
+            Thread.sleep(5)
+        }
+    }
+
+    @Test
+    fun unchangedData_backsOffUntilMax_andChangeResetsInterval() {
+        val scheduler = AdaptiveRefreshScheduler(scope, baseIntervalMs = 40L, maxIntervalMs = 160L)
+        val outcome = AtomicReference(Outcome.UNCHANGED)
+        val runs = AtomicInteger()
+        scheduler.register("dashboard") {
+            runs.incrementAndGet()
+            RefreshResult(outcome.get())
+        }
+
+        scheduler.setVisible("dashboard", true)
+        waitUntil { runs.get() >= 3 }
+
+        // 40 -> 80 -> 160 -> tetap 160
+        assertEquals(160L, scheduler.intervalOf("dashboard"))
+        val before = runs.get()
+        Thread.sleep(100)
+        assertEquals("masih dalam backoff 160 ms", before, runs.get())
+
+        outcome.set(Outcome.CHANGED)
+        waitUntil { runs.get() > before }
+        waitUntil { scheduler.intervalOf("dashboard") == 40L }
+        assertEquals(runs.get(), scheduler.stats.value.refreshes)
+        assertTrue(scheduler.stats.value.unchanged >= 3)
+    }
+
+    @Test
+    fun hiddenTargets_areNotRefreshed_andHidingPausesTheLoop() {
+        val scheduler = AdaptiveRefreshScheduler(scope, baseIntervalMs = 20L, maxIntervalMs = 20L)
+        val dashboardRuns = AtomicInteger()
+        val classesRuns = AtomicInteger()
+        scheduler.register("dashboard") { dashboardRuns.incrementAndGet(); RefreshResult(Outcome.CHANGED) }
+        scheduler.register("classes") { classesRuns.incrementAndGet(); RefreshResult(Outcome.CHANGED) }
+
+        scheduler.setVisible("dashboard", true)
+        waitUntil { dashboardRuns.get() >= 3 }
+        assertEquals(0, classesRuns.get())
+
+        scheduler.setVisible("dashboard", false)
+        Thread.sleep(30)
+        val paused = dashboardRuns.get()
+        Thread.sleep(150)
+        assertEquals(paused, dashboardRuns.get())
+
+        // Muncul lagi setelah jeda: refresh langsung jalan, jeda dihitung sebagai refresh yang dilewati
+        scheduler.setVisible("dashboard", true)
+        waitUntil { dashboardRuns.get() > paused }
+        assertTrue("skipped=${scheduler.stats.value.skipped}", scheduler.stats.value.skipped >= 5)
+    }
+
+    @Test
+    fun skippedOutcome_doesNotCountAsRefresh() {
+        val scheduler = AdaptiveRefreshScheduler(scope, baseIntervalMs = 20L, maxIntervalMs = 80L)
+        val runs = AtomicInteger()
+        scheduler.register("classes") { runs.incrementAndGet(); RefreshResult(Outcome.SKIPPED) }
+
+        scheduler.setVisible("classes", true)
+        waitUntil { runs.get() >= 3 }
+
+        assertEquals(0, scheduler.stats.value.refreshes)
+        assertEquals(20L, scheduler.intervalOf("classes"))
+        assertTrue(scheduler.stats.value.skipped >= 3)
+    }
+
+    @Test
+    fun pushConnected_pollsOnlyAtMaxInterval_untilPushDrops() {
+        val scheduler = AdaptiveRefreshScheduler(scope, baseIntervalMs = 20L, maxIntervalMs = 1_000L)
+        val runs = AtomicInteger()
+        scheduler.register("dashboard") { runs.incrementAndGet(); RefreshResult(Outcome.CHANGED) }
+
+        scheduler.setPushConnected("dashboard", true)
+        scheduler.setVisible("dashboard", true)
+        Thread.sleep(150)
+        assertEquals("push aktif: polling ditahan", 0, runs.get())
+
+        // Push putus: polling kembali ke interval dasar
+        scheduler.setPushConnected("dashboard", false)
+        waitUntil { runs.get() >= 3 }
+    }
+
+    @Test
+    fun conditionalRequests_countBytesAndNotModified() {
+        val body = """{"success":true,"message":"ok","date":"2026-10-18","day":"Minggu","current_time":"07:00:00",""" +
+            """"status_counts":{},"alert_classes":[],"data":[]}"""
+        val etags = mutableListOf<String?>()
+        val server = MockWebServer()
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                val ifNoneMatch = request.getHeader("If-None-Match")
+                synchronized(etags) { etags.add(ifNoneMatch) }
+                return if (ifNoneMatch == "\"v1\"") {
+                    MockResponse().setResponseCode(304).setHeader("ETag", "\"v1\"")
+                } else {
+                    MockResponse().setBody(body).setHeader("ETag", "\"v1\"")
+                }
+            }
+        }
+        server.start()
+        try {
+            val api = Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .client(OkHttpClient())
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(ApiService::class.java)
+            val scheduler = AdaptiveRefreshScheduler(scope, baseIntervalMs = 20L, maxIntervalMs = 20L)
+            val fingerprint = AtomicReference<String?>(null)
+            scheduler.register("classes") {
+                val result = ConditionalResult.from(
+                    api.getKurikulumClasses("Bearer test", ifNoneMatch = fingerprint.get()),
+                    ClassManagementResponse::class.java
+                )
+                when (result) {
+                    is ConditionalResult.Modified -> {
+                        fingerprint.set(result.fingerprint)
+                        RefreshResult(Outcome.CHANGED, result.bytes)
+                    }
+                    ConditionalResult.NotModified -> RefreshResult(Outcome.UNCHANGED)
+                    is ConditionalResult.Failed -> RefreshResult(Outcome.FAILED)
+                }
+            }
+
+            scheduler.setVisible("classes", true)
+            waitUntil { scheduler.stats.value.refreshes >= 4 }
+            scheduler.setVisible("classes", false)
+
+            val stats = scheduler.stats.value
+            assertEquals(1, stats.changed)
+            assertTrue(stats.unchanged >= 3)
+            // Hanya response pertama yang membawa body
+            assertEquals(body.toByteArray().size.toLong(), stats.bytesFetched)
+            synchronized(etags) {
+                assertNull(etags.first())
+                assertTrue(etags.drop(1).all { it == "\"v1\"" })
+            }
+        } finally {
+            server.shutdown()
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.christopheraldoo.aplikasimonitoringkelas.sync
+
+import com.christopheraldoo.aplikasimonitoringkelas.data.BulkConfirmRequest
+import com.christopheraldoo.aplikasimonitoringkelas.data.BulkConfirmResponse
+import com.christopheraldoo.aplikasimonitoringkelas.data.PendingAttendanceItem
+import com.christopheraldoo.aplikasimonitoringkelas.network.ApiService
+import com.christopheraldoo.aplikasimonitoringkelas.sync.BulkConfirmBatcher.ItemStatus
+import com.google.gson.Gson
+import kotlinx.coroutines.runBlocking
+import okhttp3.OkHttpClient
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import retrofit2.Retrofit
+import retrofit2.converter.gson.GsonConverterFactory
+import java.util.Collections
+import java.util.concurrent.TimeUnit
+
+class BulkConfirmBatcherTest {
+
+    private val gson = Gson()
+    private lateinit var server: MockWebServer
+    private lateinit var api: ApiService
+
+    // Latensi tersuntik: biaya tetap per request + biaya per item di server
+    private val requestLatencyMs = 40L
+    private val perItemLatencyMs = 4L
+
+    private val requests = Collections.synchronizedList(mutableListOf<BulkConfirmRequest>())
+    @Volatile private var failingScheduleId: Int? = null
+    @Volatile private var failuresLeft = 0
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                val body = gson.fromJson(request.body.readUtf8(), BulkConfirmRequest::class.java)
+                requests.add(body)
+                val ids = body.attendanceIds.orEmpty()
+                val scheduleItems = body.scheduleItems.orEmpty()
+                Thread.sleep(requestLatencyMs + perItemLatencyMs * (ids.size + scheduleItems.size))
+
+                synchronized(this@BulkConfirmBatcherTest) {
+                    if (failuresLeft > 0 && scheduleItems.any { it.scheduleId == failingScheduleId }) {
+                        failuresLeft--
+                        return MockResponse().setResponseCode(500).setBody("""{"success":false,"message":"Server Error"}""")
+                    }
+                }
+
+                // Attendance id kelipatan 7 sudah dikonfirmasi orang lain
+                val results = ids.map { id ->
+                    if (id % 7 == 0) """{"attendance_id":$id,"id":$id,"status":"hadir","action":"skipped","reason":"Status sudah hadir"}"""
+                    else """{"attendance_id":$id,"id":$id,"status":"${body.status}","action":"confirmed"}"""
+                } + scheduleItems.map {
+                    """{"schedule_id":${it.scheduleId},"date":"${it.date}","id":${it.scheduleId + 1000},"status":"${body.status}","action":"created"}"""
+                }
+                return MockResponse().setBody(
+                    """{"success":true,"message":"ok","data":{"confirmed_count":0,"skipped_count":0,"results":[${results.joinToString(",")}]}}"""
+                )
+            }
+        }
+        server.start()
+        api = Retrofit.Builder()
+            .baseUrl(server.url("/api/"))
+            .client(OkHttpClient.Builder().readTimeout(10, TimeUnit.SECONDS).build())
+            .addConverterFactory(GsonConverterFactory.create())
+            .build()
+            .create(ApiService::class.java)
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    private suspend fun send(request: BulkConfirmRequest): BulkConfirmResponse {
+        val response = api.bulkConfirmAttendance("Bearer test", request)
+        return response.body() ?: BulkConfirmResponse(success = false, message = "HTTP ${response.code()}")
+    }
+
+    private fun items(count: Int): List<PendingAttendanceItem> = (1..count).map { i ->
+        PendingAttendanceItem(
+            // Separuh sudah punya attendance (pending), separuh belum lapor
+            id = if (i % 2 == 0) i else null,
+            scheduleId = i,
+            date = "2026-10-19",
+            day = "Senin",
+            className = "XII RPL ${i % 3 + 1}",
+            subjectName = "Matematika",
+            teacherId = i,
+            teacherName = "Guru $i",
+            status = if (i % 2 == 0) "pending" else "belum_lapor"
+        )
+    }
+
+    @Test
+    fun chunkedMode_isFasterThanSerialAndSingleShot() = runBlocking {
+        val selection = items(120)
+
+        // Serial: satu request per item (seperti konfirmasi satu per satu)
+        val serial = BulkConfirmBatcher(::send, chunkSize = 1, maxConcurrency = 1, minChunkSize = 1, maxChunkSize = 1)
+            .confirm(selection, "hadir")
+        // Single-shot: seluruh pilihan dalam satu request (perilaku lama)
+        val singleShot = BulkConfirmBatcher(::send, chunkSize = 500, maxConcurrency = 1, minChunkSize = 500, maxChunkSize = 500)
+            .confirm(selection, "hadir")
+        val chunked = BulkConfirmBatcher(::send, chunkSize = 20, maxConcurrency = 3, maxChunkSize = 20)
+            .confirm(selection, "hadir")
+
+        assertEquals(120, serial.chunks)
+        assertEquals(1, singleShot.chunks)
+        assertEquals(6, chunked.chunks)
+        for (report in listOf(serial, singleShot, chunked)) {
+            assertEquals(120, report.outcomes.size)
+            assertEquals(8, report.skipped)
+            assertEquals(112, report.succeeded)
+        }
+        assertTrue(chunked.elapsedMs < singleShot.elapsedMs)
+        assertTrue(chunked.elapsedMs < serial.elapsedMs)
+    }
+
+    @Test
+    fun failedChunk_reportsPerItem_andRetrySendsOnlyFailedItems() = runBlocking {
+        val selection = items(40)
+        failingScheduleId = 3
+        failuresLeft = 1
+        val batcher = BulkConfirmBatcher(::send, chunkSize = 10, maxConcurrency = 2, minChunkSize = 10, maxChunkSize = 10, maxAttempts = 1)
+
+        val report = batcher.confirm(selection, "telat")
+
+        // Chunk pertama (item 1..10) gagal, chunk lain tetap tersimpan
+        assertEquals(4, report.chunks)
+        assertEquals((1..10).toList(), report.failedItems.map { it.scheduleId })
+        assertEquals(ItemStatus.CREATED, report.outcomes.first { it.item.scheduleId == 11 }.status)
+        assertEquals(ItemStatus.SKIPPED, report.outcomes.first { it.item.id == 14 }.status)
+        assertEquals("Status sudah hadir", report.outcomes.first { it.item.id == 14 }.message)
+
+        requests.clear()
+        val retry = batcher.confirm(report.failedItems, "telat")
+
+        assertEquals(1, requests.size)
+        assertEquals(listOf(2, 4, 6, 8, 10), requests.single().attendanceIds)
+        assertEquals(listOf(1, 3, 5, 7, 9), requests.single().scheduleItems?.map { it.scheduleId })
+        assertEquals("telat", requests.single().status)
+        assertTrue(retry.failedItems.isEmpty())
+        assertEquals(10, retry.succeeded)
+    }
+
+    @Test
+    fun automaticRetryRound_resendsOnlyFailedChunk() = runBlocking {
+        failingScheduleId = 1
+        failuresLeft = 1
+        val progress = Collections.synchronizedList(mutableListOf<Int>())
+        val batcher = BulkConfirmBatcher(::send, chunkSize = 5, maxConcurrency = 2, minChunkSize = 5, maxChunkSize = 5)
+
+        val report = batcher.confirm(items(20), "hadir") { processed, _ -> progress.add(processed) }
+
+        assertEquals(2, report.attempts)
+        assertEquals(5, report.chunks)
+        assertTrue(report.failedItems.isEmpty())
+        // Putaran kedua hanya berisi chunk yang gagal
+        assertEquals(listOf(2, 4), requests.last().attendanceIds)
+        assertEquals(listOf(1, 3, 5), requests.last().scheduleItems?.map { it.scheduleId })
+        assertEquals(20, progress.last())
+    }
+
+    @Test
+    fun slowChunks_shrinkAndFastChunks_grow() = runBlocking {
+        var now = 0L
+        val sizes = mutableListOf<Int>()
+        val batcher = BulkConfirmBatcher(
+            send = { request ->
+                val size = request.attendanceIds.orEmpty().size + request.scheduleItems.orEmpty().size
+                sizes.add(size)
+                // Chunk ke-2 lambat, sisanya cepat
+                now += if (sizes.size == 2) 5_000L else 100L
+                BulkConfirmResponse(success = true)
+            },
+            chunkSize = 20, maxConcurrency = 1, minChunkSize = 5, maxChunkSize = 30,
+            targetChunkMs = 3_000L, clock = { now }
+        )
+
+        batcher.confirm(items(100), "hadir")
+
+        assertEquals(listOf(20, 25, 12, 17, 22), sizes.take(5))
+        assertEquals(100, sizes.sum())
+    }
+}
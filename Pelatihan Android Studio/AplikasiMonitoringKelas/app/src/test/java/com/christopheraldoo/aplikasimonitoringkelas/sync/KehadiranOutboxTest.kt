@@ -0,0 +1,243 @@
+package com.christopheraldoo.aplikasimonitoringkelas.sync
+
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.PendingKehadiran
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.PendingKehadiranDao
+import com.christopheraldoo.aplikasimonitoringkelas.network.ApiService
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.runBlocking
+import okhttp3.OkHttpClient
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import retrofit2.Retrofit
+import retrofit2.converter.gson.GsonConverterFactory
+
+class KehadiranOutboxTest {
+
+    private lateinit var server: MockWebServer
+    private lateinit var api: ApiService
+    private lateinit var dao: FakePendingKehadiranDao
+    private lateinit var outbox: KehadiranOutbox
+    private var now = 1_000L
+    private var currentUserId: Long? = 42L
+
+    private val okJson = """{"success":true,"message":"Kehadiran guru berhasil dicatat: Hadir"}"""
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+        api = Retrofit.Builder()
+            .baseUrl(server.url("/api/"))
+            .client(OkHttpClient())
+            .addConverterFactory(GsonConverterFactory.create())
+            .build()
+            .create(ApiService::class.java)
+        dao = FakePendingKehadiranDao()
+        outbox = KehadiranOutbox(dao, { api }, { "test-token" }, { currentUserId }, clock = { now++ })
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    @Test
+    fun duplicateSubmissions_collapseToLatestAndSendOnce() = runBlocking {
+        outbox.enqueue(7, "2026-10-12", "hadir", null)
+        outbox.enqueue(7, "2026-10-12", "telat", "Masuk 07:20")
+        server.enqueue(MockResponse().setBody(okJson))
+
+        val result = outbox.drain()
+
+        assertEquals(1, server.requestCount)
+        val body = server.takeRequest().body.readUtf8()
+        assertTrue(body.contains("\"status\":\"telat\""))
+        assertTrue(body.contains("\"tanggal\":\"2026-10-12\""))
+        assertEquals(1, result.sent)
+        assertFalse(result.shouldRetry)
+        assertTrue(dao.rows.isEmpty())
+    }
+
+    @Test
+    fun drain_sendsAllRowsAcrossBatches() = runBlocking {
+        repeat(45) { outbox.enqueue(it + 1, "2026-10-12", "hadir", null) }
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest) = MockResponse().setBody(okJson)
+        }
+
+        val result = outbox.drain(batchSize = 20)
+
+        assertEquals(45, server.requestCount)
+        assertEquals(45, result.sent)
+        assertEquals(0, result.remaining)
+        assertEquals(3, dao.batchQueries - 1) // 3 batch berisi data + 1 query kosong penutup
+        assertEquals("Bearer test-token", server.takeRequest().getHeader("Authorization"))
+    }
+
+    @Test
+    fun serverError_stopsDrainAndKeepsRowsForRetry() = runBlocking {
+        repeat(5) { outbox.enqueue(it + 1, "2026-10-12", "hadir", null) }
+        server.enqueue(MockResponse().setBody(okJson))
+        server.enqueue(MockResponse().setResponseCode(503))
+
+        val result = outbox.drain()
+
+        assertEquals(2, server.requestCount)
+        assertEquals(1, result.sent)
+        assertEquals(4, result.remaining)
+        assertTrue(result.shouldRetry)
+        assertEquals(1, dao.rows.values.single { it.scheduleId == 2 }.attempts)
+    }
+
+    @Test
+    fun rejectedRow_isKeptAsRejectedAndDrainContinues() = runBlocking {
+        outbox.enqueue(1, "2026-10-12", "hadir", null)
+        outbox.enqueue(2, "2026-10-12", "hadir", null)
+        server.enqueue(
+            MockResponse()
+                .setResponseCode(400)
+                .setBody("""{"success":false,"message":"Kehadiran sudah dikonfirmasi oleh Kurikulum"}""")
+        )
+        server.enqueue(MockResponse().setBody(okJson))
+
+        val result = outbox.drain()
+
+        assertEquals(1, result.sent)
+        assertEquals(1, result.rejected)
+        assertFalse(result.shouldRetry)
+        val rejected = dao.rows.values.single()
+        assertTrue(rejected.isRejected)
+        assertEquals("Kehadiran sudah dikonfirmasi oleh Kurikulum", rejected.lastError)
+    }
+
+    @Test
+    fun unprocessableTanggal_dropsRowInsteadOfKeepingIt() = runBlocking {
+        outbox.enqueue(4, "2026-09-01", "hadir", null)
+        server.enqueue(
+            MockResponse()
+                .setResponseCode(422)
+                .setBody("""{"success":false,"message":"Laporan untuk tanggal 2026-09-01 sudah kedaluwarsa"}""")
+        )
+
+        val result = outbox.drain()
+
+        assertEquals(1, result.rejected)
+        assertFalse(result.shouldRetry)
+        assertTrue(dao.rows.isEmpty())
+    }
+
+    @Test
+    fun rowsOfPreviousUser_areDroppedNotSentWithNewToken() = runBlocking {
+        outbox.enqueue(5, "2026-10-12", "tidak_hadir", null)
+        currentUserId = 77L
+        outbox.enqueue(6, "2026-10-12", "hadir", null)
+        server.enqueue(MockResponse().setBody(okJson))
+
+        val result = outbox.drain()
+
+        assertEquals(1, server.requestCount)
+        assertTrue(server.takeRequest().body.readUtf8().contains("\"schedule_id\":6"))
+        assertEquals(1, result.sent)
+        assertTrue(dao.rows.isEmpty())
+    }
+
+    @Test
+    fun clearForUser_removesOnlyThatUsersRows() = runBlocking {
+        outbox.enqueue(1, "2026-10-12", "hadir", null)
+        currentUserId = 77L
+        outbox.enqueue(2, "2026-10-12", "hadir", null)
+
+        outbox.clearForUser(42L)
+
+        assertEquals(listOf(77L), dao.rows.values.map { it.userId })
+    }
+
+    @Test
+    fun sendNow_offlineKeepsRowPending() = runBlocking {
+        outbox.enqueue(3, "2026-10-12", "tidak_hadir", null)
+        server.shutdown()
+
+        val outcome = outbox.sendNow(3, "2026-10-12")
+
+        assertTrue(outcome is KehadiranOutbox.SendOutcome.RetryLater)
+        assertTrue(dao.rows.values.single().isPending)
+    }
+
+    /**
+     * DAO in-memory dengan semantik yang sama seperti query Room di PendingKehadiranDao
+     */
+    private class FakePendingKehadiranDao : PendingKehadiranDao {
+        val rows = LinkedHashMap<Pair<Int, String>, PendingKehadiran>()
+        private val flow = MutableStateFlow<List<PendingKehadiran>>(emptyList())
+        var batchQueries = 0
+
+        private fun publish() {
+            flow.value = rows.values.toList()
+        }
+
+        override suspend fun upsert(item: PendingKehadiran) {
+            rows[item.scheduleId to item.tanggal] = item
+            publish()
+        }
+
+        override suspend fun get(scheduleId: Int, tanggal: String) = rows[scheduleId to tanggal]
+
+        override suspend fun getPendingBatch(limit: Int): List<PendingKehadiran> {
+            batchQueries++
+            return rows.values.filter { it.isPending }.sortedBy { it.updatedAt }.take(limit)
+        }
+
+        override suspend fun countPending() = rows.values.count { it.isPending }
+
+        override fun observeForUser(userId: Long): Flow<List<PendingKehadiran>> = flow
+
+        override suspend fun deleteNotOwnedBy(userId: Long): Int {
+            val removed = rows.values.filter { it.userId != userId }
+            removed.forEach { rows.remove(it.scheduleId to it.tanggal) }
+            publish()
+            return removed.size
+        }
+
+        override suspend fun deleteForUser(userId: Long) {
+            rows.values.filter { it.userId == userId || it.userId == 0L }
+                .forEach { rows.remove(it.scheduleId to it.tanggal) }
+            publish()
+        }
+
+        override suspend fun deleteIfUnchanged(scheduleId: Int, tanggal: String, updatedAt: Long): Int {
+            val key = scheduleId to tanggal
+            if (rows[key]?.updatedAt != updatedAt) return 0
+            rows.remove(key)
+            publish()
+            return 1
+        }
+
+        override suspend fun markRejected(scheduleId: Int, tanggal: String, updatedAt: Long, error: String?): Int {
+            val key = scheduleId to tanggal
+            val row = rows[key]?.takeIf { it.updatedAt == updatedAt } ?: return 0
+            rows[key] = row.copy(syncState = PendingKehadiran.STATE_REJECTED, lastError = error)
+            publish()
+            return 1
+        }
+
+        override suspend fun markAttemptFailed(scheduleId: Int, tanggal: String, error: String?) {
+            val key = scheduleId to tanggal
+            rows[key]?.let { rows[key] = it.copy(attempts = it.attempts + 1, lastError = error) }
+            publish()
+        }
+
+        override suspend fun delete(scheduleId: Int, tanggal: String) {
+            rows.remove(scheduleId to tanggal)
+            publish()
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.christopheraldoo.aplikasimonitoringkelas.sync
+
+import com.christopheraldoo.aplikasimonitoringkelas.data.DashboardStats
+import com.christopheraldoo.aplikasimonitoringkelas.data.KurikulumDashboardResponse
+import com.christopheraldoo.aplikasimonitoringkelas.data.ScheduleApi
+import com.christopheraldoo.aplikasimonitoringkelas.data.ScheduleChangeEvent
+import com.christopheraldoo.aplikasimonitoringkelas.data.ScheduleOverview
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class LiveUpdatePatcherTest {
+
+    private val rpl1 = listOf(
+        ScheduleOverview(scheduleId = 1, className = "X RPL 1", period = 1, status = "hadir", statusColor = "green"),
+        ScheduleOverview(scheduleId = 2, className = "X RPL 1", period = 2, status = "pending")
+    )
+    private val rpl2 = listOf(ScheduleOverview(scheduleId = 3, className = "X RPL 2", period = 1, status = "pending"))
+
+    private val dashboard = KurikulumDashboardResponse(
+        success = true,
+        date = "2026-10-18",
+        day = "Minggu",
+        stats = DashboardStats(totalSchedules = 3, hadir = 1, pending = 2),
+        data = rpl1 + rpl2,
+        groupedByClass = linkedMapOf("X RPL 1" to rpl1, "X RPL 2" to rpl2)
+    )
+
+    private fun event(scheduleId: Int, field: String, value: String?, date: String = "2026-10-18") =
+        ScheduleChangeEvent(id = 1, scheduleId = scheduleId, date = date, field = field, value = value)
+
+    @Test
+    fun substituteAssignment_patchesOnlyThatScheduleAndMovesStats() {
+        val status = LiveUpdatePatcher.patch(dashboard, event(2, ScheduleChangeEvent.FIELD_STATUS, "diganti"))!!
+        val patched = LiveUpdatePatcher.patch(status, event(2, ScheduleChangeEvent.FIELD_SUBSTITUTE_TEACHER, "Bu Rina"))!!
+
+        val schedule = patched.data.single { it.scheduleId == 2 }
+        assertEquals("diganti", schedule.status)
+        assertEquals("blue", schedule.statusColor)
+        assertEquals("Bu Rina", schedule.substituteTeacher)
+        assertEquals(schedule, patched.groupedByClass!!.getValue("X RPL 1")[1])
+        // Kelas lain tidak disalin ulang
+        assertSame(rpl2, patched.groupedByClass!!.getValue("X RPL 2"))
+        assertEquals(1, patched.stats.diganti)
+        assertEquals(1, patched.stats.pending)
+        assertEquals(1, patched.stats.hadir)
+    }
+
+    @Test
+    fun eventsForOtherDatesOrSchedules_areIgnored() {
+        assertNull(LiveUpdatePatcher.patch(dashboard, event(2, ScheduleChangeEvent.FIELD_STATUS, "hadir", date = "2026-10-17")))
+        assertNull(LiveUpdatePatcher.patch(dashboard, event(99, ScheduleChangeEvent.FIELD_STATUS, "hadir")))
+        // Nilai sama dengan yang tampil: tidak ada perubahan
+        assertNull(LiveUpdatePatcher.patch(dashboard, event(1, ScheduleChangeEvent.FIELD_STATUS, "hadir")))
+    }
+
+    @Test
+    fun teacherLeave_marksScheduleOnLeave() {
+        val patched = LiveUpdatePatcher.patch(dashboard, event(3, ScheduleChangeEvent.FIELD_STATUS, "izin"))!!
+        val withReason = LiveUpdatePatcher.patch(patched, event(3, ScheduleChangeEvent.FIELD_LEAVE_REASON, "Sakit"))!!
+
+        val schedule = withReason.data.single { it.scheduleId == 3 }
+        assertTrue(schedule.teacherOnLeave)
+        assertEquals("Sakit", schedule.leaveReason)
+        assertEquals(1, withReason.stats.izin)
+    }
+
+    @Test
+    fun leaveCancelled_clearsLeaveFlagAndReason() {
+        val onLeave = LiveUpdatePatcher.patch(dashboard, event(3, ScheduleChangeEvent.FIELD_STATUS, "izin"))!!
+        val withReason = LiveUpdatePatcher.patch(onLeave, event(3, ScheduleChangeEvent.FIELD_LEAVE_REASON, "Sakit"))!!
+        val present = LiveUpdatePatcher.patch(withReason, event(3, ScheduleChangeEvent.FIELD_STATUS, "hadir"))!!
+
+        val schedule = present.data.single { it.scheduleId == 3 }
+        assertEquals("hadir", schedule.status)
+        assertFalse(schedule.teacherOnLeave)
+        assertNull(schedule.leaveReason)
+        assertEquals(0, present.stats.izin)
+        assertEquals(2, present.stats.hadir)
+    }
+
+    @Test
+    fun studentSchedule_onlyTodayRowsArePatched() {
+        fun row(id: Int, day: String, isToday: Boolean) = ScheduleApi(
+            id = id, classId = 1, subjectId = 1, teacherId = 1, dayOfWeek = day, period = 1,
+            startTime = "07:00", endTime = "07:45", isToday = isToday
+        )
+        val schedules = listOf(row(1, "Minggu", isToday = true), row(2, "Senin", isToday = false))
+
+        val substitute = event(1, ScheduleChangeEvent.FIELD_SUBSTITUTE_TEACHER, "Pak Budi")
+        val patched = LiveUpdatePatcher.patch(schedules, substitute, today = "2026-10-18")!!
+        assertEquals("Pak Budi", patched[0].substituteTeacherName)
+        assertNull(LiveUpdatePatcher.patch(schedules, event(2, ScheduleChangeEvent.FIELD_STATUS, "hadir"), today = "2026-10-18"))
+        // Event untuk jadwal yang sama minggu depan (izin yang sudah disetujui) tidak mengenai baris hari ini
+        assertNull(LiveUpdatePatcher.patch(schedules, substitute.copy(date = "2026-10-25"), today = "2026-10-18"))
+    }
+}
@@ -0,0 +1,185 @@
+package com.christopheraldoo.aplikasimonitoringkelas.sync
+
+import com.christopheraldoo.aplikasimonitoringkelas.data.ScheduleApi
+import com.christopheraldoo.aplikasimonitoringkelas.data.ScheduleDeltaResponse
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.ScheduleDao
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.ScheduleEntity
+import com.christopheraldoo.aplikasimonitoringkelas.data.local.SyncCursor
+import com.christopheraldoo.aplikasimonitoringkelas.network.ApiService
+import com.google.gson.Gson
+import kotlinx.coroutines.runBlocking
+import okhttp3.OkHttpClient
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import retrofit2.Retrofit
+import retrofit2.converter.gson.GsonConverterFactory
+
+class ScheduleDeltaSyncTest {
+
+    private lateinit var server: MockWebServer
+    private lateinit var dao: FakeScheduleDao
+    private lateinit var sync: ScheduleDeltaSync
+    private val gson = Gson()
+
+    private val days = listOf("Senin", "Selasa", "Rabu", "Kamis", "Jumat")
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+        val api = Retrofit.Builder()
+            .baseUrl(server.url("/api/"))
+            .client(OkHttpClient())
+            .addConverterFactory(GsonConverterFactory.create())
+            .build()
+            .create(ApiService::class.java)
+        dao = FakeScheduleDao()
+        sync = ScheduleDeltaSync(dao, { api }, { "test-token" }, clock = { 1_000L })
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    private fun row(id: Int, teacher: String = "Guru $id") = mapOf(
+        "id" to id,
+        "class_id" to (id % 30) + 1,
+        "subject_id" to (id % 12) + 1,
+        "teacher_id" to (id % 40) + 1,
+        "day_of_week" to days[id % days.size],
+        "period" to 1,
+        "start_time" to "07:00",
+        "end_time" to "08:30",
+        "status" to "active",
+        "class_name" to "XII RPL ${(id % 30) + 1}",
+        "subject_name" to "Mapel ${(id % 12) + 1}",
+        "teacher_name" to teacher
+    )
+
+    private fun body(full: Boolean, cursor: String?, rows: List<Map<String, Any>>, deleted: List<Int> = emptyList()): String {
+        val map = mutableMapOf<String, Any>("success" to true, "full" to full, "data" to rows, "deleted" to deleted)
+        if (cursor != null) map["cursor"] = cursor
+        return gson.toJson(map)
+    }
+
+    @Test
+    fun firstSync_requestsFullSnapshotAndStoresCursor() = runBlocking {
+        server.enqueue(MockResponse().setBody(body(true, "2026-10-18 07:00:00", (1..10).map { row(it) })))
+
+        val result = sync.sync().getOrThrow()
+
+        assertTrue(result.full)
+        assertEquals(10, dao.rows.size)
+        assertEquals("2026-10-18 07:00:00", dao.cursors[ScheduleDeltaSync.RESOURCE])
+        val request = server.takeRequest()
+        assertEquals("0", request.requestUrl?.queryParameter("since"))
+        assertEquals("Bearer test-token", request.getHeader("Authorization"))
+    }
+
+    @Test
+    fun deltaSync_mergesChangedRowsAndAppliesTombstones() = runBlocking {
+        server.enqueue(MockResponse().setBody(body(true, "c1", (1..10).map { row(it) })))
+        server.enqueue(
+            MockResponse().setBody(body(false, "c2", listOf(row(3, teacher = "Guru Pengganti"), row(11)), deleted = listOf(5, 6)))
+        )
+
+        sync.sync().getOrThrow()
+        val result = sync.sync().getOrThrow()
+
+        assertFalse(result.full)
+        assertEquals(2, result.changed)
+        assertEquals(2, result.deleted)
+        assertEquals((1..11).filter { it != 5 && it != 6 }, dao.rows.keys.sorted())
+        assertEquals("Guru Pengganti", dao.rows.getValue(3).teacherName)
+        server.takeRequest()
+        assertEquals("c1", server.takeRequest().requestUrl?.queryParameter("since"))
+        assertEquals("c2", dao.cursors[ScheduleDeltaSync.RESOURCE])
+    }
+
+    @Test
+    fun fullFlagFromServer_replacesLocalStore() = runBlocking {
+        dao.cursors[ScheduleDeltaSync.RESOURCE] = "expired"
+        dao.upsertAll((1..5).map { ScheduleEntity.fromApi(gson.fromJson(gson.toJson(row(it)), ScheduleApi::class.java)) })
+        server.enqueue(MockResponse().setBody(body(true, "c9", listOf(row(4), row(20)))))
+
+        sync.sync().getOrThrow()
+
+        assertEquals(listOf(4, 20), dao.rows.keys.sorted())
+    }
+
+    @Test
+    fun serverWithoutCursor_failsSoCallerFallsBackToFullDownload() = runBlocking {
+        server.enqueue(MockResponse().setBody(body(false, null, (1..3).map { row(it) })))
+
+        assertTrue(sync.sync().isFailure)
+        assertTrue(dao.rows.isEmpty())
+        assertNull(dao.cursors[ScheduleDeltaSync.RESOURCE])
+    }
+
+    @Test
+    fun localQuery_appliesFiltersLikeServer() = runBlocking {
+        server.enqueue(MockResponse().setBody(body(true, "c1", (1..100).map { row(it) })))
+        sync.sync().getOrThrow()
+
+        val senin = sync.query(day = "senin")
+        assertEquals(20, senin.size)
+        assertTrue(senin.all { it.dayOfWeek == "Senin" })
+        assertEquals(listOf(30, 60, 90), sync.query(classId = 1).map { it.id })
+    }
+
+    @Test
+    fun deltaPayload_isMuchSmallerThanFullSnapshot() {
+        val snapshot = body(true, "c1", (1..2_000).map { row(it) })
+        val delta = body(false, "c2", (1..5).map { row(it * 7, teacher = "Guru Baru") }, deleted = listOf(13, 14))
+
+        val parsed = gson.fromJson(delta, ScheduleDeltaResponse::class.java)
+        assertEquals(5, parsed.data.size)
+        assertEquals(listOf(13, 14), parsed.deleted)
+        assertTrue(delta.length * 100 < snapshot.length)
+    }
+
+    /**
+     * DAO in-memory dengan semantik query Room di ScheduleDao; applyDelta memakai implementasi asli
+     */
+    private class FakeScheduleDao : ScheduleDao() {
+        val rows = LinkedHashMap<Int, ScheduleEntity>()
+        val cursors = HashMap<String, String>()
+
+        override suspend fun upsertAll(items: List<ScheduleEntity>) {
+            items.forEach { rows[it.id] = it }
+        }
+
+        override suspend fun deleteByIds(ids: List<Int>) {
+            assertTrue(ids.size <= DELETE_CHUNK_SIZE)
+            ids.forEach { rows.remove(it) }
+        }
+
+        override suspend fun clear() = rows.clear()
+
+        override suspend fun query(day: String?, classId: Int?, teacherId: Int?): List<ScheduleEntity> {
+            return rows.values
+                .filter { day == null || it.dayOfWeek.equals(day, ignoreCase = true) }
+                .filter { classId == null || it.classId == classId }
+                .filter { teacherId == null || it.teacherId == teacherId }
+                .sortedBy { it.id }
+        }
+
+        override suspend fun getCursor(resource: String) = cursors[resource]
+
+        override suspend fun saveCursor(cursor: SyncCursor) {
+            cursors[cursor.resource] = cursor.cursor
+        }
+
+        override suspend fun clearCursor(resource: String) {
+            cursors.remove(resource)
+        }
+    }
+}
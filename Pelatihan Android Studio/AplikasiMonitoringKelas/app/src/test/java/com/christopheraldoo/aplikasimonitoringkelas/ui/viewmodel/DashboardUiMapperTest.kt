@@ -0,0 +1,94 @@
+package com.christopheraldoo.aplikasimonitoringkelas.ui.viewmodel
+
+import com.christopheraldoo.aplikasimonitoringkelas.data.ScheduleOverview
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class DashboardUiMapperTest {
+
+    private fun schedule(
+        id: Int,
+        className: String,
+        period: Int?,
+        status: String = "pending",
+        statusColor: String = "gray"
+    ) = ScheduleOverview(
+        scheduleId = id,
+        className = className,
+        subjectName = "Mapel $id",
+        teacherName = "Guru $id",
+        period = period,
+        startTime = "07:00",
+        endTime = "07:45",
+        status = status,
+        statusColor = statusColor
+    )
+
+    @Test
+    fun rowsAreSortedByPeriod_andKeepServerClassOrder() {
+        val grouped = linkedMapOf(
+            "XII RPL 1" to listOf(schedule(3, "XII RPL 1", 3), schedule(1, "XII RPL 1", 1), schedule(2, "XII RPL 1", null)),
+            "X RPL 1" to listOf(schedule(4, "X RPL 1", 2))
+        )
+
+        val cards = DashboardUiMapper.classCards(grouped, grouped.values.flatten())
+
+        assertEquals(listOf("XII RPL 1", "X RPL 1"), cards.map { it.className })
+        assertEquals(listOf(2, 1, 3), cards[0].rows.map { it.scheduleId })
+        assertEquals("0", cards[0].rows[0].periodLabel)
+        assertEquals("07:00 - 07:45", cards[0].rows[0].timeLabel)
+    }
+
+    @Test
+    fun withoutServerGrouping_schedulesAreGroupedByClassName() {
+        val schedules = listOf(schedule(1, "X RPL 1", 1), schedule(2, "X RPL 2", 1), schedule(3, "X RPL 1", 2))
+
+        val cards = DashboardUiMapper.classCards(null, schedules)
+
+        assertEquals(listOf("X RPL 1", "X RPL 2"), cards.map { it.className })
+        assertEquals(2, cards[0].rows.size)
+    }
+
+    @Test
+    fun statusLabelsAndCountsArePrecomputed() {
+        val onLeave = schedule(2, "X RPL 1", 2, statusColor = "gray").copy(teacherOnLeave = true, leaveReason = "Sakit")
+        val late = schedule(1, "X RPL 1", 1, status = "telat", statusColor = "yellow").copy(lateMinutes = 10)
+
+        val card = DashboardUiMapper.classCard("X RPL 1", listOf(onLeave, late))
+
+        assertEquals(1, card.telatCount)
+        assertEquals(1, card.izinCount)
+        assertEquals(StatusTone.YELLOW, card.rows[0].tone)
+        assertEquals("Telat", card.rows[0].statusLabel)
+        assertEquals("+10 menit", card.rows[0].lateLabel)
+        assertNull(card.rows[0].leaveReason)
+        assertEquals(StatusTone.PURPLE, card.rows[1].tone)
+        assertEquals("Izin", card.rows[1].statusLabel)
+        assertEquals("Sakit", card.rows[1].leaveReason)
+    }
+
+    @Test
+    fun unchangedCardsKeepTheirInstance_soComposeCanSkipThem() {
+        val first = linkedMapOf(
+            "X RPL 1" to listOf(schedule(1, "X RPL 1", 1)),
+            "X RPL 2" to listOf(schedule(2, "X RPL 2", 1))
+        )
+        val previous = DashboardUiMapper.classCards(first, first.values.flatten())
+
+        // Refresh: hanya status X RPL 2 yang berubah
+        val second = linkedMapOf(
+            "X RPL 1" to listOf(schedule(1, "X RPL 1", 1)),
+            "X RPL 2" to listOf(schedule(2, "X RPL 2", 1, status = "hadir", statusColor = "green"))
+        )
+        val next = DashboardUiMapper.classCards(second, second.values.flatten(), previous)
+
+        assertSame(previous[0], next[0])
+        assertNotSame(previous[1], next[1])
+        assertEquals(1, next[1].hadirCount)
+        assertTrue(next[1].rows.single().tone == StatusTone.GREEN)
+    }
+}
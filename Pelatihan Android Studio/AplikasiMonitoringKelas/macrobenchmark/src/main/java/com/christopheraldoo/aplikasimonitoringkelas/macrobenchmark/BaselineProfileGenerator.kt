@@ -0,0 +1,38 @@
+package com.christopheraldoo.aplikasimonitoringkelas.macrobenchmark
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Merekam jalur panas startup + layar Kurikulum menjadi Baseline Profile untuk :app.
+ * Jalankan: ./gradlew :app:generateBaselineProfile (device API 33+ atau emulator ber-root),
+ * hasilnya tersalin ke app/src/release/generated/baselineProfiles dan ikut di-commit.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4::class)
+class BaselineProfileGenerator {
+
+    @get:Rule
+    val rule = BaselineProfileRule()
+
+    @Test
+    fun generate() = rule.collect(
+        packageName = TARGET_PACKAGE,
+        includeInStartupProfile = true
+    ) {
+        pressHome()
+        startActivityAndWait()
+        loginAsKurikulum()
+
+        awaitDashboardList()?.flingDownAndUp(device)
+
+        openTab(TAB_CLASSES)
+        awaitList(CLASS_LIST)?.flingDownAndUp(device)
+
+        openTab(TAB_HISTORY)
+    }
+}
@@ -0,0 +1,87 @@
+package com.christopheraldoo.aplikasimonitoringkelas.macrobenchmark
+
+import android.os.SystemClock
+import androidx.benchmark.macro.MacrobenchmarkScope
+import androidx.test.platform.app.InstrumentationRegistry
+import androidx.test.uiautomator.By
+import androidx.test.uiautomator.Direction
+import androidx.test.uiautomator.UiDevice
+import androidx.test.uiautomator.UiObject2
+import androidx.test.uiautomator.Until
+
+/**
+ * Langkah UI yang dipakai bersama oleh benchmark dan generator Baseline Profile.
+ * Elemen dicari lewat testTag (testTagsAsResourceId aktif di LoginActivity dan KurikulumActivity).
+ *
+ * Akun bisa diganti lewat argumen instrumentasi:
+ * -Pandroid.testInstrumentationRunnerArguments.kurikulumEmail=... / kurikulumPassword=...
+ */
+const val TARGET_PACKAGE = "com.christopheraldoo.aplikasimonitoringkelas"
+
+private const val UI_TIMEOUT = 5_000L
+private const val NETWORK_TIMEOUT = 20_000L
+
+private const val LOGIN_EMAIL = "login_email"
+private const val LOGIN_PASSWORD = "login_password"
+private const val LOGIN_SUBMIT = "login_submit"
+const val DASHBOARD_LIST = "kurikulum_dashboard_list"
+const val CLASS_SELECTION_LIST = "kurikulum_class_selection_list"
+const val CLASS_LIST = "kurikulum_class_list"
+
+const val TAB_CLASSES = "Kelas"
+const val TAB_HISTORY = "Riwayat"
+
+/**
+ * Login sebagai kurikulum kalau masih di layar login. Setelah proses dibunuh, task bisa
+ * langsung kembali ke KurikulumActivity; dalam kasus itu tidak ada yang perlu diisi.
+ */
+fun MacrobenchmarkScope.loginAsKurikulum() {
+    val deadline = SystemClock.uptimeMillis() + UI_TIMEOUT
+    while (SystemClock.uptimeMillis() < deadline) {
+        if (device.hasObject(By.desc(TAB_CLASSES))) return
+        if (device.hasObject(By.res(LOGIN_EMAIL))) break
+        SystemClock.sleep(100)
+    }
+
+    val args = InstrumentationRegistry.getArguments()
+    device.findObject(By.res(LOGIN_EMAIL)).text = args.getString("kurikulumEmail", "kurikulum@sekolah.com")
+    device.findObject(By.res(LOGIN_PASSWORD)).text = args.getString("kurikulumPassword", "password")
+    device.findObject(By.res(LOGIN_SUBMIT)).click()
+
+    check(device.wait(Until.hasObject(By.desc(TAB_CLASSES)), NETWORK_TIMEOUT)) {
+        "Login kurikulum gagal: pastikan server API bisa diakses dari device"
+    }
+}
+
+/**
+ * Daftar jadwal dashboard. Kalau server meminta filter kelas dulu, kelas pertama dipilih.
+ * null kalau hari ini tidak ada jadwal.
+ */
+fun MacrobenchmarkScope.awaitDashboardList(): UiObject2? {
+    val deadline = SystemClock.uptimeMillis() + NETWORK_TIMEOUT
+    while (SystemClock.uptimeMillis() < deadline) {
+        device.findObject(By.res(DASHBOARD_LIST))?.let { return it }
+        device.findObject(By.res(CLASS_SELECTION_LIST))?.children?.firstOrNull()?.click()
+        SystemClock.sleep(200)
+    }
+    return null
+}
+
+fun MacrobenchmarkScope.openTab(label: String) {
+    device.findObject(By.desc(label))?.click()
+    device.waitForIdle()
+}
+
+fun MacrobenchmarkScope.awaitList(tag: String): UiObject2? {
+    device.wait(Until.hasObject(By.res(tag)), NETWORK_TIMEOUT)
+    return device.findObject(By.res(tag))
+}
+
+/** Fling ke bawah lalu kembali ke atas; margin supaya gesture tidak memicu navigasi sistem */
+fun UiObject2.flingDownAndUp(device: UiDevice) {
+    setGestureMargin(device.displayWidth / 5)
+    fling(Direction.DOWN)
+    device.waitForIdle()
+    fling(Direction.UP)
+    device.waitForIdle()
+}
@@ -0,0 +1,67 @@
+package com.christopheraldoo.aplikasimonitoringkelas.macrobenchmark
+
+import androidx.benchmark.macro.BaselineProfileMode
+import androidx.benchmark.macro.CompilationMode
+import androidx.benchmark.macro.FrameTimingMetric
+import androidx.benchmark.macro.StartupMode
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Durasi frame (frameDurationCpuMs, frameOverrunMs) saat scroll dashboard dan kelola kelas Kurikulum.
+ * Butuh server API dengan data jadwal; akun lihat KurikulumJourney.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4::class)
+class KurikulumScrollBenchmarks {
+
+    @get:Rule
+    val rule = MacrobenchmarkRule()
+
+    @Test
+    fun dashboardScrollNoCompilation() = dashboardScroll(CompilationMode.None())
+
+    @Test
+    fun dashboardScrollBaselineProfile() = dashboardScroll(CompilationMode.Partial(BaselineProfileMode.Require))
+
+    @Test
+    fun classManagementScrollNoCompilation() = classManagementScroll(CompilationMode.None())
+
+    @Test
+    fun classManagementScrollBaselineProfile() = classManagementScroll(CompilationMode.Partial(BaselineProfileMode.Require))
+
+    private fun dashboardScroll(compilationMode: CompilationMode) = rule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(FrameTimingMetric()),
+        compilationMode = compilationMode,
+        startupMode = StartupMode.COLD,
+        iterations = 5,
+        setupBlock = {
+            pressHome()
+            startActivityAndWait()
+            loginAsKurikulum()
+        }
+    ) {
+        awaitDashboardList()?.flingDownAndUp(device)
+    }
+
+    private fun classManagementScroll(compilationMode: CompilationMode) = rule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(FrameTimingMetric()),
+        compilationMode = compilationMode,
+        startupMode = StartupMode.COLD,
+        iterations = 5,
+        setupBlock = {
+            pressHome()
+            startActivityAndWait()
+            loginAsKurikulum()
+            openTab(TAB_CLASSES)
+        }
+    ) {
+        awaitList(CLASS_LIST)?.flingDownAndUp(device)
+    }
+}
@@ -0,0 +1,64 @@
+package com.christopheraldoo.aplikasimonitoringkelas.macrobenchmark
+
+import androidx.benchmark.macro.BaselineProfileMode
+import androidx.benchmark.macro.CompilationMode
+import androidx.benchmark.macro.ExperimentalMetricApi
+import androidx.benchmark.macro.StartupMode
+import androidx.benchmark.macro.StartupTimingMetric
+import androidx.benchmark.macro.TraceSectionMetric
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Waktu startup (timeToInitialDisplay / timeToFullDisplay) tanpa kompilasi vs dengan Baseline Profile.
+ * timeToFullDisplay dilaporkan LoginActivity setelah StartupWarmup selesai; durasi warmup itu sendiri
+ * (di thread background) ikut dicatat lewat trace section-nya.
+ * Jalankan: ./gradlew :macrobenchmark:connectedBenchmarkReleaseAndroidTest
+ * (hasil JSON per build ada di macrobenchmark/build/outputs/connected_android_test_additional_output)
+ */
+@OptIn(ExperimentalMetricApi::class)
+@LargeTest
+@RunWith(AndroidJUnit4::class)
+class StartupBenchmarks {
+
+    @get:Rule
+    val rule = MacrobenchmarkRule()
+
+    @Test
+    fun coldStartupNoCompilation() = coldStartup(CompilationMode.None())
+
+    @Test
+    fun coldStartupBaselineProfile() = coldStartup(CompilationMode.Partial(BaselineProfileMode.Require))
+
+    @Test
+    fun warmStartupBaselineProfile() = rule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        // Proses masih hidup: warmup sudah selesai di start sebelumnya, tidak ada section-nya
+        metrics = listOf(StartupTimingMetric()),
+        compilationMode = CompilationMode.Partial(BaselineProfileMode.Require),
+        startupMode = StartupMode.WARM,
+        iterations = 10,
+        setupBlock = { pressHome() }
+    ) {
+        startActivityAndWait()
+    }
+
+    private fun coldStartup(compilationMode: CompilationMode) = rule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(
+            StartupTimingMetric(),
+            // Nama section sama dengan StartupWarmup.TRACE_SECTION di :app
+            TraceSectionMetric("StartupWarmup", TraceSectionMetric.Mode.First)
+        ),
+        compilationMode = compilationMode,
+        startupMode = StartupMode.COLD,
+        iterations = 10,
+        setupBlock = { pressHome() }
+    ) {
+        startActivityAndWait()
+    }
+}
@@ -21,4 +21,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "Aplikasi Monitoring Kelas"
 include(":app")
+include(":macrobenchmark")
  
\ No newline at end of file
@@ -59,7 +59,8 @@ public function login(Request $request): JsonResponse
             $user->tokens()->delete();
 
             // Create new Sanctum token
-            $token = $user->createToken('auth_token')->plainTextToken;
+            $ttl = $this->tokenTtlMinutes();
+            $token = $user->createToken('auth_token', ['*'], $ttl ? now()->addMinutes($ttl) : null)->plainTextToken;
 
             return response()->json([
                 'success' => true,
@@ -74,6 +75,7 @@ public function login(Request $request): JsonResponse
                     ],
                     'token' => $token,
                     'token_type' => 'Bearer',
+                    'expires_in' => $ttl ? $ttl * 60 : null,
                 ]
             ], 200);
         } catch (\Exception $e) {
@@ -138,7 +140,8 @@ public function refresh(Request $request): JsonResponse
         try {
             $user = Auth::user();
             $request->user()->currentAccessToken()->delete();
-            $token = $user->createToken('api-token')->plainTextToken;
+            $ttl = $this->tokenTtlMinutes();
+            $token = $user->createToken('api-token', ['*'], $ttl ? now()->addMinutes($ttl) : null)->plainTextToken;
 
             return response()->json([
                 'success' => true,
@@ -146,6 +149,7 @@ public function refresh(Request $request): JsonResponse
                 'data' => [
                     'token' => $token,
                     'token_type' => 'Bearer',
+                    'expires_in' => $ttl ? $ttl * 60 : null,
                 ]
             ], 200);
         } catch (\Exception $e) {
@@ -201,4 +205,14 @@ public function changePassword(Request $request): JsonResponse
             ], 500);
         }
     }
+
+    /**
+     * Masa berlaku token mobile dalam menit (null = tidak kedaluwarsa)
+     */
+    private function tokenTtlMinutes(): ?int
+    {
+        $ttl = config('sanctum.token_ttl');
+
+        return $ttl ? (int) $ttl : null;
+    }
 }
@@ -48,4 +48,60 @@ public function summary(Request $request): JsonResponse
             ], 500);
         }
     }
+
+    /**
+     * Data master yang dibutuhkan layar awal dalam satu request:
+     * GET dashboard/bundle?sections=users,teachers,subjects
+     *
+     * Isi setiap section sama persis dengan endpoint masing-masing (users, teachers, subjects).
+     * Section yang tidak dikenal atau tidak boleh diakses role ini dikembalikan di "missing",
+     * supaya client bisa memanggil endpoint lamanya sendiri.
+     */
+    public function bundle(Request $request): JsonResponse
+    {
+        $providers = [
+            'users' => ['roles' => ['admin'], 'load' => fn () => app(UserController::class)->index()],
+            'teachers' => ['roles' => null, 'load' => fn () => app(TeacherController::class)->index()],
+            'subjects' => ['roles' => null, 'load' => fn () => app(SubjectController::class)->index()],
+        ];
+
+        $requested = array_values(array_unique(array_filter(array_map('trim', explode(',', (string) $request->query('sections', ''))))));
+        if (empty($requested)) {
+            return response()->json([
+                'success' => false,
+                'message' => 'Parameter sections wajib diisi'
+            ], 422);
+        }
+
+        $role = $request->user()->role ?? null;
+        $data = [];
+        $missing = [];
+
+        foreach ($requested as $section) {
+            $provider = $providers[$section] ?? null;
+            if (!$provider || ($provider['roles'] !== null && !in_array($role, $provider['roles'], true))) {
+                $missing[] = $section;
+                continue;
+            }
+
+            try {
+                $payload = $provider['load']()->getData(true);
+                if (($payload['success'] ?? false) === true) {
+                    $data[$section] = $payload['data'] ?? [];
+                } else {
+                    $missing[] = $section;
+                }
+            } catch (\Exception $e) {
+                Log::error("Dashboard bundle section $section error: " . $e->getMessage());
+                $missing[] = $section;
+            }
+        }
+
+        return response()->json([
+            'success' => true,
+            'message' => 'Dashboard bundle loaded',
+            'data' => (object) $data,
+            'missing' => $missing,
+        ], 200);
+    }
 }
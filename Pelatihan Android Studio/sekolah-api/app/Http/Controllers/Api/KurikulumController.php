@@ -1486,19 +1486,24 @@ public function confirmAttendance(Request $request): JsonResponse
      * Supports both:
      * - attendance_ids: for items with existing attendance records (status: pending)
      * - schedule_items: for items without attendance records (status: belum_lapor)
+     *
+     * Client mengirim pilihan dalam beberapa chunk, jadi setiap item dilaporkan sendiri
+     * di results (attendance_id atau schedule_id + date, action, reason). Id yang sudah
+     * tidak ada dilewati per item, bukan menggagalkan seluruh chunk lewat validasi exists.
      */
     public function bulkConfirmAttendance(Request $request): JsonResponse
     {
         try {
             \Log::info('bulkConfirmAttendance called', [
-                'all_input' => $request->all()
+                'attendance_ids' => count($request->attendance_ids ?? []),
+                'schedule_items' => count($request->schedule_items ?? [])
             ]);
 
             $request->validate([
-                'attendance_ids' => 'nullable|array',
-                'attendance_ids.*' => 'integer|exists:teacher_attendances,id',
-                'schedule_items' => 'nullable|array',
-                'schedule_items.*.schedule_id' => 'required_with:schedule_items|integer|exists:schedules,id',
+                'attendance_ids' => 'nullable|array|max:200',
+                'attendance_ids.*' => 'integer',
+                'schedule_items' => 'nullable|array|max:200',
+                'schedule_items.*.schedule_id' => 'required_with:schedule_items|integer',
                 'schedule_items.*.date' => 'required_with:schedule_items|date',
                 'status' => 'required|in:hadir,telat'
             ]);
@@ -1514,47 +1519,63 @@ public function bulkConfirmAttendance(Request $request): JsonResponse
             $confirmed = 0;
             $created = 0;
             $skipped = 0;
+            $failed = 0;
             $results = [];
             $kurikulumId = auth()->user()->id ?? null;
 
             // Process existing attendance records (pending status)
             if (!empty($request->attendance_ids)) {
                 foreach ($request->attendance_ids as $attendanceId) {
-                    $attendance = TeacherAttendance::find($attendanceId);
+                    $key = ['attendance_id' => (int) $attendanceId];
 
-                    if (!$attendance || $attendance->status !== 'pending') {
-                        $skipped++;
-                        \Log::info('Skipped attendance', ['id' => $attendanceId, 'reason' => $attendance ? 'status not pending: ' . $attendance->status : 'not found']);
-                        continue;
-                    }
+                    try {
+                        $attendance = TeacherAttendance::find($attendanceId);
 
-                    // Determine final status
-                    $schedule = $attendance->schedule;
-                    $finalStatus = $request->status;
+                        if (!$attendance || $attendance->status !== 'pending') {
+                            $skipped++;
+                            $results[] = $key + [
+                                'id' => $attendance->id ?? null,
+                                'status' => $attendance->status ?? null,
+                                'action' => 'skipped',
+                                'reason' => $attendance ? 'Status sudah ' . $attendance->status : 'Data kehadiran tidak ditemukan'
+                            ];
+                            continue;
+                        }
 
-                    if ($schedule && $attendance->jam_masuk) {
-                        $jamMulai = $this->extractTimeOnly($schedule->jam_mulai);
-                        $jamMasuk = $this->extractTimeOnly($attendance->jam_masuk);
+                        // Determine final status
+                        $schedule = $attendance->schedule;
+                        $finalStatus = $request->status;
 
-                        if ($jamMulai && $jamMasuk) {
-                            $scheduledTime = Carbon::parse($jamMulai);
-                            $actualTime = Carbon::parse($jamMasuk);
+                        if ($schedule && $attendance->jam_masuk) {
+                            $jamMulai = $this->extractTimeOnly($schedule->jam_mulai);
+                            $jamMasuk = $this->extractTimeOnly($attendance->jam_masuk);
 
-                            if ($actualTime->gt($scheduledTime->copy()->addMinutes(5))) {
-                                $finalStatus = 'telat';
+                            if ($jamMulai && $jamMasuk) {
+                                $scheduledTime = Carbon::parse($jamMulai);
+                                $actualTime = Carbon::parse($jamMasuk);
+
+                                if ($actualTime->gt($scheduledTime->copy()->addMinutes(5))) {
+                                    $finalStatus = 'telat';
+                                }
                             }
                         }
-                    }
 
-                    $attendance->update(['status' => $finalStatus]);
-                    $confirmed++;
+                        $attendance->update(['status' => $finalStatus]);
+                        $confirmed++;
 
-                    $results[] = [
-                        'id' => $attendance->id,
-                        'status' => $finalStatus,
-                        'teacher_name' => $attendance->guru->nama ?? 'Unknown',
-                        'action' => 'confirmed'
-                    ];
+                        $results[] = $key + [
+                            'id' => $attendance->id,
+                            'schedule_id' => $attendance->schedule_id,
+                            'date' => $attendance->tanggal ? Carbon::parse($attendance->tanggal)->format('Y-m-d') : null,
+                            'status' => $finalStatus,
+                            'teacher_name' => $attendance->guru->nama ?? 'Unknown',
+                            'action' => 'confirmed'
+                        ];
+                    } catch (\Exception $e) {
+                        $failed++;
+                        \Log::warning('bulkConfirmAttendance item failed', $key + ['message' => $e->getMessage()]);
+                        $results[] = $key + ['action' => 'failed', 'reason' => 'Gagal diproses'];
+                    }
                 }
             }
 
@@ -1563,55 +1584,67 @@ public function bulkConfirmAttendance(Request $request): JsonResponse
                 foreach ($request->schedule_items as $item) {
                     $scheduleId = $item['schedule_id'];
                     $targetDate = $item['date'];
+                    $key = ['schedule_id' => (int) $scheduleId, 'date' => $targetDate];
 
-                    $schedule = Schedule::find($scheduleId);
-                    if (!$schedule) {
-                        $skipped++;
-                        \Log::info('Skipped schedule item', ['schedule_id' => $scheduleId, 'reason' => 'schedule not found']);
-                        continue;
-                    }
-
-                    // Check if attendance already exists
-                    $existingAttendance = TeacherAttendance::where('schedule_id', $scheduleId)
-                        ->where('tanggal', $targetDate)
-                        ->first();
-
-                    if ($existingAttendance) {
-                        // If it exists and is pending, confirm it
-                        if ($existingAttendance->status === 'pending') {
-                            $existingAttendance->update(['status' => $request->status]);
-                            $confirmed++;
-                            $results[] = [
-                                'id' => $existingAttendance->id,
-                                'status' => $request->status,
-                                'teacher_name' => $existingAttendance->guru->nama ?? 'Unknown',
-                                'action' => 'confirmed'
-                            ];
-                        } else {
+                    try {
+                        $schedule = Schedule::find($scheduleId);
+                        if (!$schedule) {
                             $skipped++;
-                            \Log::info('Skipped schedule item', ['schedule_id' => $scheduleId, 'reason' => 'already has status: ' . $existingAttendance->status]);
+                            $results[] = $key + ['action' => 'skipped', 'reason' => 'Jadwal tidak ditemukan'];
+                            continue;
                         }
-                        continue;
-                    }
 
-                    // Create new attendance record
-                    $attendance = TeacherAttendance::create([
-                        'schedule_id' => $scheduleId,
-                        'guru_id' => $schedule->guru_id,
-                        'tanggal' => $targetDate,
-                        'jam_masuk' => Carbon::now()->format('H:i:s'),
-                        'status' => $request->status,
-                        'keterangan' => 'Dikonfirmasi oleh Kurikulum',
-                        'created_by' => $kurikulumId
-                    ]);
+                        // Check if attendance already exists
+                        $existingAttendance = TeacherAttendance::where('schedule_id', $scheduleId)
+                            ->where('tanggal', $targetDate)
+                            ->first();
+
+                        if ($existingAttendance) {
+                            // If it exists and is pending, confirm it
+                            if ($existingAttendance->status === 'pending') {
+                                $existingAttendance->update(['status' => $request->status]);
+                                $confirmed++;
+                                $results[] = $key + [
+                                    'id' => $existingAttendance->id,
+                                    'status' => $request->status,
+                                    'teacher_name' => $existingAttendance->guru->nama ?? 'Unknown',
+                                    'action' => 'confirmed'
+                                ];
+                            } else {
+                                $skipped++;
+                                $results[] = $key + [
+                                    'id' => $existingAttendance->id,
+                                    'status' => $existingAttendance->status,
+                                    'action' => 'skipped',
+                                    'reason' => 'Status sudah ' . $existingAttendance->status
+                                ];
+                            }
+                            continue;
+                        }
 
-                    $created++;
-                    $results[] = [
-                        'id' => $attendance->id,
-                        'status' => $attendance->status,
-                        'teacher_name' => $schedule->guru->nama ?? 'Unknown',
-                        'action' => 'created'
-                    ];
+                        // Create new attendance record
+                        $attendance = TeacherAttendance::create([
+                            'schedule_id' => $scheduleId,
+                            'guru_id' => $schedule->guru_id,
+                            'tanggal' => $targetDate,
+                            'jam_masuk' => Carbon::now()->format('H:i:s'),
+                            'status' => $request->status,
+                            'keterangan' => 'Dikonfirmasi oleh Kurikulum',
+                            'created_by' => $kurikulumId
+                        ]);
+
+                        $created++;
+                        $results[] = $key + [
+                            'id' => $attendance->id,
+                            'status' => $attendance->status,
+                            'teacher_name' => $schedule->guru->nama ?? 'Unknown',
+                            'action' => 'created'
+                        ];
+                    } catch (\Exception $e) {
+                        $failed++;
+                        \Log::warning('bulkConfirmAttendance item failed', $key + ['message' => $e->getMessage()]);
+                        $results[] = $key + ['action' => 'failed', 'reason' => 'Gagal diproses'];
+                    }
                 }
             }
 
@@ -1630,6 +1663,9 @@ public function bulkConfirmAttendance(Request $request): JsonResponse
             if ($skipped > 0) {
                 $message .= ", $skipped dilewati";
             }
+            if ($failed > 0) {
+                $message .= ", $failed gagal";
+            }
 
             return response()->json([
                 'success' => true,
@@ -1638,6 +1674,7 @@ public function bulkConfirmAttendance(Request $request): JsonResponse
                     'confirmed_count' => $confirmed,
                     'created_count' => $created,
                     'skipped_count' => $skipped,
+                    'failed_count' => $failed,
                     'results' => $results
                 ]
             ]);
@@ -0,0 +1,117 @@
+<?php
+
+namespace App\Http\Controllers\Api;
+
+use App\Http\Controllers\Controller;
+use Illuminate\Http\Request;
+use Illuminate\Support\Facades\DB;
+use Symfony\Component\HttpFoundation\StreamedResponse;
+
+/**
+ * Server-Sent Events untuk perubahan kehadiran guru (guru pengganti, izin, status).
+ *
+ * Stream ditutup setelah STREAM_SECONDS supaya worker PHP tidak tertahan lama; app
+ * menyambung ulang dengan Last-Event-ID dan menerima event yang terlewat dari tabel
+ * schedule_live_events. Polling di app hanya dipakai saat stream ini tidak tersambung.
+ *
+ * Setiap client yang tersambung menahan satu worker PHP selama stream berjalan, jadi endpoint
+ * ini hanya aktif kalau android.live_updates.enabled (LIVE_UPDATES_ENABLED) dinyalakan dan
+ * jumlah worker (php-fpm pm.max_children, atau PHP_CLI_SERVER_WORKERS untuk `php artisan serve`
+ * yang default-nya hanya satu worker) lebih besar dari jumlah client yang tersambung bersamaan.
+ * Saat nonaktif endpoint membalas 404 dan app tetap memakai polling.
+ */
+class LiveUpdateController extends Controller
+{
+    private const STREAM_SECONDS = 55;
+    private const POLL_INTERVAL_MICROSECONDS = 1000000;
+    // Harus lebih pendek dari read timeout client (LiveUpdatesClient.READ_TIMEOUT_SECONDS)
+    private const HEARTBEAT_SECONDS = 15;
+    private const BATCH_SIZE = 100;
+    private const RETRY_MILLISECONDS = 3000;
+
+    public function scheduleEvents(Request $request): StreamedResponse
+    {
+        if (!config('android.live_updates.enabled')) {
+            abort(404);
+        }
+
+        // Siswa hanya menerima event kelasnya; kurikulum, kepala sekolah dan admin memantau semua kelas
+        $user = $request->user();
+        $kelas = null;
+        if ($user->isSiswa()) {
+            $kelas = DB::table('classes')->where('id', $user->class_id)->value('nama_kelas');
+            if (!$kelas) {
+                abort(403, 'No class assigned');
+            }
+        } elseif (!$user->isKurikulum() && !$user->isKepalaSekolah() && !$user->isAdmin()) {
+            abort(403);
+        }
+
+        $lastEventId = $request->header('Last-Event-ID', $request->query('last_event_id'));
+
+        // Koneksi pertama: data awal sudah dimuat lewat REST, cukup kirim event sesudah ini
+        $cursor = is_numeric($lastEventId)
+            ? (int) $lastEventId
+            : (int) DB::table('schedule_live_events')->orderByDesc('id')->value('id');
+
+        return response()->stream(function () use ($cursor, $kelas) {
+            @set_time_limit(self::STREAM_SECONDS + 15);
+            $startedAt = time();
+            $lastWriteAt = time();
+
+            echo 'retry: ' . self::RETRY_MILLISECONDS . "\n\n";
+            $this->flush();
+
+            while (time() - $startedAt < self::STREAM_SECONDS && !connection_aborted()) {
+                $events = DB::table('schedule_live_events')
+                    ->where('id', '>', $cursor)
+                    ->when($kelas !== null, fn ($query) => $query->where('kelas', $kelas))
+                    ->orderBy('id')
+                    ->limit(self::BATCH_SIZE)
+                    ->get();
+
+                foreach ($events as $event) {
+                    $cursor = $event->id;
+                    echo "id: {$event->id}\n";
+                    echo "event: schedule\n";
+                    echo 'data: ' . json_encode([
+                        'id' => $event->id,
+                        'schedule_id' => $event->schedule_id,
+                        'date' => $event->tanggal,
+                        'kelas' => $event->kelas,
+                        'field' => $event->field,
+                        'value' => $event->value,
+                    ]) . "\n\n";
+                }
+
+                if ($events->isNotEmpty()) {
+                    $this->flush();
+                    $lastWriteAt = time();
+                    // Batch penuh: kemungkinan masih ada sisa, ambil lagi tanpa tidur
+                    if ($events->count() === self::BATCH_SIZE) {
+                        continue;
+                    }
+                } elseif (time() - $lastWriteAt >= self::HEARTBEAT_SECONDS) {
+                    echo ": ping\n\n";
+                    $this->flush();
+                    $lastWriteAt = time();
+                }
+
+                usleep(self::POLL_INTERVAL_MICROSECONDS);
+            }
+        }, 200, [
+            'Content-Type' => 'text/event-stream',
+            'Cache-Control' => 'no-cache, no-store',
+            'X-Accel-Buffering' => 'no', // nginx: jangan buffer stream
+            'Connection' => 'keep-alive',
+        ]);
+    }
+
+    private function flush(): void
+    {
+        if (ob_get_level() > 0) {
+            @ob_flush();
+        }
+        flush();
+    }
+}
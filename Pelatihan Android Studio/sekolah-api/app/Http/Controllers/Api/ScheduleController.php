@@ -9,6 +9,7 @@
 use Illuminate\Support\Facades\Cache;
 use Illuminate\Support\Facades\Log;
 use Illuminate\Support\Facades\DB;
+use Illuminate\Support\Facades\Schema;
 
 class ScheduleController extends Controller
 {
@@ -125,6 +126,11 @@ public function indexMobile(Request $request): JsonResponse
         // CRITICAL FIX: Simplified and optimized for stability.
         @set_time_limit(15); // Set a reasonable time limit
 
+        // Delta sync: ?since=<cursor> hanya mengirim baris yang berubah/dihapus
+        if ($request->has('since')) {
+            return $this->indexMobileDelta($request);
+        }
+
         try {
             $classId = $request->query('class_id');
             $perPage = min((int)$request->query('per_page', 50), 100); // Sensible limit
@@ -178,6 +184,129 @@ public function indexMobile(Request $request): JsonResponse
         }
     }
 
+    /**
+     * Delta sync jadwal untuk Android: GET schedules-mobile?since=<cursor>
+     * since=0 (atau cursor lebih tua dari masa simpan tombstone) mengirim snapshot penuh.
+     * Client menyimpan 'cursor' dari response dan mengirimnya kembali di request berikutnya.
+     */
+    private function indexMobileDelta(Request $request): JsonResponse
+    {
+        try {
+            $since = (string) $request->query('since', '0');
+            $kelas = $request->query('class_id');
+
+            // Cursor diambil sebelum query: perubahan selama query ikut terkirim di sync berikutnya
+            $cursor = now()->format('Y-m-d H:i:s');
+
+            $sinceTime = null;
+            if ($since !== '0' && $since !== '') {
+                try {
+                    $sinceTime = \Carbon\Carbon::parse($since);
+                } catch (\Exception $e) {
+                    $sinceTime = null;
+                }
+            }
+            $full = $sinceTime === null || $sinceTime->lt(now()->subDays(Schedule::TOMBSTONE_DAYS));
+
+            $query = DB::table('schedules')
+                ->select([
+                    'schedules.id',
+                    'schedules.hari',
+                    'schedules.kelas',
+                    'schedules.mata_pelajaran',
+                    'schedules.jam_mulai',
+                    'schedules.jam_selesai',
+                    'schedules.guru_id',
+                    'teachers.nama as guru_nama',
+                    'classes.id as class_id',
+                    'subjects.id as subject_id'
+                ])
+                // Jam ke- = urutan jadwal di kelas + hari yang sama (sama dengan endpoint jadwal mingguan)
+                ->selectRaw(
+                    '(SELECT COUNT(*) FROM schedules AS earlier WHERE earlier.kelas = schedules.kelas ' .
+                    'AND earlier.hari = schedules.hari AND (earlier.jam_mulai < schedules.jam_mulai ' .
+                    'OR (earlier.jam_mulai = schedules.jam_mulai AND earlier.id < schedules.id))) + 1 AS period'
+                )
+                ->leftJoin('teachers', 'schedules.guru_id', '=', 'teachers.id')
+                ->leftJoin('classes', 'classes.nama_kelas', '=', 'schedules.kelas')
+                ->leftJoin('subjects', 'subjects.nama', '=', 'schedules.mata_pelajaran');
+            // Kolom status hanya ada di skema jadwal lama; skema sekarang tidak punya jadwal nonaktif
+            if (Schema::hasColumn('schedules', 'status')) {
+                $query->addSelect('schedules.status');
+            }
+
+            if ($kelas) {
+                $query->where('schedules.kelas', $kelas);
+            }
+            if (!$full) {
+                // Inklusif (>=): baris di detik yang sama dengan cursor dikirim ulang, merge di client idempoten.
+                // Jadwal yang ditambah/diubah/dihapus menggeser jam ke- jadwal lain di kelas + hari itu,
+                // jadi seluruh hari tersebut dikirim ulang.
+                $sinceString = $sinceTime->format('Y-m-d H:i:s');
+                $query->where(function ($q) use ($sinceString) {
+                    $q->whereExists(function ($changed) use ($sinceString) {
+                        $changed->select(DB::raw(1))
+                            ->from('schedules as changed')
+                            ->whereColumn('changed.kelas', 'schedules.kelas')
+                            ->whereColumn('changed.hari', 'schedules.hari')
+                            ->where('changed.updated_at', '>=', $sinceString);
+                    })->orWhereExists(function ($removed) use ($sinceString) {
+                        $removed->select(DB::raw(1))
+                            ->from('schedule_deletions')
+                            ->whereColumn('schedule_deletions.kelas', 'schedules.kelas')
+                            ->whereColumn('schedule_deletions.hari', 'schedules.hari')
+                            ->where('schedule_deletions.deleted_at', '>=', $sinceString);
+                    });
+                });
+            }
+
+            $formattedData = [];
+            foreach ($query->orderBy('schedules.id')->get() as $item) {
+                $formattedData[] = [
+                    'id' => (int) $item->id,
+                    'class_id' => (int) ($item->class_id ?? 0),
+                    'subject_id' => (int) ($item->subject_id ?? 0),
+                    'teacher_id' => (int) ($item->guru_id ?? 0),
+                    'day_of_week' => $item->hari ?? '',
+                    'period' => (int) $item->period,
+                    'start_time' => $item->jam_mulai ?? '',
+                    'end_time' => $item->jam_selesai ?? '',
+                    'status' => $item->status ?? 'active',
+                    'class_name' => $item->kelas ?? '',
+                    'subject_name' => $item->mata_pelajaran ?? '',
+                    'teacher_name' => $item->guru_nama ?? ''
+                ];
+            }
+
+            $deleted = [];
+            if (!$full) {
+                $deletedQuery = DB::table('schedule_deletions')
+                    ->where('deleted_at', '>=', $sinceTime->format('Y-m-d H:i:s'));
+                if ($kelas) {
+                    $deletedQuery->where('kelas', $kelas);
+                }
+                $deleted = $deletedQuery->pluck('schedule_id')->map(fn ($id) => (int) $id)->unique()->values();
+            }
+
+            return response()->json([
+                'success' => true,
+                'message' => $full ? 'Snapshot jadwal' : 'Perubahan jadwal',
+                'full' => $full,
+                'cursor' => $cursor,
+                'data' => $formattedData,
+                'deleted' => $deleted
+            ]);
+        } catch (\Exception $e) {
+            Log::error('indexMobileDelta error: ' . $e->getMessage());
+
+            return response()->json([
+                'success' => false,
+                'message' => 'Terjadi kesalahan pada server saat memuat perubahan jadwal.',
+                'data' => []
+            ], 500);
+        }
+    }
+
     /**
      * Lightweight today's schedule with optional class filter (for mobile)
      */
@@ -4,6 +4,7 @@
 
 use App\Http\Controllers\Controller;
 use App\Models\Schedule;
+use App\Models\ScheduleLiveEvent;
 use App\Models\TeacherAttendance;
 use Illuminate\Http\Request;
 use Illuminate\Http\JsonResponse;
@@ -252,6 +253,16 @@ public function submitAttendance(Request $request): JsonResponse
                 $message = 'Status kehadiran guru berhasil disimpan';
             }
 
+            // Query builder melewati event model TeacherAttendance, jadi push dicatat di sini
+            if (!$existingAttendance || $existingAttendance->status !== $status) {
+                ScheduleLiveEvent::record(
+                    (int) $scheduleId,
+                    $tanggal,
+                    $schedule->kelas ?? null,
+                    ScheduleLiveEvent::fieldsForAttendance($status, $keterangan, null)
+                );
+            }
+
             Log::info('siswa/kehadiran submit', [
                 'user_id' => $user->id,
                 'schedule_id' => $scheduleId,
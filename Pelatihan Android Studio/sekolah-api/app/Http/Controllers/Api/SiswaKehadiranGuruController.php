@@ -4,6 +4,7 @@
 
 use App\Http\Controllers\Controller;
 use App\Models\Schedule;
+use App\Models\ScheduleLiveEvent;
 use App\Models\TeacherAttendance;
 use App\Models\User;
 use Illuminate\Http\Request;
@@ -214,7 +215,25 @@ public function submitKehadiran(Request $request): JsonResponse
             $className = $userClass->nama_kelas;
 
             $tanggal = date('Y-m-d');
-            $jamMasuk = in_array($statusReport, ['hadir', 'telat']) ? date('H:i:s') : null;
+
+            // Aplikasi mengirim ulang isian offline (outbox) dengan tanggal aslinya.
+            // Hanya terima tanggal hari ini atau maksimal 7 hari ke belakang; di luar itu 422
+            // supaya outbox membuang isiannya, bukan dicatat ke hari yang salah.
+            $requestedTanggal = $request->input('tanggal');
+            if ($requestedTanggal && preg_match('/^\d{4}-\d{2}-\d{2}$/', $requestedTanggal)) {
+                $requestedTime = strtotime($requestedTanggal);
+                $todayTime = strtotime($tanggal);
+                if ($requestedTime === false || $requestedTime > $todayTime || $requestedTime < strtotime('-7 days', $todayTime)) {
+                    return response()->json([
+                        'success' => false,
+                        'message' => 'Laporan untuk tanggal ' . $requestedTanggal . ' sudah kedaluwarsa'
+                    ], 422);
+                }
+                $tanggal = $requestedTanggal;
+            }
+
+            // Jam masuk hanya akurat untuk isian yang terkirim di hari yang sama
+            $jamMasuk = in_array($statusReport, ['hadir', 'telat']) && $tanggal === date('Y-m-d') ? date('H:i:s') : null;
 
             // FIXED: Check if schedule belongs to student's class using 'kelas' column with class NAME
             $scheduleData = \DB::selectOne("
@@ -257,6 +276,16 @@ public function submitKehadiran(Request $request): JsonResponse
                     WHERE id = ?
                 ", [$initialStatus, $keteranganFinal, $jamMasuk, $existing->id]);
 
+                // Query mentah melewati event model TeacherAttendance, jadi push dicatat di sini
+                if ($existing->status !== $initialStatus) {
+                    ScheduleLiveEvent::record(
+                        (int) $scheduleId,
+                        $tanggal,
+                        $className,
+                        ScheduleLiveEvent::fieldsForAttendance($initialStatus, $keteranganFinal, null)
+                    );
+                }
+
                 $statusLabel = match ($initialStatus) {
                     'hadir' => 'Hadir',
                     'telat' => 'Telat',
@@ -278,6 +307,15 @@ public function submitKehadiran(Request $request): JsonResponse
                     (schedule_id, guru_id, tanggal, jam_masuk, status, keterangan, created_by, created_at, updated_at)
                     VALUES (?, ?, ?, ?, ?, ?, ?, NOW(), NOW())
                 ", [$scheduleId, $teacherId, $tanggal, $jamMasuk, $initialStatus, $keteranganFinal, $user->id]);
+                // Ambil sebelum record() menyisipkan baris event
+                $attendanceId = \DB::getPdo()->lastInsertId();
+
+                ScheduleLiveEvent::record(
+                    (int) $scheduleId,
+                    $tanggal,
+                    $className,
+                    ScheduleLiveEvent::fieldsForAttendance($initialStatus, $keteranganFinal, null)
+                );
 
                 $statusLabel = match ($initialStatus) {
                     'hadir' => 'Hadir',
@@ -289,7 +327,7 @@ public function submitKehadiran(Request $request): JsonResponse
                 return response()->json([
                     'success' => true,
                     'message' => "Kehadiran guru berhasil dicatat: $statusLabel",
-                    'data' => ['id' => \DB::getPdo()->lastInsertId(), 'schedule_id' => $scheduleId, 'status' => $initialStatus]
+                    'data' => ['id' => $attendanceId, 'schedule_id' => $scheduleId, 'status' => $initialStatus]
                 ], 201);
             }
         } catch (\Exception $e) {
@@ -8,6 +8,7 @@
 use App\Services\ScheduleOptimizationService;
 use Illuminate\Http\Request;
 use Illuminate\Support\Facades\Auth;
+use Illuminate\Support\Facades\DB;
 use Illuminate\Support\Facades\Http;
 use Illuminate\Support\Facades\Log;
 
@@ -730,7 +731,11 @@ public function bulkDelete(Request $request)
             ]);
 
             $scheduleIds = $request->schedule_ids;
-            $deletedCount = Schedule::whereIn('id', $scheduleIds)->delete();
+            // Builder delete tidak memicu event deleted: tombstone delta sync ditulis di transaksi yang sama
+            $deletedCount = DB::transaction(function () use ($scheduleIds) {
+                Schedule::recordTombstones(Schedule::whereIn('id', $scheduleIds)->get(['id', 'kelas', 'hari']));
+                return Schedule::whereIn('id', $scheduleIds)->delete();
+            });
 
             // Clear cache after bulk deleting schedules
             $this->scheduleService->clearScheduleCache();
@@ -750,7 +755,10 @@ public function bulkDelete(Request $request)
     public function bulkDeleteAll(Request $request)
     {
         try {
-            $deletedCount = Schedule::query()->delete();
+            $deletedCount = DB::transaction(function () {
+                Schedule::recordTombstones(Schedule::query()->get(['id', 'kelas', 'hari']));
+                return Schedule::query()->delete();
+            });
 
             // Clear cache after deleting all schedules
             $this->scheduleService->clearScheduleCache();
@@ -0,0 +1,65 @@
+<?php
+
+namespace App\Http\Middleware;
+
+use Closure;
+use Illuminate\Http\Request;
+use Illuminate\Support\Arr;
+use Symfony\Component\HttpFoundation\Response;
+
+class ConditionalGet
+{
+    /**
+     * Handle an incoming request.
+     * Tambahkan ETag ke response JSON GET dan balas 304 tanpa body kalau
+     * If-None-Match dari client masih sama (data tidak berubah sejak refresh terakhir).
+     *
+     * Parameter middleware = key top-level yang diabaikan saat menghitung ETag,
+     * misal jam server yang berubah setiap detik: ->middleware('etag:current_time').
+     * Key bersarang memakai notasi titik: ->middleware('etag:data.current_time')
+     */
+    public function handle(Request $request, Closure $next, string ...$ignoredKeys): Response
+    {
+        $response = $next($request);
+
+        if (!$request->isMethod('GET') || $response->getStatusCode() !== 200) {
+            return $response;
+        }
+
+        $content = $response->getContent();
+        if ($content === false || $content === '') {
+            return $response;
+        }
+
+        $etag = '"' . sha1($this->fingerprint($content, $ignoredKeys)) . '"';
+        $response->headers->set('ETag', $etag);
+        // Selalu revalidasi: data kehadiran bisa berubah kapan saja
+        $response->headers->set('Cache-Control', 'private, no-cache');
+
+        $ifNoneMatch = $request->headers->get('If-None-Match');
+        if ($ifNoneMatch !== null && in_array($etag, array_map('trim', explode(',', $ifNoneMatch)), true)) {
+            $response->setNotModified();
+            $response->headers->remove('Content-Length');
+        }
+
+        return $response;
+    }
+
+    private function fingerprint(string $content, array $ignoredKeys): string
+    {
+        if (empty($ignoredKeys)) {
+            return $content;
+        }
+
+        $data = json_decode($content, true);
+        if (!is_array($data)) {
+            return $content;
+        }
+
+        foreach ($ignoredKeys as $key) {
+            Arr::forget($data, $key);
+        }
+
+        return json_encode($data, JSON_UNESCAPED_UNICODE | JSON_UNESCAPED_SLASHES);
+    }
+}
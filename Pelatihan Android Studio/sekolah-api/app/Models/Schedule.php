@@ -6,6 +6,7 @@
 use Illuminate\Database\Eloquent\Model;
 use Illuminate\Database\Eloquent\Relations\BelongsTo;
 use Illuminate\Database\Eloquent\Relations\HasMany;
+use Illuminate\Support\Facades\DB;
 
 class Schedule extends Model
 {
@@ -42,6 +43,42 @@ class Schedule extends Model
         'updated_at' => 'datetime',
     ];
 
+    // Masa simpan tombstone schedule_deletions untuk delta sync mobile
+    public const TOMBSTONE_DAYS = 30;
+
+    protected static function booted(): void
+    {
+        // Catat tombstone supaya client delta sync (schedules-mobile?since=) ikut menghapus jadwal ini
+        static::deleted(function (Schedule $schedule) {
+            self::recordTombstones([$schedule]);
+        });
+    }
+
+    /**
+     * Tulis tombstone untuk jadwal yang dihapus. Dipanggil langsung oleh bulk delete lewat query builder,
+     * karena delete() di builder tidak memicu event deleted per model.
+     */
+    public static function recordTombstones(iterable $schedules): void
+    {
+        $now = now();
+        $rows = [];
+        foreach ($schedules as $schedule) {
+            $rows[] = [
+                'schedule_id' => $schedule->id,
+                'kelas' => $schedule->kelas,
+                'hari' => $schedule->hari,
+                'deleted_at' => $now,
+            ];
+        }
+
+        foreach (array_chunk($rows, 500) as $chunk) {
+            DB::table('schedule_deletions')->insert($chunk);
+        }
+        DB::table('schedule_deletions')
+            ->where('deleted_at', '<', $now->copy()->subDays(self::TOMBSTONE_DAYS))
+            ->delete();
+    }
+
     // Relationships
     public function guru(): BelongsTo
     {
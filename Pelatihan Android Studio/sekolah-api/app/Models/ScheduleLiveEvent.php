@@ -0,0 +1,81 @@
+<?php
+
+namespace App\Models;
+
+use Illuminate\Database\Eloquent\Model;
+use Illuminate\Support\Facades\DB;
+use Illuminate\Support\Facades\Log;
+
+/**
+ * Satu field jadwal yang berubah (status, guru pengganti, izin) pada satu tanggal.
+ * Dibaca LiveUpdateController dan dikirim ke app sebagai Server-Sent Events.
+ */
+class ScheduleLiveEvent extends Model
+{
+    public $timestamps = false;
+
+    protected $fillable = [
+        'schedule_id',
+        'tanggal',
+        'kelas',
+        'field',
+        'value',
+        'created_at',
+    ];
+
+    // Client yang terputus lebih lama dari ini memuat ulang lewat REST
+    public const RETENTION_HOURS = 48;
+
+    /**
+     * Catat event untuk perubahan kehadiran guru. Gagal mencatat tidak boleh menggagalkan
+     * penyimpanan kehadiran; app tetap menerima perubahan lewat polling.
+     *
+     * @param array $fields field => value, misal ['status' => 'diganti', 'substitute_teacher' => 'Bu Rina']
+     */
+    public static function record(int $scheduleId, string $tanggal, ?string $kelas, array $fields): void
+    {
+        if (empty($fields)) {
+            return;
+        }
+
+        try {
+            $now = now();
+            $rows = [];
+            foreach ($fields as $field => $value) {
+                $rows[] = [
+                    'schedule_id' => $scheduleId,
+                    'tanggal' => $tanggal,
+                    'kelas' => $kelas,
+                    'field' => $field,
+                    'value' => $value === null ? null : mb_substr((string) $value, 0, 500),
+                    'created_at' => $now,
+                ];
+            }
+            DB::table('schedule_live_events')->insert($rows);
+            DB::table('schedule_live_events')
+                ->where('created_at', '<', $now->copy()->subHours(self::RETENTION_HOURS))
+                ->delete();
+        } catch (\Exception $e) {
+            Log::warning('Gagal mencatat schedule_live_events', [
+                'schedule_id' => $scheduleId,
+                'error' => $e->getMessage(),
+            ]);
+        }
+    }
+
+    /**
+     * Field yang dikirim ke app untuk status kehadiran tertentu
+     */
+    public static function fieldsForAttendance(string $status, ?string $keterangan, ?string $substituteName): array
+    {
+        $fields = ['status' => $status];
+        if ($status === TeacherAttendance::STATUS_DIGANTI) {
+            $fields['substitute_teacher'] = $substituteName;
+        }
+        if ($status === TeacherAttendance::STATUS_IZIN) {
+            $fields['teacher_on_leave'] = 'true';
+            $fields['leave_reason'] = $keterangan;
+        }
+        return $fields;
+    }
+}
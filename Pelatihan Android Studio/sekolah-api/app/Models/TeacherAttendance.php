@@ -8,6 +8,7 @@
 use App\Models\Teacher;
 use App\Models\User;
 use App\Models\Schedule;
+use App\Models\ScheduleLiveEvent;
 
 class TeacherAttendance extends Model
 {
@@ -45,6 +46,25 @@ class TeacherAttendance extends Model
         'updated_at' => 'datetime',
     ];
 
+    protected static function booted(): void
+    {
+        // Perubahan status/guru pengganti di-push ke app (live/schedule-events), tidak menunggu polling
+        static::saved(function (TeacherAttendance $attendance) {
+            if (!$attendance->wasRecentlyCreated && !$attendance->wasChanged(['status', 'guru_id', 'keterangan'])) {
+                return;
+            }
+            $substitute = $attendance->status === self::STATUS_DIGANTI
+                ? Teacher::where('id', $attendance->guru_id)->value('nama')
+                : null;
+            ScheduleLiveEvent::record(
+                (int) $attendance->schedule_id,
+                $attendance->tanggal->format('Y-m-d'),
+                Schedule::where('id', $attendance->schedule_id)->value('kelas'),
+                ScheduleLiveEvent::fieldsForAttendance($attendance->status, $attendance->keterangan, $substitute)
+            );
+        });
+    }
+
     // Relationships
     public function schedule(): BelongsTo
     {
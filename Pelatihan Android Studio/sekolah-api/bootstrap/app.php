@@ -31,6 +31,7 @@
             'throttle' => \Illuminate\Routing\Middleware\ThrottleRequests::class,
             'throttle.custom' => \App\Http\Middleware\RequestThrottling::class,
             'circuit.breaker' => \App\Http\Middleware\CircuitBreakerMiddleware::class,
+            'etag' => \App\Http\Middleware\ConditionalGet::class,
         ]);
     })
     ->withExceptions(function (Exceptions $exceptions): void {
@@ -62,6 +62,13 @@
         'log_performance' => env('LOG_PERFORMANCE', true),
     ],
 
+    // Push perubahan kehadiran guru (Server-Sent Events, GET live/schedule-events).
+    // Setiap client menahan satu worker PHP selama ±55 detik per stream; nyalakan hanya kalau
+    // jumlah worker cukup (php-fpm pm.max_children / PHP_CLI_SERVER_WORKERS). Mati = app polling.
+    'live_updates' => [
+        'enabled' => env('LIVE_UPDATES_ENABLED', false),
+    ],
+
     // Emergency mode settings
     'emergency' => [
         'enable_emergency_mode' => env('EMERGENCY_MODE', false),
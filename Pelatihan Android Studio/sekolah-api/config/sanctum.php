@@ -49,6 +49,19 @@
 
     'expiration' => null,
 
+    /*
+    |--------------------------------------------------------------------------
+    | Mobile Token Lifetime
+    |--------------------------------------------------------------------------
+    |
+    | Minutes until a token issued by auth/login or auth/refresh expires. The
+    | app refreshes shortly before this (it receives "expires_in"). Null keeps
+    | tokens valid until logout.
+    |
+    */
+
+    'token_ttl' => env('SANCTUM_TOKEN_TTL'),
+
     /*
     |--------------------------------------------------------------------------
     | Token Prefix
@@ -0,0 +1,31 @@
+<?php
+
+use Illuminate\Database\Migrations\Migration;
+use Illuminate\Database\Schema\Blueprint;
+use Illuminate\Support\Facades\Schema;
+
+return new class extends Migration
+{
+    /**
+     * Tombstone jadwal yang dihapus, dipakai delta sync mobile (schedules-mobile?since=)
+     */
+    public function up(): void
+    {
+        Schema::create('schedule_deletions', function (Blueprint $table) {
+            $table->id();
+            $table->unsignedBigInteger('schedule_id');
+            $table->string('kelas', 10)->nullable();
+            $table->timestamp('deleted_at')->useCurrent();
+
+            $table->index('deleted_at');
+        });
+    }
+
+    /**
+     * Reverse the migrations.
+     */
+    public function down(): void
+    {
+        Schema::dropIfExists('schedule_deletions');
+    }
+};
@@ -0,0 +1,34 @@
+<?php
+
+use Illuminate\Database\Migrations\Migration;
+use Illuminate\Database\Schema\Blueprint;
+use Illuminate\Support\Facades\Schema;
+
+return new class extends Migration
+{
+    /**
+     * Event perubahan kehadiran guru per jadwal, di-stream ke app lewat SSE (live/schedule-events)
+     */
+    public function up(): void
+    {
+        Schema::create('schedule_live_events', function (Blueprint $table) {
+            $table->id();
+            $table->unsignedBigInteger('schedule_id');
+            $table->date('tanggal');
+            $table->string('kelas', 10)->nullable();
+            $table->string('field', 32);
+            $table->string('value', 500)->nullable();
+            $table->timestamp('created_at')->useCurrent();
+
+            $table->index('created_at');
+        });
+    }
+
+    /**
+     * Reverse the migrations.
+     */
+    public function down(): void
+    {
+        Schema::dropIfExists('schedule_live_events');
+    }
+};
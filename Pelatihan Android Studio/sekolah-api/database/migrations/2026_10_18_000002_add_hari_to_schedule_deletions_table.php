@@ -0,0 +1,29 @@
+<?php
+
+use Illuminate\Database\Migrations\Migration;
+use Illuminate\Database\Schema\Blueprint;
+use Illuminate\Support\Facades\Schema;
+
+return new class extends Migration
+{
+    /**
+     * Hari jadwal yang dihapus: penghapusan menggeser urutan jam ke- jadwal lain di kelas + hari yang sama,
+     * jadi delta sync perlu tahu hari mana yang harus dikirim ulang.
+     */
+    public function up(): void
+    {
+        Schema::table('schedule_deletions', function (Blueprint $table) {
+            $table->string('hari', 10)->nullable()->after('kelas');
+        });
+    }
+
+    /**
+     * Reverse the migrations.
+     */
+    public function down(): void
+    {
+        Schema::table('schedule_deletions', function (Blueprint $table) {
+            $table->dropColumn('hari');
+        });
+    }
+};
@@ -23,6 +23,7 @@
 use App\Http\Controllers\Api\SiswaKehadiranGuruController;
 use App\Http\Controllers\Api\KurikulumController;
 use App\Http\Controllers\Api\KepalaSekolahController;
+use App\Http\Controllers\Api\LiveUpdateController;
 
 Route::get('/user', function (Request $request) {
     return $request->user();
@@ -108,13 +109,14 @@
 });
 
 // Public routes (no authentication required for testing)
-Route::apiResource('subjects', SubjectController::class);
+// ETag di semua GET data master: client dengan cache HTTP mendapat 304 tanpa body kalau data belum berubah
+Route::apiResource('subjects', SubjectController::class)->middleware('etag');
 Route::get('subjects-with-teachers', [SubjectController::class, 'getSubjectsWithTeachers']);
 Route::get('subjects/{id}/teachers', [SubjectController::class, 'getTeachersBySubject']);
-Route::apiResource('teachers', TeacherController::class);
+Route::apiResource('teachers', TeacherController::class)->middleware('etag');
 
 // Dropdown routes untuk Android app - OPTIMIZED throttling
-Route::middleware('throttle:100,1')->prefix('dropdown')->group(function () {
+Route::middleware(['throttle:100,1', 'etag'])->prefix('dropdown')->group(function () {
     Route::get('subjects', [DropdownController::class, 'getSubjects']);
     Route::get('subjects/{id}/teachers', [DropdownController::class, 'getTeachersBySubject']);
     Route::get('all', [DropdownController::class, 'getAllDropdownData']);
@@ -122,7 +124,7 @@
 });
 
 // OPTIMIZED: Lightweight endpoint khusus Android dengan rate limiting ketat
-Route::middleware('throttle:80,1')->group(function () {
+Route::middleware(['throttle:80,1', 'etag'])->group(function () {
     Route::get('schedules-mobile', [ScheduleController::class, 'indexMobile']);
     Route::get('jadwal/hari-ini', [ScheduleController::class, 'todayMobile']);
     Route::get('schedules', [ScheduleController::class, 'index']);
@@ -151,7 +153,7 @@
 
 // NEW: Weekly schedule with teacher attendance status for JadwalScreen
 // CRITICAL: Must be outside middleware group to prevent server crash
-Route::get('siswa/weekly-schedule-attendance', [ScheduleController::class, 'myWeeklyScheduleWithAttendanceManualAuth']);
+Route::get('siswa/weekly-schedule-attendance', [ScheduleController::class, 'myWeeklyScheduleWithAttendanceManualAuth'])->middleware('etag');
 
 // ===============================================
 // ULTRA LIGHTWEIGHT ROUTES - NO MIDDLEWARE (Manual Auth)
@@ -167,8 +169,13 @@
 Route::post('siswa/kehadiran', [SiswaKehadiranController::class, 'submitAttendance']);
 Route::get('siswa/kehadiran/riwayat', [SiswaKehadiranController::class, 'riwayat']);
 
+// Push perubahan kehadiran guru (Server-Sent Events). Di luar grup etag/circuit breaker:
+// response-nya stream panjang, bukan JSON yang bisa di-hash atau di-cache
+Route::middleware(['auth:sanctum', 'throttle:30,1'])
+    ->get('live/schedule-events', [LiveUpdateController::class, 'scheduleEvents']);
+
 // Protected Routes (Require Authentication) - With Circuit Breaker
-Route::middleware(['auth:sanctum', 'circuit.breaker'])->group(function () {
+Route::middleware(['auth:sanctum', 'circuit.breaker', 'etag'])->group(function () {
 
     // User Management (Admin Only)
     Route::middleware('role:admin')->group(function () {
@@ -179,6 +186,9 @@
         // Route::apiResource('schedules', ScheduleController::class); // Sudah ada di public routes
     });
 
+    // Data master layar awal dalam satu request (users/teachers/subjects sesuai role)
+    Route::get('dashboard/bundle', [DashboardController::class, 'bundle']);
+
     // Additional schedule routes
     Route::get('schedules/teachers-by-subject', [ScheduleController::class, 'getTeachersBySubject']);
 
@@ -230,35 +240,36 @@
 // ===============================================
 Route::prefix('kurikulum')->group(function () {
     // Dashboard - Overview of all classes with teacher attendance status
-    Route::get('dashboard', [KurikulumController::class, 'dashboardOverview']);
+    // ETag: auto-refresh aplikasi dapat 304 tanpa body kalau data belum berubah
+    Route::get('dashboard', [KurikulumController::class, 'dashboardOverview'])->middleware('etag');
 
     // Class Management - Sort and filter classes by teacher status
-    Route::get('classes', [KurikulumController::class, 'classManagement']);
+    Route::get('classes', [KurikulumController::class, 'classManagement'])->middleware('etag:current_time');
 
     // Get available substitute teachers for a period
-    Route::get('substitutes', [KurikulumController::class, 'getAvailableSubstitutes']);
+    Route::get('substitutes', [KurikulumController::class, 'getAvailableSubstitutes'])->middleware('etag');
 
     // Assign substitute teacher to a class
     Route::post('assign-substitute', [KurikulumController::class, 'assignSubstitute']);
 
     // Attendance history with filters
-    Route::get('history', [KurikulumController::class, 'attendanceHistory']);
+    Route::get('history', [KurikulumController::class, 'attendanceHistory'])->middleware('etag');
 
     // Attendance statistics for reports
-    Route::get('statistics', [KurikulumController::class, 'attendanceStatistics']);
+    Route::get('statistics', [KurikulumController::class, 'attendanceStatistics'])->middleware('etag');
 
     // Export attendance data
     Route::get('export', [KurikulumController::class, 'exportAttendance']);
 
     // Get students in a class
-    Route::get('class/{classId}/students', [KurikulumController::class, 'getClassStudents']);
+    Route::get('class/{classId}/students', [KurikulumController::class, 'getClassStudents'])->middleware('etag');
 
     // Filter data - classes and teachers list
-    Route::get('filter/classes', [KurikulumController::class, 'getClasses']);
-    Route::get('filter/teachers', [KurikulumController::class, 'getTeachers']);
+    Route::get('filter/classes', [KurikulumController::class, 'getClasses'])->middleware('etag');
+    Route::get('filter/teachers', [KurikulumController::class, 'getTeachers'])->middleware('etag');
 
     // Pending attendance management
-    Route::get('pending', [KurikulumController::class, 'getPendingAttendances']);
+    Route::get('pending', [KurikulumController::class, 'getPendingAttendances'])->middleware('etag:data.current_time');
     Route::post('confirm-attendance', [KurikulumController::class, 'confirmAttendance']);
     Route::post('bulk-confirm', [KurikulumController::class, 'bulkConfirmAttendance']);
 });
@@ -266,7 +277,7 @@
 // ===============================================
 // KEPALA SEKOLAH ROUTES - Dashboard & Reports
 // ===============================================
-Route::prefix('kepala-sekolah')->group(function () {
+Route::prefix('kepala-sekolah')->middleware('etag')->group(function () {
     // Main Dashboard with weekly comparison
     Route::get('dashboard', [KepalaSekolahController::class, 'dashboardOverview']);
 
@@ -0,0 +1,197 @@
+package com.christopheraldoo.petheal.data.local.db
+
+import androidx.paging.PagingSource
+import androidx.room.Dao
+import androidx.room.Query
+import androidx.room.Transaction
+import androidx.room.Upsert
+import kotlinx.coroutines.flow.Flow
+
+// ============= OFFLINE CACHE DAOs =============
+// replaceAll: isi tabel disamakan dengan response terakhir dari server (baris yang sudah
+// dihapus di server ikut hilang). Hapus + tulis ulang dalam satu transaksi, jadi Flow hanya
+// emit sekali dan tidak terkena batas jumlah parameter SQLite seperti "NOT IN (:ids)".
+
+@Dao
+interface PetDao {
+    @Query("SELECT * FROM pets ORDER BY name COLLATE NOCASE")
+    fun observeAll(): Flow<List<PetEntity>>
+
+    @Query("SELECT * FROM pets WHERE id = :id")
+    suspend fun get(id: Int): PetEntity?
+
+    @Upsert
+    suspend fun upsert(pets: List<PetEntity>)
+
+    @Query("DELETE FROM pets WHERE id = :id")
+    suspend fun delete(id: Int)
+
+    @Query("DELETE FROM pets")
+    suspend fun clear()
+
+    @Transaction
+    suspend fun replaceAll(pets: List<PetEntity>) {
+        clear()
+        upsert(pets)
+    }
+}
+
+@Dao
+interface BookingDao {
+    @Query("SELECT * FROM bookings WHERE id = :id")
+    suspend fun get(id: Int): BookingEntity?
+
+    @Upsert
+    suspend fun upsert(bookings: List<BookingEntity>)
+
+    @Query("DELETE FROM bookings WHERE id = :id")
+    suspend fun delete(id: Int)
+
+    // ── Paging ──────────────────────────────────────────────────────────────
+    // Filter tanggal berupa BETWEEN (bukan ":from IS NULL OR ...") supaya SQLite memakai
+    // index (booking_date, booking_time) untuk range sekaligus urutan, tanpa sort di memori.
+    // Tanggal disimpan "yyyy-MM-dd" jadi perbandingan string = perbandingan tanggal.
+
+    @Query(
+        """SELECT * FROM bookings
+        WHERE booking_date BETWEEN :from AND :to AND (:anyStatus OR status IN (:statuses))
+        ORDER BY booking_date DESC, booking_time DESC, id DESC"""
+    )
+    fun pagingNewestFirst(from: String, to: String, anyStatus: Boolean, statuses: List<String>): PagingSource<Int, BookingEntity>
+
+    @Query(
+        """SELECT * FROM bookings
+        WHERE booking_date BETWEEN :from AND :to AND (:anyStatus OR status IN (:statuses))
+        ORDER BY booking_date ASC, booking_time ASC, id ASC"""
+    )
+    fun pagingOldestFirst(from: String, to: String, anyStatus: Boolean, statuses: List<String>): PagingSource<Int, BookingEntity>
+
+    @Query("DELETE FROM bookings WHERE booking_date BETWEEN :from AND :to AND (:anyStatus OR status IN (:statuses))")
+    suspend fun deleteRange(from: String, to: String, anyStatus: Boolean, statuses: List<String>)
+
+    @Query("SELECT * FROM booking_remote_keys WHERE query_key = :queryKey")
+    suspend fun remoteKey(queryKey: String): BookingRemoteKey?
+
+    @Upsert
+    suspend fun upsertRemoteKey(key: BookingRemoteKey)
+
+    @Query("DELETE FROM booking_remote_keys")
+    suspend fun clearRemoteKeys()
+
+    /** Halaman pertama sebuah filter: isi range itu disamakan dengan server, cursor disimpan */
+    @Transaction
+    suspend fun refreshRange(
+        from: String,
+        to: String,
+        anyStatus: Boolean,
+        statuses: List<String>,
+        bookings: List<BookingEntity>,
+        key: BookingRemoteKey
+    ) {
+        deleteRange(from, to, anyStatus, statuses)
+        upsert(bookings)
+        upsertRemoteKey(key)
+    }
+
+    @Transaction
+    suspend fun appendPage(bookings: List<BookingEntity>, key: BookingRemoteKey) {
+        upsert(bookings)
+        upsertRemoteKey(key)
+    }
+}
+
+@Dao
+interface DoctorDao {
+    @Query("SELECT * FROM doctors ORDER BY name COLLATE NOCASE")
+    fun observeAll(): Flow<List<DoctorEntity>>
+
+    @Query("SELECT * FROM doctors ORDER BY name COLLATE NOCASE")
+    suspend fun getAll(): List<DoctorEntity>
+
+    @Query("SELECT * FROM doctors WHERE id = :id")
+    suspend fun get(id: Int): DoctorEntity?
+
+    @Upsert
+    suspend fun upsert(doctors: List<DoctorEntity>)
+
+    @Query("DELETE FROM doctors")
+    suspend fun clear()
+
+    @Transaction
+    suspend fun replaceAll(doctors: List<DoctorEntity>) {
+        clear()
+        upsert(doctors)
+    }
+}
+
+@Dao
+interface MedicalRecordDao {
+    @Query("SELECT * FROM medical_records ORDER BY created_at DESC")
+    fun observeAll(): Flow<List<MedicalRecordEntity>>
+
+    @Query("SELECT * FROM medical_records WHERE pet_id = :petId ORDER BY created_at DESC")
+    suspend fun getByPet(petId: Int): List<MedicalRecordEntity>
+
+    @Upsert
+    suspend fun upsert(records: List<MedicalRecordEntity>)
+
+    @Query("DELETE FROM medical_records WHERE pet_id = :petId")
+    suspend fun clearForPet(petId: Int)
+
+    @Query("DELETE FROM medical_records")
+    suspend fun clear()
+
+    @Transaction
+    suspend fun replaceAll(records: List<MedicalRecordEntity>) {
+        clear()
+        upsert(records)
+    }
+
+    @Transaction
+    suspend fun replaceForPet(petId: Int, records: List<MedicalRecordEntity>) {
+        clearForPet(petId)
+        upsert(records)
+    }
+}
+
+@Dao
+interface VaccinationDao {
+    @Query("SELECT * FROM vaccinations WHERE pet_id = :petId ORDER BY date_administered DESC")
+    suspend fun getByPet(petId: Int): List<VaccinationEntity>
+
+    @Upsert
+    suspend fun upsert(vaccinations: List<VaccinationEntity>)
+
+    @Query("DELETE FROM vaccinations WHERE pet_id = :petId")
+    suspend fun clearForPet(petId: Int)
+
+    @Query("DELETE FROM vaccinations")
+    suspend fun clear()
+
+    @Transaction
+    suspend fun replaceForPet(petId: Int, vaccinations: List<VaccinationEntity>) {
+        clearForPet(petId)
+        upsert(vaccinations)
+    }
+}
+
+@Dao
+interface WeightRecordDao {
+    @Query("SELECT * FROM weight_records WHERE pet_id = :petId ORDER BY recorded_at DESC")
+    suspend fun getByPet(petId: Int): List<WeightRecordEntity>
+
+    @Upsert
+    suspend fun upsert(records: List<WeightRecordEntity>)
+
+    @Query("DELETE FROM weight_records WHERE pet_id = :petId")
+    suspend fun clearForPet(petId: Int)
+
+    @Query("DELETE FROM weight_records")
+    suspend fun clear()
+
+    @Transaction
+    suspend fun replaceForPet(petId: Int, records: List<WeightRecordEntity>) {
+        clearForPet(petId)
+        upsert(records)
+    }
+}
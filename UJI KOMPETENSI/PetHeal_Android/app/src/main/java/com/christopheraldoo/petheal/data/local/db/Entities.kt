@@ -0,0 +1,138 @@
+package com.christopheraldoo.petheal.data.local.db
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.PrimaryKey
+import com.christopheraldoo.petheal.data.model.Booking
+import com.christopheraldoo.petheal.data.model.Doctor
+import com.christopheraldoo.petheal.data.model.MedicalRecord
+import com.christopheraldoo.petheal.data.model.Pet
+import com.christopheraldoo.petheal.data.model.Vaccination
+import com.christopheraldoo.petheal.data.model.WeightRecord
+import com.google.gson.Gson
+
+// ============= OFFLINE CACHE ENTITIES =============
+// Kolom yang dipakai untuk query/urutan disimpan terpisah (dan di-index),
+// objek lengkap dari API (termasuk relasi pet/doctor/service) disimpan sebagai JSON
+// supaya model API bisa bertambah field tanpa migrasi.
+
+internal val cacheGson = Gson()
+
+@Entity(tableName = "pets")
+data class PetEntity(
+    @PrimaryKey val id: Int,
+    val name: String?,
+    val species: String?,
+    val json: String
+) {
+    fun toModel(): Pet = cacheGson.fromJson(json, Pet::class.java)
+
+    companion object {
+        fun from(pet: Pet) = PetEntity(pet.id!!, pet.name, pet.species, cacheGson.toJson(pet))
+    }
+}
+
+@Entity(
+    tableName = "bookings",
+    indices = [Index("booking_date", "booking_time"), Index("status"), Index("pet_id")]
+)
+data class BookingEntity(
+    @PrimaryKey val id: Int,
+    @ColumnInfo(name = "pet_id") val petId: Int?,
+    @ColumnInfo(name = "booking_date") val bookingDate: String?,
+    @ColumnInfo(name = "booking_time") val bookingTime: String?,
+    val status: String?,
+    val json: String
+) {
+    fun toModel(): Booking = cacheGson.fromJson(json, Booking::class.java)
+
+    companion object {
+        fun from(booking: Booking) = BookingEntity(
+            id = booking.id!!,
+            petId = booking.petId ?: booking.pet?.id,
+            bookingDate = booking.bookingDate,
+            bookingTime = booking.bookingTime,
+            status = booking.status,
+            json = cacheGson.toJson(booking)
+        )
+    }
+}
+
+/** Cursor halaman berikutnya per kombinasi filter/urutan (lihat BookingRemoteMediator) */
+@Entity(tableName = "booking_remote_keys")
+data class BookingRemoteKey(
+    @PrimaryKey @ColumnInfo(name = "query_key") val queryKey: String,
+    @ColumnInfo(name = "next_cursor") val nextCursor: String?
+)
+
+@Entity(tableName = "doctors")
+data class DoctorEntity(
+    @PrimaryKey val id: Int,
+    val name: String?,
+    val specialization: String?,
+    val json: String
+) {
+    fun toModel(): Doctor = cacheGson.fromJson(json, Doctor::class.java)
+
+    companion object {
+        fun from(doctor: Doctor) = DoctorEntity(doctor.id!!, doctor.name, doctor.specialization, cacheGson.toJson(doctor))
+    }
+}
+
+@Entity(tableName = "medical_records", indices = [Index("pet_id")])
+data class MedicalRecordEntity(
+    @PrimaryKey val id: Int,
+    @ColumnInfo(name = "pet_id") val petId: Int?,
+    @ColumnInfo(name = "created_at") val createdAt: String?,
+    val json: String
+) {
+    fun toModel(): MedicalRecord = cacheGson.fromJson(json, MedicalRecord::class.java)
+
+    companion object {
+        fun from(record: MedicalRecord, petId: Int? = null) = MedicalRecordEntity(
+            id = record.id!!,
+            petId = petId ?: record.booking?.petId ?: record.booking?.pet?.id,
+            createdAt = record.createdAt,
+            json = cacheGson.toJson(record)
+        )
+    }
+}
+
+@Entity(tableName = "vaccinations", indices = [Index("pet_id")])
+data class VaccinationEntity(
+    @PrimaryKey val id: Int,
+    @ColumnInfo(name = "pet_id") val petId: Int,
+    @ColumnInfo(name = "date_administered") val dateAdministered: String?,
+    val json: String
+) {
+    fun toModel(): Vaccination = cacheGson.fromJson(json, Vaccination::class.java)
+
+    companion object {
+        fun from(petId: Int, vaccination: Vaccination) = VaccinationEntity(
+            id = vaccination.id!!,
+            petId = vaccination.petId ?: petId,
+            dateAdministered = vaccination.dateAdministered,
+            json = cacheGson.toJson(vaccination)
+        )
+    }
+}
+
+@Entity(tableName = "weight_records", indices = [Index("pet_id")])
+data class WeightRecordEntity(
+    @PrimaryKey val id: Int,
+    @ColumnInfo(name = "pet_id") val petId: Int,
+    @ColumnInfo(name = "recorded_at") val recordedAt: String?,
+    val json: String
+) {
+    fun toModel(): WeightRecord = cacheGson.fromJson(json, WeightRecord::class.java)
+
+    companion object {
+        fun from(petId: Int, record: WeightRecord) = WeightRecordEntity(
+            id = record.id!!,
+            petId = record.petId ?: petId,
+            recordedAt = record.recordedAt,
+            json = cacheGson.toJson(record)
+        )
+    }
+}
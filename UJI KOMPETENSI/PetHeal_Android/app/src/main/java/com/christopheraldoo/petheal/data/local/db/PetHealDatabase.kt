@@ -0,0 +1,34 @@
+package com.christopheraldoo.petheal.data.local.db
+
+import androidx.room.Database
+import androidx.room.RoomDatabase
+
+/**
+ * Cache offline data milik user yang sedang login. Sumber kebenaran tetap API Laravel;
+ * isi database dikosongkan saat logout (lihat AuthRepository.logout).
+ */
+@Database(
+    entities = [
+        PetEntity::class,
+        BookingEntity::class,
+        BookingRemoteKey::class,
+        DoctorEntity::class,
+        MedicalRecordEntity::class,
+        VaccinationEntity::class,
+        WeightRecordEntity::class
+    ],
+    version = 2,
+    exportSchema = false
+)
+abstract class PetHealDatabase : RoomDatabase() {
+    abstract fun petDao(): PetDao
+    abstract fun bookingDao(): BookingDao
+    abstract fun doctorDao(): DoctorDao
+    abstract fun medicalRecordDao(): MedicalRecordDao
+    abstract fun vaccinationDao(): VaccinationDao
+    abstract fun weightRecordDao(): WeightRecordDao
+
+    companion object {
+        const val NAME = "petheal_cache.db"
+    }
+}
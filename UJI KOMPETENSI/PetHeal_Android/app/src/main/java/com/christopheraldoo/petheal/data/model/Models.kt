@@ -334,7 +334,16 @@ data class BookingResponse(
 data class BookingsResponse(
     val success: Boolean,
     val message: String? = null,
-    val data: List<Booking>? = null
+    val data: List<Booking>? = null,
+    val pagination: CursorPagination? = null
+)
+
+// Cursor pagination GET bookings: kirim nextCursor sebagai ?cursor= untuk halaman berikutnya
+data class CursorPagination(
+    @SerializedName("per_page") val perPage: Int? = null,
+    @SerializedName("next_cursor") val nextCursor: String? = null,
+    @SerializedName("prev_cursor") val prevCursor: String? = null,
+    @SerializedName("has_more") val hasMore: Boolean = false
 )
 
 data class BookingRequest(
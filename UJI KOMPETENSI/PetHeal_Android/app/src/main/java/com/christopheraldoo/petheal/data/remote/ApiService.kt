@@ -142,8 +142,17 @@ interface ApiService {
     ): Response<DoctorReviewResponse>
 
     // ============= BOOKINGS =============
+    // Semua parameter opsional; null tidak ikut dikirim. from/to: yyyy-MM-dd, status: "pending,confirmed",
+    // sort: "newest" | "oldest", cursor: pagination.next_cursor dari halaman sebelumnya
     @GET("bookings")
-    suspend fun getBookings(): Response<BookingsResponse>
+    suspend fun getBookings(
+        @Query("from") from: String? = null,
+        @Query("to") to: String? = null,
+        @Query("status") status: String? = null,
+        @Query("sort") sort: String? = null,
+        @Query("cursor") cursor: String? = null,
+        @Query("per_page") perPage: Int? = null
+    ): Response<BookingsResponse>
 
     @GET("bookings/upcoming")
     suspend fun getUpcomingBookings(): Response<BookingsResponse>
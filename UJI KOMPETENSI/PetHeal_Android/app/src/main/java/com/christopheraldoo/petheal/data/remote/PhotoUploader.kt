@@ -0,0 +1,174 @@
+package com.christopheraldoo.petheal.data.remote
+
+import android.content.Context
+import android.net.Uri
+import android.os.SystemClock
+import android.provider.OpenableColumns
+import android.util.Log
+import com.christopheraldoo.petheal.util.CompressedImage
+import com.christopheraldoo.petheal.util.ImageCompressor
+import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.withContext
+import okhttp3.MediaType
+import okhttp3.MediaType.Companion.toMediaTypeOrNull
+import okhttp3.MultipartBody
+import okhttp3.RequestBody
+import okio.BufferedSink
+import okio.source
+import retrofit2.Response
+import java.io.File
+import java.io.IOException
+import java.io.InputStream
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Pipeline upload foto: kompres di background (ImageCompressor), kirim sebagai multipart
+ * dengan progress, dan ulangi request kalau koneksi putus.
+ *
+ * Backend (Laravel) tidak punya upload bertahap/resumable, jadi retry mengirim ulang seluruh
+ * file — setelah dikompres ukurannya ±300 KB, bukan 4–6 MB, sehingga biayanya kecil.
+ */
+@Singleton
+class PhotoUploader @Inject constructor(
+    @ApplicationContext private val context: Context
+) {
+    companion object {
+        private const val TAG = "PhotoUploader"
+        private const val MAX_ATTEMPTS = 3
+        private const val RETRY_DELAY_MS = 1_000L
+    }
+
+    /**
+     * [idempotent] = false untuk request yang membuat data baru (mis. create pet):
+     * kalau koneksi putus setelah server menerima request, retry bisa membuat duplikat.
+     */
+    suspend fun <T> upload(
+        file: File,
+        idempotent: Boolean = true,
+        onProgress: ((Float) -> Unit)? = null,
+        send: suspend (MultipartBody.Part) -> Response<T>
+    ): Response<T> {
+        val compressed = compress(file.length()) { file.inputStream() }
+        return if (compressed != null) {
+            sendCompressed(compressed, idempotent, onProgress, send)
+        } else {
+            // Tidak bisa di-decode di sini (format tidak dikenal): kirim apa adanya, server yang validasi
+            Log.w(TAG, "compress failed for ${file.name}, uploading original")
+            sendWithRetry(file, "image/*", idempotent, onProgress, send)
+        }
+    }
+
+    /** Langsung dari content:// (photo picker), tanpa menyalin file asli ke cache dulu */
+    suspend fun <T> upload(
+        uri: Uri,
+        idempotent: Boolean = true,
+        onProgress: ((Float) -> Unit)? = null,
+        send: suspend (MultipartBody.Part) -> Response<T>
+    ): Response<T> {
+        val resolver = context.contentResolver
+        val compressed = compress(sizeOf(uri)) { resolver.openInputStream(uri) }
+            ?: throw IOException("Gambar tidak dapat dibaca")
+        return sendCompressed(compressed, idempotent, onProgress, send)
+    }
+
+    private suspend fun compress(originalBytes: Long, open: () -> InputStream?): CompressedImage? =
+        withContext(Dispatchers.IO) {
+            try {
+                ImageCompressor.compress(originalBytes, context.cacheDir, open)
+            } catch (e: Exception) {
+                Log.w(TAG, "compress exception", e)
+                null
+            }
+        }
+
+    private suspend fun <T> sendCompressed(
+        image: CompressedImage,
+        idempotent: Boolean,
+        onProgress: ((Float) -> Unit)?,
+        send: suspend (MultipartBody.Part) -> Response<T>
+    ): Response<T> = try {
+        sendWithRetry(image.file, image.mimeType, idempotent, onProgress, send)
+    } finally {
+        image.file.delete()
+    }
+
+    private suspend fun <T> sendWithRetry(
+        file: File,
+        mimeType: String,
+        idempotent: Boolean,
+        onProgress: ((Float) -> Unit)?,
+        send: suspend (MultipartBody.Part) -> Response<T>
+    ): Response<T> {
+        val attempts = if (idempotent) MAX_ATTEMPTS else 1
+        var attempt = 1
+        while (true) {
+            val startedAt = SystemClock.elapsedRealtime()
+            val body = ProgressRequestBody(file, mimeType.toMediaTypeOrNull(), onProgress)
+            val part = MultipartBody.Part.createFormData("photo", file.name, body)
+            try {
+                val response = send(part)
+                Log.i(
+                    TAG,
+                    "upload ${file.length() / 1024} KB in ${SystemClock.elapsedRealtime() - startedAt} ms " +
+                        "(attempt $attempt, HTTP ${response.code()})"
+                )
+                return response
+            } catch (e: IOException) {
+                if (attempt >= attempts) throw e
+                Log.w(TAG, "upload attempt $attempt failed, retrying: ${e.message}")
+                delay(RETRY_DELAY_MS * attempt)
+                attempt++
+            }
+        }
+    }
+
+    private fun sizeOf(uri: Uri): Long = try {
+        context.contentResolver.query(uri, arrayOf(OpenableColumns.SIZE), null, null, null)?.use { cursor ->
+            if (cursor.moveToFirst() && !cursor.isNull(0)) cursor.getLong(0) else 0L
+        } ?: 0L
+    } catch (e: Exception) {
+        0L
+    }
+}
+
+/**
+ * Body file yang melaporkan progress (0f..1f) saat ditulis ke socket.
+ * writeTo bisa dipanggil lebih dari sekali (retry OkHttp, logging BODY), progress dihitung per panggilan.
+ */
+class ProgressRequestBody(
+    private val file: File,
+    private val contentType: MediaType?,
+    private val onProgress: ((Float) -> Unit)?
+) : RequestBody() {
+
+    companion object {
+        private const val SEGMENT_SIZE = 8L * 1024
+    }
+
+    override fun contentType(): MediaType? = contentType
+
+    override fun contentLength(): Long = file.length()
+
+    override fun writeTo(sink: BufferedSink) {
+        val total = contentLength()
+        var written = 0L
+        var lastPercent = -1
+        file.source().use { source ->
+            while (true) {
+                val read = source.read(sink.buffer, SEGMENT_SIZE)
+                if (read == -1L) break
+                written += read
+                sink.flush()
+                // Hanya kabari saat persen berubah, bukan tiap 8 KB
+                val percent = if (total > 0) (written * 100 / total).toInt() else 100
+                if (percent != lastPercent) {
+                    lastPercent = percent
+                    onProgress?.invoke(percent / 100f)
+                }
+            }
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package com.christopheraldoo.petheal.data.repository
 
+import android.net.Uri
 import com.christopheraldoo.petheal.data.local.PreferencesManager
+import com.christopheraldoo.petheal.data.local.db.PetHealDatabase
 import com.christopheraldoo.petheal.data.model.*
 import com.christopheraldoo.petheal.data.remote.ApiService
 import com.christopheraldoo.petheal.data.remote.NetworkInterceptor
+import com.christopheraldoo.petheal.data.remote.PhotoUploader
 import com.google.firebase.auth.FirebaseAuth
+import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.flow.first
 import kotlinx.coroutines.tasks.await
+import kotlinx.coroutines.withContext
 import org.json.JSONObject
 import javax.inject.Inject
 import javax.inject.Singleton
@@ -24,7 +29,9 @@ class AuthRepository @Inject constructor(
     private val firebaseAuth: FirebaseAuth,
     private val networkInterceptor: NetworkInterceptor,
     private val deviceTokenRepository: DeviceTokenRepository,
-    private val notificationRepository: NotificationRepository
+    private val notificationRepository: NotificationRepository,
+    private val database: PetHealDatabase,
+    private val photoUploader: PhotoUploader
 ) {
     init {
         // Pre-load token ke cache NetworkInterceptor saat app start
@@ -227,6 +234,8 @@ class AuthRepository @Inject constructor(
             firebaseAuth.signOut()
             // Clear locally stored notifications for the current account
             notificationRepository.clearLocal()
+            // Cache offline (pet, booking, rekam medis) milik akun ini
+            clearOfflineCache()
             // Clear only the session data; keep auth provider for login UX
             preferencesManager.clearSession()
 
@@ -241,11 +250,17 @@ class AuthRepository @Inject constructor(
             networkInterceptor.updateToken(null)
             firebaseAuth.signOut()
             runCatching { notificationRepository.clearLocal() }
+            clearOfflineCache()
 
             Result.Error("Failed to logout from server: ${e.message ?: "Unknown error"}")
         }
     }
 
+    private suspend fun clearOfflineCache() {
+        runCatching { withContext(Dispatchers.IO) { database.clearAllTables() } }
+            .onFailure { android.util.Log.w("AuthRepository", "Failed to clear offline cache", it) }
+    }
+
     suspend fun getProfile(): Result<User> {
         return try {
             val response = apiService.getProfile()
@@ -286,6 +301,29 @@ class AuthRepository @Inject constructor(
         }
     }
     
+    /** Foto dari picker dikompres dulu (PhotoUploader), lalu user terbaru disimpan ke preferences */
+    suspend fun uploadProfilePhoto(photoUri: Uri, onProgress: ((Float) -> Unit)? = null): Result<User> {
+        return try {
+            val response = photoUploader.upload(photoUri, onProgress = onProgress) { photoPart ->
+                apiService.uploadProfilePhoto(photoPart)
+            }
+            val user = response.body()?.data
+            if (response.isSuccessful && response.body()?.success == true && user != null) {
+                preferencesManager.saveUserInfo(
+                    userId = user.id ?: 0,
+                    email = user.email ?: "",
+                    name = user.name ?: "",
+                    photo = user.photo
+                )
+                Result.Success(user)
+            } else {
+                Result.Error(response.body()?.message ?: errorMessageFrom(response, "Failed to upload photo"))
+            }
+        } catch (e: Exception) {
+            Result.Error(e.message ?: "Network error")
+        }
+    }
+
     suspend fun isLoggedIn(): Boolean {
         return preferencesManager.authToken.first() != null
     }
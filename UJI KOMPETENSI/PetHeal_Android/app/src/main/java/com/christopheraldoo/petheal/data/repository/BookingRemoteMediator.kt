@@ -0,0 +1,100 @@
+package com.christopheraldoo.petheal.data.repository
+
+import android.os.SystemClock
+import android.util.Log
+import androidx.paging.ExperimentalPagingApi
+import androidx.paging.LoadType
+import androidx.paging.PagingSource
+import androidx.paging.PagingState
+import androidx.paging.RemoteMediator
+import com.christopheraldoo.petheal.data.local.db.BookingDao
+import com.christopheraldoo.petheal.data.local.db.BookingEntity
+import com.christopheraldoo.petheal.data.local.db.BookingRemoteKey
+import com.christopheraldoo.petheal.data.remote.ApiService
+import java.io.IOException
+
+/**
+ * Filter + urutan list booking. Dikirim apa adanya ke server (GET bookings) dan dipakai
+ * untuk query Room yang sama saat offline, jadi hasil online/offline selalu konsisten.
+ */
+data class BookingQuery(
+    val from: String? = null,          // yyyy-MM-dd, inklusif
+    val to: String? = null,            // yyyy-MM-dd, inklusif
+    val statuses: List<String> = emptyList(),
+    val newestFirst: Boolean = true
+) {
+    private val roomFrom get() = from ?: "0000-00-00"
+    private val roomTo get() = to ?: "9999-99-99"
+    private val anyStatus get() = statuses.isEmpty()
+
+    /** Kunci remote key: satu cursor per kombinasi filter */
+    val key: String get() = "${from.orEmpty()}|${to.orEmpty()}|${statuses.sorted().joinToString(",")}|$newestFirst"
+
+    internal fun pagingSource(dao: BookingDao): PagingSource<Int, BookingEntity> =
+        if (newestFirst) dao.pagingNewestFirst(roomFrom, roomTo, anyStatus, statuses)
+        else dao.pagingOldestFirst(roomFrom, roomTo, anyStatus, statuses)
+
+    internal suspend fun refresh(dao: BookingDao, bookings: List<BookingEntity>, nextCursor: String?) =
+        dao.refreshRange(roomFrom, roomTo, anyStatus, statuses, bookings, BookingRemoteKey(key, nextCursor))
+}
+
+/**
+ * Mengisi tabel bookings halaman demi halaman dari server (cursor pagination).
+ * UI selalu membaca Room; kalau request gagal (offline), baris yang sudah tersimpan tetap tampil.
+ */
+@OptIn(ExperimentalPagingApi::class)
+class BookingRemoteMediator(
+    private val query: BookingQuery,
+    private val apiService: ApiService,
+    private val bookingDao: BookingDao,
+    private val pageSize: Int
+) : RemoteMediator<Int, BookingEntity>() {
+
+    companion object {
+        private const val TAG = "BookingRemoteMediator"
+    }
+
+    override suspend fun load(loadType: LoadType, state: PagingState<Int, BookingEntity>): MediatorResult {
+        val cursor = when (loadType) {
+            LoadType.REFRESH -> null
+            // Daftar hanya bertambah ke bawah
+            LoadType.PREPEND -> return MediatorResult.Success(endOfPaginationReached = true)
+            LoadType.APPEND -> {
+                // Belum pernah refresh sukses (mis. dibuka offline): tunggu refresh berikutnya
+                val key = bookingDao.remoteKey(query.key)
+                    ?: return MediatorResult.Success(endOfPaginationReached = true)
+                key.nextCursor ?: return MediatorResult.Success(endOfPaginationReached = true)
+            }
+        }
+
+        return try {
+            val startedAt = SystemClock.elapsedRealtime()
+            val response = apiService.getBookings(
+                from = query.from,
+                to = query.to,
+                status = query.statuses.takeIf { it.isNotEmpty() }?.joinToString(","),
+                sort = if (query.newestFirst) "newest" else "oldest",
+                cursor = cursor,
+                perPage = pageSize
+            )
+            val body = response.body()
+            if (!response.isSuccessful || body?.success != true) {
+                Log.e(TAG, "load($loadType) failed: ${body?.message} (HTTP ${response.code()})")
+                return MediatorResult.Error(IOException(body?.message ?: "HTTP ${response.code()}"))
+            }
+
+            val rows = body.data.orEmpty().filter { it.id != null }.map(BookingEntity::from)
+            val nextCursor = body.pagination?.nextCursor?.takeIf { body.pagination.hasMore }
+            if (loadType == LoadType.REFRESH) {
+                query.refresh(bookingDao, rows, nextCursor)
+            } else {
+                bookingDao.appendPage(rows, BookingRemoteKey(query.key, nextCursor))
+            }
+            Log.d(TAG, "load($loadType) ${rows.size} rows in ${SystemClock.elapsedRealtime() - startedAt} ms")
+            MediatorResult.Success(endOfPaginationReached = nextCursor == null)
+        } catch (e: Exception) {
+            Log.e(TAG, "load($loadType) exception", e)
+            MediatorResult.Error(e)
+        }
+    }
+}
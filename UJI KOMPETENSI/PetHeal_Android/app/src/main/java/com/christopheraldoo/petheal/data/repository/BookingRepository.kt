@@ -1,17 +1,28 @@
 package com.christopheraldoo.petheal.data.repository
 
 import android.util.Log
+import androidx.paging.ExperimentalPagingApi
+import androidx.paging.Pager
+import androidx.paging.PagingConfig
+import androidx.paging.PagingData
+import androidx.paging.map
+import com.christopheraldoo.petheal.data.local.db.BookingDao
+import com.christopheraldoo.petheal.data.local.db.BookingEntity
 import com.christopheraldoo.petheal.data.model.*
 import com.christopheraldoo.petheal.data.remote.ApiService
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.map
 import javax.inject.Inject
 import javax.inject.Singleton
 
 @Singleton
 class BookingRepository @Inject constructor(
-    private val apiService: ApiService
+    private val apiService: ApiService,
+    private val bookingDao: BookingDao
 ) {
     companion object {
         private const val TAG = "BookingRepository"
+        private const val PAGE_SIZE = 20
     }
 
     /**
@@ -30,12 +41,52 @@ class BookingRepository @Inject constructor(
         }
     }
 
-    suspend fun getBookings(): Result<List<Booking>> {
+    /** Tulis ke cache lokal; kegagalan Room tidak boleh menggagalkan hasil dari API */
+    private suspend fun cache(operation: String, block: suspend () -> Unit) {
+        try {
+            block()
+        } catch (e: Exception) {
+            Log.w(TAG, "cache $operation failed", e)
+        }
+    }
+
+    private suspend fun cacheBooking(operation: String, booking: Booking?) {
+        if (booking?.id != null) cache(operation) { bookingDao.upsert(listOf(BookingEntity.from(booking))) }
+    }
+
+    /**
+     * List booking ber-halaman untuk BookingsScreen. Sumbernya query Room ter-index
+     * (jalan juga offline); BookingRemoteMediator mengisi Room dari server per cursor.
+     */
+    @OptIn(ExperimentalPagingApi::class)
+    fun pagedBookings(query: BookingQuery): Flow<PagingData<Booking>> =
+        Pager(
+            config = PagingConfig(
+                pageSize = PAGE_SIZE,
+                prefetchDistance = PAGE_SIZE / 2,
+                enablePlaceholders = false,
+                // Batasi jumlah booking yang ditahan di memori, halaman jauh di-drop lalu dimuat ulang dari Room
+                maxSize = PAGE_SIZE * 10
+            ),
+            remoteMediator = BookingRemoteMediator(query, apiService, bookingDao, PAGE_SIZE),
+            pagingSourceFactory = { query.pagingSource(bookingDao) }
+        ).flow.map { page -> page.map { it.toModel() } }
+
+    /** Satu halaman booking sesuai [query] (filter dikerjakan server) */
+    suspend fun getBookings(query: BookingQuery = BookingQuery()): Result<List<Booking>> {
         return try {
-            val response = apiService.getBookings()
+            val response = apiService.getBookings(
+                from = query.from,
+                to = query.to,
+                status = query.statuses.takeIf { it.isNotEmpty() }?.joinToString(","),
+                sort = if (query.newestFirst) "newest" else "oldest"
+            )
 
             if (response.isSuccessful && response.body()?.success == true) {
-                Result.Success(response.body()?.data ?: emptyList())
+                val bookings = response.body()?.data ?: emptyList()
+                // Upsert saja: isi tabel per filter diatur BookingRemoteMediator
+                cache("getBookings") { bookingDao.upsert(bookings.filter { it.id != null }.map(BookingEntity::from)) }
+                Result.Success(bookings)
             } else {
                 val error = getErrorMessage(response.code(), response.body()?.message)
                 Log.e(TAG, "getBookings failed: $error (HTTP ${response.code()})")
@@ -70,6 +121,7 @@ class BookingRepository @Inject constructor(
 
             if (response.isSuccessful && response.body()?.success == true) {
                 val booking = response.body()?.data
+                cacheBooking("getBooking($id)", booking)
                 if (booking != null) {
                     Result.Success(booking)
                 } else {
@@ -82,6 +134,8 @@ class BookingRepository @Inject constructor(
             }
         } catch (e: Exception) {
             Log.e(TAG, "getBooking($id) exception", e)
+            // Offline: tampilkan versi terakhir yang tersimpan
+            bookingDao.get(id)?.let { return Result.Success(it.toModel()) }
             Result.Error("Network error: ${e.message}")
         }
     }
@@ -92,6 +146,7 @@ class BookingRepository @Inject constructor(
 
             if (response.isSuccessful && response.body()?.success == true) {
                 val createdBooking = response.body()?.data
+                cacheBooking("createBooking", createdBooking)
                 if (createdBooking != null) {
                     Result.Success(createdBooking)
                 } else {
@@ -114,6 +169,7 @@ class BookingRepository @Inject constructor(
 
             if (response.isSuccessful && response.body()?.success == true) {
                 val booking = response.body()?.data
+                cacheBooking("cancelBooking($id)", booking)
                 if (booking != null) {
                     Result.Success(booking)
                 } else {
@@ -136,6 +192,7 @@ class BookingRepository @Inject constructor(
 
             if (response.isSuccessful && response.body()?.success == true) {
                 val booking = response.body()?.data
+                cacheBooking("rescheduleBooking($id)", booking)
                 if (booking != null) {
                     Result.Success(booking)
                 } else {
@@ -157,6 +214,7 @@ class BookingRepository @Inject constructor(
             val response = apiService.deleteBooking(id)
 
             if (response.isSuccessful) {
+                cache("deleteBooking($id)") { bookingDao.delete(id) }
                 Result.Success(Unit)
             } else {
                 val error = getErrorMessage(response.code(), response.body()?.message)
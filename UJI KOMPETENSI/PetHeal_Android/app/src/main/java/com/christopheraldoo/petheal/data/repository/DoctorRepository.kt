@@ -1,14 +1,21 @@
 package com.christopheraldoo.petheal.data.repository
 
 import android.util.Log
+import com.christopheraldoo.petheal.data.local.db.DoctorDao
+import com.christopheraldoo.petheal.data.local.db.DoctorEntity
 import com.christopheraldoo.petheal.data.model.*
 import com.christopheraldoo.petheal.data.remote.ApiService
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.flow.map
 import javax.inject.Inject
 import javax.inject.Singleton
 
 @Singleton
 class DoctorRepository @Inject constructor(
-    private val apiService: ApiService
+    private val apiService: ApiService,
+    private val doctorDao: DoctorDao
 ) {
     companion object {
         private const val TAG = "DoctorRepository"
@@ -25,6 +32,28 @@ class DoctorRepository @Inject constructor(
     private fun isCacheValid() =
         cachedDoctors != null && (System.currentTimeMillis() - cacheTimestamp) < CACHE_TTL_MS
 
+    // ── Room cache ───────────────────────────────────────────────────────────
+    // Bertahan antar proses: cold start / offline tetap punya daftar dokter.
+    private suspend fun cache(operation: String, block: suspend () -> Unit) {
+        try {
+            block()
+        } catch (e: Exception) {
+            Log.w(TAG, "cache $operation failed", e)
+        }
+    }
+
+    private suspend fun storedDoctors(): List<Doctor>? = try {
+        doctorDao.getAll().map { it.toModel() }.takeIf { it.isNotEmpty() }
+    } catch (e: Exception) {
+        Log.w(TAG, "read cached doctors failed", e)
+        null
+    }
+
+    fun observeDoctors(): Flow<List<Doctor>> =
+        doctorDao.observeAll()
+            .map { rows -> rows.map { it.toModel() } }
+            .flowOn(Dispatchers.Default)
+
     suspend fun getDoctors(forceRefresh: Boolean = false): Result<List<Doctor>> {
         if (!forceRefresh && isCacheValid()) {
             return Result.Success(cachedDoctors!!)
@@ -36,15 +65,16 @@ class DoctorRepository @Inject constructor(
                 cachedDoctors = doctors
                 cacheTimestamp = System.currentTimeMillis()
                 doctors.forEach { if (it.id != null) cachedDoctorById[it.id] = it }
+                cache("getDoctors") { doctorDao.replaceAll(doctors.filter { it.id != null }.map(DoctorEntity::from)) }
                 Result.Success(doctors)
             } else {
                 Log.e(TAG, "getDoctors failed: ${response.body()?.message} (HTTP ${response.code()})")
-                cachedDoctors?.let { return Result.Success(it) }
+                (cachedDoctors ?: storedDoctors())?.let { return Result.Success(it) }
                 Result.Error(response.body()?.message ?: "Failed to get doctors")
             }
         } catch (e: Exception) {
             Log.e(TAG, "getDoctors exception", e)
-            cachedDoctors?.let { return Result.Success(it) }
+            (cachedDoctors ?: storedDoctors())?.let { return Result.Success(it) }
             Result.Error("Network error: ${e.message}")
         }
     }
@@ -57,6 +87,7 @@ class DoctorRepository @Inject constructor(
                 val doctor = response.body()?.data
                 if (doctor != null) {
                     cachedDoctorById[id] = doctor
+                    cache("getDoctor($id)") { doctorDao.upsert(listOf(DoctorEntity.from(doctor))) }
                     Result.Success(doctor)
                 } else {
                     Result.Error("Doctor not found")
@@ -67,6 +98,7 @@ class DoctorRepository @Inject constructor(
             }
         } catch (e: Exception) {
             Log.e(TAG, "getDoctor($id) exception", e)
+            doctorDao.get(id)?.let { return Result.Success(it.toModel()) }
             Result.Error("Network error: ${e.message}")
         }
     }
@@ -1,24 +1,57 @@
 package com.christopheraldoo.petheal.data.repository
 
 import android.util.Log
+import com.christopheraldoo.petheal.data.local.db.MedicalRecordDao
+import com.christopheraldoo.petheal.data.local.db.MedicalRecordEntity
 import com.christopheraldoo.petheal.data.model.*
 import com.christopheraldoo.petheal.data.remote.ApiService
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.flow.map
 import javax.inject.Inject
 import javax.inject.Singleton
 
 @Singleton
 class MedicalRecordRepository @Inject constructor(
-    private val apiService: ApiService
+    private val apiService: ApiService,
+    private val medicalRecordDao: MedicalRecordDao
 ) {
     companion object {
         private const val TAG = "MedicalRecordRepository"
     }
 
+    /** Tulis ke cache lokal; kegagalan Room tidak boleh menggagalkan hasil dari API */
+    private suspend fun cache(operation: String, block: suspend () -> Unit) {
+        try {
+            block()
+        } catch (e: Exception) {
+            Log.w(TAG, "cache $operation failed", e)
+        }
+    }
+
+    /** Rekam medis dari cache lokal; getMedicalRecords() memperbaruinya di background */
+    fun observeMedicalRecords(): Flow<List<MedicalRecord>> =
+        medicalRecordDao.observeAll()
+            .map { rows -> rows.map { it.toModel() } }
+            .flowOn(Dispatchers.Default)
+
+    suspend fun cachedMedicalRecordsByPet(petId: Int): List<MedicalRecord> = try {
+        medicalRecordDao.getByPet(petId).map { it.toModel() }
+    } catch (e: Exception) {
+        Log.w(TAG, "read cached records for pet $petId failed", e)
+        emptyList()
+    }
+
     suspend fun getMedicalRecords(): Result<List<MedicalRecord>> {
         return try {
             val response = apiService.getMedicalRecords()
             if (response.isSuccessful && response.body()?.success == true) {
-                Result.Success(response.body()?.data ?: emptyList())
+                val records = response.body()?.data ?: emptyList()
+                cache("getMedicalRecords") {
+                    medicalRecordDao.replaceAll(records.filter { it.id != null }.map { MedicalRecordEntity.from(it) })
+                }
+                Result.Success(records)
             } else {
                 Log.e(TAG, "getMedicalRecords failed: ${response.body()?.message} (HTTP ${response.code()})")
                 Result.Error(response.body()?.message ?: "Failed to get medical records")
@@ -49,7 +82,11 @@ class MedicalRecordRepository @Inject constructor(
         return try {
             val response = apiService.getMedicalRecordsByPet(petId)
             if (response.isSuccessful && response.body()?.success == true) {
-                Result.Success(response.body()?.data ?: emptyList())
+                val records = response.body()?.data ?: emptyList()
+                cache("getMedicalRecordsByPet($petId)") {
+                    medicalRecordDao.replaceForPet(petId, records.filter { it.id != null }.map { MedicalRecordEntity.from(it, petId) })
+                }
+                Result.Success(records)
             } else {
                 Log.e(TAG, "getMedicalRecordsByPet($petId) failed: ${response.body()?.message} (HTTP ${response.code()})")
                 Result.Error(response.body()?.message ?: "Failed to get medical records")
@@ -1,11 +1,20 @@
 package com.christopheraldoo.petheal.data.repository
 
 import android.util.Log
+import com.christopheraldoo.petheal.data.local.db.PetDao
+import com.christopheraldoo.petheal.data.local.db.PetEntity
+import com.christopheraldoo.petheal.data.local.db.VaccinationDao
+import com.christopheraldoo.petheal.data.local.db.VaccinationEntity
+import com.christopheraldoo.petheal.data.local.db.WeightRecordDao
+import com.christopheraldoo.petheal.data.local.db.WeightRecordEntity
 import com.christopheraldoo.petheal.data.model.*
 import com.christopheraldoo.petheal.data.remote.ApiService
+import com.christopheraldoo.petheal.data.remote.PhotoUploader
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.flow.map
 import okhttp3.MediaType.Companion.toMediaTypeOrNull
-import okhttp3.MultipartBody
-import okhttp3.RequestBody.Companion.asRequestBody
 import okhttp3.RequestBody.Companion.toRequestBody
 import org.json.JSONObject
 import retrofit2.Response
@@ -15,7 +24,11 @@ import javax.inject.Singleton
 
 @Singleton
 class PetRepository @Inject constructor(
-    private val apiService: ApiService
+    private val apiService: ApiService,
+    private val petDao: PetDao,
+    private val vaccinationDao: VaccinationDao,
+    private val weightRecordDao: WeightRecordDao,
+    private val photoUploader: PhotoUploader
 ) {
     companion object {
         private const val TAG = "PetRepository"
@@ -39,11 +52,44 @@ class PetRepository @Inject constructor(
         Log.e(TAG, "$operation failed: $message (HTTP $code)")
     }
 
+    /** Tulis ke cache lokal; kegagalan Room tidak boleh menggagalkan hasil dari API */
+    private suspend fun cache(operation: String, block: suspend () -> Unit) {
+        try {
+            block()
+        } catch (e: Exception) {
+            Log.w(TAG, "cache $operation failed", e)
+        }
+    }
+
+    // ── Offline cache ────────────────────────────────────────────────────────
+    // Layar membaca dari Room (langsung ada isinya saat dibuka), lalu getPets()
+    // dipanggil di background; hasilnya menimpa cache dan Flow ini emit ulang.
+
+    fun observePets(): Flow<List<Pet>> =
+        petDao.observeAll()
+            .map { rows -> rows.map { it.toModel() } }
+            .flowOn(Dispatchers.Default)
+
+    suspend fun cachedWeightRecords(petId: Int): List<WeightRecord> =
+        cachedOrEmpty("weightRecords($petId)") { weightRecordDao.getByPet(petId).map { it.toModel() } }
+
+    suspend fun cachedVaccinations(petId: Int): List<Vaccination> =
+        cachedOrEmpty("vaccinations($petId)") { vaccinationDao.getByPet(petId).map { it.toModel() } }
+
+    private suspend fun <T> cachedOrEmpty(operation: String, block: suspend () -> List<T>): List<T> = try {
+        block()
+    } catch (e: Exception) {
+        Log.w(TAG, "read cached $operation failed", e)
+        emptyList()
+    }
+
     suspend fun getPets(): Result<List<Pet>> {
         return try {
             val response = apiService.getPets()
             if (response.isSuccessful && response.body()?.success == true) {
-                Result.Success(response.body()?.data ?: emptyList())
+                val pets = response.body()?.data ?: emptyList()
+                cache("getPets") { petDao.replaceAll(pets.filter { it.id != null }.map(PetEntity::from)) }
+                Result.Success(pets)
             } else {
                 logError("getPets", response.code(), response.body()?.message)
                 Result.Error(response.errorMessage("Failed to get pets"))
@@ -59,6 +105,7 @@ class PetRepository @Inject constructor(
             val response = apiService.getPet(id)
             if (response.isSuccessful && response.body()?.success == true) {
                 val pet = response.body()?.data
+                if (pet?.id != null) cache("getPet($id)") { petDao.upsert(listOf(PetEntity.from(pet))) }
                 if (pet != null) Result.Success(pet) else Result.Error("Pet not found")
             } else {
                 logError("getPet($id)", response.code(), response.body()?.message)
@@ -66,17 +113,19 @@ class PetRepository @Inject constructor(
             }
         } catch (e: Exception) {
             Log.e(TAG, "getPet($id) exception", e)
+            // Offline: tampilkan versi terakhir yang tersimpan
+            petDao.get(id)?.let { return Result.Success(it.toModel()) }
             Result.Error("Network error: ${e.message}")
         }
     }
 
-    suspend fun createPet(pet: PetRequest, photoFile: File? = null): Result<Pet> {
+    suspend fun createPet(
+        pet: PetRequest,
+        photoFile: File? = null,
+        onUploadProgress: ((Float) -> Unit)? = null
+    ): Result<Pet> {
         return try {
             if (photoFile != null && photoFile.exists()) {
-                val photoPart = MultipartBody.Part.createFormData(
-                    "photo", photoFile.name,
-                    photoFile.asRequestBody("image/*".toMediaTypeOrNull())
-                )
                 val nameBody = pet.name.toRequestBody("text/plain".toMediaTypeOrNull())
                 val speciesBody = pet.species.toRequestBody("text/plain".toMediaTypeOrNull())
                 val breedBody = pet.breed?.toRequestBody("text/plain".toMediaTypeOrNull())
@@ -85,11 +134,15 @@ class PetRepository @Inject constructor(
                 val ageBody = pet.age?.toString()?.toRequestBody("text/plain".toMediaTypeOrNull())
                 val weightBody = pet.weight?.toString()?.toRequestBody("text/plain".toMediaTypeOrNull())
 
-                val response = apiService.createPetWithPhoto(
-                    nameBody, speciesBody, breedBody, genderBody, dobBody, ageBody, weightBody, photoPart
-                )
+                // Create tidak idempotent: jangan di-retry otomatis supaya tidak ada pet ganda
+                val response = photoUploader.upload(photoFile, idempotent = false, onProgress = onUploadProgress) { photoPart ->
+                    apiService.createPetWithPhoto(
+                        nameBody, speciesBody, breedBody, genderBody, dobBody, ageBody, weightBody, photoPart
+                    )
+                }
                 if (response.isSuccessful && response.body()?.success == true) {
                     val createdPet = response.body()?.data
+                    if (createdPet?.id != null) cache("createPet") { petDao.upsert(listOf(PetEntity.from(createdPet))) }
                     if (createdPet != null) Result.Success(createdPet) else Result.Error("Failed to create pet")
                 } else {
                     logError("createPet", response.code(), response.body()?.message)
@@ -99,6 +152,7 @@ class PetRepository @Inject constructor(
                 val response = apiService.createPet(pet)
                 if (response.isSuccessful && response.body()?.success == true) {
                     val createdPet = response.body()?.data
+                    if (createdPet?.id != null) cache("createPet") { petDao.upsert(listOf(PetEntity.from(createdPet))) }
                     if (createdPet != null) Result.Success(createdPet) else Result.Error("Failed to create pet")
                 } else {
                     logError("createPet", response.code(), response.body()?.message)
@@ -116,6 +170,7 @@ class PetRepository @Inject constructor(
             val response = apiService.updatePet(id, pet)
             if (response.isSuccessful && response.body()?.success == true) {
                 val updatedPet = response.body()?.data
+                if (updatedPet?.id != null) cache("updatePet($id)") { petDao.upsert(listOf(PetEntity.from(updatedPet))) }
                 if (updatedPet != null) Result.Success(updatedPet) else Result.Error("Failed to update pet")
             } else {
                 logError("updatePet($id)", response.code(), response.body()?.message)
@@ -130,15 +185,20 @@ class PetRepository @Inject constructor(
     /**
      * Update pet with photo upload
      */
-    suspend fun updatePet(id: Int, pet: PetRequest, photoFile: File?): Result<Pet> {
+    suspend fun updatePet(
+        id: Int,
+        pet: PetRequest,
+        photoFile: File?,
+        onUploadProgress: ((Float) -> Unit)? = null
+    ): Result<Pet> {
         return try {
             if (photoFile != null && photoFile.exists()) {
                 // First update pet info, then upload photo
                 val response = apiService.updatePet(id, pet)
                 if (response.isSuccessful && response.body()?.success == true) {
-                    val photoResp = apiService.uploadPetPhoto(id, MultipartBody.Part.createFormData(
-                        "photo", photoFile.name, photoFile.asRequestBody("image/*".toMediaTypeOrNull())
-                    ))
+                    val photoResp = photoUploader.upload(photoFile, onProgress = onUploadProgress) { photoPart ->
+                        apiService.uploadPetPhoto(id, photoPart)
+                    }
                     if (photoResp.isSuccessful && photoResp.body()?.success == true) {
                         val updatedPet = response.body()?.data
                         if (updatedPet != null) Result.Success(updatedPet) else Result.Error("Failed to update pet")
@@ -160,13 +220,15 @@ class PetRepository @Inject constructor(
         }
     }
 
-    suspend fun uploadPetPhoto(id: Int, photoFile: File): Result<PhotoUploadResponse> {
+    suspend fun uploadPetPhoto(
+        id: Int,
+        photoFile: File,
+        onUploadProgress: ((Float) -> Unit)? = null
+    ): Result<PhotoUploadResponse> {
         return try {
-            val photoPart = MultipartBody.Part.createFormData(
-                "photo", photoFile.name,
-                photoFile.asRequestBody("image/*".toMediaTypeOrNull())
-            )
-            val response = apiService.uploadPetPhoto(id, photoPart)
+            val response = photoUploader.upload(photoFile, onProgress = onUploadProgress) { photoPart ->
+                apiService.uploadPetPhoto(id, photoPart)
+            }
             if (response.isSuccessful) {
                 response.body()?.let { Result.Success(it) } ?: Result.Error("Failed to upload photo")
             } else {
@@ -183,6 +245,11 @@ class PetRepository @Inject constructor(
         return try {
             val response = apiService.deletePet(id)
             if (response.isSuccessful) {
+                cache("deletePet($id)") {
+                    petDao.delete(id)
+                    vaccinationDao.clearForPet(id)
+                    weightRecordDao.clearForPet(id)
+                }
                 Result.Success(Unit)
             } else {
                 logError("deletePet($id)", response.code(), response.body()?.message)
@@ -198,7 +265,14 @@ class PetRepository @Inject constructor(
         return try {
             val response = apiService.getWeightHistory(petId)
             if (response.isSuccessful && response.body()?.success == true) {
-                response.body()?.data?.let { Result.Success(it) }
+                response.body()?.data?.let { data ->
+                    cache("getWeightHistory($petId)") {
+                        weightRecordDao.replaceForPet(
+                            petId, data.records.orEmpty().filter { it.id != null }.map { WeightRecordEntity.from(petId, it) }
+                        )
+                    }
+                    Result.Success(data)
+                }
                     ?: Result.Error("Weight history not found")
             } else {
                 logError("getWeightHistory($petId)", response.code(), response.body()?.message)
@@ -220,7 +294,12 @@ class PetRepository @Inject constructor(
             val request = WeightRecordRequest(weight = weight, recordedAt = recordedAt, notes = notes)
             val response = apiService.addWeightRecord(petId, request)
             if (response.isSuccessful && response.body()?.success == true) {
-                response.body()?.data?.let { Result.Success(it) }
+                response.body()?.data?.let { record ->
+                    if (record.id != null) cache("addWeightRecord($petId)") {
+                        weightRecordDao.upsert(listOf(WeightRecordEntity.from(petId, record)))
+                    }
+                    Result.Success(record)
+                }
                     ?: Result.Error("Failed to save weight record")
             } else {
                 logError("addWeightRecord($petId)", response.code(), response.body()?.message)
@@ -236,7 +315,14 @@ class PetRepository @Inject constructor(
         return try {
             val response = apiService.getVaccinations(petId)
             if (response.isSuccessful && response.body()?.success == true) {
-                response.body()?.data?.let { Result.Success(it) }
+                response.body()?.data?.let { data ->
+                    cache("getVaccinations($petId)") {
+                        vaccinationDao.replaceForPet(
+                            petId, data.vaccinations.orEmpty().filter { it.id != null }.map { VaccinationEntity.from(petId, it) }
+                        )
+                    }
+                    Result.Success(data)
+                }
                     ?: Result.Error("Vaccination history not found")
             } else {
                 logError("getVaccinations($petId)", response.code(), response.body()?.message)
@@ -266,7 +352,12 @@ class PetRepository @Inject constructor(
             )
             val response = apiService.addVaccination(petId, request)
             if (response.isSuccessful && response.body()?.success == true) {
-                response.body()?.data?.let { Result.Success(it) }
+                response.body()?.data?.let { vaccination ->
+                    if (vaccination.id != null) cache("addVaccination($petId)") {
+                        vaccinationDao.upsert(listOf(VaccinationEntity.from(petId, vaccination)))
+                    }
+                    Result.Success(vaccination)
+                }
                     ?: Result.Error("Failed to save vaccination")
             } else {
                 logError("addVaccination($petId)", response.code(), response.body()?.message)
@@ -0,0 +1,48 @@
+package com.christopheraldoo.petheal.di
+
+import android.content.Context
+import androidx.room.Room
+import com.christopheraldoo.petheal.data.local.db.BookingDao
+import com.christopheraldoo.petheal.data.local.db.DoctorDao
+import com.christopheraldoo.petheal.data.local.db.MedicalRecordDao
+import com.christopheraldoo.petheal.data.local.db.PetDao
+import com.christopheraldoo.petheal.data.local.db.PetHealDatabase
+import com.christopheraldoo.petheal.data.local.db.VaccinationDao
+import com.christopheraldoo.petheal.data.local.db.WeightRecordDao
+import dagger.Module
+import dagger.Provides
+import dagger.hilt.InstallIn
+import dagger.hilt.android.qualifiers.ApplicationContext
+import dagger.hilt.components.SingletonComponent
+import javax.inject.Singleton
+
+@Module
+@InstallIn(SingletonComponent::class)
+object DatabaseModule {
+
+    @Provides
+    @Singleton
+    fun provideDatabase(@ApplicationContext context: Context): PetHealDatabase =
+        Room.databaseBuilder(context, PetHealDatabase::class.java, PetHealDatabase.NAME)
+            // Hanya cache: kalau skema berubah, isi ulang dari server saja
+            .fallbackToDestructiveMigration()
+            .build()
+
+    @Provides
+    fun providePetDao(db: PetHealDatabase): PetDao = db.petDao()
+
+    @Provides
+    fun provideBookingDao(db: PetHealDatabase): BookingDao = db.bookingDao()
+
+    @Provides
+    fun provideDoctorDao(db: PetHealDatabase): DoctorDao = db.doctorDao()
+
+    @Provides
+    fun provideMedicalRecordDao(db: PetHealDatabase): MedicalRecordDao = db.medicalRecordDao()
+
+    @Provides
+    fun provideVaccinationDao(db: PetHealDatabase): VaccinationDao = db.vaccinationDao()
+
+    @Provides
+    fun provideWeightRecordDao(db: PetHealDatabase): WeightRecordDao = db.weightRecordDao()
+}
@@ -3,7 +3,10 @@ package com.christopheraldoo.petheal.ui.screens.booking
 import android.util.Log
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
+import androidx.paging.PagingData
+import androidx.paging.cachedIn
 import com.christopheraldoo.petheal.data.model.*
+import com.christopheraldoo.petheal.data.repository.BookingQuery
 import com.christopheraldoo.petheal.data.repository.BookingRepository
 import com.christopheraldoo.petheal.data.repository.PetRepository
 import com.christopheraldoo.petheal.data.repository.DoctorRepository
@@ -12,13 +15,20 @@ import com.christopheraldoo.petheal.data.repository.ServiceRepository
 import com.christopheraldoo.petheal.data.repository.PaymentMethodRepository
 import com.christopheraldoo.petheal.data.repository.Result
 import dagger.hilt.android.lifecycle.HiltViewModel
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableSharedFlow
 import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.SharedFlow
 import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asSharedFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.flatMapLatest
+import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.launch
 import java.time.LocalDate
 import java.time.format.DateTimeFormatter
-import java.time.temporal.ChronoUnit
 import javax.inject.Inject
 
 // Filter and Sort enums
@@ -36,16 +46,30 @@ enum class BookingDateFilter {
     LAST_3_MONTHS  // 3 Bulan
 }
 
+// Isi list (loading/error/item) ada di PagingData, state ini hanya filter dan urutan
 data class BookingsUiState(
-    val bookings: List<Booking> = emptyList(),
-    val allBookings: List<Booking> = emptyList(), // Store all bookings for filtering
-    val isLoading: Boolean = false,
-    val error: String? = null,
-    // Filter and sort state
     val sortOrder: BookingSortOrder = BookingSortOrder.NEWEST_FIRST,
     val dateFilter: BookingDateFilter = BookingDateFilter.ALL
 )
 
+/** Filter tanggal relatif terhadap [today]; batas bawah inklusif, sama seperti filter lama */
+internal fun BookingsUiState.toQuery(today: LocalDate): BookingQuery {
+    val iso = DateTimeFormatter.ISO_LOCAL_DATE
+    val (from, to) = when (dateFilter) {
+        BookingDateFilter.ALL -> null to null
+        BookingDateFilter.TODAY -> today to today
+        BookingDateFilter.YESTERDAY -> today.minusDays(1) to today.minusDays(1)
+        BookingDateFilter.LAST_WEEK -> today.minusWeeks(1) to null
+        BookingDateFilter.LAST_MONTH -> today.minusMonths(1) to null
+        BookingDateFilter.LAST_3_MONTHS -> today.minusMonths(3) to null
+    }
+    return BookingQuery(
+        from = from?.format(iso),
+        to = to?.format(iso),
+        newestFirst = sortOrder == BookingSortOrder.NEWEST_FIRST
+    )
+}
+
 data class BookingDetailUiState(
     val booking: Booking? = null,
     val isLoading: Boolean = false,
@@ -100,6 +124,21 @@ class BookingViewModel @Inject constructor(
 
     private var lastHandledRefreshVersion = 0L
 
+    /**
+     * List booking ber-halaman. Filter/urutan diterjemahkan ke [BookingQuery] yang dikerjakan
+     * server (online) dan query Room ter-index (offline) — tidak ada lagi filter/sort di memori.
+     */
+    @OptIn(ExperimentalCoroutinesApi::class)
+    val pagedBookings: Flow<PagingData<Booking>> = _listState
+        .map { it.toQuery(LocalDate.now()) }
+        .distinctUntilChanged()
+        .flatMapLatest { bookingRepository.pagedBookings(it) }
+        .cachedIn(viewModelScope)
+
+    // PagingData di-refresh oleh LazyPagingItems di layar, VM cukup memberi sinyal
+    private val _refreshRequests = MutableSharedFlow<Unit>(extraBufferCapacity = 1)
+    val refreshRequests: SharedFlow<Unit> = _refreshRequests.asSharedFlow()
+
     init {
         viewModelScope.launch {
             bookingRefreshManager.refreshVersion.collect { version ->
@@ -112,47 +151,23 @@ class BookingViewModel @Inject constructor(
     }
 
     fun loadBookings() {
-        viewModelScope.launch {
-            _listState.value = _listState.value.copy(isLoading = true, error = null)
-            when (val r = bookingRepository.getBookings()) {
-                is Result.Success -> {
-                    val allBookings = r.data
-                    // Apply current filters and sort
-                    val filteredAndSorted = applyFiltersAndSort(allBookings)
-                    _listState.value = _listState.value.copy(
-                        isLoading = false,
-                        allBookings = allBookings,
-                        bookings = filteredAndSorted
-                    )
-                }
-                is Result.Error   -> {
-                    Log.e("BookingViewModel", "loadBookings error: ${r.message}")
-                    _listState.value = _listState.value.copy(
-                        isLoading = false,
-                        error = r.message
-                    )
-                }
-                else -> Unit
-            }
-        }
+        _refreshRequests.tryEmit(Unit)
     }
 
     /**
-     * Change sort order and re-apply filters
+     * Change sort order (new query, list reloads from Room + server)
      */
     fun setSortOrder(sortOrder: BookingSortOrder) {
         Log.d("BookingViewModel", "Sort order changed: $sortOrder")
         _listState.value = _listState.value.copy(sortOrder = sortOrder)
-        applyFiltersAndSort()
     }
 
     /**
-     * Change date filter and re-apply filters
+     * Change date filter (new query, list reloads from Room + server)
      */
     fun setDateFilter(dateFilter: BookingDateFilter) {
         Log.d("BookingViewModel", "Date filter changed: $dateFilter")
         _listState.value = _listState.value.copy(dateFilter = dateFilter)
-        applyFiltersAndSort()
     }
 
     /**
@@ -164,84 +179,6 @@ class BookingViewModel @Inject constructor(
             sortOrder = BookingSortOrder.NEWEST_FIRST,
             dateFilter = BookingDateFilter.ALL
         )
-        applyFiltersAndSort()
-    }
-
-    /**
-     * Apply current filters and sort to all bookings
-     */
-    private fun applyFiltersAndSort() {
-        val currentState = _listState.value
-        val filteredAndSorted = applyFiltersAndSort(currentState.allBookings)
-        _listState.value = currentState.copy(bookings = filteredAndSorted)
-    }
-
-    /**
-     * Apply date filter and sort order to a list of bookings
-     */
-    private fun applyFiltersAndSort(bookings: List<Booking>): List<Booking> {
-        var filtered = bookings
-
-        // Apply date filter
-        filtered = when (_listState.value.dateFilter) {
-            BookingDateFilter.ALL -> filtered
-            BookingDateFilter.TODAY -> {
-                val today = LocalDate.now().format(DateTimeFormatter.ISO_LOCAL_DATE)
-                filtered.filter { it.bookingDate == today }
-            }
-            BookingDateFilter.YESTERDAY -> {
-                val yesterday = LocalDate.now().minusDays(1).format(DateTimeFormatter.ISO_LOCAL_DATE)
-                filtered.filter { it.bookingDate == yesterday }
-            }
-            BookingDateFilter.LAST_WEEK -> {
-                val oneWeekAgo = LocalDate.now().minusWeeks(1)
-                filtered.filter { booking ->
-                    try {
-                        val bookingDate = LocalDate.parse(booking.bookingDate, DateTimeFormatter.ISO_LOCAL_DATE)
-                        !bookingDate.isBefore(oneWeekAgo)
-                    } catch (e: Exception) {
-                        false
-                    }
-                }
-            }
-            BookingDateFilter.LAST_MONTH -> {
-                val oneMonthAgo = LocalDate.now().minusMonths(1)
-                filtered.filter { booking ->
-                    try {
-                        val bookingDate = LocalDate.parse(booking.bookingDate, DateTimeFormatter.ISO_LOCAL_DATE)
-                        !bookingDate.isBefore(oneMonthAgo)
-                    } catch (e: Exception) {
-                        false
-                    }
-                }
-            }
-            BookingDateFilter.LAST_3_MONTHS -> {
-                val threeMonthsAgo = LocalDate.now().minusMonths(3)
-                filtered.filter { booking ->
-                    try {
-                        val bookingDate = LocalDate.parse(booking.bookingDate, DateTimeFormatter.ISO_LOCAL_DATE)
-                        !bookingDate.isBefore(threeMonthsAgo)
-                    } catch (e: Exception) {
-                        false
-                    }
-                }
-            }
-        }
-
-        // Apply sort
-        filtered = when (_listState.value.sortOrder) {
-            BookingSortOrder.NEWEST_FIRST -> {
-                filtered.sortedWith(compareByDescending<Booking> { it.bookingDate ?: "" }
-                    .thenByDescending { it.bookingTime ?: "" })
-            }
-            BookingSortOrder.OLDEST_FIRST -> {
-                filtered.sortedWith(compareBy<Booking> { it.bookingDate ?: "" }
-                    .thenBy { it.bookingTime ?: "" })
-            }
-        }
-
-        Log.d("BookingViewModel", "Filtered bookings: ${filtered.size} (from ${bookings.size})")
-        return filtered
     }
 
     fun loadBookingDetail(id: Int) {
@@ -1,5 +1,6 @@
 package com.christopheraldoo.petheal.ui.screens.booking
 
+import android.os.SystemClock
 import android.util.Log
 import android.widget.Toast
 import androidx.compose.animation.animateColorAsState
@@ -35,6 +36,10 @@ import androidx.compose.ui.unit.sp
 import androidx.compose.ui.platform.LocalContext
 import androidx.compose.ui.platform.LocalView
 import androidx.hilt.navigation.compose.hiltViewModel
+import androidx.paging.LoadState
+import androidx.paging.compose.collectAsLazyPagingItems
+import androidx.paging.compose.itemContentType
+import androidx.paging.compose.itemKey
 import coil.compose.AsyncImage
 import coil.request.CachePolicy
 import coil.request.ImageRequest
@@ -54,10 +59,12 @@ import androidx.compose.foundation.BorderStroke
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.first
 import kotlinx.coroutines.launch
 import androidx.compose.material3.ExperimentalMaterial3Api
 
 private const val TAG = "BookingPhoto"
+private const val LIST_TAG = "BookingsScreen"
 
 // ── Brand tokens ───────────────────────────────────────────────────────────────
 private val BkPrimary       = Color(0xFF2BEE6C)
@@ -120,6 +127,7 @@ fun BookingsScreen(
     viewModel: BookingViewModel = hiltViewModel()
 ) {
     val state by viewModel.listState.collectAsState()
+    val bookings = viewModel.pagedBookings.collectAsLazyPagingItems()
     val isDark = false
     val bg      = if (isDark) BkBgDark      else BkBgLight
     val surface = if (isDark) BkSurfaceDark else BkSurfaceLight
@@ -128,7 +136,17 @@ fun BookingsScreen(
     val textSecondary = if (isDark) Color(0xFF94A3B8)   else Color(0xFF64748B)
     val border        = if (isDark) Color(0x1AFFFFFF)   else Color(0xFFF1F5F9)
 
-    LaunchedEffect(Unit) { viewModel.loadBookings() }
+    // Refresh dari luar layar (booking baru, pembayaran selesai)
+    LaunchedEffect(bookings) {
+        viewModel.refreshRequests.collect { bookings.refresh() }
+    }
+
+    // Time-to-first-row: dari layar dibuka sampai baris pertama (Room atau server) tersedia
+    LaunchedEffect(Unit) {
+        val openedAt = SystemClock.elapsedRealtime()
+        snapshotFlow { bookings.itemCount }.first { it > 0 }
+        Log.i(LIST_TAG, "time-to-first-row ${SystemClock.elapsedRealtime() - openedAt} ms")
+    }
 
     // State for filter/sort bottom sheet
     var showFilterSheet by remember { mutableStateOf(false) }
@@ -140,7 +158,7 @@ fun BookingsScreen(
     // Pull-to-refresh handler
     val onRefresh = {
         isRefreshing = true
-        viewModel.loadBookings()
+        bookings.refresh()
         HapticFeedback.performSelection(view)
         // Simulate minimum refresh time for better UX
         CoroutineScope(Dispatchers.Main).launch {
@@ -227,7 +245,8 @@ fun BookingsScreen(
                 }
             }
 
-            if (state.isLoading && state.bookings.isEmpty()) {
+            val refreshState = bookings.loadState.refresh
+            if (refreshState is LoadState.Loading && bookings.itemCount == 0) {
                 // Show skeleton loading on initial load
                 SkeletonBookingList(count = 3)
             } else {
@@ -236,17 +255,23 @@ fun BookingsScreen(
                     contentPadding = PaddingValues(16.dp),
                     verticalArrangement = Arrangement.spacedBy(12.dp)
                 ) {
-                    if (state.error != null) {
-                        item { ErrorBanner(state.error!!) }
+                    // Gagal sinkron tapi ada data dari Room: tetap tampilkan list tanpa banner
+                    if (refreshState is LoadState.Error && bookings.itemCount == 0) {
+                        item { ErrorBanner(refreshState.error.message ?: "Failed to load bookings") }
                     }
-                    if (state.bookings.isEmpty()) {
+                    if (bookings.itemCount == 0) {
                         item { 
                             EmptyBookingsState(
                                 onBookNow = { /* Navigate to doctor booking */ }
                             ) 
                         }
                     } else {
-                        items(state.bookings) { booking ->
+                        items(
+                            count = bookings.itemCount,
+                            key = bookings.itemKey { it.id ?: 0 },
+                            contentType = bookings.itemContentType { "booking" }
+                        ) { index ->
+                            val booking = bookings[index] ?: return@items
                             BookingCard(
                                 booking = booking,
                                 isDark = isDark,
@@ -263,9 +288,22 @@ fun BookingsScreen(
                                     val remainingAmount = (booking.totalAmount ?: 0.0) - (booking.paidAmount ?: 0.0)
                                     onNavigateToPayment(bookingId, booking.paymentType == "dp", remainingAmount, true)
                                 },
-                                onBookingUpdated = { viewModel.refreshBookings() }
+                                onBookingUpdated = { bookings.refresh() }
                             )
                         }
+                        when (bookings.loadState.append) {
+                            is LoadState.Loading -> item(contentType = "append") {
+                                Box(Modifier.fillMaxWidth().padding(8.dp), contentAlignment = Alignment.Center) {
+                                    CircularProgressIndicator(Modifier.size(24.dp), color = BkPrimary, strokeWidth = 2.dp)
+                                }
+                            }
+                            is LoadState.Error -> item(contentType = "append") {
+                                TextButton(onClick = { bookings.retry() }, modifier = Modifier.fillMaxWidth()) {
+                                    Text("Gagal memuat, coba lagi", fontSize = 13.sp, color = BkPrimary)
+                                }
+                            }
+                            else -> Unit
+                        }
                     }
                 }
             }
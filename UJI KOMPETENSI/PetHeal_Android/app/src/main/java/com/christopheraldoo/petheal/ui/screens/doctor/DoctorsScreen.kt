@@ -9,6 +9,7 @@ import androidx.compose.foundation.layout.*
 import androidx.compose.foundation.lazy.LazyColumn
 import androidx.compose.foundation.lazy.LazyRow
 import androidx.compose.foundation.lazy.items
+import androidx.compose.foundation.lazy.rememberLazyListState
 import androidx.compose.foundation.rememberScrollState
 import androidx.compose.foundation.shape.CircleShape
 import androidx.compose.foundation.shape.RoundedCornerShape
@@ -39,7 +40,11 @@ import com.christopheraldoo.petheal.data.model.Doctor
 import com.christopheraldoo.petheal.data.model.DoctorReview
 import com.christopheraldoo.petheal.data.model.Pet
 import com.christopheraldoo.petheal.data.model.TimeSlot
+import com.christopheraldoo.petheal.util.LocalImageCacheStats
+import com.christopheraldoo.petheal.util.PrefetchListImages
+import com.christopheraldoo.petheal.util.TrackImageCacheStats
 import com.christopheraldoo.petheal.util.buildPhotoUrl
+import com.christopheraldoo.petheal.util.sizedImageRequest
 import java.time.LocalDate
 import java.time.format.DateTimeFormatter
 import java.util.Locale
@@ -54,6 +59,9 @@ private val BorderDark  = Color(0xFFE2E8F0)
 private val TextPrimary = Color(0xFF0F172A)
 private val TextSecDark = Color(0xFF64748B)
 
+// Ukuran decode foto dokter; dipakai juga oleh prefetch list supaya hit di memory cache
+private const val DOC_PHOTO_PX = 256
+
 @Composable
 private fun DocPhoto(
     url: String?,
@@ -61,6 +69,7 @@ private fun DocPhoto(
     fallbackSize: androidx.compose.ui.unit.Dp = size * 0.5f
 ) {
     val context = LocalContext.current
+    val stats = LocalImageCacheStats.current
     val fullUrl = remember(url) { buildPhotoUrl(url) }
     var hasError by remember(fullUrl) { mutableStateOf(false) }
     Box(
@@ -69,17 +78,16 @@ private fun DocPhoto(
     ) {
         if (!fullUrl.isNullOrBlank() && !hasError) {
             AsyncImage(
-                model = ImageRequest.Builder(context)
-                    .data(fullUrl)
+                // Decode image at exact display size — avoids loading 2MB photo
+                // into memory when showing a 56dp circle
+                model = sizedImageRequest(context, fullUrl, DOC_PHOTO_PX)
                     // No extra headers needed — shared OkHttpClient already adds ngrok header
                     .memoryCachePolicy(CachePolicy.ENABLED)
                     .diskCachePolicy(CachePolicy.ENABLED)
                     .memoryCacheKey(fullUrl)
                     .diskCacheKey(fullUrl)
-                    // Decode image at exact display size — avoids loading 2MB photo
-                    // into memory when showing a 56dp circle
-                    .size(256, 256)
                     .crossfade(200)
+                    .apply { stats?.let { listener(it.visibleListener) } }
                     .build(),
                 contentDescription = "Doctor Photo",
                 contentScale = ContentScale.Crop,
@@ -124,6 +132,7 @@ fun DoctorsScreen(
     viewModel: DoctorsViewModel = hiltViewModel()
 ) {
     val state by viewModel.listState.collectAsState()
+    val results by viewModel.searchResults.collectAsState()
     Column(modifier = Modifier.fillMaxSize().background(BgDark)) {
         Box(modifier = Modifier.fillMaxWidth().background(SurfaceDark).padding(top = 44.dp, start = 8.dp, end = 20.dp, bottom = 14.dp)) {
             Row(verticalAlignment = Alignment.CenterVertically) {
@@ -160,10 +169,15 @@ fun DoctorsScreen(
         when {
             state.isLoading -> Box(Modifier.fillMaxSize(), contentAlignment = Alignment.Center) { CircularProgressIndicator(color = Primary) }
             state.error != null -> DoctorsErrorState(message = state.error!!, onRetry = viewModel::loadDoctors)
-            state.filtered.isEmpty() -> DoctorsEmptyState(hasQuery = state.searchQuery.isNotBlank())
-            else -> LazyColumn(contentPadding = PaddingValues(16.dp), verticalArrangement = Arrangement.spacedBy(12.dp)) {
-                items(state.filtered, key = { it.id ?: 0 }) { doctor ->
-                    DoctorCard(doctor = doctor, onClick = { doctor.id?.let(onNavigateToDoctorDetail) })
+            results.isEmpty() && (state.doctors.isEmpty() || state.searchQuery.isNotBlank()) ->
+                DoctorsEmptyState(hasQuery = state.searchQuery.isNotBlank())
+            else -> TrackImageCacheStats("doctors") {
+                val listState = rememberLazyListState()
+                PrefetchListImages(listState, results, widthPx = DOC_PHOTO_PX) { buildPhotoUrl(it.photo) }
+                LazyColumn(state = listState, contentPadding = PaddingValues(16.dp), verticalArrangement = Arrangement.spacedBy(12.dp)) {
+                    items(results, key = { it.id ?: 0 }) { doctor ->
+                        DoctorCard(doctor = doctor, onClick = { doctor.id?.let(onNavigateToDoctorDetail) })
+                    }
                 }
             }
         }
@@ -7,33 +7,33 @@ import com.christopheraldoo.petheal.data.model.Booking
 import com.christopheraldoo.petheal.data.model.Doctor
 import com.christopheraldoo.petheal.data.model.DoctorReview
 import com.christopheraldoo.petheal.data.model.TimeSlot
+import com.christopheraldoo.petheal.data.repository.BookingQuery
 import com.christopheraldoo.petheal.data.repository.BookingRepository
 import com.christopheraldoo.petheal.data.repository.DoctorRepository
 import com.christopheraldoo.petheal.data.repository.PetRepository
 import com.christopheraldoo.petheal.data.repository.Result
 import com.christopheraldoo.petheal.data.model.Pet
+import com.christopheraldoo.petheal.util.indexedSearch
 import dagger.hilt.android.lifecycle.HiltViewModel
 import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.stateIn
 import kotlinx.coroutines.launch
 import java.time.LocalDate
 import java.time.format.DateTimeFormatter
 import javax.inject.Inject
 
+// Hasil pencarian tidak dihitung di sini (dulu getter yang memfilter tiap kali dibaca),
+// lihat DoctorsViewModel.searchResults
 data class DoctorsUiState(
     val doctors: List<Doctor> = emptyList(),
     val isLoading: Boolean = false,
     val error: String? = null,
     val searchQuery: String = ""
-) {
-    val filtered: List<Doctor>
-        get() = if (searchQuery.isBlank()) doctors
-                else doctors.filter {
-                    it.name?.contains(searchQuery, ignoreCase = true) == true ||
-                    it.specialization?.contains(searchQuery, ignoreCase = true) == true
-                }
-}
+)
 
 data class DoctorDetailUiState(
     val doctor: Doctor? = null,
@@ -65,6 +65,13 @@ class DoctorsViewModel @Inject constructor(
     private val _detailState = MutableStateFlow(DoctorDetailUiState())
     val detailState: StateFlow<DoctorDetailUiState> = _detailState.asStateFlow()
 
+    /** Dokter yang cocok dengan searchQuery (nama/spesialisasi), dihitung di background */
+    val searchResults: StateFlow<List<Doctor>> = indexedSearch(
+        items = _listState.map { it.doctors },
+        query = _listState.map { it.searchQuery }
+    ) { listOf(it.name, it.specialization) }
+        .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5_000), emptyList())
+
     init {
         loadDoctors()
     }
@@ -116,7 +123,9 @@ class DoctorsViewModel @Inject constructor(
 
     fun onSearchChange(q: String) {
         _listState.value = _listState.value.copy(searchQuery = q)
-    }    fun loadDoctorDetail(doctorId: Int) {
+    }
+
+    fun loadDoctorDetail(doctorId: Int) {
         viewModelScope.launch {
             _detailState.value = DoctorDetailUiState(isLoading = true)
 
@@ -179,7 +188,8 @@ class DoctorsViewModel @Inject constructor(
 
     private fun loadReviewableBookings(doctorId: Int) {
         viewModelScope.launch {
-            when (val result = bookingRepository.getBookings()) {
+            // Hanya booking selesai yang bisa direview, filter status di server
+            when (val result = bookingRepository.getBookings(BookingQuery(statuses = listOf("completed")))) {
                 is Result.Success -> {
                     val reviewedBookingIds = _detailState.value.reviews.mapNotNull { it.bookingId }.toSet()
                     _detailState.value = _detailState.value.copy(
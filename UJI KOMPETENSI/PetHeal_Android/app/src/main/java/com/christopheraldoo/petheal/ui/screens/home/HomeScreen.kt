@@ -7,8 +7,10 @@ import android.widget.Toast
 import androidx.compose.foundation.background
 import androidx.compose.foundation.border
 import androidx.compose.foundation.clickable
-import androidx.compose.foundation.horizontalScroll
 import androidx.compose.foundation.layout.*
+import androidx.compose.foundation.lazy.LazyRow
+import androidx.compose.foundation.lazy.items
+import androidx.compose.foundation.lazy.rememberLazyListState
 import androidx.compose.foundation.rememberScrollState
 import androidx.compose.foundation.shape.CircleShape
 import androidx.compose.foundation.shape.RoundedCornerShape
@@ -28,13 +30,18 @@ import androidx.compose.ui.text.style.TextOverflow
 import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
 import androidx.compose.ui.platform.LocalContext
+import androidx.compose.ui.platform.LocalDensity
 import androidx.hilt.navigation.compose.hiltViewModel
 import coil.compose.AsyncImage
 import coil.request.ImageRequest
 import com.christopheraldoo.petheal.data.model.Booking
 import com.christopheraldoo.petheal.data.repository.NotificationRepository
+import com.christopheraldoo.petheal.util.LocalImageCacheStats
+import com.christopheraldoo.petheal.util.PrefetchListImages
 import com.christopheraldoo.petheal.util.ThumbnailImage
+import com.christopheraldoo.petheal.util.TrackImageCacheStats
 import com.christopheraldoo.petheal.util.buildPhotoUrl
+import com.christopheraldoo.petheal.util.sizedImageRequest
 
 private const val TAG = "HomePhoto"
 
@@ -441,46 +448,35 @@ fun HomeScreen(
                     )
                 }
                 Spacer(modifier = Modifier.height(12.dp))
-                Row(
-                    modifier = Modifier
-                        .fillMaxWidth()
-                        .horizontalScroll(rememberScrollState())
-                        .padding(horizontal = 24.dp),
-                    horizontalArrangement = Arrangement.spacedBy(16.dp)
-                ) {
-                    HealthTipCard(
-                        imageUrl = "https://lh3.googleusercontent.com/aida-public/AB6AXuCM0DQP85aKKUNdLcsJBJs5Fd2zqyJLha64gB7VjyGegqH4r554kZX7v3NJBdvPhildH2iJLlJDJaWQto8rYOuj867UnlpFdLotuH3NshA5crJYYuwXC9Iohc45R-kXx1HUVSBr6uFr3xNH2T7z-ZKP_LyVA_tcMO1JK87nmQE1QWqCn3mEm2z-XqVZypMrVMGWoji8qjO4m3qMow0ZZU2-D_d9arUzoLjO0GV526jEtRYGALpeecaDCNfNG0S-p6GD5WHEjzVPbN0",
-                        category = "Nutrition",
-                        categoryColor = HomePrimary,
-                        title = "Best Diet for Puppies",
-                        description = "Learn what nutrients are essential for your growing puppy's development.",
-                        surfaceColor = surfaceColor,
-                        borderColor = borderColor,
-                        textPrimary = textPrimary,
-                        textSecondary = textSecondary
-                    )
-                    HealthTipCard(
-                        imageUrl = "https://lh3.googleusercontent.com/aida-public/AB6AXuDpk2AgI23yLIHRLGyKAgTQ7FUa21qinguSCaki3CAY2yz-6ttMUBM-WbnXyFx-Hw2i7DdBqXjZCd7fnd0ngbjPV3IAWILBkq-cZxR67NopI7GZwd_VepQsGn6VRSDcDyGgjCvS4XmMNQmfCIEHL8cJfmlOX1IRU-7jLeb4TjV0UJov0J6BBz0ldpOToUhnji9AtRtwBtCUJk_ZbENNVMEJRV3OimMoazRwD5AoZBl3m8MWawWY88_xeXda_OMd-OS-YrrFY3K5jow",
-                        category = "Behavior",
-                        categoryColor = Color(0xFF3B82F6),
-                        title = "Understanding Cat Purrs",
-                        description = "Why do cats purr? It's not always because they are happy.",
-                        surfaceColor = surfaceColor,
-                        borderColor = borderColor,
-                        textPrimary = textPrimary,
-                        textSecondary = textSecondary
-                    )
-                    HealthTipCard(
-                        imageUrl = "https://lh3.googleusercontent.com/aida-public/AB6AXuA4dZzA3_H-H82Oe_LrsmaQcLX5sQepaViJjwGfXmL9klupomWEcVwdqKxMAiwQpfYRklWyaCNDp1nmTB_6FWnyMd8ViznYBwSc1MZnAAYZGORlnQ6JCyRPzry191rPDu8tHyUNBv94nA2vMfzXjNC6z9FhTxNYh7MSei3dCg32MzHlZ81XjLjMh43_96O6XBMhFrkzxQwRkMvik7xWH2_NGNd7q4fjr3wrzMUYBc4cn78cEiRTTcSmqobi27GdLIWslNEdmeByuNE",
-                        category = "Wellness",
-                        categoryColor = Color(0xFFEA580C),
-                        title = "Regular Vet Checkups",
-                        description = "Annual checkups are key to keeping your pet healthy and catching issues early.",
-                        surfaceColor = surfaceColor,
-                        borderColor = borderColor,
-                        textPrimary = textPrimary,
-                        textSecondary = textSecondary
-                    )
+                // Hit rate cache hanya dihitung untuk baris tips, yang di-prefetch
+                TrackImageCacheStats("home") {
+                    val tipsState = rememberLazyListState()
+                    val density = LocalDensity.current
+                    val tipImageWidthPx = with(density) { HealthTipWidth.roundToPx() }
+                    val tipImageHeightPx = with(density) { HealthTipImageHeight.roundToPx() }
+                    PrefetchListImages(tipsState, HealthTips, tipImageWidthPx, tipImageHeightPx) { it.imageUrl }
+                    LazyRow(
+                        state = tipsState,
+                        modifier = Modifier.fillMaxWidth(),
+                        contentPadding = PaddingValues(horizontal = 24.dp),
+                        horizontalArrangement = Arrangement.spacedBy(16.dp)
+                    ) {
+                        items(HealthTips, key = { it.title }) { tip ->
+                            HealthTipCard(
+                                imageUrl = tip.imageUrl,
+                                imageWidthPx = tipImageWidthPx,
+                                imageHeightPx = tipImageHeightPx,
+                                category = tip.category,
+                                categoryColor = tip.categoryColor,
+                                title = tip.title,
+                                description = tip.description,
+                                surfaceColor = surfaceColor,
+                                borderColor = borderColor,
+                                textPrimary = textPrimary,
+                                textSecondary = textSecondary
+                            )
+                        }
+                    }
                 }
                 Spacer(modifier = Modifier.height(8.dp))
             }
@@ -542,10 +538,48 @@ private fun QuickActionItem(
     }
 }
 
+// ── Health Tips ──────────────────────────────────────────────────────────────
+private data class HealthTip(
+    val imageUrl: String,
+    val category: String,
+    val categoryColor: Color,
+    val title: String,
+    val description: String
+)
+
+private val HealthTipWidth = 260.dp
+private val HealthTipImageHeight = 128.dp
+
+private val HealthTips = listOf(
+    HealthTip(
+        imageUrl = "https://lh3.googleusercontent.com/aida-public/AB6AXuCM0DQP85aKKUNdLcsJBJs5Fd2zqyJLha64gB7VjyGegqH4r554kZX7v3NJBdvPhildH2iJLlJDJaWQto8rYOuj867UnlpFdLotuH3NshA5crJYYuwXC9Iohc45R-kXx1HUVSBr6uFr3xNH2T7z-ZKP_LyVA_tcMO1JK87nmQE1QWqCn3mEm2z-XqVZypMrVMGWoji8qjO4m3qMow0ZZU2-D_d9arUzoLjO0GV526jEtRYGALpeecaDCNfNG0S-p6GD5WHEjzVPbN0",
+        category = "Nutrition",
+        categoryColor = HomePrimary,
+        title = "Best Diet for Puppies",
+        description = "Learn what nutrients are essential for your growing puppy's development."
+    ),
+    HealthTip(
+        imageUrl = "https://lh3.googleusercontent.com/aida-public/AB6AXuDpk2AgI23yLIHRLGyKAgTQ7FUa21qinguSCaki3CAY2yz-6ttMUBM-WbnXyFx-Hw2i7DdBqXjZCd7fnd0ngbjPV3IAWILBkq-cZxR67NopI7GZwd_VepQsGn6VRSDcDyGgjCvS4XmMNQmfCIEHL8cJfmlOX1IRU-7jLeb4TjV0UJov0J6BBz0ldpOToUhnji9AtRtwBtCUJk_ZbENNVMEJRV3OimMoazRwD5AoZBl3m8MWawWY88_xeXda_OMd-OS-YrrFY3K5jow",
+        category = "Behavior",
+        categoryColor = Color(0xFF3B82F6),
+        title = "Understanding Cat Purrs",
+        description = "Why do cats purr? It's not always because they are happy."
+    ),
+    HealthTip(
+        imageUrl = "https://lh3.googleusercontent.com/aida-public/AB6AXuA4dZzA3_H-H82Oe_LrsmaQcLX5sQepaViJjwGfXmL9klupomWEcVwdqKxMAiwQpfYRklWyaCNDp1nmTB_6FWnyMd8ViznYBwSc1MZnAAYZGORlnQ6JCyRPzry191rPDu8tHyUNBv94nA2vMfzXjNC6z9FhTxNYh7MSei3dCg32MzHlZ81XjLjMh43_96O6XBMhFrkzxQwRkMvik7xWH2_NGNd7q4fjr3wrzMUYBc4cn78cEiRTTcSmqobi27GdLIWslNEdmeByuNE",
+        category = "Wellness",
+        categoryColor = Color(0xFFEA580C),
+        title = "Regular Vet Checkups",
+        description = "Annual checkups are key to keeping your pet healthy and catching issues early."
+    )
+)
+
 // ── Health Tip Card ───────────────────────────────────────────────────────────
 @Composable
 private fun HealthTipCard(
     imageUrl: String,
+    imageWidthPx: Int,
+    imageHeightPx: Int,
     category: String,
     categoryColor: Color,
     title: String,
@@ -556,19 +590,23 @@ private fun HealthTipCard(
     textSecondary: Color
 ) {
     Card(
-        modifier = Modifier.width(260.dp),
+        modifier = Modifier.width(HealthTipWidth),
         shape = RoundedCornerShape(12.dp),
         colors = CardDefaults.cardColors(containerColor = surfaceColor),
         border = androidx.compose.foundation.BorderStroke(1.dp, borderColor),
         elevation = CardDefaults.cardElevation(defaultElevation = 2.dp)
     ) {
         Column {
+            val stats = LocalImageCacheStats.current
             AsyncImage(
-                model = imageUrl,
+                // Ukuran sama dengan prefetch di LazyRow supaya kartu berikutnya langsung dari memory cache
+                model = sizedImageRequest(LocalContext.current, imageUrl, imageWidthPx, imageHeightPx)
+                    .apply { stats?.let { listener(it.visibleListener) } }
+                    .build(),
                 contentDescription = title,
                 modifier = Modifier
                     .fillMaxWidth()
-                    .height(128.dp),
+                    .height(HealthTipImageHeight),
                 contentScale = ContentScale.Crop
             )
             Column(modifier = Modifier.padding(12.dp)) {
@@ -18,6 +18,7 @@ import androidx.compose.foundation.clickable
 import androidx.compose.foundation.layout.*
 import androidx.compose.foundation.lazy.LazyColumn
 import androidx.compose.foundation.lazy.itemsIndexed
+import androidx.compose.foundation.lazy.rememberLazyListState
 import androidx.compose.foundation.rememberScrollState
 import androidx.compose.foundation.shape.CircleShape
 import androidx.compose.foundation.shape.RoundedCornerShape
@@ -52,6 +53,9 @@ import com.christopheraldoo.petheal.data.model.Pet
 import com.christopheraldoo.petheal.data.model.MedicalRecord
 import com.christopheraldoo.petheal.data.model.Vaccination
 import com.christopheraldoo.petheal.data.model.WeightRecord
+import com.christopheraldoo.petheal.util.PrefetchListImages
+import com.christopheraldoo.petheal.util.THUMBNAIL_PX
+import com.christopheraldoo.petheal.util.TrackImageCacheStats
 import com.christopheraldoo.petheal.util.buildPhotoUrl
 import com.christopheraldoo.petheal.util.ThumbnailImage
 import com.christopheraldoo.petheal.util.MediumImage
@@ -92,14 +96,8 @@ fun PetsScreen(
 
     var showSearch by remember { mutableStateOf(false) }
 
-    val filteredPets = remember(uiState.pets, uiState.searchQuery) {
-        if (uiState.searchQuery.isBlank()) uiState.pets
-        else uiState.pets.filter {
-            it.name?.contains(uiState.searchQuery, ignoreCase = true) == true ||
-            it.species?.contains(uiState.searchQuery, ignoreCase = true) == true ||
-            it.breed?.contains(uiState.searchQuery, ignoreCase = true) == true
-        }
-    }
+    // Pencarian lewat index di ViewModel (debounce + background), bukan filter per recomposition
+    val filteredPets by viewModel.searchResults.collectAsState()
 
     Box(
         modifier = Modifier
@@ -218,8 +216,17 @@ fun PetsScreen(
                 Box(Modifier.fillMaxSize(), contentAlignment = Alignment.Center) {
                     CircularProgressIndicator(color = PetPrimary)
                 }
-            } else {
+            } else TrackImageCacheStats("pets") {
+                val listState = rememberLazyListState()
+                // Kartu pet berada setelah banner error (kalau tampil)
+                PrefetchListImages(
+                    state = listState,
+                    items = filteredPets,
+                    widthPx = THUMBNAIL_PX,
+                    indexOffset = if (uiState.error != null) 1 else 0
+                ) { buildPhotoUrl(it.photo) }
                 LazyColumn(
+                    state = listState,
                     modifier = Modifier
                         .fillMaxSize()
                         .padding(horizontal = 16.dp),
@@ -246,7 +253,9 @@ fun PetsScreen(
                     }
 
                     // Empty state
-                    if (filteredPets.isEmpty() && !uiState.isLoading) {
+                    if (filteredPets.isEmpty() && !uiState.isLoading &&
+                        (uiState.pets.isEmpty() || uiState.searchQuery.isNotBlank())
+                    ) {
                         item {
                             Column(
                                 modifier = Modifier
@@ -1393,6 +1402,7 @@ fun AddPetScreen(
         title = "Add New Pet",
         submitLabel = "Save Pet Profile",
         isLoading = state.isLoading,
+        uploadProgress = state.uploadProgress,
         error = state.error,
         onNavigateBack = onNavigateBack,
         onSubmit = { name, species, breed, gender, dateOfBirth, age, weight, photoFile ->
@@ -1421,6 +1431,7 @@ fun EditPetScreen(
         title = "Edit Pet",
         submitLabel = "Save Changes",
         isLoading = state.isLoading,
+        uploadProgress = state.uploadProgress,
         error = state.error,
         initialName        = detailState.pet?.name ?: "",
         initialSpecies     = detailState.pet?.species ?: "",
@@ -1467,6 +1478,7 @@ private fun PetFormScreen(
     title: String,
     submitLabel: String,
     isLoading: Boolean,
+    uploadProgress: Float? = null,
     error: String?,
     initialName: String = "",
     initialSpecies: String = "",
@@ -2047,7 +2059,13 @@ private fun PetFormScreen(
                 ),
                 elevation = ButtonDefaults.buttonElevation(defaultElevation = 4.dp)
             ) {
-                if (isLoading) {
+                if (isLoading && uploadProgress != null) {
+                    // Foto sedang dikirim: tampilkan progress sebenarnya
+                    CircularProgressIndicator(progress = uploadProgress, modifier = Modifier.size(22.dp),
+                        color = Color(0xFFF6F8F6), strokeWidth = 2.5.dp)
+                    Spacer(Modifier.width(8.dp))
+                    Text("${(uploadProgress * 100).toInt()}%", fontSize = 14.sp, fontWeight = FontWeight.Bold)
+                } else if (isLoading) {
                     CircularProgressIndicator(modifier = Modifier.size(22.dp),
                         color = Color(0xFFF6F8F6), strokeWidth = 2.5.dp)
                 } else {
@@ -11,10 +11,15 @@ import com.christopheraldoo.petheal.data.model.WeightRecord
 import com.christopheraldoo.petheal.data.repository.PetRepository
 import com.christopheraldoo.petheal.data.repository.MedicalRecordRepository
 import com.christopheraldoo.petheal.data.repository.Result
+import com.christopheraldoo.petheal.util.indexedSearch
 import dagger.hilt.android.lifecycle.HiltViewModel
 import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.stateIn
+import kotlinx.coroutines.flow.update
 import kotlinx.coroutines.launch
 import java.io.File
 import javax.inject.Inject
@@ -43,7 +48,9 @@ data class PetDetailUiState(
 data class AddEditPetUiState(
     val isLoading: Boolean = false,
     val isSuccess: Boolean = false,
-    val error: String? = null
+    val error: String? = null,
+    // 0f..1f selama foto dikirim, null kalau tidak ada upload
+    val uploadProgress: Float? = null
 )
 
 @HiltViewModel
@@ -61,13 +68,33 @@ class PetsViewModel @Inject constructor(
     private val _addEditState = MutableStateFlow(AddEditPetUiState())
     val addEditState: StateFlow<AddEditPetUiState> = _addEditState.asStateFlow()
 
+    /** Pet yang cocok dengan searchQuery (nama/spesies/ras), dihitung di background */
+    val searchResults: StateFlow<List<Pet>> = indexedSearch(
+        items = _uiState.map { it.pets },
+        query = _uiState.map { it.searchQuery }
+    ) { listOf(it.name, it.species, it.breed) }
+        .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5_000), emptyList())
+
     init {
+        // Room dulu: daftar terakhir langsung tampil (juga saat offline), API menyusul lewat loadPets()
+        viewModelScope.launch {
+            petRepository.observePets().collect { pets ->
+                if (pets.isNotEmpty() || !_uiState.value.isLoading) {
+                    _uiState.value = _uiState.value.copy(
+                        pets = pets,
+                        isLoading = _uiState.value.isLoading && pets.isEmpty()
+                    )
+                }
+            }
+        }
         loadPets()
-    }    fun loadPets(forceRefresh: Boolean = false) {
+    }
+
+    fun loadPets(forceRefresh: Boolean = false) {
         viewModelScope.launch {
-            // If we already have data and not forced, show cached instantly then refresh silently
+            // Data dari Room sudah tampil: refresh diam-diam, skeleton hanya kalau layar masih kosong
             val hasCachedData = _uiState.value.pets.isNotEmpty()
-            if (!hasCachedData || forceRefresh) {
+            if (!hasCachedData) {
                 _uiState.value = _uiState.value.copy(isLoading = true, error = null)
             }
             when (val result = petRepository.getPets()) {
@@ -75,7 +102,9 @@ class PetsViewModel @Inject constructor(
                     pets = result.data, isLoading = false, error = null
                 )
                 is Result.Error -> _uiState.value = _uiState.value.copy(
-                    error = result.message, isLoading = false
+                    // Gagal refresh tapi cache ada: tetap tampilkan cache tanpa layar error
+                    error = if (_uiState.value.pets.isEmpty()) result.message else null,
+                    isLoading = false
                 )
                 else -> Unit
             }
@@ -106,6 +135,10 @@ class PetsViewModel @Inject constructor(
 
     private fun loadMedicalRecords(petId: Int) {
         viewModelScope.launch {
+            val cached = medicalRecordRepository.cachedMedicalRecordsByPet(petId)
+            if (cached.isNotEmpty() && _detailState.value.medicalRecords.isEmpty()) {
+                _detailState.value = _detailState.value.copy(medicalRecords = cached)
+            }
             when (val result = medicalRecordRepository.getMedicalRecordsByPet(petId)) {
                 is Result.Success -> {
                     _detailState.value = _detailState.value.copy(
@@ -122,6 +155,10 @@ class PetsViewModel @Inject constructor(
 
     private fun loadWeightHistory(petId: Int) {
         viewModelScope.launch {
+            val cached = petRepository.cachedWeightRecords(petId)
+            if (cached.isNotEmpty() && _detailState.value.weightRecords.isEmpty()) {
+                _detailState.value = _detailState.value.copy(weightRecords = cached)
+            }
             when (val result = petRepository.getWeightHistory(petId)) {
                 is Result.Success -> {
                     _detailState.value = _detailState.value.copy(
@@ -139,6 +176,10 @@ class PetsViewModel @Inject constructor(
 
     private fun loadVaccinations(petId: Int) {
         viewModelScope.launch {
+            val cached = petRepository.cachedVaccinations(petId)
+            if (cached.isNotEmpty() && _detailState.value.vaccinations.isEmpty()) {
+                _detailState.value = _detailState.value.copy(vaccinations = cached)
+            }
             when (val result = petRepository.getVaccinations(petId)) {
                 is Result.Success -> {
                     _detailState.value = _detailState.value.copy(
@@ -243,7 +284,7 @@ class PetsViewModel @Inject constructor(
                 gender = gender, dateOfBirth = dateOfBirth,
                 age = age, weight = weight
             )
-            when (val result = petRepository.createPet(request, photoFile)) {
+            when (val result = petRepository.createPet(request, photoFile, ::onUploadProgress)) {
                 is Result.Success -> {
                     _addEditState.value = AddEditPetUiState(isSuccess = true)
                     loadPets()
@@ -267,7 +308,7 @@ class PetsViewModel @Inject constructor(
                 gender = gender, dateOfBirth = dateOfBirth,
                 age = age, weight = weight
             )
-            when (val result = petRepository.updatePet(id, request, photoFile)) {
+            when (val result = petRepository.updatePet(id, request, photoFile, ::onUploadProgress)) {
                 is Result.Success -> {
                     _addEditState.value = AddEditPetUiState(isSuccess = true)
                     loadPets()
@@ -278,6 +319,11 @@ class PetsViewModel @Inject constructor(
         }
     }
 
+    /** Dipanggil dari thread OkHttp; update() aman dari thread mana pun */
+    private fun onUploadProgress(progress: Float) {
+        _addEditState.update { if (it.isLoading) it.copy(uploadProgress = progress) else it }
+    }
+
     fun setSearchQuery(query: String) {
         _uiState.value = _uiState.value.copy(searchQuery = query)
     }
@@ -1,5 +1,7 @@
 package com.christopheraldoo.petheal.ui.screens.profile
 
+import androidx.activity.compose.rememberLauncherForActivityResult
+import androidx.activity.result.contract.ActivityResultContracts
 import androidx.compose.foundation.background
 import androidx.compose.foundation.border
 import androidx.compose.foundation.clickable
@@ -53,6 +55,9 @@ fun ProfileScreen(
 ) {
     val state by viewModel.profileState.collectAsState()
     var showLogoutDialog by remember { mutableStateOf(false) }
+    val photoPicker = rememberLauncherForActivityResult(ActivityResultContracts.GetContent()) { uri ->
+        uri?.let(viewModel::uploadPhoto)
+    }
 
     // Logout confirmation dialog
     if (showLogoutDialog) {
@@ -129,6 +134,19 @@ fun ProfileScreen(
                                     modifier = Modifier.size(48.dp)
                                 )
                             }
+                            state.photoUploadProgress?.let { progress ->
+                                Box(
+                                    modifier = Modifier.fillMaxSize().background(Color.Black.copy(alpha = 0.35f)),
+                                    contentAlignment = Alignment.Center
+                                ) {
+                                    CircularProgressIndicator(
+                                        progress = progress,
+                                        color = Primary,
+                                        strokeWidth = 3.dp,
+                                        modifier = Modifier.size(40.dp)
+                                    )
+                                }
+                            }
                         }
                         // Camera badge
                         Box(
@@ -136,12 +154,15 @@ fun ProfileScreen(
                                 .size(28.dp)
                                 .clip(CircleShape)
                                 .background(Primary)
-                                .border(2.dp, BgDark, CircleShape),
+                                .border(2.dp, BgDark, CircleShape)
+                                .clickable(enabled = state.photoUploadProgress == null) {
+                                    photoPicker.launch("image/*")
+                                },
                             contentAlignment = Alignment.Center
                         ) {
                             Icon(
                                 imageVector = Icons.Filled.CameraAlt,
-                                contentDescription = null,
+                                contentDescription = "Change Photo",
                                 tint = PrimaryFg,
                                 modifier = Modifier.size(14.dp)
                             )
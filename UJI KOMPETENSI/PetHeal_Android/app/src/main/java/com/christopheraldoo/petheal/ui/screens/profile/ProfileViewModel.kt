@@ -1,5 +1,6 @@
 package com.christopheraldoo.petheal.ui.screens.profile
 
+import android.net.Uri
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
 import com.christopheraldoo.petheal.data.local.PreferencesManager
@@ -11,13 +12,16 @@ import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
 import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.update
 import kotlinx.coroutines.launch
 import javax.inject.Inject
 
 data class ProfileUiState(
     val user: User? = null,
     val isLoading: Boolean = false,
-    val error: String? = null
+    val error: String? = null,
+    // 0f..1f selama foto profil dikirim, null kalau tidak sedang upload
+    val photoUploadProgress: Float? = null
 )
 
 data class EditProfileUiState(
@@ -100,6 +104,22 @@ class ProfileViewModel @Inject constructor(
         }
     }
 
+    fun uploadPhoto(uri: Uri) {
+        if (_profileState.value.photoUploadProgress != null) return
+        viewModelScope.launch {
+            _profileState.update { it.copy(photoUploadProgress = 0f, error = null) }
+            val result = authRepository.uploadProfilePhoto(uri) { progress ->
+                // Dari thread OkHttp; abaikan kalau upload sudah selesai
+                _profileState.update { if (it.photoUploadProgress != null) it.copy(photoUploadProgress = progress) else it }
+            }
+            when (result) {
+                is Result.Success -> _profileState.update { it.copy(user = result.data, photoUploadProgress = null) }
+                is Result.Error -> _profileState.update { it.copy(error = result.message, photoUploadProgress = null) }
+                else -> _profileState.update { it.copy(photoUploadProgress = null) }
+            }
+        }
+    }
+
     fun onNameChange(value: String) {
         _editState.value = _editState.value.copy(name = value, error = null)
     }
@@ -0,0 +1,123 @@
+package com.christopheraldoo.petheal.util
+
+import android.util.Log
+import androidx.compose.runtime.Composable
+import androidx.compose.runtime.CompositionLocalProvider
+import androidx.compose.runtime.DisposableEffect
+import androidx.compose.runtime.remember
+import androidx.compose.runtime.staticCompositionLocalOf
+import coil.decode.DataSource
+import coil.request.ErrorResult
+import coil.request.ImageRequest
+import coil.request.SuccessResult
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.update
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Hit rate memory/disk cache Coil per layar. Baris yang tampil dihitung lewat [Screen.visibleListener]
+ * (dipasang otomatis oleh OptimizedAsyncImage di dalam [TrackImageCacheStats]),
+ * prefetch dihitung terpisah lewat [Screen.prefetchListener].
+ */
+object ImageCacheStats {
+
+    private const val TAG = "ImageCacheStats"
+
+    data class Snapshot(
+        val screen: String,
+        val memoryHits: Int,
+        val diskHits: Int,
+        val networkLoads: Int,
+        val errors: Int,
+        val prefetched: Int,
+        val prefetchCancelled: Int
+    ) {
+        val loads: Int get() = memoryHits + diskHits + networkLoads
+        val memoryHitRate: Float get() = if (loads == 0) 0f else memoryHits.toFloat() / loads
+        val diskHitRate: Float get() = if (loads == 0) 0f else diskHits.toFloat() / loads
+
+        override fun toString(): String =
+            "$screen: $loads loads, memory ${(memoryHitRate * 100).toInt()}%, disk ${(diskHitRate * 100).toInt()}%, " +
+                "network $networkLoads, errors $errors | prefetched $prefetched, cancelled $prefetchCancelled"
+    }
+
+    class Screen internal constructor(val name: String) {
+        private val memoryHits = AtomicInteger()
+        private val diskHits = AtomicInteger()
+        private val networkLoads = AtomicInteger()
+        private val errors = AtomicInteger()
+        private val prefetched = AtomicInteger()
+        private val prefetchCancelled = AtomicInteger()
+
+        private val _visibleInFlight = MutableStateFlow(0)
+        /** Jumlah request baris yang tampil dan belum selesai; prefetch menunggu sampai 0 */
+        val visibleInFlight: StateFlow<Int> = _visibleInFlight.asStateFlow()
+
+        val visibleListener = object : ImageRequest.Listener {
+            override fun onStart(request: ImageRequest) {
+                _visibleInFlight.update { it + 1 }
+            }
+
+            override fun onSuccess(request: ImageRequest, result: SuccessResult) {
+                when (result.dataSource) {
+                    DataSource.MEMORY_CACHE -> memoryHits.incrementAndGet()
+                    DataSource.DISK -> diskHits.incrementAndGet()
+                    else -> networkLoads.incrementAndGet()
+                }
+                finished()
+            }
+
+            override fun onError(request: ImageRequest, result: ErrorResult) {
+                errors.incrementAndGet()
+                finished()
+            }
+
+            override fun onCancel(request: ImageRequest) = finished()
+
+            private fun finished() = _visibleInFlight.update { (it - 1).coerceAtLeast(0) }
+        }
+
+        val prefetchListener = object : ImageRequest.Listener {
+            override fun onSuccess(request: ImageRequest, result: SuccessResult) {
+                if (result.dataSource != DataSource.MEMORY_CACHE) prefetched.incrementAndGet()
+            }
+
+            override fun onCancel(request: ImageRequest) {
+                prefetchCancelled.incrementAndGet()
+            }
+        }
+
+        fun snapshot() = Snapshot(
+            screen = name,
+            memoryHits = memoryHits.get(),
+            diskHits = diskHits.get(),
+            networkLoads = networkLoads.get(),
+            errors = errors.get(),
+            prefetched = prefetched.get(),
+            prefetchCancelled = prefetchCancelled.get()
+        )
+    }
+
+    private val screens = ConcurrentHashMap<String, Screen>()
+
+    fun screen(name: String): Screen = screens.computeIfAbsent(name) { Screen(it) }
+
+    fun snapshots(): List<Snapshot> = screens.values.map { it.snapshot() }
+
+    internal fun log(screen: Screen) = Log.i(TAG, screen.snapshot().toString())
+}
+
+val LocalImageCacheStats = staticCompositionLocalOf<ImageCacheStats.Screen?> { null }
+
+/** Semua gambar di dalam [content] dihitung ke layar [screen]; ringkasan di-log saat layar ditutup */
+@Composable
+fun TrackImageCacheStats(screen: String, content: @Composable () -> Unit) {
+    val stats = remember(screen) { ImageCacheStats.screen(screen) }
+    DisposableEffect(stats) {
+        onDispose { ImageCacheStats.log(stats) }
+    }
+    CompositionLocalProvider(LocalImageCacheStats provides stats, content = content)
+}
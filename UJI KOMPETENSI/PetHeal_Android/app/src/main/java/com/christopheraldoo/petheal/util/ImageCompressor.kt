@@ -0,0 +1,142 @@
+package com.christopheraldoo.petheal.util
+
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.graphics.Matrix
+import android.media.ExifInterface
+import android.os.Build
+import android.os.SystemClock
+import android.util.Log
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.io.InputStream
+
+/**
+ * Hasil kompresi foto sebelum upload. [file] adalah file sementara, hapus setelah dipakai.
+ */
+data class CompressedImage(
+    val file: File,
+    val mimeType: String,
+    val originalBytes: Long,
+    val originalWidth: Int,
+    val originalHeight: Int,
+    val width: Int,
+    val height: Int,
+    val elapsedMs: Long
+) {
+    val bytes: Long get() = file.length()
+    val bytesSaved: Long get() = (originalBytes - bytes).coerceAtLeast(0)
+
+    fun summary(): String =
+        "${originalWidth}x$originalHeight ${originalBytes / 1024} KB → ${width}x$height ${bytes / 1024} KB " +
+            "($mimeType, hemat ${bytesSaved / 1024} KB) dalam $elapsedMs ms"
+}
+
+/**
+ * Foto kamera 12 MP (±4–6 MB) diperkecil sebelum upload:
+ * decode dengan inSampleSize (tidak pernah memuat bitmap full-res), putar sesuai EXIF,
+ * skala ke sisi terpanjang [MAX_EDGE], lalu encode ulang (WebP di API 30+, selain itu JPEG).
+ * Bitmap.compress tidak menulis EXIF, jadi metadata (GPS, model kamera) ikut terbuang.
+ *
+ * Server tetap me-resize ke lebar 800 px (ImageService), [MAX_EDGE] memberi ruang di atasnya.
+ */
+object ImageCompressor {
+
+    private const val TAG = "ImageCompressor"
+    const val MAX_EDGE = 1280
+    const val TARGET_BYTES = 300L * 1024
+    // Turunkan kualitas bertahap sampai di bawah TARGET_BYTES
+    private val QUALITIES = intArrayOf(82, 72, 62)
+
+    /**
+     * Blocking, panggil dari Dispatchers.IO. [open] harus bisa dipanggil berulang
+     * (bounds, EXIF, decode masing-masing membaca stream baru).
+     * Mengembalikan null kalau sumber bukan gambar yang bisa di-decode.
+     */
+    fun compress(originalBytes: Long, outputDir: File, open: () -> InputStream?): CompressedImage? {
+        val startedAt = SystemClock.elapsedRealtime()
+
+        val bounds = BitmapFactory.Options().apply { inJustDecodeBounds = true }
+        open()?.use { BitmapFactory.decodeStream(it, null, bounds) } ?: return null
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) return null
+
+        val orientation = try {
+            open()?.use { ExifInterface(it).getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL) }
+        } catch (e: Exception) {
+            null
+        } ?: ExifInterface.ORIENTATION_NORMAL
+
+        val decodeOptions = BitmapFactory.Options().apply {
+            inSampleSize = sampleSizeFor(bounds.outWidth, bounds.outHeight)
+            inPreferredConfig = Bitmap.Config.ARGB_8888
+        }
+        val decoded = open()?.use { BitmapFactory.decodeStream(it, null, decodeOptions) } ?: return null
+
+        val oriented = scaleAndOrient(decoded, orientation)
+        if (oriented !== decoded) decoded.recycle()
+
+        val (format, mimeType, extension) = outputFormat()
+        val output = File.createTempFile("upload_", extension, outputDir)
+        try {
+            val buffer = ByteArrayOutputStream(256 * 1024)
+            for (quality in QUALITIES) {
+                buffer.reset()
+                oriented.compress(format, quality, buffer)
+                if (buffer.size() <= TARGET_BYTES) break
+            }
+            output.outputStream().use { buffer.writeTo(it) }
+        } catch (e: Exception) {
+            output.delete()
+            throw e
+        } finally {
+            oriented.recycle()
+        }
+
+        return CompressedImage(
+            file = output,
+            mimeType = mimeType,
+            originalBytes = originalBytes,
+            originalWidth = bounds.outWidth,
+            originalHeight = bounds.outHeight,
+            width = oriented.width,
+            height = oriented.height,
+            elapsedMs = SystemClock.elapsedRealtime() - startedAt
+        ).also { Log.i(TAG, it.summary()) }
+    }
+
+    /** Pangkat 2 terbesar yang sisi terpanjangnya masih >= MAX_EDGE setelah di-sample */
+    private fun sampleSizeFor(width: Int, height: Int): Int {
+        var sample = 1
+        val longEdge = maxOf(width, height)
+        while (longEdge / (sample * 2) >= MAX_EDGE) sample *= 2
+        return sample
+    }
+
+    /** Satu createBitmap untuk skala akhir + rotasi/flip EXIF */
+    private fun scaleAndOrient(source: Bitmap, orientation: Int): Bitmap {
+        val longEdge = maxOf(source.width, source.height)
+        val scale = if (longEdge > MAX_EDGE) MAX_EDGE.toFloat() / longEdge else 1f
+
+        val matrix = Matrix()
+        if (scale != 1f) matrix.postScale(scale, scale)
+        when (orientation) {
+            ExifInterface.ORIENTATION_ROTATE_90 -> matrix.postRotate(90f)
+            ExifInterface.ORIENTATION_ROTATE_180 -> matrix.postRotate(180f)
+            ExifInterface.ORIENTATION_ROTATE_270 -> matrix.postRotate(270f)
+            ExifInterface.ORIENTATION_FLIP_HORIZONTAL -> matrix.postScale(-1f, 1f)
+            ExifInterface.ORIENTATION_FLIP_VERTICAL -> matrix.postScale(1f, -1f)
+            ExifInterface.ORIENTATION_TRANSPOSE -> { matrix.postRotate(90f); matrix.postScale(-1f, 1f) }
+            ExifInterface.ORIENTATION_TRANSVERSE -> { matrix.postRotate(270f); matrix.postScale(-1f, 1f) }
+        }
+        if (matrix.isIdentity) return source
+        return Bitmap.createBitmap(source, 0, 0, source.width, source.height, matrix, true)
+    }
+
+    private fun outputFormat(): Triple<Bitmap.CompressFormat, String, String> =
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            Triple(Bitmap.CompressFormat.WEBP_LOSSY, "image/webp", ".webp")
+        } else {
+            // WEBP lama (deprecated) tidak konsisten lossy/lossless antar versi, pakai JPEG
+            Triple(Bitmap.CompressFormat.JPEG, "image/jpeg", ".jpg")
+        }
+}
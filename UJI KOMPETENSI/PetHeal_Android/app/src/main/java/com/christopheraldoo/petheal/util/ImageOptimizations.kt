@@ -1,5 +1,6 @@
 package com.christopheraldoo.petheal.util
 
+import android.content.Context
 import androidx.compose.runtime.Composable
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.graphics.ColorFilter
@@ -9,6 +10,31 @@ import androidx.compose.ui.platform.LocalContext
 import coil.compose.AsyncImage
 import coil.compose.AsyncImagePainter
 import coil.request.ImageRequest
+import coil.size.Scale
+
+// Ukuran decode standar (px). Dipakai juga oleh PrefetchListImages supaya prefetch = ukuran baris
+const val THUMBNAIL_PX = 100
+const val MEDIUM_PX = 400
+
+/**
+ * Request dasar untuk gambar ber-ukuran tetap. Dipakai baris list DAN ListImagePrefetcher:
+ * ukuran + scale yang sama menghasilkan bitmap yang sama di memory cache, jadi hasil prefetch
+ * langsung terpakai saat barisnya muncul.
+ */
+fun sizedImageRequest(
+    context: Context,
+    data: Any?,
+    widthPx: Int,
+    heightPx: Int = widthPx,
+    scale: Scale = Scale.FILL
+): ImageRequest.Builder = ImageRequest.Builder(context)
+    .data(data)
+    .size(widthPx, heightPx)
+    .scale(scale)
+
+/** Sama dengan pemetaan ContentScale → Scale milik AsyncImage */
+internal fun ContentScale.toCoilScale(): Scale =
+    if (this == ContentScale.Fit || this == ContentScale.Inside) Scale.FIT else Scale.FILL
 
 /**
  * ✅ OPTIMIZED: Reusable AsyncImage with automatic resizing & caching
@@ -38,11 +64,11 @@ fun OptimizedAsyncImage(
     colorFilter: ColorFilter? = null,
     onError: ((AsyncImagePainter.State.Error) -> Unit)? = null
 ) {
+    val stats = LocalImageCacheStats.current
     AsyncImage(
-        model = ImageRequest.Builder(LocalContext.current)
-            .data(model)
-            .size(sizePx) // ✅ Resize BEFORE decode → huge memory savings!
+        model = sizedImageRequest(LocalContext.current, model, sizePx, sizePx, contentScale.toCoilScale()) // ✅ Resize BEFORE decode → huge memory savings!
             .crossfade(true)
+            .apply { stats?.let { listener(it.visibleListener) } }
             .build(),
         contentDescription = contentDescription,
         modifier = modifier,
@@ -71,7 +97,7 @@ fun ThumbnailImage(
         model = model,
         contentDescription = contentDescription,
         modifier = modifier,
-        sizePx = 100, // Thumbnail: 100px
+        sizePx = THUMBNAIL_PX, // Thumbnail: 100px
         contentScale = contentScale,
         placeholder = placeholder,
         error = error
@@ -95,7 +121,7 @@ fun MediumImage(
         model = model,
         contentDescription = contentDescription,
         modifier = modifier,
-        sizePx = 400, // Medium: 400px
+        sizePx = MEDIUM_PX, // Medium: 400px
         contentScale = contentScale,
         placeholder = placeholder,
         error = error
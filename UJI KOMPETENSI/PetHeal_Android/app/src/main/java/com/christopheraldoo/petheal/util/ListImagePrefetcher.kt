@@ -0,0 +1,133 @@
+package com.christopheraldoo.petheal.util
+
+import android.content.Context
+import androidx.compose.foundation.lazy.LazyListState
+import androidx.compose.runtime.Composable
+import androidx.compose.runtime.LaunchedEffect
+import androidx.compose.runtime.getValue
+import androidx.compose.runtime.rememberUpdatedState
+import androidx.compose.runtime.snapshotFlow
+import androidx.compose.ui.platform.LocalContext
+import coil.ImageLoader
+import coil.imageLoader
+import coil.memory.MemoryCache
+import coil.size.Scale
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.job
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withPermit
+import kotlinx.coroutines.withTimeoutOrNull
+
+private const val DEFAULT_AHEAD = 6
+private const val MAX_CONCURRENT_PREFETCH = 2
+// Jangan menunggu baris yang lambat selamanya (mis. satu foto besar di koneksi buruk)
+private const val VISIBLE_WAIT_MS = 1_000L
+
+/**
+ * Memuat gambar [ahead] item berikutnya (searah scroll) sebelum barisnya terlihat,
+ * dengan ukuran yang sama persis dengan baris ([widthPx] x [heightPx], lihat sizedImageRequest)
+ * supaya saat muncul langsung diambil dari memory cache.
+ *
+ * - Prefetch yang keluar dari jendela (visible + ahead) dibatalkan.
+ * - Maksimal [MAX_CONCURRENT_PREFETCH] prefetch berjalan, dan masing-masing menunggu sampai
+ *   request baris yang sedang tampil selesai (butuh TrackImageCacheStats di atasnya).
+ * - [indexOffset] = jumlah item LazyList sebelum item pertama [items] (header, banner).
+ */
+@Composable
+fun <T> PrefetchListImages(
+    state: LazyListState,
+    items: List<T>,
+    widthPx: Int,
+    heightPx: Int = widthPx,
+    ahead: Int = DEFAULT_AHEAD,
+    indexOffset: Int = 0,
+    scale: Scale = Scale.FILL,
+    url: (T) -> String?
+) {
+    val context = LocalContext.current
+    val stats = LocalImageCacheStats.current
+    val currentItems by rememberUpdatedState(items)
+    val currentOffset by rememberUpdatedState(indexOffset)
+    val currentUrl by rememberUpdatedState(url)
+
+    LaunchedEffect(state, widthPx, heightPx, ahead, scale, stats) {
+        val prefetcher = ListImagePrefetcher(context, context.imageLoader, this, stats, widthPx, heightPx, scale)
+        var previousFirst = 0
+        snapshotFlow {
+            val visible = state.layoutInfo.visibleItemsInfo
+            VisibleWindow(
+                first = (visible.firstOrNull()?.index ?: 0) - currentOffset,
+                last = (visible.lastOrNull()?.index ?: -1) - currentOffset,
+                itemsVersion = System.identityHashCode(currentItems)
+            )
+        }.collect { window ->
+            val items = currentItems
+            val forward = window.first >= previousFirst
+            previousFirst = window.first
+
+            // Terdekat dari viewport dulu
+            val aheadRange = if (forward) (window.last + 1)..(window.last + ahead)
+            else (window.first - 1) downTo (window.first - ahead)
+            val targets = aheadRange.filter { it in items.indices }.mapNotNull { currentUrl(items[it]) }
+            val visibleUrls = (window.first..window.last).filter { it in items.indices }.mapNotNull { currentUrl(items[it]) }
+            prefetcher.update(targets, keep = targets.toSet() + visibleUrls)
+        }
+    }
+}
+
+private data class VisibleWindow(val first: Int, val last: Int, val itemsVersion: Int)
+
+/** Hanya dipakai dari coroutine LaunchedEffect (main thread), jadi [jobs] tidak perlu sinkronisasi */
+private class ListImagePrefetcher(
+    private val context: Context,
+    private val imageLoader: ImageLoader,
+    private val scope: CoroutineScope,
+    private val stats: ImageCacheStats.Screen?,
+    private val widthPx: Int,
+    private val heightPx: Int,
+    private val scale: Scale
+) {
+    private val jobs = LinkedHashMap<String, Job>()
+    private val permits = Semaphore(MAX_CONCURRENT_PREFETCH)
+
+    fun update(targets: List<String>, keep: Set<String>) {
+        // Yang sudah terlihat tetap jalan (hasilnya masih berguna), yang keluar jendela dibatalkan
+        val iterator = jobs.entries.iterator()
+        while (iterator.hasNext()) {
+            val (url, job) = iterator.next()
+            if (url !in keep) {
+                job.cancel()
+                iterator.remove()
+            }
+        }
+        for (url in targets) {
+            if (url in jobs || isInMemory(url)) continue
+            val job = scope.launch(start = CoroutineStart.LAZY) {
+                try {
+                    permits.withPermit {
+                        // Baris yang tampil lebih penting dari prefetch
+                        withTimeoutOrNull(VISIBLE_WAIT_MS) { stats?.visibleInFlight?.first { it == 0 } }
+                        val request = sizedImageRequest(context, url, widthPx, heightPx, scale)
+                            .apply { stats?.let { listener(it.prefetchListener) } }
+                            .build()
+                        imageLoader.execute(request)
+                    }
+                } finally {
+                    jobs.remove(url, coroutineContext.job)
+                }
+            }
+            jobs[url] = job
+            job.start()
+        }
+    }
+
+    /** Sudah ada di memory cache dengan ukuran yang cukup untuk baris ini */
+    private fun isInMemory(url: String): Boolean {
+        val bitmap = imageLoader.memoryCache?.get(MemoryCache.Key(url))?.bitmap ?: return false
+        return bitmap.width >= widthPx && bitmap.height >= heightPx
+    }
+}
@@ -0,0 +1,148 @@
+package com.christopheraldoo.petheal.util
+
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.FlowPreview
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.debounce
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.flow.map
+import java.text.Normalizer
+import java.util.Locale
+
+/**
+ * Index pencarian in-memory untuk list kecil–menengah (dokter, pet).
+ *
+ * Setiap field dipecah jadi token yang sudah dinormalisasi (huruf kecil, tanpa aksen:
+ * "Dr. José" → "dr", "jose"), lalu semua prefix token disimpan di trie. Query dicocokkan
+ * per kata sebagai prefix dan semua kata harus cocok: "sur vet" menemukan "Veterinary Surgeon".
+ * Build O(total karakter), cari O(panjang query + jumlah hasil), urutan hasil = urutan [items].
+ */
+class SearchIndex<T> private constructor(
+    private val items: List<T>,
+    private val root: Node
+) {
+    private class Node {
+        val children = HashMap<Char, Node>(4)
+        // Indeks item yang punya token dengan prefix ini, naik dan tanpa duplikat
+        var ids = IntArray(2)
+        var size = 0
+
+        fun add(id: Int) {
+            if (size > 0 && ids[size - 1] == id) return
+            if (size == ids.size) ids = ids.copyOf(size * 2)
+            ids[size++] = id
+        }
+    }
+
+    fun search(query: String): List<T> {
+        val tokens = tokenize(query)
+        if (tokens.isEmpty()) return items
+
+        var matches: IntArray? = null
+        var matchCount = 0
+        // Kata paling panjang dulu: biasanya paling selektif, irisan berikutnya jadi kecil
+        for (token in tokens.sortedByDescending { it.length }) {
+            val node = find(token) ?: return emptyList()
+            if (matches == null) {
+                // Salinan: intersect menulis ke array ini, isi trie tidak boleh berubah
+                matches = node.ids.copyOf(node.size)
+                matchCount = node.size
+            } else {
+                matchCount = intersect(matches, matchCount, node.ids, node.size)
+            }
+            if (matchCount == 0) return emptyList()
+        }
+        val ids = matches ?: return items
+        return List(matchCount) { items[ids[it]] }
+    }
+
+    private fun find(prefix: String): Node? {
+        var node = root
+        for (c in prefix) node = node.children[c] ?: return null
+        return node
+    }
+
+    companion object {
+        private val MARKS = Regex("\\p{Mn}+")
+
+        fun <T> build(items: List<T>, fields: (T) -> List<String?>): SearchIndex<T> {
+            val root = Node()
+            items.forEachIndexed { id, item ->
+                for (field in fields(item)) {
+                    if (field.isNullOrBlank()) continue
+                    for (token in tokenize(field)) {
+                        var node = root
+                        for (c in token) {
+                            node = node.children.getOrPut(c) { Node() }
+                            node.add(id)
+                        }
+                    }
+                }
+            }
+            return SearchIndex(items, root)
+        }
+
+        /** Huruf kecil tanpa aksen, dipecah di semua karakter selain huruf/angka */
+        fun tokenize(text: String): List<String> {
+            val folded = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replace(MARKS, "")
+                .lowercase(Locale.ROOT)
+            return folded.splitTokens { !it.isLetterOrDigit() }
+        }
+
+        private inline fun String.splitTokens(isSeparator: (Char) -> Boolean): List<String> {
+            val tokens = ArrayList<String>(4)
+            var start = -1
+            for (i in indices) {
+                if (isSeparator(this[i])) {
+                    if (start >= 0) tokens += substring(start, i)
+                    start = -1
+                } else if (start < 0) {
+                    start = i
+                }
+            }
+            if (start >= 0) tokens += substring(start)
+            return tokens
+        }
+
+        /** Irisan dua array terurut; hasil ditulis ke [a], mengembalikan panjangnya */
+        private fun intersect(a: IntArray, aSize: Int, b: IntArray, bSize: Int): Int {
+            var i = 0
+            var j = 0
+            var n = 0
+            while (i < aSize && j < bSize) {
+                when {
+                    a[i] < b[j] -> i++
+                    a[i] > b[j] -> j++
+                    else -> { a[n++] = a[i]; i++; j++ }
+                }
+            }
+            return n
+        }
+    }
+}
+
+/**
+ * Hasil pencarian [items] untuk [query]: index dibangun ulang hanya saat list berubah,
+ * query di-debounce (kecuali dikosongkan) dan semua kerja jalan di Dispatchers.Default.
+ */
+@OptIn(FlowPreview::class)
+fun <T> indexedSearch(
+    items: Flow<List<T>>,
+    query: Flow<String>,
+    debounceMs: Long = 200L,
+    fields: (T) -> List<String?>
+): Flow<List<T>> {
+    val index = items
+        .distinctUntilChanged()
+        .map { SearchIndex.build(it, fields) }
+    val debouncedQuery = query
+        .map { it.trim() }
+        .distinctUntilChanged()
+        .debounce { if (it.isEmpty()) 0L else debounceMs }
+    return combine(index, debouncedQuery) { idx, q -> idx.search(q) }
+        .distinctUntilChanged()
+        .flowOn(Dispatchers.Default)
+}
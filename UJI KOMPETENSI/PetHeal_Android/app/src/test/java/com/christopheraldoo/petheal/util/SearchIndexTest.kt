@@ -0,0 +1,56 @@
+package com.christopheraldoo.petheal.util
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class SearchIndexTest {
+
+    private data class Doctor(val name: String, val specialization: String?, val clinic: String?)
+
+    private val doctors = listOf(
+        Doctor("Dr. José Ramírez", "Veterinary Surgeon", "Klinik Hewan Sehat"),
+        Doctor("Dr. Ana Putri", "Dermatologi", null),
+        Doctor("Dr. Budi Santoso", "Bedah Umum", "Klinik Hewan Sehat"),
+        Doctor("Drh. Citra Lestari", "Veterinary Dentist", "PetCare Center")
+    )
+
+    private val index = SearchIndex.build(doctors) { listOf(it.name, it.specialization, it.clinic) }
+
+    private fun names(query: String) = index.search(query).map { it.name }
+
+    @Test
+    fun tokenize_foldsAccentsAndCase() {
+        assertEquals(listOf("dr", "jose", "ramirez"), SearchIndex.tokenize("Dr. José  RAMÍREZ"))
+        assertEquals(emptyList<String>(), SearchIndex.tokenize(" .,- "))
+    }
+
+    @Test
+    fun accents_matchBothWays() {
+        assertEquals(listOf("Dr. José Ramírez"), names("jose"))
+        assertEquals(listOf("Dr. José Ramírez"), names("RAMÍR"))
+    }
+
+    @Test
+    fun multipleTokens_mustAllMatchAsPrefixes() {
+        assertEquals(listOf("Dr. José Ramírez"), names("sur vet"))
+        assertEquals(listOf("Dr. José Ramírez", "Drh. Citra Lestari"), names("vet"))
+        assertTrue(names("vet bedah").isEmpty())
+        // Token harus prefix, bukan potongan di tengah kata
+        assertTrue(names("urgeon").isEmpty())
+    }
+
+    @Test
+    fun emptyOrBlankQuery_returnsAllItems() {
+        assertSame(doctors, index.search(""))
+        assertSame(doctors, index.search("   "))
+    }
+
+    @Test
+    fun results_keepInputOrder() {
+        // Token terpanjang dicari dulu, tapi urutan hasil tetap mengikuti list asli
+        assertEquals(listOf("Dr. José Ramírez", "Dr. Budi Santoso"), names("klinik sehat"))
+        assertEquals(doctors.map { it.name }, names("dr"))
+    }
+}
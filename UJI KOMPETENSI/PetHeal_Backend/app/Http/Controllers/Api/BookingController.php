@@ -20,18 +20,69 @@ public function __construct(FCMService $fcmService)
     }
 
     /**
-     * Get all bookings for authenticated user
+     * Get bookings for authenticated user
+     * Filter: from / to (Y-m-d), status (comma separated), sort (newest|oldest)
+     * Cursor pagination: kirim balik pagination.next_cursor sebagai ?cursor= untuk halaman berikutnya
      */
     public function index(Request $request)
     {
-        $bookings = $request->user()->bookings()
+        $validated = $request->validate([
+            'from' => 'nullable|date_format:Y-m-d',
+            'to' => 'nullable|date_format:Y-m-d',
+            'status' => 'nullable|string',
+            'sort' => 'nullable|in:newest,oldest',
+            'per_page' => 'nullable|integer|min:1|max:100',
+            'cursor' => 'nullable|string',
+        ]);
+
+        $direction = ($validated['sort'] ?? 'newest') === 'oldest' ? 'asc' : 'desc';
+        $statuses = array_values(array_intersect(
+            array_map('trim', explode(',', $validated['status'] ?? '')),
+            ['pending', 'confirmed', 'completed', 'cancelled']
+        ));
+
+        $perPage = (int) ($validated['per_page'] ?? 20);
+        $cursor = $this->decodeBookingCursor($validated['cursor'] ?? null);
+
+        // Kolom booking_date dibandingkan langsung (bukan whereDate) supaya index
+        // idx_bookings_user_date_time tetap terpakai
+        $query = $request->user()->bookings()
             ->with(['pet', 'doctor'])
-            ->orderBy('booking_date', 'desc')
-            ->orderBy('booking_time', 'desc')
-            ->paginate(20);
+            ->when($validated['from'] ?? null, fn ($query, $from) => $query->where('booking_date', '>=', $from))
+            ->when($validated['to'] ?? null, fn ($query, $to) => $query->where('booking_date', '<=', $to))
+            ->when($statuses, fn ($query) => $query->whereIn('status', $statuses));
+
+        // Keyset: lanjut tepat setelah baris terakhir halaman sebelumnya (tanggal, jam, id)
+        if ($cursor) {
+            $operator = $direction === 'desc' ? '<' : '>';
+            $query->where(function ($query) use ($cursor, $operator) {
+                $query->where('booking_date', $operator, $cursor['date'])
+                    ->orWhere(function ($query) use ($cursor, $operator) {
+                        $query->where('booking_date', $cursor['date'])
+                            ->where('booking_time', $operator, $cursor['time']);
+                    })
+                    ->orWhere(function ($query) use ($cursor, $operator) {
+                        $query->where('booking_date', $cursor['date'])
+                            ->where('booking_time', $cursor['time'])
+                            ->where('id', $operator, $cursor['id']);
+                    });
+            });
+        }
+
+        // Ambil satu baris lebih untuk tahu masih ada halaman berikutnya, tanpa COUNT(*)
+        $bookings = $query
+            ->orderBy('booking_date', $direction)
+            ->orderBy('booking_time', $direction)
+            ->orderBy('id', $direction)
+            ->limit($perPage + 1)
+            ->get();
+
+        $hasMore = $bookings->count() > $perPage;
+        $bookings = $bookings->take($perPage)->values();
+        $last = $bookings->last();
 
         // Add full URL for doctor photos
-        $bookings->getCollection()->transform(function ($booking) {
+        $bookings->transform(function ($booking) {
             if ($booking->doctor) {
                 $booking->doctor->photo_url = $booking->doctor->photo
                     ? asset('storage/' . $booking->doctor->photo)
@@ -42,16 +93,41 @@ public function index(Request $request)
 
         return response()->json([
             'success' => true,
-            'data' => $bookings->items(),
+            'data' => $bookings,
             'pagination' => [
-                'current_page' => $bookings->currentPage(),
-                'last_page' => $bookings->lastPage(),
-                'per_page' => $bookings->perPage(),
-                'total' => $bookings->total(),
+                'per_page' => $perPage,
+                'next_cursor' => $hasMore && $last ? $this->encodeBookingCursor($last) : null,
+                'has_more' => $hasMore,
             ],
         ]);
     }
 
+    /**
+     * Cursor = base64 dari nilai mentah kolom urutan baris terakhir (tanpa cast Carbon)
+     */
+    private function encodeBookingCursor(Booking $booking): string
+    {
+        return rtrim(strtr(base64_encode(json_encode([
+            'date' => $booking->getRawOriginal('booking_date'),
+            'time' => $booking->getRawOriginal('booking_time'),
+            'id' => $booking->id,
+        ])), '+/', '-_'), '=');
+    }
+
+    private function decodeBookingCursor(?string $cursor): ?array
+    {
+        if (!$cursor) {
+            return null;
+        }
+
+        $decoded = json_decode(base64_decode(strtr($cursor, '-_', '+/')), true);
+        if (!is_array($decoded) || !isset($decoded['date'], $decoded['time'], $decoded['id'])) {
+            abort(response()->json(['success' => false, 'message' => 'Invalid cursor'], 422));
+        }
+
+        return $decoded;
+    }
+
     /**
      * Get upcoming bookings
      * ✅ OPTIMIZED: Limit to 1 result for Home Screen performance
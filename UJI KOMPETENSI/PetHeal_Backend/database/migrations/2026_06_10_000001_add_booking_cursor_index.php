@@ -0,0 +1,23 @@
+<?php
+
+use Illuminate\Database\Migrations\Migration;
+use Illuminate\Database\Schema\Blueprint;
+use Illuminate\Support\Facades\Schema;
+
+return new class extends Migration
+{
+    public function up(): void
+    {
+        Schema::table('bookings', function (Blueprint $table) {
+            // Cursor pagination GET /bookings: filter user + range tanggal, urut tanggal/jam/id
+            $table->index(['user_id', 'booking_date', 'booking_time', 'id'], 'idx_bookings_user_date_time');
+        });
+    }
+
+    public function down(): void
+    {
+        Schema::table('bookings', function (Blueprint $table) {
+            $table->dropIndex('idx_bookings_user_date_time');
+        });
+    }
+};
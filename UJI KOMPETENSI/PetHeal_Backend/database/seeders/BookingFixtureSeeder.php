@@ -0,0 +1,70 @@
+<?php
+
+namespace Database\Seeders;
+
+use App\Models\Doctor;
+use App\Models\Pet;
+use App\Models\User;
+use Illuminate\Database\Seeder;
+use Illuminate\Support\Facades\DB;
+
+/**
+ * Fixture 5.000 booking untuk satu user, dipakai untuk mengukur memori dan
+ * time-to-first-row layar Booking di aplikasi Android.
+ * Tidak dipanggil DatabaseSeeder; jalankan manual:
+ *   BOOKING_FIXTURE_EMAIL=user@mail.com php artisan db:seed --class=BookingFixtureSeeder
+ */
+class BookingFixtureSeeder extends Seeder
+{
+    private const TOTAL = 5000;
+    private const CHUNK = 500;
+
+    public function run(): void
+    {
+        $email = env('BOOKING_FIXTURE_EMAIL');
+        $user = $email
+            ? User::where('email', $email)->first()
+            : User::where('role', '!=', 'admin')->orderBy('id')->first();
+
+        if (!$user) {
+            $this->command->error('User untuk fixture tidak ditemukan.');
+            return;
+        }
+
+        $doctorIds = Doctor::pluck('id')->all();
+        if (empty($doctorIds)) {
+            $this->command->error('Belum ada dokter, jalankan DatabaseSeeder dulu.');
+            return;
+        }
+
+        $petIds = $user->pets()->pluck('id')->all();
+        if (empty($petIds)) {
+            $petIds = [Pet::create(['user_id' => $user->id, 'name' => 'Fixture', 'species' => 'cat'])->id];
+        }
+
+        $statuses = ['pending', 'confirmed', 'completed', 'cancelled'];
+        $times = ['09:00:00', '10:00:00', '11:00:00', '13:00:00', '14:00:00', '15:00:00', '16:00:00'];
+        $now = now();
+
+        for ($offset = 0; $offset < self::TOTAL; $offset += self::CHUNK) {
+            $rows = [];
+            for ($i = $offset; $i < min($offset + self::CHUNK, self::TOTAL); $i++) {
+                $rows[] = [
+                    'user_id' => $user->id,
+                    'pet_id' => $petIds[$i % count($petIds)],
+                    'doctor_id' => $doctorIds[$i % count($doctorIds)],
+                    // Tersebar ~3 tahun ke belakang sampai 2 bulan ke depan
+                    'booking_date' => $now->copy()->subDays(intdiv($i, 4) - 60)->toDateString(),
+                    'booking_time' => $times[$i % count($times)],
+                    'status' => $statuses[$i % count($statuses)],
+                    'notes' => 'Fixture #' . ($i + 1),
+                    'created_at' => $now,
+                    'updated_at' => $now,
+                ];
+            }
+            DB::table('bookings')->insert($rows);
+        }
+
+        $this->command->info('Created ' . self::TOTAL . " fixture bookings for {$user->email}.");
+    }
+}